@@ -0,0 +1,107 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.util.concurrent.BatchHelper;
+import io.github.bucket4j.util.concurrent.FlatCombiningBatchHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares {@link BatchHelper} that collects waiters in the linked stack
+ * with {@link FlatCombiningBatchHelper} that publishes tasks into the ring of pre-allocated slots.
+ * Execution of combined task is emulated by burning the fixed amount of CPU, so difference between results is caused by batching machinery only.
+ * Run with {@code -prof gc} (as {@link EightThreads} does) to compare allocation rate per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchHelperBenchmark {
+
+    private static final long BACKEND_CPU_TOKENS = 100;
+
+    @State(Scope.Benchmark)
+    public static class BatchHelperState {
+
+        public final BatchHelper<Long, Long, List<Long>, List<Long>> stackHelper = BatchHelper.sync(
+                Function.identity(), BatchHelperState::executeCombined, BatchHelperState::executeSingle, Function.identity()
+        );
+
+        public final FlatCombiningBatchHelper<Long, Long, List<Long>, List<Long>> flatCombiningHelper = FlatCombiningBatchHelper.sync(
+                Function.identity(), BatchHelperState::executeCombined, BatchHelperState::executeSingle, Function.identity(), 64
+        );
+
+        private static List<Long> executeCombined(List<Long> tasks) {
+            Blackhole.consumeCPU(BACKEND_CPU_TOKENS);
+            List<Long> results = new ArrayList<>(tasks.size());
+            for (Long task : tasks) {
+                results.add(task + 1);
+            }
+            return results;
+        }
+
+        private static Long executeSingle(Long task) {
+            Blackhole.consumeCPU(BACKEND_CPU_TOKENS);
+            return task + 1;
+        }
+
+    }
+
+    @Benchmark
+    public Long stack(BatchHelperState state) {
+        return state.stackHelper.execute(42L);
+    }
+
+    @Benchmark
+    public Long flatCombining(BatchHelperState state) {
+        return state.flatCombiningHelper.execute(42L);
+    }
+
+    public static class EightThreads {
+
+        public static void main(String[] args) throws RunnerException {
+            Options opt = new OptionsBuilder()
+                    .include(BatchHelperBenchmark.class.getSimpleName())
+                    .warmupIterations(10)
+                    .measurementIterations(10)
+                    .threads(8)
+                    .forks(1)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(opt).run();
+        }
+
+    }
+
+}
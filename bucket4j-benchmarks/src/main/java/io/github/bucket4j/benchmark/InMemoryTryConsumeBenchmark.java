@@ -0,0 +1,75 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.benchmark.state.InMemoryState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reference benchmark for the distributed command pipeline, the backend neither serializes commands nor does any network call,
+ * so results show the cost of proxy, command and request machinery itself. Other backends should be compared against it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InMemoryTryConsumeBenchmark {
+
+    @Benchmark
+    public boolean tryConsume(InMemoryState state) {
+        return state.unlimitedBucket.tryConsume(1);
+    }
+
+    @Benchmark
+    public ConsumptionProbe tryConsumeAndReturnRemaining(InMemoryState state) {
+        return state.unlimitedBucket.tryConsumeAndReturnRemaining(1);
+    }
+
+    @Benchmark
+    public long getAvailableTokens(InMemoryState state) {
+        return state.unlimitedBucket.getAvailableTokens();
+    }
+
+    public static class OneThread {
+
+        public static void main(String[] args) throws RunnerException {
+            Options opt = new OptionsBuilder()
+                    .include(InMemoryTryConsumeBenchmark.class.getSimpleName())
+                    .warmupIterations(10)
+                    .measurementIterations(10)
+                    .threads(1)
+                    .forks(1)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(opt).run();
+        }
+
+    }
+
+}
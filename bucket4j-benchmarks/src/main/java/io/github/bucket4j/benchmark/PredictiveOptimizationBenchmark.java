@@ -0,0 +1,120 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark;
+
+import io.github.bucket4j.benchmark.state.PredictiveOptimizationState;
+import io.github.bucket4j.distributed.BucketProxy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures per-call cost of {@link io.github.bucket4j.distributed.proxy.optimization.predictive.PredictiveOptimization}
+ * and the share of requests that it serves without remote call, the share is reported by "skipped" and "synced" counters.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PredictiveOptimizationBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SkipCounters {
+
+        public long skipped;
+        public long synced;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            skipped = 0;
+            synced = 0;
+        }
+
+    }
+
+    @Benchmark
+    public boolean tryConsumeOneToken_predictive(PredictiveOptimizationState state, SkipCounters counters) {
+        return tryConsume(state, state.predictiveBucket, counters);
+    }
+
+    @Benchmark
+    public boolean tryConsumeOneToken_predictiveWithRateSmoothing(PredictiveOptimizationState state, SkipCounters counters) {
+        return tryConsume(state, state.smoothedPredictiveBucket, counters);
+    }
+
+    @Benchmark
+    public boolean sampling_checkAndPredict(PredictiveOptimizationState state) {
+        long now = System.nanoTime();
+        if (state.sampling.isNeedToExecuteRemoteImmediately(now)) {
+            state.samplingConsumedTokens += 1_000;
+            state.sampling.rememberRemoteCommandResult(10, state.samplingConsumedTokens, now);
+            return false;
+        }
+        return state.sampling.predictedConsumptionByOthersSinceLastSync(now) > 0;
+    }
+
+    @Benchmark
+    public long sampling_rememberRemoteCommandResult(PredictiveOptimizationState state) {
+        state.samplingTimeNanos += 1_000_000;
+        state.samplingConsumedTokens += 1_000;
+        state.sampling.rememberRemoteCommandResult(10, state.samplingConsumedTokens, state.samplingTimeNanos);
+        return state.sampling.getLastSyncTimeNanos();
+    }
+
+    private static boolean tryConsume(PredictiveOptimizationState state, BucketProxy bucket, SkipCounters counters) {
+        long remoteCallsBefore = state.proxyManager.remoteCalls;
+        boolean consumed = bucket.tryConsume(1);
+        if (state.proxyManager.remoteCalls == remoteCallsBefore) {
+            counters.skipped++;
+        } else {
+            counters.synced++;
+        }
+        return consumed;
+    }
+
+    public static class OneThread {
+
+        public static void main(String[] args) throws RunnerException {
+            Options opt = new OptionsBuilder()
+                    .include(PredictiveOptimizationBenchmark.class.getSimpleName())
+                    .warmupIterations(10)
+                    .measurementIterations(10)
+                    .threads(1)
+                    .forks(1)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(opt).run();
+        }
+
+    }
+
+}
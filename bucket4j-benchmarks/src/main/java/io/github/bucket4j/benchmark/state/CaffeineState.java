@@ -0,0 +1,55 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.caffeine.CaffeineProxyManager;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+
+@State(Scope.Thread)
+public class CaffeineState {
+
+    private final CaffeineProxyManager<Long> proxyManager = new CaffeineProxyManager<>(newBuilder(), Duration.ofMinutes(1));
+
+    public final BucketProxy unlimitedBucket = proxyManager.builder().build(1L, BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2)))
+            .build());
+
+    private final CaffeineProxyManager<Long> inPlaceProxyManager = new CaffeineProxyManager<>(newBuilder(), Duration.ofMinutes(1), ClientSideConfig.getDefault(), true);
+
+    public final BucketProxy unlimitedInPlaceBucket = inPlaceProxyManager.builder().build(1L, BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2)))
+            .build());
+
+    @SuppressWarnings("unchecked")
+    private static Caffeine<Long, RemoteBucketState> newBuilder() {
+        // Caffeine.newBuilder() is typed as <Object, Object>, key and value types are narrowed only at build time
+        return (Caffeine<Long, RemoteBucketState>) (Caffeine<?, ?>) Caffeine.newBuilder();
+    }
+
+}
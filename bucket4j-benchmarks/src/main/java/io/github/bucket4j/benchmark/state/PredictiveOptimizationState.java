@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.benchmark.state;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.in_memory.InMemoryProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.distributed.proxy.optimization.PredictionParameters;
+import io.github.bucket4j.distributed.proxy.optimization.predictive.Sampling;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.Request;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+
+@State(Scope.Thread)
+public class PredictiveOptimizationState {
+
+    private static final DelayParameters DELAY_PARAMETERS = new DelayParameters(1_000, Duration.ofMillis(50));
+    private static final PredictionParameters PREDICTION_PARAMETERS = PredictionParameters.createDefault(DELAY_PARAMETERS);
+
+    public final CountingProxyManager proxyManager = new CountingProxyManager();
+
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(Long.MAX_VALUE / 2, Duration.ofNanos(Long.MAX_VALUE / 2)))
+            .build();
+
+    public final BucketProxy predictiveBucket = proxyManager.builder()
+            .withOptimization(Optimizations.predicting(DELAY_PARAMETERS, PREDICTION_PARAMETERS))
+            .build(1L, configuration);
+
+    public final BucketProxy smoothedPredictiveBucket = proxyManager.builder()
+            .withOptimization(Optimizations.predicting(DELAY_PARAMETERS, PREDICTION_PARAMETERS.withRateSmoothing(Duration.ofMillis(100))))
+            .build(2L, configuration);
+
+    public final Sampling sampling = new Sampling(PREDICTION_PARAMETERS);
+    public long samplingTimeNanos;
+    public long samplingConsumedTokens;
+
+    /**
+     * In-memory storage that executes commands without serialization, so cost of remote call is minimal
+     * and benchmark measures the overhead of optimization itself.
+     */
+    public static class CountingProxyManager extends InMemoryProxyManager<Long> {
+
+        public long remoteCalls;
+
+        public CountingProxyManager() {
+            super(Duration.ofMinutes(1));
+        }
+
+        @Override
+        public <T> CommandResult<T> execute(Long key, Request<T> request) {
+            remoteCalls++;
+            return super.execute(key, request);
+        }
+
+    }
+
+}
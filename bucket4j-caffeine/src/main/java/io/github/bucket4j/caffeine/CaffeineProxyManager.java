@@ -23,6 +23,7 @@ package io.github.bucket4j.caffeine;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
@@ -34,13 +35,23 @@ import io.github.bucket4j.distributed.remote.Request;
 import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The extension of Bucket4j library addressed to support <a href="https://github.com/ben-manes/caffeine">Caffeine</a> caching library.
+ *
+ * <p>By default each command is executed inside {@link java.util.concurrent.ConcurrentMap#compute} against the copy of the state,
+ * so values of {@link #getCache()} are never modified after they have been put to the cache.
+ * When in-place execution is enabled via {@link #CaffeineProxyManager(Caffeine, Duration, ClientSideConfig, boolean)},
+ * the map is locked only for creation of the bucket, and commands against existing bucket are executed
+ * under the monitor of cached state that is modified in place, without any allocation of intermediate objects.
  */
 public class CaffeineProxyManager<K> extends AbstractProxyManager<K> {
 
     private final Cache<K, RemoteBucketState> cache;
+    private final boolean inPlaceExecution;
+    private final long keepAfterRefillDurationNanos;
+    private final Policy.VarExpiration<K, RemoteBucketState> varExpiration;
 
     /**
      * Creates new instance of {@link CaffeineProxyManager}
@@ -53,7 +64,23 @@ public class CaffeineProxyManager<K> extends AbstractProxyManager<K> {
     }
 
     public CaffeineProxyManager(Caffeine<K, RemoteBucketState> builder, Duration keepAfterRefillDuration, ClientSideConfig clientSideConfig) {
+        this(builder, keepAfterRefillDuration, clientSideConfig, false);
+    }
+
+    /**
+     * Creates new instance of {@link CaffeineProxyManager}
+     *
+     * @param builder the builder that will be used for cache creation
+     * @param keepAfterRefillDuration specifies how long bucket should be held in the cache after all consumed tokens have been refilled.
+     * @param clientSideConfig the client side configuration
+     * @param inPlaceExecution if {@code true} then commands against existing bucket modify the cached state in place under its monitor,
+     *                         instead of replacing the copy of state inside {@link java.util.concurrent.ConcurrentMap#compute}.
+     *                         Commands that race with eviction of the bucket can be lost, the same as if they were executed right before eviction.
+     */
+    public CaffeineProxyManager(Caffeine<K, RemoteBucketState> builder, Duration keepAfterRefillDuration, ClientSideConfig clientSideConfig, boolean inPlaceExecution) {
         super(clientSideConfig);
+        this.inPlaceExecution = inPlaceExecution;
+        this.keepAfterRefillDurationNanos = keepAfterRefillDuration.toNanos();
         this.cache = builder
             .expireAfter(new Expiry<K, RemoteBucketState>() {
                 @Override
@@ -72,12 +99,17 @@ public class CaffeineProxyManager<K> extends AbstractProxyManager<K> {
 
                 @Override
                 public long expireAfterRead(K key, RemoteBucketState bucketState, long currentTime, long currentDuration) {
+                    if (inPlaceExecution) {
+                        // reading does not change the state, expiration is updated by the modifier itself
+                        return currentDuration;
+                    }
                     long currentTimeNanos = getCurrentTime(clientSideConfig);
                     long nanosToFullRefill = bucketState.calculateFullRefillingTime(currentTimeNanos);
                     return nanosToFullRefill + keepAfterRefillDuration.toNanos();
                 }
             })
             .build();
+        this.varExpiration = cache.policy().expireVariably().get();
     }
 
     /**
@@ -91,6 +123,10 @@ public class CaffeineProxyManager<K> extends AbstractProxyManager<K> {
 
     @Override
     public <T> CommandResult<T> execute(K key, Request<T> request) {
+        return inPlaceExecution ? executeInPlace(key, request) : executeWithCopy(key, request);
+    }
+
+    private <T> CommandResult<T> executeWithCopy(K key, Request<T> request) {
         CommandResult<T>[] resultHolder = new CommandResult[1];
 
         cache.asMap().compute(key, (K k, RemoteBucketState previousState) -> {
@@ -120,6 +156,72 @@ public class CaffeineProxyManager<K> extends AbstractProxyManager<K> {
         return resultHolder[0];
     }
 
+    private <T> CommandResult<T> executeInPlace(K key, Request<T> request) {
+        while (true) {
+            RemoteBucketState cachedState = cache.getIfPresent(key);
+            if (cachedState == null) {
+                CommandResult<T>[] resultHolder = new CommandResult[1];
+                cachedState = cache.asMap().computeIfAbsent(key, (K k) -> {
+                    RemoteBucketState[] stateHolder = new RemoteBucketState[1];
+                    MutableBucketEntry entry = new MutableBucketEntry() {
+                        @Override
+                        public boolean exists() {
+                            return stateHolder[0] != null;
+                        }
+                        @Override
+                        public void set(RemoteBucketState state) {
+                            stateHolder[0] = state;
+                        }
+                        @Override
+                        public RemoteBucketState get() {
+                            return stateHolder[0];
+                        }
+                    };
+                    resultHolder[0] = request.getCommand().execute(entry, getRequestTime(request));
+                    return stateHolder[0] == null ? null : new InPlaceBucketState(stateHolder[0]);
+                });
+                if (resultHolder[0] != null) {
+                    return resultHolder[0];
+                }
+                // bucket has been concurrently created by another thread
+            }
+
+            if (!(cachedState instanceof InPlaceBucketState)) {
+                // the state was put to the cache directly by user
+                replace(key, cachedState, new InPlaceBucketState(cachedState.copy()));
+                continue;
+            }
+
+            InPlaceBucketState state = (InPlaceBucketState) cachedState;
+            synchronized (state) {
+                if (state.detached) {
+                    // bucket has been removed or replaced while this thread waited for the monitor
+                    continue;
+                }
+                long timeNanos = getRequestTime(request);
+                state.modified = false;
+                CommandResult<T> result = request.getCommand().execute(state, timeNanos);
+                RemoteBucketState replacement = state.replacement;
+                if (replacement != null) {
+                    state.replacement = null;
+                    state.detached = true;
+                    replace(key, state, new InPlaceBucketState(replacement));
+                } else if (state.modified) {
+                    long nanosToFullRefill = state.calculateFullRefillingTime(timeNanos);
+                    varExpiration.setExpiresAfter(key, nanosToFullRefill + keepAfterRefillDurationNanos, TimeUnit.NANOSECONDS);
+                }
+                return result;
+            }
+        }
+    }
+
+    private void replace(K key, RemoteBucketState oldState, InPlaceBucketState newState) {
+        // expiration of new state is calculated by cache during replacement, so nobody should modify it until replacement is done
+        synchronized (newState) {
+            cache.asMap().replace(key, oldState, newState);
+        }
+    }
+
     @Override
     public boolean isAsyncModeSupported() {
         return true;
@@ -133,18 +235,64 @@ public class CaffeineProxyManager<K> extends AbstractProxyManager<K> {
 
     @Override
     public void removeProxy(K key) {
-        cache.asMap().remove(key);
+        RemoteBucketState removedState = cache.asMap().remove(key);
+        if (removedState instanceof InPlaceBucketState) {
+            ((InPlaceBucketState) removedState).detached = true;
+        }
     }
 
     @Override
     protected CompletableFuture<Void> removeAsync(K key) {
-        cache.asMap().remove(key);
+        removeProxy(key);
         return CompletableFuture.completedFuture(null);
     }
 
+    private static long getRequestTime(Request<?> request) {
+        Long clientSideTime = request.getClientSideTime();
+        return clientSideTime != null ? clientSideTime : System.currentTimeMillis() * 1_000_000;
+    }
+
     private static long getCurrentTime(ClientSideConfig clientSideConfig) {
         Optional<TimeMeter> clock = clientSideConfig.getClientSideClock();
         return clock.isPresent() ? clock.get().currentTimeNanos() : System.currentTimeMillis() * 1_000_000;
     }
 
+    /**
+     * The state that is modified in place under its own monitor, it serves as the entry for commands,
+     * so execution of command against existing bucket does not allocate anything.
+     */
+    private static final class InPlaceBucketState extends RemoteBucketState implements MutableBucketEntry {
+
+        // guarded by monitor of this object
+        private boolean modified;
+        private RemoteBucketState replacement;
+
+        // true when the state is not referenced by the cache anymore
+        private volatile boolean detached;
+
+        InPlaceBucketState(RemoteBucketState state) {
+            super(state.getState(), state.getRemoteStat(), state.getConfigurationVersion());
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public void set(RemoteBucketState state) {
+            if (state == this) {
+                modified = true;
+            } else {
+                replacement = state;
+            }
+        }
+
+        @Override
+        public RemoteBucketState get() {
+            return this;
+        }
+
+    }
+
 }
@@ -0,0 +1,86 @@
+package io.github.bucket4j.caffeine;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.tck.AbstractDistributedBucketTest;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class CaffeineInPlaceExecutionTest extends AbstractDistributedBucketTest<String> {
+
+    @Override
+    protected ProxyManager<String> getProxyManager() {
+        return createProxyManager();
+    }
+
+    @Override
+    protected String generateRandomKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Test
+    public void testStateIsModifiedInPlace() {
+        CaffeineProxyManager<String> proxyManager = createProxyManager();
+        Bucket bucket = proxyManager.builder().build("key", configuration(10));
+
+        bucket.tryConsume(1);
+        RemoteBucketState state = proxyManager.getCache().getIfPresent("key");
+        bucket.tryConsume(2);
+
+        assertSame(state, proxyManager.getCache().getIfPresent("key"));
+        assertEquals(7, bucket.getAvailableTokens());
+    }
+
+    @Test
+    public void testNoTokensAreLostOrDuplicatedUnderContention() throws InterruptedException {
+        CaffeineProxyManager<String> proxyManager = createProxyManager();
+        int threadCount = 8;
+        long capacity = 100_000;
+        AtomicLong consumed = new AtomicLong();
+        CountDownLatch startLatch = new CountDownLatch(threadCount);
+        CountDownLatch stopLatch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(() -> {
+                Bucket bucket = proxyManager.builder().build("key", configuration(capacity));
+                startLatch.countDown();
+                try {
+                    startLatch.await();
+                    while (bucket.tryConsume(1)) {
+                        consumed.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    stopLatch.countDown();
+                }
+            }).start();
+        }
+        stopLatch.await();
+
+        assertEquals(capacity, consumed.get());
+    }
+
+    private static CaffeineProxyManager<String> createProxyManager() {
+        Caffeine<String, RemoteBucketState> builder = (Caffeine) Caffeine.newBuilder().maximumSize(100);
+        return new CaffeineProxyManager<>(builder, Duration.ofMinutes(1), ClientSideConfig.getDefault(), true);
+    }
+
+    private static BucketConfiguration configuration(long capacity) {
+        return BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(capacity, Duration.ofDays(365)))
+                .build();
+    }
+
+}
@@ -19,6 +19,10 @@
  */
 package io.github.bucket4j;
 
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+
 import java.text.MessageFormat;
 import java.time.Duration;
 import java.time.Instant;
@@ -158,6 +162,201 @@ public final class BucketExceptions {
         return new IllegalArgumentException(msg);
     }
 
+    public static IllegalArgumentException nonPositiveRateSmoothingHalfLifeForPredictionParameters(Duration halfLife) {
+        String pattern = "halfLife = {0}, halfLife must be positive";
+        String msg = MessageFormat.format(pattern, halfLife);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nullBoundsForAdaptiveDelayParameters() {
+        String msg = "minParameters and maxParameters can not be null";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException maxBoundForAdaptiveDelayParametersCanNotBeTighterThanMin(DelayParameters minParameters, DelayParameters maxParameters) {
+        String pattern = "min = [{0} tokens, {1} nanos], max = [{2} tokens, {3} nanos], max thresholds must be >= min thresholds";
+        String msg = MessageFormat.format(pattern, minParameters.maxUnsynchronizedTokens, minParameters.maxUnsynchronizedTimeoutNanos,
+                maxParameters.maxUnsynchronizedTokens, maxParameters.maxUnsynchronizedTimeoutNanos);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveLatencyMultiplierForAdaptiveDelayParameters(double latencyMultiplier) {
+        String pattern = "latencyMultiplier = {0}, latencyMultiplier must be positive";
+        String msg = MessageFormat.format(pattern, latencyMultiplier);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveBackgroundSyncPeriod(Duration syncPeriod) {
+        String pattern = "syncPeriod = {0}, syncPeriod must be positive";
+        String msg = MessageFormat.format(pattern, syncPeriod);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxBatchSizeForBatchingParameters(int maxBatchSize) {
+        String pattern = "maxBatchSize = {0}, maxBatchSize must be positive";
+        String msg = MessageFormat.format(pattern, maxBatchSize);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nullLingerForBatchingParameters() {
+        String msg = "linger can not be null";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException negativeLingerForBatchingParameters(Duration linger) {
+        String pattern = "linger = {0}, linger must not be negative";
+        String msg = MessageFormat.format(pattern, linger);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveFlatCombiningCapacityForBatchingParameters(int capacity) {
+        String pattern = "capacity = {0}, capacity must be positive";
+        String msg = MessageFormat.format(pattern, capacity);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException configurationByReferenceIsNotSupportedByVersion(Version backwardCompatibilityVersion) {
+        String pattern = "Configuration by reference requires backward compatibility version {0} or newer, but version {1} is configured";
+        String msg = MessageFormat.format(pattern, Versions.v_8_2_0.getNumber(), backwardCompatibilityVersion.getNumber());
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMinLeaseTokensForLeaseParameters(long minLeaseTokens) {
+        String pattern = "minLeaseTokens = {0}, minLeaseTokens must be positive";
+        String msg = MessageFormat.format(pattern, minLeaseTokens);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException maxLeaseTokensForLeaseParametersCanNotBeLessThanMinLeaseTokens(long minLeaseTokens, long maxLeaseTokens) {
+        String pattern = "minLeaseTokens = {0}, maxLeaseTokens = {1}, maxLeaseTokens must be >= minLeaseTokens";
+        String msg = MessageFormat.format(pattern, minLeaseTokens, maxLeaseTokens);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nullLeaseDurationForLeaseParameters() {
+        String msg = "leaseDuration can not be null";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveLeaseDurationForLeaseParameters(Duration leaseDuration) {
+        String pattern = "leaseDuration = {0}, leaseDuration must be positive";
+        String msg = MessageFormat.format(pattern, leaseDuration);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxAttemptsForCompareAndSwapRetryPolicy(int maxAttempts) {
+        String pattern = "maxAttempts = {0}, maxAttempts must be positive";
+        String msg = MessageFormat.format(pattern, maxAttempts);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveBackoffForCompareAndSwapRetryPolicy(Duration initialDelay) {
+        String pattern = "initialDelay = {0}, initialDelay must be positive";
+        String msg = MessageFormat.format(pattern, initialDelay);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException maxBackoffForCompareAndSwapRetryPolicyCanNotBeLessThanInitial(Duration initialDelay, Duration maxDelay) {
+        String pattern = "initialDelay = {0}, maxDelay = {1}, maxDelay must be >= initialDelay";
+        String msg = MessageFormat.format(pattern, initialDelay, maxDelay);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalStateException configurationFingerprintCollision(long fingerprint) {
+        String pattern = "Another configuration with fingerprint {0} is already registered";
+        String msg = MessageFormat.format(pattern, Long.toString(fingerprint));
+        return new IllegalStateException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxTrackedKeysForCompareAndSwapRetryListener(int maxTrackedKeys) {
+        String pattern = "maxTrackedKeys = {0}, maxTrackedKeys must be positive";
+        String msg = MessageFormat.format(pattern, maxTrackedKeys);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveMaxConcurrency(int maxConcurrency) {
+        String pattern = "maxConcurrency = {0}, maxConcurrency must be positive";
+        String msg = MessageFormat.format(pattern, maxConcurrency);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveSweeperBatchSize(int batchSize) {
+        String pattern = "batchSize = {0}, batchSize must be positive";
+        String msg = MessageFormat.format(pattern, batchSize);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException negativeSweeperPauseBetweenBatches(Duration pauseBetweenBatches) {
+        String pattern = "pauseBetweenBatches = {0}, pauseBetweenBatches can not be negative";
+        String msg = MessageFormat.format(pattern, pauseBetweenBatches);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveSweeperInterval(Duration interval) {
+        String pattern = "interval = {0}, interval must be positive";
+        String msg = MessageFormat.format(pattern, interval);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveFlushInterval(Duration flushInterval) {
+        String pattern = "flushInterval = {0}, flushInterval must be positive";
+        String msg = MessageFormat.format(pattern, flushInterval);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveFlushBatchSize(int maxBatchSize) {
+        String pattern = "maxBatchSize = {0}, maxBatchSize must be positive";
+        String msg = MessageFormat.format(pattern, maxBatchSize);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nonPositiveNearCacheMaxSize(int maxSize) {
+        String pattern = "maxSize = {0}, maxSize must be positive";
+        String msg = MessageFormat.format(pattern, maxSize);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException negativeKeepIdleDuration(Duration keepIdle) {
+        String pattern = "keepIdle = {0}, keepIdle can not be negative";
+        String msg = MessageFormat.format(pattern, keepIdle);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException shardsNotSpecified() {
+        String msg = "At least one shard should be specified";
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException nullShard(String name) {
+        String pattern = "Proxy manager for shard {0} is null";
+        String msg = MessageFormat.format(pattern, name);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException shardAlreadyExists(String name) {
+        String pattern = "Shard with name {0} already exists";
+        String msg = MessageFormat.format(pattern, name);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException lastShardCanNotBeRemoved(String name) {
+        String pattern = "Shard {0} is the last shard and can not be removed";
+        String msg = MessageFormat.format(pattern, name);
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException keyHasherIsRequiredForArrayKey(Class<?> keyType) {
+        String pattern = "Identity hashCode of {0} differs between JVMs, key hasher should be specified explicitly for such keys";
+        String msg = MessageFormat.format(pattern, keyType.getTypeName());
+        return new IllegalArgumentException(msg);
+    }
+
+    public static IllegalArgumentException batchKeyIsNotComparable(Object key) {
+        String pattern = "Keys of batch transaction are locked in natural order, so they must implement Comparable, but {0} was passed";
+        String msg = MessageFormat.format(pattern, key == null ? "null" : key.getClass().getTypeName());
+        return new IllegalArgumentException(msg);
+    }
+
     public static IllegalArgumentException restrictionsNotSpecified() {
         String msg = "At list one limited bandwidth should be specified";
         return new IllegalArgumentException(msg);
@@ -224,6 +423,12 @@ public final class BucketExceptions {
         return new IllegalArgumentException(msg);
     }
 
+    public static BucketExecutionException compareAndSwapAttemptsExhausted(int failedAttempts) {
+        String pattern = "Compare-and-swap was unsuccessful {0} times in a row because of concurrent modification of the bucket";
+        String msg = MessageFormat.format(pattern, failedAttempts);
+        return new BucketExecutionException(msg);
+    }
+
     public static BucketExecutionException executionException(Throwable cause) {
         return new BucketExecutionException(cause);
     }
@@ -233,6 +438,16 @@ public final class BucketExceptions {
         return new UnsupportedOperationException(msg);
     }
 
+    public static UnsupportedOperationException batchTransactionIsNotSupported() {
+        String msg = "Batch transactions are not supported by this proxy manager";
+        return new UnsupportedOperationException(msg);
+    }
+
+    public static UnsupportedOperationException expiresAtColumnIsNotConfigured() {
+        String msg = "Column for expiration time is not configured, see BucketTableSettings#withExpiresAtColumn";
+        return new UnsupportedOperationException(msg);
+    }
+
     public static class BucketExecutionException extends RuntimeException {
         public BucketExecutionException(Throwable cause) {
             super(cause);
@@ -0,0 +1,217 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.jdbc;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.ExecutionStrategy;
+import io.github.bucket4j.distributed.proxy.ExpiredEntriesCleaner;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.text.MessageFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The base class for proxy managers that solve transaction related problems via optimistic compare-and-swap on top of JDBC.
+ *
+ * <p>Each statement is executed in auto-commit mode, the mode of connection is restored before connection is returned to the {@link DataSource}.
+ * State is read by {@code SELECT}, replaced by {@code UPDATE ... WHERE id = ? AND state = ?} and removed by {@code DELETE},
+ * the syntax of insertion that ignores duplicates and of batched removal of expired buckets differs between databases, so they are provided by subclass.
+ * The insert statement must take parameters in following order: id, state and, if {@link SQLProxyConfiguration#getExpiresAtName()} is configured, expires at.
+ * The remove-expired statement must take parameters in following order: current time in milliseconds, max count of rows to remove.
+ *
+ * <p>Asynchronous mode is supported only when {@link io.github.bucket4j.distributed.proxy.ClientSideConfig#getExecutionStrategy() execution strategy} is configured.
+ *
+ * @see AbstractCompareAndSwapBasedProxyManager
+ */
+public abstract class AbstractSQLCompareAndSwapBasedProxyManager extends AbstractCompareAndSwapBasedProxyManager<Long> implements ExpiredEntriesCleaner {
+
+    private final DataSource dataSource;
+    private final SQLProxyConfiguration configuration;
+    private final Optional<ExecutionStrategy> executionStrategy;
+    private final String removeSqlQuery;
+    private final String removeExpiredSqlQuery;
+    private final String selectSqlQuery;
+    private final String compareAndSwapSqlQuery;
+    private final String insertSqlQuery;
+    private final String initializeEmptySqlQuery;
+
+    /**
+     *
+     * @param configuration {@link SQLProxyConfiguration} configuration.
+     * @param insertSqlQuery database specific statement that inserts the state of bucket if it does not exist yet.
+     * @param removeExpiredSqlQuery database specific statement that removes a batch of expired buckets, or {@code null} if expiration column is not configured.
+     */
+    protected AbstractSQLCompareAndSwapBasedProxyManager(SQLProxyConfiguration configuration, String insertSqlQuery, String removeExpiredSqlQuery) {
+        super(configuration.getClientSideConfig());
+        this.executionStrategy = configuration.getClientSideConfig().getExecutionStrategy();
+        this.dataSource = Objects.requireNonNull(configuration.getDataSource());
+        this.configuration = configuration;
+        this.removeSqlQuery = MessageFormat.format("DELETE FROM {0} WHERE {1} = ?", configuration.getTableName(), configuration.getIdName());
+        this.removeExpiredSqlQuery = removeExpiredSqlQuery;
+        String expiresAtAssignment = configuration.getExpiresAtName().map(expiresAtName -> ", " + expiresAtName + "=?").orElse("");
+        this.selectSqlQuery = MessageFormat.format("SELECT {0} FROM {1} WHERE {2} = ?", configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
+        this.compareAndSwapSqlQuery = MessageFormat.format("UPDATE {0} SET {1}=?{3} WHERE {2}=? AND {1}=?", configuration.getTableName(), configuration.getStateName(), configuration.getIdName(), expiresAtAssignment);
+        this.insertSqlQuery = insertSqlQuery;
+        // rows with null state can be left by select-for-update based proxy manager that works with the same table
+        this.initializeEmptySqlQuery = MessageFormat.format("UPDATE {0} SET {1}=?{3} WHERE {2}=? AND {1} IS NULL", configuration.getTableName(), configuration.getStateName(), configuration.getIdName(), expiresAtAssignment);
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(Long key) {
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData() {
+                return executeInAutoCommitMode(connection -> {
+                    try (PreparedStatement selectStatement = connection.prepareStatement(selectSqlQuery)) {
+                        selectStatement.setLong(1, key);
+                        try (ResultSet rs = selectStatement.executeQuery()) {
+                            if (rs.next()) {
+                                return Optional.ofNullable(rs.getBytes(configuration.getStateName()));
+                            } else {
+                                return Optional.empty();
+                            }
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                Long expiresAt = configuration.getExpiresAtName().isPresent() ? configuration.calculateExpiresAtMillis(newState) : null;
+                return executeInAutoCommitMode(connection -> {
+                    if (originalData != null) {
+                        try (PreparedStatement casStatement = connection.prepareStatement(compareAndSwapSqlQuery)) {
+                            int parameterIndex = 1;
+                            casStatement.setBytes(parameterIndex++, newData);
+                            if (configuration.getExpiresAtName().isPresent()) {
+                                casStatement.setObject(parameterIndex++, expiresAt, Types.BIGINT);
+                            }
+                            casStatement.setLong(parameterIndex++, key);
+                            casStatement.setBytes(parameterIndex, originalData);
+                            return casStatement.executeUpdate() > 0;
+                        }
+                    }
+                    try (PreparedStatement insertStatement = connection.prepareStatement(insertSqlQuery)) {
+                        insertStatement.setLong(1, key);
+                        insertStatement.setBytes(2, newData);
+                        if (configuration.getExpiresAtName().isPresent()) {
+                            insertStatement.setObject(3, expiresAt, Types.BIGINT);
+                        }
+                        if (insertStatement.executeUpdate() > 0) {
+                            return true;
+                        }
+                    }
+                    try (PreparedStatement initializeStatement = connection.prepareStatement(initializeEmptySqlQuery)) {
+                        int parameterIndex = 1;
+                        initializeStatement.setBytes(parameterIndex++, newData);
+                        if (configuration.getExpiresAtName().isPresent()) {
+                            initializeStatement.setObject(parameterIndex++, expiresAt, Types.BIGINT);
+                        }
+                        initializeStatement.setLong(parameterIndex, key);
+                        return initializeStatement.executeUpdate() > 0;
+                    }
+                });
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(Long key) {
+        return AsyncCompareAndSwapOperation.executeVia(beginCompareAndSwapOperation(key), getExecutionStrategy());
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return executionStrategy.isPresent();
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(Long key) {
+        return getExecutionStrategy().executeAsync(() -> {
+            removeProxy(key);
+            return null;
+        });
+    }
+
+    @Override
+    public int removeExpired(int batchSize) {
+        if (removeExpiredSqlQuery == null) {
+            throw BucketExceptions.expiresAtColumnIsNotConfigured();
+        }
+        return executeInAutoCommitMode(connection -> {
+            try (PreparedStatement removeExpiredStatement = connection.prepareStatement(removeExpiredSqlQuery)) {
+                removeExpiredStatement.setLong(1, configuration.getCurrentTimeMillis());
+                removeExpiredStatement.setInt(2, batchSize);
+                return removeExpiredStatement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void removeProxy(Long key) {
+        executeInAutoCommitMode(connection -> {
+            try (PreparedStatement removeStatement = connection.prepareStatement(removeSqlQuery)) {
+                removeStatement.setLong(1, key);
+                return removeStatement.executeUpdate();
+            }
+        });
+    }
+
+    private ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy.orElseThrow(BucketExceptions::asyncModeIsNotSupported);
+    }
+
+    private <T> T executeInAutoCommitMode(ConnectionCallback<T> callback) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            if (!autoCommit) {
+                connection.setAutoCommit(true);
+            }
+            try {
+                return callback.execute(connection);
+            } finally {
+                if (!autoCommit) {
+                    // pooled connection must be returned in the same mode as it was borrowed
+                    connection.setAutoCommit(false);
+                }
+            }
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
+    private interface ConnectionCallback<T> {
+
+        T execute(Connection connection) throws SQLException;
+
+    }
+
+}
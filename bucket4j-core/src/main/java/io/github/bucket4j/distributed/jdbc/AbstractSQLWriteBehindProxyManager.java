@@ -0,0 +1,123 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.jdbc;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.generic.write_behind.AbstractWriteBehindProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.write_behind.WriteBehindConfig;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The base class for write-behind proxy managers that persist buckets to relational database via JDBC.
+ *
+ * <p>Buckets are loaded by {@code SELECT}, removed by {@code DELETE} and persisted by batched upsert,
+ * the syntax of upsert differs between databases, so it is provided by subclass.
+ * The upsert statement must take parameters in following order: id, state and, if {@link SQLProxyConfiguration#getExpiresAtName()} is configured, expires at.
+ *
+ * @see AbstractWriteBehindProxyManager
+ */
+public abstract class AbstractSQLWriteBehindProxyManager extends AbstractWriteBehindProxyManager<Long> {
+
+    private final DataSource dataSource;
+    private final SQLProxyConfiguration configuration;
+    private final String removeSqlQuery;
+    private final String selectSqlQuery;
+    private final String upsertSqlQuery;
+
+    /**
+     *
+     * @param configuration {@link SQLProxyConfiguration} configuration.
+     * @param writeBehindConfig {@link WriteBehindConfig} configuration of background flushing.
+     * @param upsertSqlQuery database specific statement that inserts or updates the state of bucket.
+     */
+    protected AbstractSQLWriteBehindProxyManager(SQLProxyConfiguration configuration, WriteBehindConfig writeBehindConfig, String upsertSqlQuery) {
+        super(configuration.getClientSideConfig(), writeBehindConfig);
+        this.dataSource = Objects.requireNonNull(configuration.getDataSource());
+        this.configuration = configuration;
+        this.removeSqlQuery = MessageFormat.format("DELETE FROM {0} WHERE {1} = ?", configuration.getTableName(), configuration.getIdName());
+        this.selectSqlQuery = MessageFormat.format("SELECT {0} FROM {1} WHERE {2} = ?", configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
+        this.upsertSqlQuery = upsertSqlQuery;
+    }
+
+    @Override
+    protected byte[] load(Long key) {
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement selectStatement = connection.prepareStatement(selectSqlQuery)) {
+                selectStatement.setLong(1, key);
+                try (ResultSet rs = selectStatement.executeQuery()) {
+                    return rs.next() ? rs.getBytes(configuration.getStateName()) : null;
+                }
+            }
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
+    @Override
+    protected void store(List<Long> keys, List<byte[]> data, List<RemoteBucketState> states) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement upsertStatement = connection.prepareStatement(upsertSqlQuery)) {
+                for (int i = 0; i < keys.size(); i++) {
+                    upsertStatement.setLong(1, keys.get(i));
+                    upsertStatement.setBytes(2, data.get(i));
+                    if (configuration.getExpiresAtName().isPresent()) {
+                        upsertStatement.setObject(3, configuration.calculateExpiresAtMillis(states.get(i)), Types.BIGINT);
+                    }
+                    upsertStatement.addBatch();
+                }
+                upsertStatement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                // pooled connection must be returned in the same mode as it was borrowed, load and delete rely on auto-commit
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
+    @Override
+    protected void delete(Long key) {
+        try (Connection connection = dataSource.getConnection()) {
+            try(PreparedStatement removeStatement = connection.prepareStatement(removeSqlQuery)) {
+                removeStatement.setLong(1, key);
+                removeStatement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
+}
@@ -20,6 +20,7 @@
 package io.github.bucket4j.distributed.jdbc;
 
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * @author Maxim Bartkov
@@ -33,10 +34,17 @@ public class BucketTableSettings {
 
     private final String tableName;
 
+    private final String expiresAtName;
+
     private BucketTableSettings(String tableName, String idName, String stateName) {
+        this(tableName, idName, stateName, null);
+    }
+
+    private BucketTableSettings(String tableName, String idName, String stateName, String expiresAtName) {
         this.tableName = Objects.requireNonNull(tableName, "TableName is null");;
         this.idName = Objects.requireNonNull(idName, "idName is null");
         this.stateName = Objects.requireNonNull(stateName, "StateName is null");
+        this.expiresAtName = expiresAtName;
     }
 
     /**
@@ -58,6 +66,19 @@ public class BucketTableSettings {
         return new BucketTableSettings("bucket", "id", "state");
     }
 
+    /**
+     * Returns new settings with the column that holds the moment after which bucket can be removed from the table.
+     * The column is filled on each write according to {@link io.github.bucket4j.distributed.ExpirationAfterWriteStrategy}
+     * configured via {@link SQLProxyConfigurationBuilder#withExpirationStrategy}.
+     *
+     * @param expiresAtName - name of expiration column (BIGINT NULL, milliseconds since epoch, NULL means that bucket never expires),
+     *                      the column should be indexed in order to remove expired buckets efficiently
+     * @return {@link BucketTableSettings}
+     */
+    public BucketTableSettings withExpiresAtColumn(String expiresAtName) {
+        return new BucketTableSettings(tableName, idName, stateName, Objects.requireNonNull(expiresAtName, "expiresAtName is null"));
+    }
+
     public String getIdName() {
         return idName;
     }
@@ -69,4 +90,8 @@ public class BucketTableSettings {
     public String getTableName() {
         return tableName;
     }
+
+    public Optional<String> getExpiresAtName() {
+        return Optional.ofNullable(expiresAtName);
+    }
 }
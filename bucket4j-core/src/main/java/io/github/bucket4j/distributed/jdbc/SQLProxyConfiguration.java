@@ -19,24 +19,50 @@
  */
 package io.github.bucket4j.distributed.jdbc;
 
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
 
 import javax.sql.DataSource;
+import java.util.Optional;
 
 public class SQLProxyConfiguration {
 
     private final DataSource dataSource;
     private final ClientSideConfig clientSideConfig;
     private final BucketTableSettings tableSettings;
+    private final ExpirationAfterWriteStrategy expirationStrategy;
 
     public SQLProxyConfiguration(DataSource dataSource) {
         this(dataSource, ClientSideConfig.getDefault(), BucketTableSettings.getDefault());
     }
 
     public SQLProxyConfiguration(DataSource dataSource, ClientSideConfig clientSideConfig, BucketTableSettings tableSettings) {
+        this(dataSource, clientSideConfig, tableSettings, ExpirationAfterWriteStrategy.none(), false);
+    }
+
+    /**
+     * @throws BucketExceptions.BucketExecutionException if {@code tableSettings} do not define the expiration column
+     */
+    public SQLProxyConfiguration(DataSource dataSource, ClientSideConfig clientSideConfig, BucketTableSettings tableSettings, ExpirationAfterWriteStrategy expirationStrategy) {
+        this(dataSource, clientSideConfig, tableSettings, expirationStrategy, true);
+    }
+
+    private SQLProxyConfiguration(DataSource dataSource, ClientSideConfig clientSideConfig, BucketTableSettings tableSettings, ExpirationAfterWriteStrategy expirationStrategy, boolean expirationRequested) {
+        if (expirationRequested) {
+            if (expirationStrategy == null) {
+                throw new BucketExceptions.BucketExecutionException("ExpirationAfterWriteStrategy cannot be null");
+            }
+            if (!tableSettings.getExpiresAtName().isPresent()) {
+                throw new BucketExceptions.BucketExecutionException("ExpirationAfterWriteStrategy requires the expiration column to be configured in BucketTableSettings");
+            }
+        }
         this.dataSource = dataSource;
         this.clientSideConfig = clientSideConfig;
         this.tableSettings = tableSettings;
+        this.expirationStrategy = expirationStrategy;
     }
 
     public String getIdName() {
@@ -51,6 +77,43 @@ public class SQLProxyConfiguration {
         return tableSettings.getTableName();
     }
 
+    public Optional<String> getExpiresAtName() {
+        return tableSettings.getExpiresAtName();
+    }
+
+    public ExpirationAfterWriteStrategy getExpirationStrategy() {
+        return expirationStrategy;
+    }
+
+    /**
+     * Calculates the value of expiration column for bucket that is going to be persisted.
+     * Time to live is calculated by the clock of bucket, but the result is anchored to the wall clock,
+     * because expired buckets are detected by comparing with {@link #getCurrentTimeMillis()} that must be the same for all clients.
+     *
+     * @param state the state of bucket that is going to be persisted
+     *
+     * @return milliseconds since epoch after which bucket can be removed, or {@code null} if bucket should be stored forever
+     */
+    public Long calculateExpiresAtMillis(RemoteBucketState state) {
+        long ttlMillis = expirationStrategy.calculateTimeToLiveMillis(state, getBucketTimeNanos());
+        if (ttlMillis < 0) {
+            return null;
+        }
+        return getCurrentTimeMillis() + ttlMillis;
+    }
+
+    /**
+     * @return current wall clock time in milliseconds since epoch that should be used to detect expired buckets
+     */
+    public long getCurrentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private long getBucketTimeNanos() {
+        Optional<TimeMeter> clock = clientSideConfig.getClientSideClock();
+        return clock.isPresent() ? clock.get().currentTimeNanos() : System.currentTimeMillis() * 1_000_000;
+    }
+
     public DataSource getDataSource() {
         return dataSource;
     }
@@ -20,6 +20,7 @@
 package io.github.bucket4j.distributed.jdbc;
 
 import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
 
 import javax.sql.DataSource;
@@ -31,6 +32,7 @@ import javax.sql.DataSource;
 public final class SQLProxyConfigurationBuilder {
     private ClientSideConfig clientSideConfig;
     private BucketTableSettings tableSettings;
+    private ExpirationAfterWriteStrategy expirationStrategy;
 
     private SQLProxyConfigurationBuilder() {
     }
@@ -59,6 +61,17 @@ public final class SQLProxyConfigurationBuilder {
         return this;
     }
 
+    /**
+     * @param expirationStrategy {@link ExpirationAfterWriteStrategy} defines the value of expiration column that is written together with bucket state.
+     *                           Requires the expiration column to be configured via {@link BucketTableSettings#withExpiresAtColumn}.
+     *                           By default, under the hood uses {@link ExpirationAfterWriteStrategy#none()}
+     * @return {@link SQLProxyConfigurationBuilder}
+     */
+    public SQLProxyConfigurationBuilder withExpirationStrategy(ExpirationAfterWriteStrategy expirationStrategy) {
+        this.expirationStrategy = expirationStrategy;
+        return this;
+    }
+
     /**
      * The method takes a {@link DataSource} as a required parameter
      *
@@ -75,6 +88,9 @@ public final class SQLProxyConfigurationBuilder {
         if (clientSideConfig == null) {
             this.clientSideConfig = ClientSideConfig.getDefault();
         }
-        return new SQLProxyConfiguration(dataSource, clientSideConfig, tableSettings);
+        if (expirationStrategy == null) {
+            return new SQLProxyConfiguration(dataSource, clientSideConfig, tableSettings);
+        }
+        return new SQLProxyConfiguration(dataSource, clientSideConfig, tableSettings, expirationStrategy);
     }
 }
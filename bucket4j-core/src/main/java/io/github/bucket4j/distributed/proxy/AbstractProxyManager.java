@@ -55,7 +55,7 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
         public CompletableFuture<Optional<BucketConfiguration>> getProxyConfiguration(K key) {
             GetConfigurationCommand cmd = new GetConfigurationCommand();
             getClientSideTime();
-            Request<BucketConfiguration> request = new Request<>(cmd, getBackwardCompatibilityVersion(), getClientSideTime());
+            Request<BucketConfiguration> request = new Request<>(cmd, getBackwardCompatibilityVersion(), getClientSideTime(), clientSideConfig.isConfigurationByReference());
             return executeAsync(key, request).thenApply(result -> {
                 if (result.isBucketNotFound()) {
                     return Optional.empty();
@@ -92,7 +92,7 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
     public Optional<BucketConfiguration> getProxyConfiguration(K key) {
         GetConfigurationCommand cmd = new GetConfigurationCommand();
 
-        Request<BucketConfiguration> request = new Request<>(cmd, getBackwardCompatibilityVersion(), getClientSideTime());
+        Request<BucketConfiguration> request = new Request<>(cmd, getBackwardCompatibilityVersion(), getClientSideTime(), clientSideConfig.isConfigurationByReference());
         CommandResult<BucketConfiguration> result = this.execute(key, request);
         if (result.isBucketNotFound()) {
             return Optional.empty();
@@ -138,12 +138,18 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
                 throw BucketExceptions.nullConfigurationSupplier();
             }
 
+            RequestFactory requestFactory = new RequestFactory();
             AsyncCommandExecutor commandExecutor = new AsyncCommandExecutor() {
                 @Override
                 public <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command) {
-                    Request<T> request = new Request<>(command, getBackwardCompatibilityVersion(), getClientSideTime());
+                    Request<T> request = requestFactory.createRequest(command);
                     return AbstractProxyManager.this.executeAsync(key, request);
                 }
+
+                @Override
+                public Version getBackwardCompatibilityVersion() {
+                    return AbstractProxyManager.this.getBackwardCompatibilityVersion();
+                }
             };
             commandExecutor = asyncRequestOptimizer.apply(commandExecutor);
 
@@ -190,12 +196,18 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
                 throw BucketExceptions.nullConfigurationSupplier();
             }
 
+            RequestFactory requestFactory = new RequestFactory();
             CommandExecutor commandExecutor = new CommandExecutor() {
                 @Override
                 public <T> CommandResult<T> execute(RemoteCommand<T> command) {
-                    Request<T> request = new Request<>(command, getBackwardCompatibilityVersion(), getClientSideTime());
+                    Request<T> request = requestFactory.createRequest(command);
                     return AbstractProxyManager.this.execute(key, request);
                 }
+
+                @Override
+                public Version getBackwardCompatibilityVersion() {
+                    return AbstractProxyManager.this.getBackwardCompatibilityVersion();
+                }
             };
             commandExecutor = requestOptimizer.apply(commandExecutor);
 
@@ -204,6 +216,31 @@ public abstract class AbstractProxyManager<K> implements ProxyManager<K> {
 
     }
 
+    /**
+     * Creates requests on behalf of single bucket proxy.
+     * The request is immutable, so when proxy repeats the same shared command instance, like {@link io.github.bucket4j.distributed.remote.commands.TryConsumeCommand#create(long)} for single token,
+     * and the request does not carry client-side time, the previous request is returned instead of allocating new one.
+     * The last request is published via data race, that is safe because all fields of request are final.
+     */
+    private final class RequestFactory {
+
+        private Request<?> lastRequest;
+
+        private <T> Request<T> createRequest(RemoteCommand<T> command) {
+            Request<?> previousRequest = lastRequest;
+            if (previousRequest != null && previousRequest.getCommand() == command) {
+                return (Request<T>) previousRequest;
+            }
+            Long clientSideTime = getClientSideTime();
+            Request<T> request = new Request<>(command, getBackwardCompatibilityVersion(), clientSideTime, clientSideConfig.isConfigurationByReference());
+            if (clientSideTime == null) {
+                lastRequest = request;
+            }
+            return request;
+        }
+
+    }
+
     abstract protected <T> CommandResult<T> execute(K key, Request<T> request);
 
     abstract protected <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request);
@@ -22,6 +22,8 @@ package io.github.bucket4j.distributed.proxy;
 
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
 
 import java.util.concurrent.CompletableFuture;
 
@@ -29,4 +31,14 @@ public interface AsyncCommandExecutor {
 
     <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command);
 
+    /**
+     * Returns the version of protocol that must be understood by the remote side, see {@link io.github.bucket4j.distributed.proxy.ClientSideConfig#backwardCompatibleWith(Version)}.
+     * Optimizations use it in order to avoid commands that are unknown to the older nodes.
+     *
+     * @return backward compatibility version of requests that are sent by this executor
+     */
+    default Version getBackwardCompatibilityVersion() {
+        return Versions.getLatest();
+    }
+
 }
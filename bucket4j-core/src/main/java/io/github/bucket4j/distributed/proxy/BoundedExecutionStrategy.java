@@ -0,0 +1,110 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.BucketExceptions;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The execution strategy that limits count of tasks executed in parallel without blocking the callers,
+ * tasks that exceed the limit are queued and executed when one of running tasks completes.
+ */
+class BoundedExecutionStrategy implements ExecutionStrategy {
+
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger runningTasks = new AtomicInteger();
+
+    BoundedExecutionStrategy(Executor executor, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw BucketExceptions.nonPositiveMaxConcurrency(maxConcurrency);
+        }
+        this.executor = Objects.requireNonNull(executor);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(Supplier<T> supplier) {
+        Task<T> task = new Task<>(supplier);
+        queue.add(task);
+        drain();
+        return task.future;
+    }
+
+    private void drain() {
+        while (!queue.isEmpty()) {
+            int running = runningTasks.get();
+            if (running >= maxConcurrency) {
+                // one of running tasks will continue draining when completes
+                return;
+            }
+            if (!runningTasks.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            Task<?> task = queue.poll();
+            if (task == null) {
+                runningTasks.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        runningTasks.decrementAndGet();
+                        drain();
+                    }
+                });
+            } catch (Throwable t) {
+                runningTasks.decrementAndGet();
+                task.future.completeExceptionally(t);
+            }
+        }
+    }
+
+    private static final class Task<T> {
+
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Task(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        private void run() {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+
+    }
+
+}
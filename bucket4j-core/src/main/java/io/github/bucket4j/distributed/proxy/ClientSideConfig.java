@@ -19,7 +19,10 @@
  */
 package io.github.bucket4j.distributed.proxy;
 
+import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapRetryPolicy;
 import io.github.bucket4j.distributed.versioning.Version;
 import io.github.bucket4j.distributed.versioning.Versions;
 
@@ -31,18 +34,41 @@ import java.util.Optional;
  * <ul>
  *     <li>Backward compatibility version, see {@link #backwardCompatibleWith(Version)} for more details.</li>
  *     <li>Client-side clock, see {@link #withClientClock(TimeMeter)} for more details.</li>
+ *     <li>Compare-and-swap retry policy, see {@link #withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy)} for more details.</li>
+ *     <li>Execution strategy for asynchronous mode of blocking storages, see {@link #withExecutionStrategy(ExecutionStrategy)} for more details.</li>
+ *     <li>Persistence of configuration by reference, see {@link #withConfigurationByReference()} for more details.</li>
  * </ul>
  */
 public class ClientSideConfig {
 
-    private static ClientSideConfig defaultConfig = new ClientSideConfig(Versions.getLatest(), Optional.empty());
+    private static ClientSideConfig defaultConfig = new ClientSideConfig(Versions.getLatest(), Optional.empty(), CompareAndSwapRetryPolicy.UNLIMITED, Optional.empty(), false);
 
     private final Version backwardCompatibilityVersion;
     private final Optional<TimeMeter> clientSideClock;
+    private final CompareAndSwapRetryPolicy compareAndSwapRetryPolicy;
+    private final Optional<ExecutionStrategy> executionStrategy;
+    private final boolean configurationByReference;
 
     protected ClientSideConfig(Version backwardCompatibilityVersion, Optional<TimeMeter> clientSideClock) {
+        this(backwardCompatibilityVersion, clientSideClock, CompareAndSwapRetryPolicy.UNLIMITED, Optional.empty());
+    }
+
+    protected ClientSideConfig(Version backwardCompatibilityVersion, Optional<TimeMeter> clientSideClock,
+                               CompareAndSwapRetryPolicy compareAndSwapRetryPolicy, Optional<ExecutionStrategy> executionStrategy) {
+        this(backwardCompatibilityVersion, clientSideClock, compareAndSwapRetryPolicy, executionStrategy, false);
+    }
+
+    protected ClientSideConfig(Version backwardCompatibilityVersion, Optional<TimeMeter> clientSideClock,
+                               CompareAndSwapRetryPolicy compareAndSwapRetryPolicy, Optional<ExecutionStrategy> executionStrategy,
+                               boolean configurationByReference) {
         this.backwardCompatibilityVersion = Objects.requireNonNull(backwardCompatibilityVersion);
         this.clientSideClock = Objects.requireNonNull(clientSideClock);
+        this.compareAndSwapRetryPolicy = Objects.requireNonNull(compareAndSwapRetryPolicy);
+        this.executionStrategy = Objects.requireNonNull(executionStrategy);
+        if (configurationByReference && backwardCompatibilityVersion.getNumber() < Versions.v_8_2_0.getNumber()) {
+            throw BucketExceptions.configurationByReferenceIsNotSupportedByVersion(backwardCompatibilityVersion);
+        }
+        this.configurationByReference = configurationByReference;
     }
 
     /**
@@ -50,6 +76,9 @@ public class ClientSideConfig {
      * <ul>
      *     <li><b>Client-clock:</b> is null. This means that server-side clock is always used.</li>
      *     <li><b>Backward compatibility version:</b> is {@code Versions.getLatest()}. This means that compatibility with legacy versions is switched off.</li>
+     *     <li><b>Compare-and-swap retry policy:</b> is {@link CompareAndSwapRetryPolicy#UNLIMITED}. This means that unsuccessful CAS is retried immediately without limits.</li>
+     *     <li><b>Execution strategy:</b> is null. This means that blocking storages do not support asynchronous mode.</li>
+     *     <li><b>Configuration by reference:</b> is off. This means that persisted state contains the full configuration.</li>
      * </ul>
      *
      * @return default client-side configuration for proxy-manager
@@ -72,7 +101,7 @@ public class ClientSideConfig {
      * @return new instance of {@link ClientSideConfig} with configured {@code backwardCompatibilityVersion}.
      */
     public ClientSideConfig backwardCompatibleWith(Version backwardCompatibilityVersion) {
-        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock);
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, compareAndSwapRetryPolicy, executionStrategy, configurationByReference);
     }
 
     /**
@@ -90,7 +119,71 @@ public class ClientSideConfig {
      * @return new instance of {@link ClientSideConfig} with configured {@code clientClock}.
      */
     public ClientSideConfig withClientClock(TimeMeter clientClock) {
-        return new ClientSideConfig(backwardCompatibilityVersion, Optional.of(clientClock));
+        return new ClientSideConfig(backwardCompatibilityVersion, Optional.of(clientClock), compareAndSwapRetryPolicy, executionStrategy, configurationByReference);
+    }
+
+    /**
+     * Returns new instance of {@link ClientSideConfig} with configured {@code compareAndSwapRetryPolicy}.
+     *
+     * <p>
+     * This option is applicable only for proxy managers that extend {@link AbstractCompareAndSwapBasedProxyManager}.
+     * Use it in order to prevent retry storms against external storage when single bucket is concurrently modified by many clients.
+     *
+     * <p>
+     * By default {@link CompareAndSwapRetryPolicy#UNLIMITED} is used.
+     *
+     * @param compareAndSwapRetryPolicy the policy that controls how unsuccessful compare-and-swap operations are retried.
+     *
+     * @return new instance of {@link ClientSideConfig} with configured {@code compareAndSwapRetryPolicy}.
+     */
+    public ClientSideConfig withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy compareAndSwapRetryPolicy) {
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, compareAndSwapRetryPolicy, executionStrategy, configurationByReference);
+    }
+
+    /**
+     * Returns new instance of {@link ClientSideConfig} with configured {@code executionStrategy}.
+     *
+     * <p>
+     * This option is applicable only for proxy managers that built on top of blocking storages, like JDBC,
+     * which do not provide asynchronous API by themselves. Blocking operations are executed in background according to provided strategy,
+     * that makes asynchronous mode available for such proxy managers.
+     *
+     * <p>
+     * By default execution strategy is null. This means that asynchronous mode is not supported by blocking storages,
+     * because there is no way to choose the concurrency that fits the connection pool without the help of user.
+     * Use {@link ExecutionStrategy#background(java.util.concurrent.Executor, int)} or {@link ExecutionStrategy#virtualThreads(int)}
+     * with {@code maxConcurrency} equal to the size of connection pool.
+     *
+     * @param executionStrategy the strategy that is used to execute blocking operations in asynchronous mode.
+     *
+     * @return new instance of {@link ClientSideConfig} with configured {@code executionStrategy}.
+     */
+    public ClientSideConfig withExecutionStrategy(ExecutionStrategy executionStrategy) {
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, compareAndSwapRetryPolicy, Optional.of(executionStrategy), configurationByReference);
+    }
+
+    /**
+     * Returns new instance of {@link ClientSideConfig} that persists configuration of buckets by reference.
+     *
+     * <p>
+     * In this mode the persisted state holds the 64-bit fingerprint of configuration instead of configuration itself,
+     * that reduces the size of stored state and of the payload transferred to and from storage, because millions of buckets
+     * usually share a few distinct configurations. The configurations are kept by {@link io.github.bucket4j.distributed.remote.BucketConfigurationRegistry}
+     * on each node that executes commands. When the node meets the fingerprint of configuration that it does not know,
+     * the bucket is reported as not found, so the client repeats the command together with its configuration,
+     * that makes the configuration known to the node, and the persisted state is used as usual.
+     * If the configuration is still unknown after that, because it was replaced by another client, the bucket is recreated
+     * with configuration of the client according to its {@link RecoveryStrategy}. So this mode is intended for buckets
+     * whose configurations are known to all clients.
+     *
+     * <p>
+     * Requires backward compatibility version {@link Versions#v_8_2_0} or newer, state written in this mode is not readable by older versions.
+     * State written in full form is still readable in this mode, so mode can be switched on for existing data.
+     *
+     * @return new instance of {@link ClientSideConfig} that persists configuration of buckets by reference.
+     */
+    public ClientSideConfig withConfigurationByReference() {
+        return new ClientSideConfig(backwardCompatibilityVersion, clientSideClock, compareAndSwapRetryPolicy, executionStrategy, true);
     }
 
     /**
@@ -115,4 +208,37 @@ public class ClientSideConfig {
         return backwardCompatibilityVersion;
     }
 
+    /**
+     * Returns the policy that controls how unsuccessful compare-and-swap operations are retried.
+     *
+     * @return the policy that controls how unsuccessful compare-and-swap operations are retried.
+     *
+     * @see #withCompareAndSwapRetryPolicy(CompareAndSwapRetryPolicy)
+     */
+    public CompareAndSwapRetryPolicy getCompareAndSwapRetryPolicy() {
+        return compareAndSwapRetryPolicy;
+    }
+
+    /**
+     * Returns the strategy that is used to execute blocking operations in asynchronous mode.
+     *
+     * @return the strategy that is used to execute blocking operations in asynchronous mode.
+     *
+     * @see #withExecutionStrategy(ExecutionStrategy)
+     */
+    public Optional<ExecutionStrategy> getExecutionStrategy() {
+        return executionStrategy;
+    }
+
+    /**
+     * Returns true if configuration of buckets is persisted by reference.
+     *
+     * @return true if configuration of buckets is persisted by reference.
+     *
+     * @see #withConfigurationByReference()
+     */
+    public boolean isConfigurationByReference() {
+        return configurationByReference;
+    }
+
 }
@@ -22,9 +22,21 @@ package io.github.bucket4j.distributed.proxy;
 
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
 
 public interface CommandExecutor {
 
     <T> CommandResult<T> execute(RemoteCommand<T> command);
 
+    /**
+     * Returns the version of protocol that must be understood by the remote side, see {@link io.github.bucket4j.distributed.proxy.ClientSideConfig#backwardCompatibleWith(Version)}.
+     * Optimizations use it in order to avoid commands that are unknown to the older nodes.
+     *
+     * @return backward compatibility version of requests that are sent by this executor
+     */
+    default Version getBackwardCompatibilityVersion() {
+        return Versions.getLatest();
+    }
+
 }
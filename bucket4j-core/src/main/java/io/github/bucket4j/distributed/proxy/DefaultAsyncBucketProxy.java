@@ -210,7 +210,7 @@ public class DefaultAsyncBucketProxy implements AsyncBucketProxy, AsyncOptimizat
     public CompletableFuture<Boolean> tryConsume(long tokensToConsume) {
         checkTokensToConsume(tokensToConsume);
 
-        return execute(new TryConsumeCommand(tokensToConsume)).thenApply(consumed -> {
+        return execute(TryConsumeCommand.create(tokensToConsume)).thenApply(consumed -> {
             if (consumed) {
                 listener.onConsumed(tokensToConsume);
             } else {
@@ -224,7 +224,7 @@ public class DefaultAsyncBucketProxy implements AsyncBucketProxy, AsyncOptimizat
     public CompletableFuture<ConsumptionProbe> tryConsumeAndReturnRemaining(long tokensToConsume) {
         checkTokensToConsume(tokensToConsume);
 
-        return execute(new TryConsumeAndReturnRemainingTokensCommand(tokensToConsume)).thenApply(probe -> {
+        return execute(TryConsumeAndReturnRemainingTokensCommand.create(tokensToConsume)).thenApply(probe -> {
             if (probe.isConsumed()) {
                 listener.onConsumed(tokensToConsume);
             } else {
@@ -361,7 +361,7 @@ public class DefaultAsyncBucketProxy implements AsyncBucketProxy, AsyncOptimizat
 
     @Override
     public CompletableFuture<Long> getAvailableTokens() {
-        return execute(new GetAvailableTokensCommand());
+        return execute(GetAvailableTokensCommand.INSTANCE);
     }
 
     @Override
@@ -80,12 +80,12 @@ public class DefaultBucketProxy extends AbstractBucket implements BucketProxy, O
 
     @Override
     protected boolean tryConsumeImpl(long tokensToConsume) {
-        return execute(new TryConsumeCommand(tokensToConsume));
+        return execute(TryConsumeCommand.create(tokensToConsume));
     }
 
     @Override
     protected ConsumptionProbe tryConsumeAndReturnRemainingTokensImpl(long tokensToConsume) {
-        return execute(new TryConsumeAndReturnRemainingTokensCommand(tokensToConsume));
+        return execute(TryConsumeAndReturnRemainingTokensCommand.create(tokensToConsume));
     }
 
     @Override
@@ -128,7 +128,7 @@ public class DefaultBucketProxy extends AbstractBucket implements BucketProxy, O
 
     @Override
     public long getAvailableTokens() {
-        return execute(new GetAvailableTokensCommand());
+        return execute(GetAvailableTokensCommand.INSTANCE);
     }
 
     @Override
@@ -0,0 +1,93 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Describes how proxy managers that built on top of blocking storage(like JDBC) execute commands in asynchronous mode.
+ *
+ * @see ClientSideConfig#withExecutionStrategy(ExecutionStrategy)
+ */
+public interface ExecutionStrategy {
+
+    /**
+     * Executes blocking task in background.
+     *
+     * @param task the blocking task to execute
+     * @param <T> type of result
+     *
+     * @return future that will be completed when task is executed
+     */
+    <T> CompletableFuture<T> executeAsync(Supplier<T> task);
+
+    /**
+     * Creates strategy that executes each task on provided {@code executor}.
+     *
+     * @param executor the executor that is used to execute blocking tasks
+     *
+     * @return new instance of {@link ExecutionStrategy}
+     */
+    static ExecutionStrategy background(Executor executor) {
+        Objects.requireNonNull(executor);
+        return new ExecutionStrategy() {
+            @Override
+            public <T> CompletableFuture<T> executeAsync(Supplier<T> task) {
+                return CompletableFuture.supplyAsync(task, executor);
+            }
+        };
+    }
+
+    /**
+     * Creates strategy that executes tasks on provided {@code executor}, but executes no more than {@code maxConcurrency} tasks in parallel.
+     * The rest of tasks are queued without blocking the caller.
+     *
+     * <p>
+     * Typically {@code maxConcurrency} should be equal to size of connection pool,
+     * in order to avoid waiting for connection inside the executor.
+     *
+     * @param executor the executor that is used to execute blocking tasks
+     * @param maxConcurrency max count of tasks that are executed in parallel
+     *
+     * @return new instance of {@link ExecutionStrategy}
+     */
+    static ExecutionStrategy background(Executor executor, int maxConcurrency) {
+        return new BoundedExecutionStrategy(executor, maxConcurrency);
+    }
+
+    /**
+     * Creates strategy that executes each task on new virtual thread, but executes no more than {@code maxConcurrency} tasks in parallel.
+     *
+     * @param maxConcurrency max count of tasks that are executed in parallel, typically should be equal to size of connection pool
+     *
+     * @return new instance of {@link ExecutionStrategy}
+     *
+     * @throws UnsupportedOperationException if current JVM does not support virtual threads
+     */
+    static ExecutionStrategy virtualThreads(int maxConcurrency) {
+        Executor executor = VirtualThreads.EXECUTOR.orElseThrow(() -> new UnsupportedOperationException("Virtual threads are not supported by current JVM"));
+        return new BoundedExecutionStrategy(executor, maxConcurrency);
+    }
+
+}
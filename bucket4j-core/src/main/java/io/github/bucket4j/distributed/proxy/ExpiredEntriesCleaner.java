@@ -0,0 +1,39 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy;
+
+/**
+ * Interface for proxy managers that are able to remove expired buckets from the storage by request,
+ * typically this is implemented by storages that have no native support for expiration, like relational databases.
+ *
+ * @see ExpiredEntriesSweeper
+ */
+public interface ExpiredEntriesCleaner {
+
+    /**
+     * Removes expired buckets from the storage, but not more than <b>batchSize</b>.
+     *
+     * @param batchSize maximum count of buckets to remove by this invocation
+     *
+     * @return count of removed buckets, value less than <b>batchSize</b> means that there is nothing more to remove at the moment
+     */
+    int removeExpired(int batchSize);
+
+}
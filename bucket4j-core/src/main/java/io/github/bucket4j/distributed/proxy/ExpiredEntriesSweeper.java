@@ -0,0 +1,135 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.BucketExceptions;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically removes expired buckets via {@link ExpiredEntriesCleaner} in small batches.
+ *
+ * <p>Each run removes batches one by one until the batch smaller than <b>batchSize</b> is returned,
+ * batches are separated by <b>pauseBetweenBatches</b> in order to limit the pressure of cleanup on the storage,
+ * so the rate of removal never exceeds {@code batchSize / pauseBetweenBatches}.
+ * Next run is scheduled after <b>interval</b> since the end of previous one.
+ * The sweeper never occupies the thread of scheduler between batches, so single scheduler can be shared by many sweepers.
+ *
+ * <p>Failed batch does not stop the sweeper, the failure is counted and next run is scheduled after <b>interval</b>.
+ */
+public class ExpiredEntriesSweeper {
+
+    private final ExpiredEntriesCleaner cleaner;
+    private final ScheduledExecutorService scheduler;
+    private final int batchSize;
+    private final long pauseBetweenBatchesNanos;
+    private final long intervalNanos;
+
+    private final AtomicLong removedCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+
+    private boolean started;
+    private boolean stopped;
+    private ScheduledFuture<?> scheduledBatch;
+
+    /**
+     * @param cleaner the storage of buckets
+     * @param scheduler scheduler that is used to execute batches
+     * @param batchSize maximum count of buckets removed by one batch
+     * @param pauseBetweenBatches pause between batches of the same run
+     * @param interval pause between runs
+     */
+    public ExpiredEntriesSweeper(ExpiredEntriesCleaner cleaner, ScheduledExecutorService scheduler, int batchSize, Duration pauseBetweenBatches, Duration interval) {
+        if (batchSize <= 0) {
+            throw BucketExceptions.nonPositiveSweeperBatchSize(batchSize);
+        }
+        if (pauseBetweenBatches.isNegative()) {
+            throw BucketExceptions.negativeSweeperPauseBetweenBatches(pauseBetweenBatches);
+        }
+        if (interval.isNegative() || interval.isZero()) {
+            throw BucketExceptions.nonPositiveSweeperInterval(interval);
+        }
+        this.cleaner = Objects.requireNonNull(cleaner);
+        this.scheduler = Objects.requireNonNull(scheduler);
+        this.batchSize = batchSize;
+        this.pauseBetweenBatchesNanos = pauseBetweenBatches.toNanos();
+        this.intervalNanos = interval.toNanos();
+    }
+
+    /**
+     * Schedules the first run after <b>interval</b>.
+     */
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException("Sweeper is already started");
+        }
+        started = true;
+        schedule(intervalNanos);
+    }
+
+    /**
+     * Cancels the next batch, the batch that is in progress is not interrupted.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (scheduledBatch != null) {
+            scheduledBatch.cancel(false);
+        }
+    }
+
+    /**
+     * @return total count of removed buckets
+     */
+    public long getRemovedCount() {
+        return removedCount.get();
+    }
+
+    /**
+     * @return count of batches failed with exception
+     */
+    public long getFailedBatchCount() {
+        return failedBatchCount.get();
+    }
+
+    private void removeBatch() {
+        int removed;
+        try {
+            removed = cleaner.removeExpired(batchSize);
+        } catch (Throwable e) {
+            failedBatchCount.incrementAndGet();
+            schedule(intervalNanos);
+            return;
+        }
+        removedCount.addAndGet(removed);
+        schedule(removed < batchSize ? intervalNanos : pauseBetweenBatchesNanos);
+    }
+
+    private synchronized void schedule(long delayNanos) {
+        if (!stopped) {
+            scheduledBatch = scheduler.schedule(this::removeBatch, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.BucketExceptions;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Configuration of {@link NearCacheProxyManager}.
+ *
+ * <p>This class is immutable, each <b>with</b> method returns new instance.
+ */
+public class NearCacheConfig {
+
+    private static final NearCacheConfig defaultConfig = new NearCacheConfig(Duration.ofMillis(100), 100, 10_000, 1000, Duration.ofMinutes(1), Optional.empty());
+
+    private final Duration syncPeriod;
+    private final long maxUnsynchronizedTokens;
+    private final int maxSize;
+    private final int maxBatchSize;
+    private final Duration keepIdle;
+    private final Optional<ScheduledExecutorService> scheduler;
+
+    private NearCacheConfig(Duration syncPeriod, long maxUnsynchronizedTokens, int maxSize, int maxBatchSize, Duration keepIdle, Optional<ScheduledExecutorService> scheduler) {
+        this.syncPeriod = syncPeriod;
+        this.maxUnsynchronizedTokens = maxUnsynchronizedTokens;
+        this.maxSize = maxSize;
+        this.maxBatchSize = maxBatchSize;
+        this.keepIdle = keepIdle;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Returns default configuration: synchronize every 100 milliseconds, consume locally up to 100 tokens per bucket between synchronizations,
+     * hold up to 10000 buckets, synchronize by batches of 1000 buckets, keep buckets in memory during one minute after last access.
+     *
+     * @return default configuration
+     */
+    public static NearCacheConfig getDefault() {
+        return defaultConfig;
+    }
+
+    /**
+     * Returns new config with specified period of background synchronization.
+     * Each period, buckets that were accessed or consumed locally since previous synchronization are synchronized with the storage,
+     * so count of remote calls depends on count of active buckets and this period, instead of the rate of requests.
+     * Local state that was not synchronized during two periods is not used.
+     *
+     * @param syncPeriod period of synchronization
+     *
+     * @return new config
+     */
+    public NearCacheConfig withSyncPeriod(Duration syncPeriod) {
+        if (syncPeriod.isNegative() || syncPeriod.isZero()) {
+            throw BucketExceptions.nonPositiveBackgroundSyncPeriod(syncPeriod);
+        }
+        return new NearCacheConfig(syncPeriod, maxUnsynchronizedTokens, maxSize, maxBatchSize, keepIdle, scheduler);
+    }
+
+    /**
+     * Returns new config with specified amount of tokens that can be consumed from single bucket locally without synchronization with the storage.
+     * This amount bounds the overconsumption per bucket and per process that can happen between synchronizations.
+     *
+     * @param maxUnsynchronizedTokens amount of tokens that can be consumed locally
+     *
+     * @return new config
+     */
+    public NearCacheConfig withMaxUnsynchronizedTokens(long maxUnsynchronizedTokens) {
+        if (maxUnsynchronizedTokens <= 0) {
+            throw BucketExceptions.nonPositiveTokensForDelayParameters(maxUnsynchronizedTokens);
+        }
+        return new NearCacheConfig(syncPeriod, maxUnsynchronizedTokens, maxSize, maxBatchSize, keepIdle, scheduler);
+    }
+
+    /**
+     * Returns new config with specified maximum count of buckets held in memory.
+     * When the limit is reached, commands for buckets that are not held in memory are executed directly in the storage.
+     *
+     * @param maxSize maximum count of buckets held in memory
+     *
+     * @return new config
+     */
+    public NearCacheConfig withMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw BucketExceptions.nonPositiveNearCacheMaxSize(maxSize);
+        }
+        return new NearCacheConfig(syncPeriod, maxUnsynchronizedTokens, maxSize, maxBatchSize, keepIdle, scheduler);
+    }
+
+    /**
+     * Returns new config with specified maximum count of buckets that are synchronized by single batch.
+     * Batch is executed as single transaction when the storage supports {@link io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager#executeAll(java.util.Map)},
+     * otherwise commands of batch are sent concurrently when the storage supports asynchronous API.
+     *
+     * @param maxBatchSize maximum count of buckets in the batch
+     *
+     * @return new config
+     */
+    public NearCacheConfig withMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw BucketExceptions.nonPositiveFlushBatchSize(maxBatchSize);
+        }
+        return new NearCacheConfig(syncPeriod, maxUnsynchronizedTokens, maxSize, maxBatchSize, keepIdle, scheduler);
+    }
+
+    /**
+     * Returns new config with specified duration after last access when synchronized bucket is removed from memory.
+     *
+     * @param keepIdle how long bucket is kept in memory after last access
+     *
+     * @return new config
+     */
+    public NearCacheConfig withKeepIdle(Duration keepIdle) {
+        if (keepIdle.isNegative()) {
+            throw BucketExceptions.negativeKeepIdleDuration(keepIdle);
+        }
+        return new NearCacheConfig(syncPeriod, maxUnsynchronizedTokens, maxSize, maxBatchSize, keepIdle, scheduler);
+    }
+
+    /**
+     * Returns new config with specified scheduler that is used for synchronization.
+     * By default, each proxy manager creates own single thread scheduler that is shut down by {@link NearCacheProxyManager#close()}.
+     *
+     * @param scheduler the scheduler for synchronization
+     *
+     * @return new config
+     */
+    public NearCacheConfig withScheduler(ScheduledExecutorService scheduler) {
+        return new NearCacheConfig(syncPeriod, maxUnsynchronizedTokens, maxSize, maxBatchSize, keepIdle, Optional.of(Objects.requireNonNull(scheduler)));
+    }
+
+    public Duration getSyncPeriod() {
+        return syncPeriod;
+    }
+
+    public long getMaxUnsynchronizedTokens() {
+        return maxUnsynchronizedTokens;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public Duration getKeepIdle() {
+        return keepIdle;
+    }
+
+    public Optional<ScheduledExecutorService> getScheduler() {
+        return scheduler;
+    }
+
+}
@@ -0,0 +1,575 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.remote.BucketEntryWrapper;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MultiResult;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.remote.commands.ConsumeIgnoringRateLimitsCommand;
+import io.github.bucket4j.distributed.remote.commands.CreateSnapshotCommand;
+import io.github.bucket4j.distributed.remote.commands.MultiCommand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorates another proxy manager in order to answer commands from approximate copies of buckets held in memory of current process,
+ * while the decorated proxy manager stays the authority for the state of buckets.
+ *
+ * <p>Command is executed locally, in the same way as {@link io.github.bucket4j.distributed.proxy.optimization.delay.DelayOptimization} does,
+ * when the bucket has been synchronized recently and tokens consumed locally since last synchronization do not exceed
+ * {@link NearCacheConfig#getMaxUnsynchronizedTokens()}, otherwise command is executed remotely together with locally consumed tokens.
+ * In contrast to optimizations that are applied to each bucket proxy separately, the near cache is shared by all proxies and keys of proxy manager,
+ * and locally consumed tokens are synchronized in background by batches of many buckets every {@link NearCacheConfig#getSyncPeriod() sync period},
+ * so count of remote calls depends on the count of active buckets instead of the rate of requests.
+ *
+ * <p>Use this proxy manager only when following restrictions are acceptable:
+ * <ul>
+ *     <li>Each process can overconsume up to {@link NearCacheConfig#getMaxUnsynchronizedTokens()} tokens per bucket between synchronizations.</li>
+ *     <li>Tokens that were consumed locally since last synchronization are lost in case of process crash.</li>
+ * </ul>
+ * Call {@link #close()} on shutdown in order to synchronize the last locally consumed tokens.
+ *
+ * @param <K> the generic type for unique identifiers that used to point to the bucket in external storage.
+ */
+public class NearCacheProxyManager<K> extends AbstractProxyManager<K> implements AutoCloseable {
+
+    private final AbstractProxyManager<K> target;
+    private final NearCacheConfig config;
+    private final long syncPeriodNanos;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownScheduler;
+    private final ScheduledFuture<?> scheduledSync;
+
+    private final ConcurrentHashMap<K, NearEntry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final boolean batchTransactionSupported;
+
+    private final LongAdder locallyExecutedCount = new LongAdder();
+    private final AtomicLong remoteCallCount = new AtomicLong();
+    private final AtomicLong failedSyncCount = new AtomicLong();
+
+    /**
+     * Creates near cache in front of specified proxy manager.
+     *
+     * @param target the proxy manager that holds authoritative state of buckets
+     * @param config configuration of near cache
+     */
+    public NearCacheProxyManager(AbstractProxyManager<K> target, NearCacheConfig config) {
+        super(target.getClientSideConfig());
+        this.target = target;
+        this.config = config;
+        this.syncPeriodNanos = config.getSyncPeriod().toNanos();
+        this.batchTransactionSupported = target instanceof AbstractSelectForUpdateBasedProxyManager
+                && ((AbstractSelectForUpdateBasedProxyManager<K>) target).isBatchTransactionSupported();
+        this.ownScheduler = !config.getScheduler().isPresent();
+        this.scheduler = config.getScheduler().orElseGet(() -> Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bucket4j-near-cache-synchronizer");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        this.scheduledSync = scheduler.scheduleWithFixedDelay(this::syncAndEvictIdle, syncPeriodNanos, syncPeriodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public <T> CommandResult<T> execute(K key, Request<T> request) {
+        while (true) {
+            NearEntry entry = getOrCreateEntry(key);
+            if (entry == null) {
+                // near cache is full
+                remoteCallCount.incrementAndGet();
+                return target.execute(key, request);
+            }
+
+            long capturedTokens;
+            synchronized (entry) {
+                if (entry.removed) {
+                    continue;
+                }
+                CommandResult<T> localResult = tryExecuteLocally(entry, request);
+                if (localResult != null) {
+                    return localResult;
+                }
+                if (entry.syncInProgress) {
+                    entry.bypassedDuringSync = true;
+                    entry.bypassesInFlight++;
+                    capturedTokens = -1;
+                } else {
+                    capturedTokens = beginSync(entry);
+                }
+            }
+
+            remoteCallCount.incrementAndGet();
+            if (capturedTokens < 0) {
+                // state of bucket is being synchronized by another thread, so command is executed remotely as is
+                try {
+                    return target.execute(key, request);
+                } finally {
+                    completeBypass(entry);
+                }
+            }
+            CommandResult<MultiResult> remoteResult;
+            try {
+                remoteResult = target.execute(key, createRemoteRequest(capturedTokens, request));
+            } catch (Throwable t) {
+                failSync(entry);
+                throw t;
+            }
+            completeSync(entry, remoteResult);
+            return extractOriginalResult(remoteResult);
+        }
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return target.isAsyncModeSupported();
+    }
+
+    @Override
+    public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
+        while (true) {
+            NearEntry entry = getOrCreateEntry(key);
+            if (entry == null) {
+                // near cache is full
+                remoteCallCount.incrementAndGet();
+                return target.executeAsync(key, request);
+            }
+
+            long capturedTokens;
+            synchronized (entry) {
+                if (entry.removed) {
+                    continue;
+                }
+                CommandResult<T> localResult = tryExecuteLocally(entry, request);
+                if (localResult != null) {
+                    return CompletableFuture.completedFuture(localResult);
+                }
+                if (entry.syncInProgress) {
+                    entry.bypassedDuringSync = true;
+                    entry.bypassesInFlight++;
+                    capturedTokens = -1;
+                } else {
+                    capturedTokens = beginSync(entry);
+                }
+            }
+
+            remoteCallCount.incrementAndGet();
+            if (capturedTokens < 0) {
+                // state of bucket is being synchronized by another thread, so command is executed remotely as is
+                CompletableFuture<CommandResult<T>> bypassFuture;
+                try {
+                    bypassFuture = target.executeAsync(key, request);
+                } catch (Throwable t) {
+                    completeBypass(entry);
+                    throw t;
+                }
+                return bypassFuture.whenComplete((result, error) -> completeBypass(entry));
+            }
+            CompletableFuture<CommandResult<MultiResult>> remoteFuture;
+            try {
+                remoteFuture = target.executeAsync(key, createRemoteRequest(capturedTokens, request));
+            } catch (Throwable t) {
+                failSync(entry);
+                throw t;
+            }
+            return remoteFuture.whenComplete((remoteResult, error) -> {
+                if (error != null) {
+                    failSync(entry);
+                } else {
+                    completeSync(entry, remoteResult);
+                }
+            }).thenApply(NearCacheProxyManager::extractOriginalResult);
+        }
+    }
+
+    @Override
+    public void removeProxy(K key) {
+        removeLocally(key);
+        target.removeProxy(key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(K key) {
+        removeLocally(key);
+        return target.removeAsync(key);
+    }
+
+    /**
+     * Synchronizes all buckets that were used since last synchronization immediately.
+     * In case of failure, locally consumed tokens stay unsynchronized and will be synchronized by next attempt.
+     */
+    public void flush() {
+        syncLock.lock();
+        try {
+            List<K> keys = new ArrayList<>();
+            List<NearEntry> batchEntries = new ArrayList<>();
+            for (Map.Entry<K, NearEntry> mapEntry : entries.entrySet()) {
+                NearEntry entry = mapEntry.getValue();
+                synchronized (entry) {
+                    if (entry.removed || entry.syncInProgress || !entry.isSyncNeeded()) {
+                        continue;
+                    }
+                    beginSync(entry);
+                }
+                keys.add(mapEntry.getKey());
+                batchEntries.add(entry);
+                if (keys.size() == config.getMaxBatchSize()) {
+                    syncBatch(keys, batchEntries);
+                    keys.clear();
+                    batchEntries.clear();
+                }
+            }
+            if (!keys.isEmpty()) {
+                syncBatch(keys, batchEntries);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Stops background synchronization and synchronizes the last locally consumed tokens.
+     */
+    @Override
+    public void close() {
+        scheduledSync.cancel(false);
+        try {
+            flush();
+        } finally {
+            if (ownScheduler) {
+                scheduler.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return count of buckets that are held in memory
+     */
+    public int getLocalCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return total count of commands that were executed locally without remote call
+     */
+    public long getLocallyExecutedCount() {
+        return locallyExecutedCount.sum();
+    }
+
+    /**
+     * @return total count of remote calls, batch that is executed as single transaction is counted as one call
+     */
+    public long getRemoteCallCount() {
+        return remoteCallCount.get();
+    }
+
+    /**
+     * @return total count of background synchronizations of single bucket or whole batch that failed with exception
+     */
+    public long getFailedSyncCount() {
+        return failedSyncCount.get();
+    }
+
+    private NearEntry getOrCreateEntry(K key) {
+        NearEntry entry = entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        if (entries.size() >= config.getMaxSize()) {
+            return null;
+        }
+        NearEntry newEntry = new NearEntry();
+        NearEntry concurrentlyCreatedEntry = entries.putIfAbsent(key, newEntry);
+        return concurrentlyCreatedEntry != null ? concurrentlyCreatedEntry : newEntry;
+    }
+
+    private void removeLocally(K key) {
+        NearEntry entry = entries.remove(key);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.removed = true;
+            }
+        }
+    }
+
+    private <T> CommandResult<T> tryExecuteLocally(NearEntry entry, Request<T> request) {
+        long nowNanos = System.nanoTime();
+        entry.lastAccessNanos = nowNanos;
+        if (entry.state == null) {
+            // was never synchronized before
+            return null;
+        }
+
+        long nanosSinceLastSync = nowNanos - entry.lastSyncNanos;
+        if (nanosSinceLastSync > 2 * syncPeriodNanos) {
+            // local state is too stale
+            return null;
+        }
+
+        RemoteCommand<T> command = request.getCommand();
+        long pendingTokens = entry.unsynchronizedTokens + entry.inFlightTokens;
+        if (command.isImmediateSyncRequired(pendingTokens, nanosSinceLastSync)) {
+            return null;
+        }
+        long commandTokens = command.estimateTokensToConsume();
+        if (!isWithinThreshold(pendingTokens, commandTokens)) {
+            return null;
+        }
+
+        Long clientSideTime = request.getClientSideTime();
+        long timeNanos = clientSideTime != null ? clientSideTime : System.currentTimeMillis() * 1_000_000;
+        BucketEntryWrapper wrapper = new BucketEntryWrapper(entry.state.copy());
+        CommandResult<T> result = command.execute(wrapper, timeNanos);
+        if (result.isError()) {
+            return null;
+        }
+        long locallyConsumedTokens = command.getConsumedTokens(result.getData());
+        if (!isWithinThreshold(pendingTokens, locallyConsumedTokens)) {
+            return null;
+        }
+
+        entry.unsynchronizedTokens += locallyConsumedTokens;
+        if (wrapper.isStateModified()) {
+            entry.state = wrapper.get();
+        }
+        locallyExecutedCount.increment();
+        return result;
+    }
+
+    private boolean isWithinThreshold(long pendingTokens, long tokens) {
+        if (tokens == Long.MAX_VALUE || pendingTokens + tokens < 0) {
+            // math overflow
+            return false;
+        }
+        return pendingTokens + tokens <= config.getMaxUnsynchronizedTokens();
+    }
+
+    // must be called under monitor of entry
+    private long beginSync(NearEntry entry) {
+        long capturedTokens = entry.unsynchronizedTokens;
+        entry.unsynchronizedTokens = 0;
+        entry.inFlightTokens = capturedTokens;
+        entry.syncInProgress = true;
+        // snapshot can miss commands that are still executed remotely bypassing local copy
+        entry.bypassedDuringSync = entry.bypassesInFlight > 0;
+        return capturedTokens;
+    }
+
+    private void completeBypass(NearEntry entry) {
+        synchronized (entry) {
+            entry.bypassesInFlight--;
+        }
+    }
+
+    private void completeSync(NearEntry entry, CommandResult<MultiResult> remoteResult) {
+        synchronized (entry) {
+            entry.syncInProgress = false;
+            entry.inFlightTokens = 0;
+            entry.lastSyncNanos = System.nanoTime();
+            CommandResult<?> snapshotResult = null;
+            if (!remoteResult.isError()) {
+                List<? extends CommandResult<?>> results = remoteResult.getData().getResults();
+                snapshotResult = results.get(results.size() - 1);
+            }
+            if (snapshotResult == null || snapshotResult.isError()) {
+                // bucket does not exist in the storage, so tokens consumed from local copy are meaningless
+                entry.state = null;
+                entry.unsynchronizedTokens = 0;
+                entry.bypassedDuringSync = false;
+                return;
+            }
+            if (entry.bypassedDuringSync) {
+                // commands that were executed remotely in parallel can be missed by the snapshot,
+                // so local copy is dropped and next command synchronizes it again
+                entry.bypassedDuringSync = false;
+                entry.state = null;
+                return;
+            }
+            // snapshot is copied because proxy managers that do not serialize results return the live state
+            RemoteBucketState state = ((RemoteBucketState) snapshotResult.getData()).copy();
+            if (entry.unsynchronizedTokens > 0) {
+                // tokens consumed locally while remote call was in progress are not reflected in the snapshot
+                state.consume(entry.unsynchronizedTokens);
+            }
+            entry.state = state;
+        }
+    }
+
+    private void failSync(NearEntry entry) {
+        synchronized (entry) {
+            entry.syncInProgress = false;
+            entry.unsynchronizedTokens += entry.inFlightTokens;
+            entry.inFlightTokens = 0;
+            if (entry.bypassedDuringSync) {
+                entry.bypassedDuringSync = false;
+                entry.state = null;
+            }
+        }
+    }
+
+    private <T> Request<MultiResult> createRemoteRequest(long capturedTokens, Request<T> request) {
+        List<RemoteCommand<?>> commands = new ArrayList<>(3);
+        if (capturedTokens > 0) {
+            commands.add(new ConsumeIgnoringRateLimitsCommand(capturedTokens));
+        }
+        commands.add(request.getCommand());
+        commands.add(new CreateSnapshotCommand());
+        return new Request<>(new MultiCommand(commands), request.getBackwardCompatibilityVersion(), request.getClientSideTime(), request.isConfigurationByReference());
+    }
+
+    private MultiCommand createSyncCommand(long capturedTokens) {
+        if (capturedTokens == 0) {
+            // nothing to consume, so bucket is only read and storage is not written
+            return new MultiCommand(Collections.singletonList(new CreateSnapshotCommand()));
+        }
+        return new MultiCommand(Arrays.asList(
+                new ConsumeIgnoringRateLimitsCommand(capturedTokens),
+                new CreateSnapshotCommand()
+        ));
+    }
+
+    private static <T> CommandResult<T> extractOriginalResult(CommandResult<MultiResult> remoteResult) {
+        if (remoteResult.isError()) {
+            return (CommandResult<T>) (CommandResult<?>) remoteResult;
+        }
+        // original command always precedes the snapshot
+        List<? extends CommandResult<?>> results = remoteResult.getData().getResults();
+        return (CommandResult<T>) results.get(results.size() - 2);
+    }
+
+    private void syncBatch(List<K> keys, List<NearEntry> batchEntries) {
+        List<MultiCommand> commands = new ArrayList<>(keys.size());
+        for (NearEntry entry : batchEntries) {
+            long capturedTokens;
+            synchronized (entry) {
+                capturedTokens = entry.inFlightTokens;
+            }
+            commands.add(createSyncCommand(capturedTokens));
+        }
+
+        if (batchTransactionSupported && keys.get(0) instanceof Comparable) {
+            Map<K, RemoteCommand<MultiResult>> batch = new LinkedHashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                batch.put(keys.get(i), commands.get(i));
+            }
+            try {
+                remoteCallCount.incrementAndGet();
+                Map<K, CommandResult<MultiResult>> results = ((AbstractSelectForUpdateBasedProxyManager<K>) target).executeAll(batch);
+                for (int i = 0; i < keys.size(); i++) {
+                    completeSync(batchEntries.get(i), results.get(keys.get(i)));
+                }
+                return;
+            } catch (Throwable t) {
+                failedSyncCount.incrementAndGet();
+                for (NearEntry entry : batchEntries) {
+                    failSync(entry);
+                }
+                return;
+            }
+        }
+
+        Long clientSideTime = getClientSideTime();
+        List<CompletableFuture<CommandResult<MultiResult>>> futures = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Request<MultiResult> request = new Request<>(commands.get(i), getBackwardCompatibilityVersion(), clientSideTime, getClientSideConfig().isConfigurationByReference());
+            remoteCallCount.incrementAndGet();
+            try {
+                if (target.isAsyncModeSupported()) {
+                    // commands of batch are sent concurrently
+                    futures.add(target.executeAsync(keys.get(i), request));
+                } else {
+                    futures.add(CompletableFuture.completedFuture(target.execute(keys.get(i), request)));
+                }
+            } catch (Throwable t) {
+                CompletableFuture<CommandResult<MultiResult>> failedFuture = new CompletableFuture<>();
+                failedFuture.completeExceptionally(t);
+                futures.add(failedFuture);
+            }
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            NearEntry entry = batchEntries.get(i);
+            try {
+                completeSync(entry, futures.get(i).join());
+            } catch (Throwable t) {
+                failedSyncCount.incrementAndGet();
+                failSync(entry);
+            }
+        }
+    }
+
+    private void syncAndEvictIdle() {
+        try {
+            flush();
+        } catch (Throwable t) {
+            // failures of particular buckets are already counted, tokens will be synchronized by next attempt
+        }
+        long nowNanos = System.nanoTime();
+        long keepIdleNanos = config.getKeepIdle().toNanos();
+        for (Map.Entry<K, NearEntry> mapEntry : entries.entrySet()) {
+            NearEntry entry = mapEntry.getValue();
+            synchronized (entry) {
+                if (!entry.syncInProgress && entry.unsynchronizedTokens == 0 && nowNanos - entry.lastAccessNanos >= keepIdleNanos) {
+                    entry.removed = true;
+                    entries.remove(mapEntry.getKey(), entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * The approximate copy of bucket, all fields are guarded by monitor of entry.
+     */
+    private static final class NearEntry {
+
+        // null when bucket was never synchronized or does not exist in the storage
+        private RemoteBucketState state;
+        private long unsynchronizedTokens;
+        private long inFlightTokens;
+        private boolean syncInProgress;
+        private boolean bypassedDuringSync;
+        private int bypassesInFlight;
+        private boolean removed;
+        private long lastSyncNanos;
+        private long lastAccessNanos = System.nanoTime();
+
+        private boolean isSyncNeeded() {
+            return unsynchronizedTokens > 0 || (state != null && lastAccessNanos - lastSyncNanos > 0);
+        }
+
+    }
+
+}
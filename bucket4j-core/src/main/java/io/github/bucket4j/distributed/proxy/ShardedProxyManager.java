@@ -0,0 +1,450 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.Request;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToLongFunction;
+
+/**
+ * Composite proxy manager that spreads buckets across several proxy managers, for example across several independent Redis instances
+ * or several database primaries, in order to scale the storage of buckets horizontally without clustering of storage itself.
+ *
+ * <p>Each key is owned by exactly one shard that is chosen by rendezvous hashing: the shard with highest score of pair (key, shard name) wins.
+ * Choice of shard depends only on hash of key and names of shards, so all nodes that are configured by the same set of shard names
+ * route the key to the same shard, and when a shard is added or removed only keys that belong to the added or removed shard are moved.
+ * By default the hash of key is {@link Object#hashCode()}, that is stable between JVMs for strings, numbers and {@link java.util.UUID},
+ * {@code byte[]} keys are hashed by content, other arrays are rejected, for other types of keys provide the hash function explicitly.
+ *
+ * <p>Buckets are not migrated between shards automatically, bucket of moved key is created on new owner from scratch,
+ * and its state on previous owner stays until expiration. {@link RebalanceListener listeners} are notified about each change of shards,
+ * so application can migrate or remove buckets of moved keys that it knows about.
+ *
+ * <p>Requests are passed to shards as is, so {@link ClientSideConfig} of this proxy manager is used for all buckets,
+ * client side configurations of shards are used only for the way how shards communicate with their storages.
+ *
+ * @param <K> type of key
+ */
+public class ShardedProxyManager<K> extends AbstractProxyManager<K> {
+
+    private final ToLongFunction<K> keyHasher;
+    private final List<RebalanceListener<K>> rebalanceListeners = new CopyOnWriteArrayList<>();
+    private volatile Topology<K> topology;
+
+    /**
+     * Creates sharded proxy manager that uses {@link Object#hashCode()} of keys and default client side configuration.
+     * Keys of {@code byte[]} type are hashed by {@link Arrays#hashCode(byte[])},
+     * keys of other array types are rejected because their hash codes differ between JVMs.
+     *
+     * @param shards proxy managers mapped by names of shards
+     */
+    public ShardedProxyManager(Map<String, ? extends AbstractProxyManager<K>> shards) {
+        this(shards, ShardedProxyManager::defaultHash, ClientSideConfig.getDefault());
+    }
+
+    /**
+     * Creates sharded proxy manager.
+     *
+     * @param shards proxy managers mapped by names of shards
+     * @param keyHasher function that calculates hash of key, the hash must be the same on all nodes
+     * @param clientSideConfig client side configuration that is used for all buckets
+     */
+    public ShardedProxyManager(Map<String, ? extends AbstractProxyManager<K>> shards, ToLongFunction<K> keyHasher, ClientSideConfig clientSideConfig) {
+        super(clientSideConfig);
+        if (shards.isEmpty()) {
+            throw BucketExceptions.shardsNotSpecified();
+        }
+        this.keyHasher = keyHasher;
+        this.topology = new Topology<>(new LinkedHashMap<>(shards));
+    }
+
+    @Override
+    public <T> CommandResult<T> execute(K key, Request<T> request) {
+        return getShard(key).execute(key, request);
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        for (AbstractProxyManager<K> shard : topology.proxyManagers) {
+            if (!shard.isAsyncModeSupported()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
+        return getShard(key).executeAsync(key, request);
+    }
+
+    @Override
+    public void removeProxy(K key) {
+        getShard(key).removeProxy(key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(K key) {
+        return getShard(key).removeAsync(key);
+    }
+
+    /**
+     * Executes commands against several buckets, commands are grouped by shards and each group is executed by single batch transaction
+     * when shard supports {@link AbstractSelectForUpdateBasedProxyManager#executeAll(Map) batch transactions}, or command by command otherwise.
+     *
+     * <p>Commands are executed as is, so in order to create missing buckets pass commands that are able to initialize the bucket,
+     * otherwise the result for missing bucket is {@link CommandResult#isBucketNotFound()}.
+     *
+     * @param commands commands to execute
+     * @param <T> type of command result
+     *
+     * @return results of commands mapped by keys
+     */
+    public <T> Map<K, CommandResult<T>> executeAll(Map<K, RemoteCommand<T>> commands) {
+        Map<K, CommandResult<T>> results = new LinkedHashMap<>();
+        for (Map.Entry<AbstractProxyManager<K>, Map<K, RemoteCommand<T>>> group : groupByShards(commands).entrySet()) {
+            results.putAll(executeGroup(group.getKey(), group.getValue()));
+        }
+        return results;
+    }
+
+    /**
+     * Asynchronous version of {@link #executeAll(Map)}, groups of commands are executed concurrently.
+     *
+     * @param commands commands to execute
+     * @param <T> type of command result
+     *
+     * @return future that will be completed by results of commands mapped by keys
+     */
+    public <T> CompletableFuture<Map<K, CommandResult<T>>> executeAllAsync(Map<K, RemoteCommand<T>> commands) {
+        List<CompletableFuture<Map<K, CommandResult<T>>>> groupFutures = new ArrayList<>();
+        for (Map.Entry<AbstractProxyManager<K>, Map<K, RemoteCommand<T>>> group : groupByShards(commands).entrySet()) {
+            groupFutures.add(executeGroupAsync(group.getKey(), group.getValue()));
+        }
+        return CompletableFuture.allOf(groupFutures.toArray(new CompletableFuture[0])).thenApply(nothing -> {
+            Map<K, CommandResult<T>> results = new LinkedHashMap<>();
+            for (CompletableFuture<Map<K, CommandResult<T>>> groupFuture : groupFutures) {
+                results.putAll(groupFuture.join());
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Returns name of shard that owns the key.
+     *
+     * @param key the key
+     *
+     * @return name of shard that owns the key
+     */
+    public String getShardName(K key) {
+        Topology<K> currentTopology = topology;
+        return currentTopology.names[currentTopology.select(keyHasher.applyAsLong(key))];
+    }
+
+    /**
+     * Returns current shards.
+     *
+     * @return unmodifiable map of proxy managers by names of shards
+     */
+    public Map<String, AbstractProxyManager<K>> getShards() {
+        return topology.shards;
+    }
+
+    /**
+     * Adds new shard, keys that are moved to new shard are reported to {@link RebalanceListener listeners}.
+     *
+     * @param name name of shard, must be the same on all nodes
+     * @param shard proxy manager of shard
+     */
+    public synchronized void addShard(String name, AbstractProxyManager<K> shard) {
+        if (shard == null) {
+            throw BucketExceptions.nullShard(name);
+        }
+        Topology<K> previousTopology = topology;
+        if (previousTopology.shards.containsKey(name)) {
+            throw BucketExceptions.shardAlreadyExists(name);
+        }
+        Map<String, AbstractProxyManager<K>> shards = new LinkedHashMap<>(previousTopology.shards);
+        shards.put(name, shard);
+        changeTopology(previousTopology, new Topology<>(shards));
+    }
+
+    /**
+     * Removes shard, keys of removed shard are moved to remaining shards and reported to {@link RebalanceListener listeners}.
+     *
+     * @param name name of shard
+     *
+     * @return proxy manager of removed shard or {@code null} if there is no shard with such name
+     */
+    public synchronized AbstractProxyManager<K> removeShard(String name) {
+        Topology<K> previousTopology = topology;
+        AbstractProxyManager<K> removedShard = previousTopology.shards.get(name);
+        if (removedShard == null) {
+            return null;
+        }
+        if (previousTopology.shards.size() == 1) {
+            throw BucketExceptions.lastShardCanNotBeRemoved(name);
+        }
+        Map<String, AbstractProxyManager<K>> shards = new LinkedHashMap<>(previousTopology.shards);
+        shards.remove(name);
+        changeTopology(previousTopology, new Topology<>(shards));
+        return removedShard;
+    }
+
+    /**
+     * Registers listener that is notified after each change of shards.
+     *
+     * @param listener the listener
+     */
+    public void addRebalanceListener(RebalanceListener<K> listener) {
+        rebalanceListeners.add(listener);
+    }
+
+    /**
+     * Unregisters listener.
+     *
+     * @param listener the listener
+     */
+    public void removeRebalanceListener(RebalanceListener<K> listener) {
+        rebalanceListeners.remove(listener);
+    }
+
+    private AbstractProxyManager<K> getShard(K key) {
+        Topology<K> currentTopology = topology;
+        return currentTopology.proxyManagers[currentTopology.select(keyHasher.applyAsLong(key))];
+    }
+
+    private void changeTopology(Topology<K> previousTopology, Topology<K> newTopology) {
+        topology = newTopology;
+        Rebalance<K> rebalance = new Rebalance<>(previousTopology, newTopology, keyHasher);
+        for (RebalanceListener<K> listener : rebalanceListeners) {
+            listener.onRebalance(rebalance);
+        }
+    }
+
+    private <T> Map<AbstractProxyManager<K>, Map<K, RemoteCommand<T>>> groupByShards(Map<K, RemoteCommand<T>> commands) {
+        Topology<K> currentTopology = topology;
+        Map<AbstractProxyManager<K>, Map<K, RemoteCommand<T>>> groups = new LinkedHashMap<>();
+        for (Map.Entry<K, RemoteCommand<T>> entry : commands.entrySet()) {
+            K key = entry.getKey();
+            AbstractProxyManager<K> shard = currentTopology.proxyManagers[currentTopology.select(keyHasher.applyAsLong(key))];
+            groups.computeIfAbsent(shard, s -> new LinkedHashMap<>()).put(key, entry.getValue());
+        }
+        return groups;
+    }
+
+    private <T> Map<K, CommandResult<T>> executeGroup(AbstractProxyManager<K> shard, Map<K, RemoteCommand<T>> commands) {
+        if (isBatchTransactionApplicable(shard, commands)) {
+            return ((AbstractSelectForUpdateBasedProxyManager<K>) shard).executeAll(commands);
+        }
+        Map<K, CommandResult<T>> results = new LinkedHashMap<>();
+        for (Map.Entry<K, RemoteCommand<T>> entry : commands.entrySet()) {
+            results.put(entry.getKey(), shard.execute(entry.getKey(), createRequest(entry.getValue())));
+        }
+        return results;
+    }
+
+    private <T> CompletableFuture<Map<K, CommandResult<T>>> executeGroupAsync(AbstractProxyManager<K> shard, Map<K, RemoteCommand<T>> commands) {
+        if (isBatchTransactionApplicable(shard, commands)) {
+            return ((AbstractSelectForUpdateBasedProxyManager<K>) shard).executeAllAsync(commands);
+        }
+        return executeSeparatelyAsync(shard, commands);
+    }
+
+    private <T> CompletableFuture<Map<K, CommandResult<T>>> executeSeparatelyAsync(AbstractProxyManager<K> shard, Map<K, RemoteCommand<T>> commands) {
+        Map<K, CompletableFuture<CommandResult<T>>> futures = new LinkedHashMap<>();
+        for (Map.Entry<K, RemoteCommand<T>> entry : commands.entrySet()) {
+            futures.put(entry.getKey(), shard.executeAsync(entry.getKey(), createRequest(entry.getValue())));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(nothing -> {
+            Map<K, CommandResult<T>> results = new LinkedHashMap<>();
+            for (Map.Entry<K, CompletableFuture<CommandResult<T>>> entry : futures.entrySet()) {
+                results.put(entry.getKey(), entry.getValue().join());
+            }
+            return results;
+        });
+    }
+
+    private static long defaultHash(Object key) {
+        if (key instanceof byte[]) {
+            return Arrays.hashCode((byte[]) key);
+        }
+        if (key.getClass().isArray()) {
+            throw BucketExceptions.keyHasherIsRequiredForArrayKey(key.getClass());
+        }
+        return key.hashCode();
+    }
+
+    private static boolean isBatchTransactionApplicable(AbstractProxyManager<?> shard, Map<?, ?> commands) {
+        if (!(shard instanceof AbstractSelectForUpdateBasedProxyManager) || !((AbstractSelectForUpdateBasedProxyManager<?>) shard).isBatchTransactionSupported()) {
+            return false;
+        }
+        for (Object key : commands.keySet()) {
+            if (!(key instanceof Comparable)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private <T> Request<T> createRequest(RemoteCommand<T> command) {
+        return new Request<>(command, getBackwardCompatibilityVersion(), getClientSideTime(), getClientSideConfig().isConfigurationByReference());
+    }
+
+    /**
+     * Listener of changes of shards.
+     *
+     * @param <K> type of key
+     */
+    @FunctionalInterface
+    public interface RebalanceListener<K> {
+
+        /**
+         * Is called after shards have been changed, commands that are executed after this moment are routed according to new set of shards.
+         *
+         * @param rebalance describes the change
+         */
+        void onRebalance(Rebalance<K> rebalance);
+
+    }
+
+    /**
+     * Describes the change of shards, allows to find out where the bucket was stored before the change and where it is stored now.
+     *
+     * @param <K> type of key
+     */
+    public static final class Rebalance<K> {
+
+        private final Topology<K> previousTopology;
+        private final Topology<K> currentTopology;
+        private final ToLongFunction<K> keyHasher;
+
+        private Rebalance(Topology<K> previousTopology, Topology<K> currentTopology, ToLongFunction<K> keyHasher) {
+            this.previousTopology = previousTopology;
+            this.currentTopology = currentTopology;
+            this.keyHasher = keyHasher;
+        }
+
+        public Map<String, AbstractProxyManager<K>> getPreviousShards() {
+            return previousTopology.shards;
+        }
+
+        public Map<String, AbstractProxyManager<K>> getCurrentShards() {
+            return currentTopology.shards;
+        }
+
+        public String getPreviousShardName(K key) {
+            return previousTopology.names[previousTopology.select(keyHasher.applyAsLong(key))];
+        }
+
+        public String getCurrentShardName(K key) {
+            return currentTopology.names[currentTopology.select(keyHasher.applyAsLong(key))];
+        }
+
+        /**
+         * @param key the key
+         *
+         * @return true if bucket with specified key is owned by another shard after the change
+         */
+        public boolean isMoved(K key) {
+            long keyHash = keyHasher.applyAsLong(key);
+            return !previousTopology.names[previousTopology.select(keyHash)].equals(currentTopology.names[currentTopology.select(keyHash)]);
+        }
+
+    }
+
+    private static final class Topology<K> {
+
+        private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        private final Map<String, AbstractProxyManager<K>> shards;
+        private final String[] names;
+        private final AbstractProxyManager<K>[] proxyManagers;
+        private final long[] seeds;
+
+        private Topology(Map<String, AbstractProxyManager<K>> shards) {
+            this.shards = Collections.unmodifiableMap(shards);
+            this.names = new String[shards.size()];
+            this.proxyManagers = new AbstractProxyManager[shards.size()];
+            this.seeds = new long[shards.size()];
+            int i = 0;
+            for (Map.Entry<String, AbstractProxyManager<K>> entry : shards.entrySet()) {
+                if (entry.getValue() == null) {
+                    throw BucketExceptions.nullShard(entry.getKey());
+                }
+                names[i] = entry.getKey();
+                proxyManagers[i] = entry.getValue();
+                seeds[i] = fnv1a(entry.getKey());
+                i++;
+            }
+        }
+
+        private int select(long keyHash) {
+            long mixedKeyHash = mix(keyHash);
+            int winner = 0;
+            long winnerScore = mix(mixedKeyHash ^ seeds[0]);
+            for (int i = 1; i < seeds.length; i++) {
+                long score = mix(mixedKeyHash ^ seeds[i]);
+                if (score > winnerScore || (score == winnerScore && names[i].compareTo(names[winner]) < 0)) {
+                    winner = i;
+                    winnerScore = score;
+                }
+            }
+            return winner;
+        }
+
+        // name of shard is hashed by FNV-1a instead of String.hashCode in order to spread similar names like "shard-1" and "shard-2"
+        private static long fnv1a(String name) {
+            long hash = FNV_OFFSET_BASIS;
+            for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xFF;
+                hash *= FNV_PRIME;
+            }
+            return hash;
+        }
+
+        // finalizer of MurmurHash3, each bit of input affects each bit of score
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            value *= 0xc4ceb9fe1a85ec53L;
+            value ^= value >>> 33;
+            return value;
+        }
+
+    }
+
+}
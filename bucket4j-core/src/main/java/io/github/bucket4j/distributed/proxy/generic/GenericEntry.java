@@ -20,6 +20,7 @@
 
 package io.github.bucket4j.distributed.proxy.generic;
 
+import io.github.bucket4j.distributed.remote.ConfigurationNotFoundException;
 import io.github.bucket4j.distributed.remote.MutableBucketEntry;
 import io.github.bucket4j.distributed.remote.RemoteBucketState;
 import io.github.bucket4j.distributed.serialization.InternalSerializationHelper;
@@ -32,17 +33,27 @@ import static io.github.bucket4j.distributed.serialization.InternalSerialization
 public class GenericEntry implements MutableBucketEntry {
 
     private final Version backwardCompatibilityVersion;
+    private final boolean configurationByReference;
+    private final byte[] originalStateBytes;
     private RemoteBucketState originalState;
     private RemoteBucketState modifiedState;
 
     public GenericEntry(byte[] originalStateBytes, Version backwardCompatibilityVersion) {
+        this(originalStateBytes, backwardCompatibilityVersion, false);
+    }
+
+    public GenericEntry(byte[] originalStateBytes, Version backwardCompatibilityVersion, boolean configurationByReference) {
         this.backwardCompatibilityVersion = backwardCompatibilityVersion;
-        this.originalState = originalStateBytes == null? null : deserializeState(originalStateBytes);
+        this.configurationByReference = configurationByReference;
+        this.originalStateBytes = originalStateBytes;
+        if (!configurationByReference) {
+            this.originalState = originalStateBytes == null? null : deserializeState(originalStateBytes);
+        }
     }
 
     @Override
     public boolean exists() {
-        return originalState != null;
+        return resolveOriginalState() != null;
     }
 
     @Override
@@ -52,7 +63,20 @@ public class GenericEntry implements MutableBucketEntry {
 
     @Override
     public RemoteBucketState get() {
-        return Objects.requireNonNull(originalState);
+        return Objects.requireNonNull(resolveOriginalState());
+    }
+
+    private RemoteBucketState resolveOriginalState() {
+        if (originalState == null && originalStateBytes != null && configurationByReference) {
+            // state which references unknown configuration is reported as absent, so client repeats the command together with configuration,
+            // the resolution is repeated on each call because command can register the configuration in the meantime
+            try {
+                originalState = deserializeState(originalStateBytes);
+            } catch (ConfigurationNotFoundException e) {
+                return null;
+            }
+        }
+        return originalState;
     }
 
     public RemoteBucketState getModifiedState() {
@@ -60,7 +84,7 @@ public class GenericEntry implements MutableBucketEntry {
     }
 
     public byte[] getModifiedStateBytes() {
-        return InternalSerializationHelper.serializeState(modifiedState, backwardCompatibilityVersion);
+        return InternalSerializationHelper.serializeState(modifiedState, backwardCompatibilityVersion, configurationByReference);
     }
 
     public boolean isModified() {
@@ -20,7 +20,9 @@
 
 package io.github.bucket4j.distributed.proxy.generic.compare_and_swap;
 
+import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.UninterruptibleBlockingStrategy;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
 import io.github.bucket4j.distributed.proxy.generic.GenericEntry;
@@ -30,82 +32,181 @@ import io.github.bucket4j.distributed.remote.Request;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The base class for proxy managers that built on top of idea that underlining storage provide transactions and locking.
  *
+ * <p>
+ * The behavior in case of unsuccessful compare-and-swap is controlled by {@link ClientSideConfig#getCompareAndSwapRetryPolicy()}.
+ *
  * @param <K> the generic type for unique identifiers that used to point to the bucket in external storage.
  */
 public abstract class AbstractCompareAndSwapBasedProxyManager<K> extends AbstractProxyManager<K> {
 
     private static final CommandResult<?> UNSUCCESSFUL_CAS_RESULT = null;
 
+    private final CompareAndSwapRetryPolicy retryPolicy;
+
     protected AbstractCompareAndSwapBasedProxyManager(ClientSideConfig clientSideConfig) {
         super(injectTimeClock(clientSideConfig));
+        this.retryPolicy = clientSideConfig.getCompareAndSwapRetryPolicy();
     }
 
     @Override
     public <T> CommandResult<T> execute(K key, Request<T> request) {
         CompareAndSwapOperation operation = beginCompareAndSwapOperation(key);
+        int failedAttempts = 0;
         while (true) {
-            CommandResult<T> result = execute(request, operation);
-            if (result != UNSUCCESSFUL_CAS_RESULT) {
+            RemoteCommand<T> command = request.getCommand();
+            byte[] originalStateBytes = operation.getStateData().orElse(null);
+            GenericEntry entry = new GenericEntry(originalStateBytes, request.getBackwardCompatibilityVersion(), request.isConfigurationByReference());
+            CommandResult<T> result = command.execute(entry, getClientSideTime());
+            if (!entry.isModified()) {
                 return result;
             }
+
+            byte[] newStateBytes = entry.getModifiedStateBytes();
+            if (operation.compareAndSwap(originalStateBytes, newStateBytes, entry.getModifiedState())) {
+                return result;
+            }
+
+            failedAttempts++;
+            if (failedAttempts >= retryPolicy.getMaxAttempts()) {
+                return onAttemptsExhausted(key, failedAttempts, result);
+            }
+            retryPolicy.getListener().onRetry(key, failedAttempts);
+            long backoffNanos = retryPolicy.calculateBackoffNanos(failedAttempts);
+            if (backoffNanos > 0) {
+                UninterruptibleBlockingStrategy.PARKING.parkUninterruptibly(backoffNanos);
+            }
         }
     }
 
     @Override
     public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
         AsyncCompareAndSwapOperation operation = beginAsyncCompareAndSwapOperation(key);
-        CompletableFuture<CommandResult<T>> result = executeAsync(request, operation);
-        return result.thenCompose((CommandResult<T> response) -> retryIfCasWasUnsuccessful(operation, request, response));
+        AsyncRetryLoop<T> retryLoop = new AsyncRetryLoop<>(key, request, operation);
+        retryLoop.run();
+        return retryLoop.resultFuture;
     }
 
     protected abstract CompareAndSwapOperation beginCompareAndSwapOperation(K key);
 
     protected abstract AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(K key);
 
-    private <T> CommandResult<T> execute(Request<T> request, CompareAndSwapOperation operation) {
-        RemoteCommand<T> command = request.getCommand();
-        byte[] originalStateBytes = operation.getStateData().orElse(null);
-        GenericEntry entry = new GenericEntry(originalStateBytes, request.getBackwardCompatibilityVersion());
-        CommandResult<T> result = command.execute(entry, getClientSideTime());
-        if (!entry.isModified()) {
-            return result;
+    private <T> CommandResult<T> onAttemptsExhausted(K key, int failedAttempts, CommandResult<T> localResult) {
+        retryPolicy.getListener().onAttemptsExhausted(key, failedAttempts);
+        if (retryPolicy.isFallbackToLocalEstimate()) {
+            return localResult;
         }
+        throw BucketExceptions.compareAndSwapAttemptsExhausted(failedAttempts);
+    }
 
-        byte[] newStateBytes = entry.getModifiedStateBytes();
-        if (operation.compareAndSwap(originalStateBytes, newStateBytes, entry.getModifiedState())) {
-            return result;
-        } else {
-            return null;
+    /**
+     * Repeats asynchronous compare-and-swap attempts without growing the stack and without chaining of futures:
+     * attempts that were completed synchronously are handled inside the loop,
+     * attempts that were completed later resume the loop from completion callback,
+     * attempts that must be delayed by backoff resume the loop from delayed executor.
+     */
+    private final class AsyncRetryLoop<T> implements Runnable {
+
+        private final K key;
+        private final Request<T> request;
+        private final AsyncCompareAndSwapOperation operation;
+        private final CompletableFuture<CommandResult<T>> resultFuture = new CompletableFuture<>();
+
+        private int failedAttempts;
+        private CommandResult<T> lastLocalResult;
+
+        private AsyncRetryLoop(K key, Request<T> request, AsyncCompareAndSwapOperation operation) {
+            this.key = key;
+            this.request = request;
+            this.operation = operation;
         }
-    }
 
-    private <T> CompletableFuture<CommandResult<T>> retryIfCasWasUnsuccessful(AsyncCompareAndSwapOperation operation, Request<T> request, CommandResult<T> casResponse) {
-        if (casResponse != UNSUCCESSFUL_CAS_RESULT) {
-            return CompletableFuture.completedFuture(casResponse);
-        } else {
-            return executeAsync(request, operation).thenCompose((CommandResult<T> response) -> retryIfCasWasUnsuccessful(operation, request, response));
+        @Override
+        public void run() {
+            while (true) {
+                CompletableFuture<CommandResult<T>> attemptFuture;
+                try {
+                    attemptFuture = attempt();
+                } catch (Throwable t) {
+                    resultFuture.completeExceptionally(t);
+                    return;
+                }
+
+                if (!attemptFuture.isDone()) {
+                    attemptFuture.whenComplete((casResult, error) -> {
+                        if (handleAttempt(casResult, error)) {
+                            run();
+                        }
+                    });
+                    return;
+                }
+
+                CommandResult<T> casResult = null;
+                Throwable error = null;
+                try {
+                    casResult = attemptFuture.join();
+                } catch (Throwable t) {
+                    error = t;
+                }
+                if (!handleAttempt(casResult, error)) {
+                    return;
+                }
+            }
+        }
+
+        private CompletableFuture<CommandResult<T>> attempt() {
+            return operation.getStateData()
+                .thenApply((Optional<byte[]> originalStateBytes) -> originalStateBytes.orElse(null))
+                .thenCompose((byte[] originalStateBytes) -> {
+                    RemoteCommand<T> command = request.getCommand();
+                    GenericEntry entry = new GenericEntry(originalStateBytes, request.getBackwardCompatibilityVersion(), request.isConfigurationByReference());
+                    CommandResult<T> result = command.execute(entry, getClientSideTime());
+                    if (!entry.isModified()) {
+                        return CompletableFuture.completedFuture(result);
+                    }
+
+                    lastLocalResult = result;
+                    byte[] newStateBytes = entry.getModifiedStateBytes();
+                    return operation.compareAndSwap(originalStateBytes, newStateBytes, entry.getModifiedState()).thenApply((casWasSuccessful) -> casWasSuccessful? result : null);
+                });
         }
-    }
 
+        /**
+         * @return true if next attempt should be performed immediately by the caller
+         */
+        private boolean handleAttempt(CommandResult<T> casResult, Throwable error) {
+            if (error != null) {
+                resultFuture.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                return false;
+            }
+            if (casResult != UNSUCCESSFUL_CAS_RESULT) {
+                resultFuture.complete(casResult);
+                return false;
+            }
 
-    private <T> CompletableFuture<CommandResult<T>> executeAsync(Request<T> request, AsyncCompareAndSwapOperation operation) {
-        return operation.getStateData()
-            .thenApply((Optional<byte[]> originalStateBytes) -> originalStateBytes.orElse(null))
-            .thenCompose((byte[] originalStateBytes) -> {
-                RemoteCommand<T> command = request.getCommand();
-                GenericEntry entry = new GenericEntry(originalStateBytes, request.getBackwardCompatibilityVersion());
-                CommandResult<T> result = command.execute(entry, getClientSideTime());
-                if (!entry.isModified()) {
-                    return CompletableFuture.completedFuture(result);
+            failedAttempts++;
+            if (failedAttempts >= retryPolicy.getMaxAttempts()) {
+                try {
+                    resultFuture.complete(onAttemptsExhausted(key, failedAttempts, lastLocalResult));
+                } catch (Throwable t) {
+                    resultFuture.completeExceptionally(t);
                 }
+                return false;
+            }
+            retryPolicy.getListener().onRetry(key, failedAttempts);
+            long backoffNanos = retryPolicy.calculateBackoffNanos(failedAttempts);
+            if (backoffNanos == 0) {
+                return true;
+            }
+            CompletableFuture.delayedExecutor(backoffNanos, TimeUnit.NANOSECONDS).execute(this);
+            return false;
+        }
 
-                byte[] newStateBytes = entry.getModifiedStateBytes();
-                return operation.compareAndSwap(originalStateBytes, newStateBytes, entry.getModifiedState()).thenApply((casWasSuccessful) -> casWasSuccessful? result : null);
-            });
     }
 
     private static ClientSideConfig injectTimeClock(ClientSideConfig clientSideConfig) {
@@ -20,6 +20,7 @@
 
 package io.github.bucket4j.distributed.proxy.generic.compare_and_swap;
 
+import io.github.bucket4j.distributed.proxy.ExecutionStrategy;
 import io.github.bucket4j.distributed.remote.RemoteBucketState;
 
 import java.util.Optional;
@@ -54,4 +55,26 @@ public interface AsyncCompareAndSwapOperation {
      */
     CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState);
 
+    /**
+     * Adapts blocking {@link CompareAndSwapOperation} to asynchronous contract by executing each step via {@code executionStrategy}.
+     *
+     * @param operation blocking operation
+     * @param executionStrategy strategy that executes blocking steps outside of caller thread
+     *
+     * @return asynchronous view of {@code operation}
+     */
+    static AsyncCompareAndSwapOperation executeVia(CompareAndSwapOperation operation, ExecutionStrategy executionStrategy) {
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData() {
+                return executionStrategy.executeAsync(operation::getStateData);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                return executionStrategy.executeAsync(() -> operation.compareAndSwap(originalData, newData, newState));
+            }
+        };
+    }
+
 }
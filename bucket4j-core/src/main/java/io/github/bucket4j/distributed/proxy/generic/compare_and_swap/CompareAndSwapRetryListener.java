@@ -0,0 +1,70 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.generic.compare_and_swap;
+
+/**
+ * Monitoring listener for retries performed by {@link AbstractCompareAndSwapBasedProxyManager} when compare-and-swap was unsuccessful.
+ *
+ * @see CompareAndSwapRetryPolicy#withListener(CompareAndSwapRetryListener)
+ */
+public interface CompareAndSwapRetryListener {
+
+    /**
+     * Creates new instance of {@link DefaultCompareAndSwapRetryListener}
+     *
+     * @return new instance of {@link DefaultCompareAndSwapRetryListener}
+     *
+     * @see DefaultCompareAndSwapRetryListener
+     */
+    static DefaultCompareAndSwapRetryListener createDefault() {
+        return new DefaultCompareAndSwapRetryListener();
+    }
+
+    /**
+     * Creates new instance of {@link DefaultCompareAndSwapRetryListener} that additionally tracks retry counters per key.
+     *
+     * @param maxTrackedKeys the max count of keys for which retry counters are tracked
+     *
+     * @return new instance of {@link DefaultCompareAndSwapRetryListener}
+     *
+     * @see DefaultCompareAndSwapRetryListener#DefaultCompareAndSwapRetryListener(int)
+     */
+    static DefaultCompareAndSwapRetryListener createDefault(int maxTrackedKeys) {
+        return new DefaultCompareAndSwapRetryListener(maxTrackedKeys);
+    }
+
+    /**
+     * This method is invoked every time when compare-and-swap for the key was unsuccessful and operation is going to be retried.
+     *
+     * @param key the key of bucket for which compare-and-swap was unsuccessful
+     * @param failedAttempts how many attempts were unsuccessful in the scope of current request
+     */
+    void onRetry(Object key, int failedAttempts);
+
+    /**
+     * This method is invoked when compare-and-swap for the key was unsuccessful and limit of attempts is reached.
+     *
+     * @param key the key of bucket for which compare-and-swap was unsuccessful
+     * @param failedAttempts how many attempts were unsuccessful in the scope of current request
+     */
+    void onAttemptsExhausted(Object key, int failedAttempts);
+
+}
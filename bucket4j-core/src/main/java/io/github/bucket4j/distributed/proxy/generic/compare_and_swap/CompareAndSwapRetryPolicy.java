@@ -0,0 +1,159 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.generic.compare_and_swap;
+
+import io.github.bucket4j.BucketExceptions;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Describes how {@link AbstractCompareAndSwapBasedProxyManager} should behave when compare-and-swap was unsuccessful
+ * because of concurrent modification of the same bucket:
+ * <ul>
+ *     <li>Max attempts, see {@link #maxAttempts(int)} for more details.</li>
+ *     <li>Backoff between attempts, see {@link #withExponentialBackoff(Duration, Duration)} for more details.</li>
+ *     <li>Behavior when attempts are exhausted, see {@link #withFallbackToLocalEstimate()} for more details.</li>
+ *     <li>Monitoring, see {@link #withListener(CompareAndSwapRetryListener)} for more details.</li>
+ * </ul>
+ *
+ * <p>
+ * By default {@link #UNLIMITED} policy is used, which retries immediately and without limits.
+ */
+public class CompareAndSwapRetryPolicy {
+
+    /**
+     * The policy that retries unsuccessful compare-and-swap immediately without limitation of attempts.
+     */
+    public static final CompareAndSwapRetryPolicy UNLIMITED = new CompareAndSwapRetryPolicy(Integer.MAX_VALUE, 0L, 0L, false, NopeCompareAndSwapRetryListener.INSTANCE);
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final boolean fallbackToLocalEstimate;
+    private final CompareAndSwapRetryListener listener;
+
+    private CompareAndSwapRetryPolicy(int maxAttempts, long initialBackoffNanos, long maxBackoffNanos, boolean fallbackToLocalEstimate, CompareAndSwapRetryListener listener) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.fallbackToLocalEstimate = fallbackToLocalEstimate;
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * Creates the policy that limits the total number of compare-and-swap attempts in the scope of single request.
+     *
+     * @param maxAttempts the total number of attempts including the first one, must be positive.
+     *
+     * @return new policy that retries immediately no more than {@code maxAttempts} times
+     */
+    public static CompareAndSwapRetryPolicy maxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw BucketExceptions.nonPositiveMaxAttemptsForCompareAndSwapRetryPolicy(maxAttempts);
+        }
+        return new CompareAndSwapRetryPolicy(maxAttempts, 0L, 0L, false, NopeCompareAndSwapRetryListener.INSTANCE);
+    }
+
+    /**
+     * Returns new instance of {@link CompareAndSwapRetryPolicy} that waits between attempts.
+     *
+     * <p>
+     * The delay before N-th retry is chosen randomly between zero and {@code min(maxDelay, initialDelay * 2^(N-1))},
+     * so concurrent writers to the same hot key are spread in time instead of colliding again on next attempt.
+     * In asynchronous mode the delay does not block any thread.
+     *
+     * @param initialDelay the upper bound of delay before first retry, must be positive.
+     * @param maxDelay the upper bound of delay before any retry, must not be less than {@code initialDelay}.
+     *
+     * @return new instance of {@link CompareAndSwapRetryPolicy} with configured backoff
+     */
+    public CompareAndSwapRetryPolicy withExponentialBackoff(Duration initialDelay, Duration maxDelay) {
+        if (initialDelay == null || initialDelay.isNegative() || initialDelay.isZero()) {
+            throw BucketExceptions.nonPositiveBackoffForCompareAndSwapRetryPolicy(initialDelay);
+        }
+        if (maxDelay == null || maxDelay.compareTo(initialDelay) < 0) {
+            throw BucketExceptions.maxBackoffForCompareAndSwapRetryPolicyCanNotBeLessThanInitial(initialDelay, maxDelay);
+        }
+        return new CompareAndSwapRetryPolicy(maxAttempts, initialDelay.toNanos(), maxDelay.toNanos(), fallbackToLocalEstimate, listener);
+    }
+
+    /**
+     * Returns new instance of {@link CompareAndSwapRetryPolicy} that does not fail request when attempts are exhausted.
+     *
+     * <p>
+     * Instead of throwing {@link io.github.bucket4j.BucketExceptions.BucketExecutionException}
+     * the result of command that was calculated against last read state is returned to the caller.
+     * Changes of bucket state made by such command are not persisted,
+     * so this option trades accuracy of limitation for availability of hot keys.
+     *
+     * @return new instance of {@link CompareAndSwapRetryPolicy} with enabled fallback to local estimate
+     */
+    public CompareAndSwapRetryPolicy withFallbackToLocalEstimate() {
+        return new CompareAndSwapRetryPolicy(maxAttempts, initialBackoffNanos, maxBackoffNanos, true, listener);
+    }
+
+    /**
+     * Returns new instance of {@link CompareAndSwapRetryPolicy} with configured {@code listener}.
+     *
+     * @param listener the listener that will be notified about retries
+     *
+     * @return new instance of {@link CompareAndSwapRetryPolicy} with configured {@code listener}
+     *
+     * @see DefaultCompareAndSwapRetryListener
+     */
+    public CompareAndSwapRetryPolicy withListener(CompareAndSwapRetryListener listener) {
+        return new CompareAndSwapRetryPolicy(maxAttempts, initialBackoffNanos, maxBackoffNanos, fallbackToLocalEstimate, listener);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isFallbackToLocalEstimate() {
+        return fallbackToLocalEstimate;
+    }
+
+    public CompareAndSwapRetryListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Calculates how long to wait before next attempt.
+     *
+     * @param failedAttempts how many attempts were unsuccessful in the scope of current request
+     *
+     * @return amount of nanoseconds to wait before next attempt, zero means that next attempt should be done immediately
+     */
+    public long calculateBackoffNanos(int failedAttempts) {
+        if (initialBackoffNanos == 0L) {
+            return 0L;
+        }
+        long upperBound = maxBackoffNanos;
+        int shift = failedAttempts - 1;
+        if (shift < Long.numberOfLeadingZeros(initialBackoffNanos) - 1) {
+            upperBound = Math.min(maxBackoffNanos, initialBackoffNanos << shift);
+        }
+        return ThreadLocalRandom.current().nextLong(upperBound + 1);
+    }
+
+}
@@ -0,0 +1,124 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.generic.compare_and_swap;
+
+import io.github.bucket4j.BucketExceptions;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The simple listener that stores all events as counters and provides getters for them.
+ *
+ * <p>
+ * Retry counters per key are tracked only when listener is created via {@link #DefaultCompareAndSwapRetryListener(int)},
+ * not more than {@code maxTrackedKeys} keys are tracked at once, retries of other keys are counted only by aggregated counters,
+ * call {@link #resetRetryCountPerKey()} periodically in order to start tracking of new keys.
+ * Keys represented as {@code byte[]} are stored as {@link ByteBuffer} in order to be compared by content.
+ */
+public class DefaultCompareAndSwapRetryListener implements CompareAndSwapRetryListener {
+
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+    private final int maxTrackedKeys;
+    private final ConcurrentHashMap<Object, LongAdder> retryCountPerKey = new ConcurrentHashMap<>();
+
+    /**
+     * Creates listener that tracks only aggregated counters.
+     */
+    public DefaultCompareAndSwapRetryListener() {
+        this.maxTrackedKeys = 0;
+    }
+
+    /**
+     * Creates listener that additionally tracks retry counters per key.
+     *
+     * @param maxTrackedKeys the max count of keys for which retry counters are tracked, size of map can slightly exceed it under concurrent updates
+     */
+    public DefaultCompareAndSwapRetryListener(int maxTrackedKeys) {
+        if (maxTrackedKeys <= 0) {
+            throw BucketExceptions.nonPositiveMaxTrackedKeysForCompareAndSwapRetryListener(maxTrackedKeys);
+        }
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    @Override
+    public void onRetry(Object key, int failedAttempts) {
+        retryCount.incrementAndGet();
+        if (maxTrackedKeys == 0) {
+            return;
+        }
+        Object mapKey = toMapKey(key);
+        LongAdder counter = retryCountPerKey.get(mapKey);
+        if (counter == null) {
+            if (retryCountPerKey.size() >= maxTrackedKeys) {
+                return;
+            }
+            counter = retryCountPerKey.computeIfAbsent(mapKey, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void onAttemptsExhausted(Object key, int failedAttempts) {
+        exhaustedCount.incrementAndGet();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getExhaustedCount() {
+        return exhaustedCount.get();
+    }
+
+    /**
+     * @param key the key of bucket
+     *
+     * @return count of retries for the key, or zero if the key is not tracked
+     */
+    public long getRetryCount(Object key) {
+        LongAdder counter = retryCountPerKey.get(toMapKey(key));
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public Map<Object, Long> getRetryCountPerKey() {
+        Map<Object, Long> snapshot = new ConcurrentHashMap<>();
+        retryCountPerKey.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public void resetRetryCountPerKey() {
+        retryCountPerKey.clear();
+    }
+
+    private static Object toMapKey(Object key) {
+        if (key instanceof byte[]) {
+            return ByteBuffer.wrap(((byte[]) key).clone());
+        }
+        return key;
+    }
+
+}
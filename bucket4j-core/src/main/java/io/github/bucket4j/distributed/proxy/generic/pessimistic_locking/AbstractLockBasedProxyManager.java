@@ -24,23 +24,32 @@ import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ExecutionStrategy;
 import io.github.bucket4j.distributed.proxy.generic.GenericEntry;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.RemoteCommand;
 import io.github.bucket4j.distributed.remote.Request;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * The base class for proxy managers that built on top of idea that underlining storage provide Compare-And-Swap functionality.
  *
+ * <p>
+ * Asynchronous mode is emulated by execution of blocking transactions in background,
+ * see {@link ClientSideConfig#withExecutionStrategy(ExecutionStrategy)} for more details.
+ *
  * @param <K> the generic type for unique identifiers that used to point to the bucket in external storage.
  */
 public abstract class AbstractLockBasedProxyManager<K> extends AbstractProxyManager<K> {
 
+    private final Optional<ExecutionStrategy> executionStrategy;
+
     protected AbstractLockBasedProxyManager(ClientSideConfig clientSideConfig) {
         super(injectTimeClock(clientSideConfig));
+        this.executionStrategy = clientSideConfig.getExecutionStrategy();
     }
 
     @Override
@@ -55,17 +64,20 @@ public abstract class AbstractLockBasedProxyManager<K> extends AbstractProxyMana
 
     @Override
     public boolean isAsyncModeSupported() {
-        return false;
+        return executionStrategy.isPresent();
     }
 
     @Override
     public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
-        throw new UnsupportedOperationException();
+        return getExecutionStrategy().executeAsync(() -> execute(key, request));
     }
 
     @Override
-    protected CompletableFuture<Void> removeAsync(Object key) {
-        return null;
+    protected CompletableFuture<Void> removeAsync(K key) {
+        return getExecutionStrategy().executeAsync(() -> {
+            removeProxy(key);
+            return null;
+        });
     }
 
     protected abstract LockBasedTransaction allocateTransaction(K key);
@@ -90,7 +102,7 @@ public abstract class AbstractLockBasedProxyManager<K> extends AbstractProxyMana
         }
 
         try {
-            GenericEntry entry = new GenericEntry(persistedDataOnBeginOfTransaction, request.getBackwardCompatibilityVersion());
+            GenericEntry entry = new GenericEntry(persistedDataOnBeginOfTransaction, request.getBackwardCompatibilityVersion(), request.isConfigurationByReference());
             CommandResult<T> result = command.execute(entry, super.getClientSideTime());
             if (entry.isModified()) {
                 byte[] bytes = entry.getModifiedStateBytes();
@@ -117,6 +129,10 @@ public abstract class AbstractLockBasedProxyManager<K> extends AbstractProxyMana
         }
     }
 
+    private ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy.orElseThrow(BucketExceptions::asyncModeIsNotSupported);
+    }
+
     private static ClientSideConfig injectTimeClock(ClientSideConfig clientSideConfig) {
         if (clientSideConfig.getClientSideClock().isPresent()) {
             return clientSideConfig;
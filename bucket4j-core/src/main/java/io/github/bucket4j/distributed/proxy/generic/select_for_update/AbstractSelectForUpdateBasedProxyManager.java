@@ -20,28 +20,46 @@
 
 package io.github.bucket4j.distributed.proxy.generic.select_for_update;
 
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.TimeMeter;
 import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ExecutionStrategy;
 import io.github.bucket4j.distributed.proxy.generic.GenericEntry;
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
 import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.remote.commands.CreateInitialStateAndExecuteCommand;
+import io.github.bucket4j.distributed.remote.commands.TryConsumeCommand;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * The base class for proxy managers that built on top of idea that underlining storage provide Compare-And-Swap functionality.
  *
+ * <p>
+ * Asynchronous mode is emulated by execution of blocking transactions in background,
+ * see {@link ClientSideConfig#withExecutionStrategy(ExecutionStrategy)} for more details.
+ *
  * @param <K> the generic type for unique identifiers that used to point to the bucket in external storage.
  */
 public abstract class AbstractSelectForUpdateBasedProxyManager<K> extends AbstractProxyManager<K> {
 
     private static final CommandResult RETRY_IN_THE_SCOPE_OF_NEW_TRANSACTION = CommandResult.success(true, 666);
 
+    private final Optional<ExecutionStrategy> executionStrategy;
+
     protected AbstractSelectForUpdateBasedProxyManager(ClientSideConfig clientSideConfig) {
         super(injectTimeClock(clientSideConfig));
+        this.executionStrategy = clientSideConfig.getExecutionStrategy();
     }
 
     @Override
@@ -64,21 +82,216 @@ public abstract class AbstractSelectForUpdateBasedProxyManager<K> extends Abstra
 
     @Override
     public boolean isAsyncModeSupported() {
-        return false;
+        return executionStrategy.isPresent();
     }
 
     @Override
     public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
-        throw new UnsupportedOperationException();
+        return getExecutionStrategy().executeAsync(() -> execute(key, request));
     }
 
     @Override
-    protected CompletableFuture<Void> removeAsync(Object key) {
-        return null;
+    protected CompletableFuture<Void> removeAsync(K key) {
+        return getExecutionStrategy().executeAsync(() -> {
+            removeProxy(key);
+            return null;
+        });
+    }
+
+    /**
+     * Executes commands against several buckets in the scope of single transaction,
+     * so all buckets are locked, read and updated by one connection instead of one transaction per bucket.
+     * Keys are locked in natural order, so concurrent invocations with intersected keys can not deadlock each other.
+     *
+     * <p>Commands are executed as is, so in order to create missing buckets pass commands that are able to initialize the bucket, for example
+     * {@code new CreateInitialStateAndExecuteCommand<>(configuration, new TryConsumeCommand(1))},
+     * otherwise the result for missing bucket is {@link CommandResult#isBucketNotFound()}.
+     * This is low-level method that is intended for integrations, applications should prefer {@link #tryConsumeAll(Map, Supplier)}.
+     *
+     * @param commands commands to execute, keys must implement {@link Comparable}
+     * @param <T> type of command result
+     *
+     * @return results of commands in the natural order of keys
+     *
+     * @throws UnsupportedOperationException if this proxy manager does not support batch transactions, see {@link #isBatchTransactionSupported()}
+     * @throws IllegalArgumentException if some key does not implement {@link Comparable}
+     */
+    public <T> Map<K, CommandResult<T>> executeAll(Map<K, RemoteCommand<T>> commands) {
+        if (!isBatchTransactionSupported()) {
+            throw BucketExceptions.batchTransactionIsNotSupported();
+        }
+        List<K> keys = new ArrayList<>(commands.keySet());
+        for (K key : keys) {
+            if (!(key instanceof Comparable)) {
+                throw BucketExceptions.batchKeyIsNotComparable(key);
+            }
+        }
+        keys.sort(null);
+        SelectForUpdateBasedBatchTransaction<K> transaction = allocateBatchTransaction();
+        try {
+            Map<K, CommandResult<T>> results = executeAll(keys, commands, transaction);
+            if (results == null) {
+                // missing data has been inserted by previous transaction
+                results = executeAll(keys, commands, transaction);
+                if (results == null) {
+                    throw new IllegalStateException();
+                }
+            }
+            return results;
+        } finally {
+            transaction.release();
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #executeAll(Map)}, that executes transaction via configured {@link ExecutionStrategy}.
+     *
+     * @param commands commands to execute, keys must implement {@link Comparable}
+     * @param <T> type of command result
+     *
+     * @return future that will be completed by results of commands in the natural order of keys
+     */
+    public <T> CompletableFuture<Map<K, CommandResult<T>>> executeAllAsync(Map<K, RemoteCommand<T>> commands) {
+        return getExecutionStrategy().executeAsync(() -> executeAll(commands));
+    }
+
+    /**
+     * Tries to consume tokens from several buckets in the scope of single transaction, see {@link #executeAll(Map)} for details about locking.
+     * Missing buckets are created with configuration provided by {@code configurationSupplier},
+     * that is called once per invocation.
+     *
+     * @param tokensToConsume amount of tokens to consume per bucket, keys must implement {@link Comparable}
+     * @param configurationSupplier provider for configuration of missing buckets
+     *
+     * @return {@code true} for buckets from which tokens have been consumed, results are placed in the natural order of keys
+     *
+     * @throws UnsupportedOperationException if this proxy manager does not support batch transactions, see {@link #isBatchTransactionSupported()}
+     * @throws IllegalArgumentException if some key does not implement {@link Comparable}
+     */
+    public Map<K, Boolean> tryConsumeAll(Map<K, Long> tokensToConsume, Supplier<BucketConfiguration> configurationSupplier) {
+        Map<K, CommandResult<Boolean>> results = executeAll(toTryConsumeCommands(tokensToConsume, configurationSupplier));
+        return toTryConsumeResults(results);
+    }
+
+    /**
+     * Asynchronous version of {@link #tryConsumeAll(Map, Supplier)}, that executes transaction via configured {@link ExecutionStrategy}.
+     *
+     * @param tokensToConsume amount of tokens to consume per bucket, keys must implement {@link Comparable}
+     * @param configurationSupplier provider for configuration of missing buckets
+     *
+     * @return future that will be completed by results of consumption in the natural order of keys
+     */
+    public CompletableFuture<Map<K, Boolean>> tryConsumeAllAsync(Map<K, Long> tokensToConsume, Supplier<BucketConfiguration> configurationSupplier) {
+        return getExecutionStrategy().executeAsync(() -> tryConsumeAll(tokensToConsume, configurationSupplier));
+    }
+
+    private Map<K, RemoteCommand<Boolean>> toTryConsumeCommands(Map<K, Long> tokensToConsume, Supplier<BucketConfiguration> configurationSupplier) {
+        if (configurationSupplier == null) {
+            throw BucketExceptions.nullConfigurationSupplier();
+        }
+        BucketConfiguration configuration = configurationSupplier.get();
+        if (configuration == null) {
+            throw BucketExceptions.nullConfiguration();
+        }
+        Map<K, RemoteCommand<Boolean>> commands = new LinkedHashMap<>();
+        for (Map.Entry<K, Long> entry : tokensToConsume.entrySet()) {
+            commands.put(entry.getKey(), new CreateInitialStateAndExecuteCommand<>(configuration, new TryConsumeCommand(entry.getValue())));
+        }
+        return commands;
+    }
+
+    private Map<K, Boolean> toTryConsumeResults(Map<K, CommandResult<Boolean>> results) {
+        Map<K, Boolean> consumed = new LinkedHashMap<>();
+        for (Map.Entry<K, CommandResult<Boolean>> entry : results.entrySet()) {
+            consumed.put(entry.getKey(), entry.getValue().getData());
+        }
+        return consumed;
     }
 
     protected abstract SelectForUpdateBasedTransaction allocateTransaction(K key);
 
+    /**
+     * Describes whether this proxy manager is able to execute {@link #executeAll(Map)}.
+     * Default implementation returns {@code false}, subclasses that override {@link #allocateBatchTransaction()} should override this method too.
+     *
+     * @return {@code true} if batch transactions are supported
+     */
+    public boolean isBatchTransactionSupported() {
+        return false;
+    }
+
+    /**
+     * Allocates transaction that is used by {@link #executeAll(Map)}.
+     * Default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @return new batch transaction
+     */
+    protected SelectForUpdateBasedBatchTransaction<K> allocateBatchTransaction() {
+        throw BucketExceptions.batchTransactionIsNotSupported();
+    }
+
+    private <T> Map<K, CommandResult<T>> executeAll(List<K> keys, Map<K, RemoteCommand<T>> commands, SelectForUpdateBasedBatchTransaction<K> transaction) {
+        transaction.begin();
+
+        // lock and get data
+        Map<K, byte[]> persistedData;
+        try {
+            persistedData = transaction.tryLockAndGet(keys);
+        } catch (Throwable t) {
+            transaction.rollback();
+            throw new BucketExceptions.BucketExecutionException(t);
+        }
+
+        // insert data that can be locked in next transaction if data does not exist
+        if (persistedData.size() < keys.size()) {
+            try {
+                List<K> missingKeys = new ArrayList<>(keys.size() - persistedData.size());
+                for (K key : keys) {
+                    if (!persistedData.containsKey(key)) {
+                        missingKeys.add(key);
+                    }
+                }
+                transaction.insertEmptyData(missingKeys);
+                transaction.commit();
+                return null;
+            } catch (Throwable t) {
+                transaction.rollback();
+                throw new BucketExceptions.BucketExecutionException(t);
+            }
+        }
+
+        try {
+            Long clientSideTime = super.getClientSideTime();
+            Map<K, CommandResult<T>> results = new LinkedHashMap<>();
+            List<K> modifiedKeys = new ArrayList<>();
+            List<byte[]> modifiedData = new ArrayList<>();
+            List<RemoteBucketState> modifiedStates = new ArrayList<>();
+            for (K key : keys) {
+                RemoteCommand<T> command = commands.get(key);
+                byte[] persistedDataOnBeginOfTransaction = persistedData.get(key);
+                if (persistedDataOnBeginOfTransaction == null && !command.isInitializationCommand()) {
+                    results.put(key, CommandResult.bucketNotFound());
+                    continue;
+                }
+                GenericEntry entry = new GenericEntry(persistedDataOnBeginOfTransaction, getBackwardCompatibilityVersion(), getClientSideConfig().isConfigurationByReference());
+                results.put(key, command.execute(entry, clientSideTime));
+                if (entry.isModified()) {
+                    modifiedKeys.add(key);
+                    modifiedData.add(entry.getModifiedStateBytes());
+                    modifiedStates.add(entry.getModifiedState());
+                }
+            }
+            if (!modifiedKeys.isEmpty()) {
+                transaction.update(modifiedKeys, modifiedData, modifiedStates);
+            }
+            transaction.commit();
+            return results;
+        } catch (Throwable t) {
+            transaction.rollback();
+            throw new BucketExceptions.BucketExecutionException(t);
+        }
+    }
+
     private <T> CommandResult<T> execute(Request<T> request, SelectForUpdateBasedTransaction transaction) {
         RemoteCommand<T> command = request.getCommand();
         transaction.begin();
@@ -116,7 +329,7 @@ public abstract class AbstractSelectForUpdateBasedProxyManager<K> extends Abstra
         }
 
         try {
-            GenericEntry entry = new GenericEntry(persistedDataOnBeginOfTransaction, request.getBackwardCompatibilityVersion());
+            GenericEntry entry = new GenericEntry(persistedDataOnBeginOfTransaction, request.getBackwardCompatibilityVersion(), request.isConfigurationByReference());
             CommandResult<T> result = command.execute(entry, super.getClientSideTime());
             if (entry.isModified()) {
                 byte[] bytes = entry.getModifiedStateBytes();
@@ -130,6 +343,10 @@ public abstract class AbstractSelectForUpdateBasedProxyManager<K> extends Abstra
         }
     }
 
+    private ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy.orElseThrow(BucketExceptions::asyncModeIsNotSupported);
+    }
+
     private static ClientSideConfig injectTimeClock(ClientSideConfig clientSideConfig) {
         if (clientSideConfig.getClientSideClock().isPresent()) {
             return clientSideConfig;
@@ -0,0 +1,94 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.generic.select_for_update;
+
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes the set of operations that {@link AbstractSelectForUpdateBasedProxyManager} performs in order to execute commands
+ * against several buckets in the scope of single transaction, see {@link AbstractSelectForUpdateBasedProxyManager#executeAll(Map)}.
+ * The typical flow is following:
+ * <ol>
+ *     <li>begin - {@link #begin()}</li>
+ *     <li>lock - {@link #tryLockAndGet(List)}</li>
+ *     <li>update - {@link #update(List, List, List)}</li>
+ *     <li>commit - {@link #commit()}</li>
+ *     <li>release - {@link #release()}</li>
+ * </ol>
+ * Several transactions can be executed one after another before {@link #release()},
+ * for example when empty data for missing keys is inserted in the scope of first transaction.
+ *
+ * @param <K> type of key
+ */
+public interface SelectForUpdateBasedBatchTransaction<K> {
+
+    /**
+     * Begins transaction if underlying storage requires transactions.
+     * There is strong guarantee that {@link #commit()} or {@link #rollback()} will be called if {@link #begin()} returns successfully.
+     */
+    void begin();
+
+    /**
+     * Rollbacks transaction if underlying storage requires transactions
+     */
+    void rollback();
+
+    /**
+     * Commits transaction if underlying storage requires transactions
+     */
+    void commit();
+
+    /**
+     * Locks data by the keys and returns data that is associated with the keys.
+     * Implementation must lock the data in the order of keys in order to avoid deadlocks between concurrent transactions.
+     *
+     * @param keys sorted list of keys
+     *
+     * @return the data of locked keys, keys for which data does not exist must not be presented in the result,
+     * {@code null} value means that empty data exists for the key
+     */
+    Map<K, byte[]> tryLockAndGet(List<K> keys);
+
+    /**
+     * Creates empty data for the keys if data does not exist yet.
+     * This operation is required to be able to lock data in the scope of next transaction.
+     *
+     * @param keys sorted list of keys for which data does not exist
+     */
+    void insertEmptyData(List<K> keys);
+
+    /**
+     * Updates the data by the keys, implementation is free to use any kind of batching.
+     *
+     * @param keys keys to update
+     * @param data bucket states to persist, in the same order as keys
+     * @param newStates new states of buckets, in the same order as keys
+     */
+    void update(List<K> keys, List<byte[]> data, List<RemoteBucketState> newStates);
+
+    /**
+     * Frees resources associated with this transaction
+     */
+    void release();
+
+}
@@ -0,0 +1,424 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.generic.write_behind;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ExecutionStrategy;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.serialization.InternalSerializationHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The base class for proxy managers that execute commands against in-process state and persist modified buckets to the storage in background.
+ *
+ * <p>The state in memory is authoritative: the storage is read only when bucket is missing in memory,
+ * and modified buckets are written by batches every {@link WriteBehindConfig#getFlushInterval() flush interval}
+ * or as soon as {@link WriteBehindConfig#getMaxBatchSize() max batch size} buckets are modified.
+ * Buckets that were not accessed during {@link WriteBehindConfig#getKeepIdle() keep idle} are removed from memory after they were persisted.
+ *
+ * <p>Use this proxy manager only when following restrictions are acceptable:
+ * <ul>
+ *     <li>Modifications done during the last flush interval can be lost in case of process crash.</li>
+ *     <li>Each bucket must be served by single process, because processes do not see the modifications done by each other in memory.</li>
+ * </ul>
+ * Call {@link #close()} on shutdown in order to persist the last modifications.
+ *
+ * <p>Asynchronous mode is supported only when {@link ClientSideConfig#getExecutionStrategy() execution strategy} is configured,
+ * buckets that are held in memory are served in the caller thread, while loading and removal are executed via the strategy,
+ * because they block on the storage.
+ *
+ * @param <K> the generic type for unique identifiers that used to point to the bucket in external storage.
+ */
+public abstract class AbstractWriteBehindProxyManager<K> extends AbstractProxyManager<K> implements AutoCloseable {
+
+    private final WriteBehindConfig config;
+    private final Optional<ExecutionStrategy> executionStrategy;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownScheduler;
+    private final ScheduledFuture<?> scheduledFlush;
+
+    private final ConcurrentHashMap<K, LocalEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<K> dirtyKeys = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger dirtyCount = new AtomicInteger();
+    private final AtomicBoolean earlyFlushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicLong loadedCount = new AtomicLong();
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private volatile long lastFlushLagNanos;
+
+    protected AbstractWriteBehindProxyManager(ClientSideConfig clientSideConfig, WriteBehindConfig config) {
+        super(clientSideConfig);
+        this.config = config;
+        this.executionStrategy = clientSideConfig.getExecutionStrategy();
+        this.ownScheduler = !config.getScheduler().isPresent();
+        this.scheduler = config.getScheduler().orElseGet(() -> Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bucket4j-write-behind-flusher");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        long intervalNanos = config.getFlushInterval().toNanos();
+        this.scheduledFlush = scheduler.scheduleWithFixedDelay(this::flushAndEvictIdle, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Reads the persisted state of bucket.
+     *
+     * @param key the key of bucket
+     *
+     * @return persisted state, or null if bucket is not persisted
+     */
+    protected abstract byte[] load(K key);
+
+    /**
+     * Persists the states of buckets, typically by batched upsert.
+     *
+     * @param keys keys of buckets
+     * @param data bucket states to persist, in the same order as keys
+     * @param states bucket states, in the same order as keys - can be used to extract additional data is useful for persistence
+     */
+    protected abstract void store(List<K> keys, List<byte[]> data, List<RemoteBucketState> states);
+
+    /**
+     * Removes the persisted state of bucket.
+     *
+     * @param key the key of bucket
+     */
+    protected abstract void delete(K key);
+
+    @Override
+    public <T> CommandResult<T> execute(K key, Request<T> request) {
+        while (true) {
+            LocalEntry entry = getOrCreate(key);
+            synchronized (entry) {
+                if (entry.removed) {
+                    // bucket has been removed or evicted while this thread waited for the monitor
+                    continue;
+                }
+                if (!entry.loaded) {
+                    // loading under the monitor of entry prevents concurrent removal from being overwritten by stale state
+                    loadEntry(key, entry);
+                }
+                return execute(key, entry, request);
+            }
+        }
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return executionStrategy.isPresent();
+    }
+
+    @Override
+    public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
+        ExecutionStrategy executionStrategy = getExecutionStrategy();
+        LocalEntry entry = entries.get(key);
+        if (entry == null || !entry.loaded) {
+            // loading from storage is blocking
+            return executionStrategy.executeAsync(() -> execute(key, request));
+        }
+        try {
+            return CompletableFuture.completedFuture(execute(key, request));
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    @Override
+    public void removeProxy(K key) {
+        flushLock.lock();
+        try {
+            while (true) {
+                // entry is used as guard for the key, so bucket can not be loaded while it is being deleted from storage
+                LocalEntry entry = getOrCreate(key);
+                synchronized (entry) {
+                    if (entry.removed) {
+                        continue;
+                    }
+                    delete(key);
+                    entry.removed = true;
+                    entries.remove(key, entry);
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(K key) {
+        return getExecutionStrategy().executeAsync(() -> {
+            removeProxy(key);
+            return null;
+        });
+    }
+
+    /**
+     * Persists all modified buckets immediately.
+     * In case of failure, buckets stay modified and will be persisted by next flush.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            earlyFlushRequested.set(false);
+            long flushStartNanos = System.nanoTime();
+            long maxLagNanos = 0;
+            while (true) {
+                List<K> keys = new ArrayList<>();
+                List<LocalEntry> batchEntries = new ArrayList<>();
+                List<byte[]> data = new ArrayList<>();
+                List<RemoteBucketState> states = new ArrayList<>();
+                K key;
+                while (keys.size() < config.getMaxBatchSize() && (key = dirtyKeys.poll()) != null) {
+                    dirtyCount.decrementAndGet();
+                    LocalEntry entry = entries.get(key);
+                    if (entry == null) {
+                        continue;
+                    }
+                    synchronized (entry) {
+                        if (!entry.dirty || entry.removed) {
+                            continue;
+                        }
+                        entry.dirty = false;
+                        maxLagNanos = Math.max(maxLagNanos, flushStartNanos - entry.dirtySinceNanos);
+                        keys.add(key);
+                        batchEntries.add(entry);
+                        data.add(InternalSerializationHelper.serializeState(entry.state, getBackwardCompatibilityVersion()));
+                        // state is modified in place by commands, so storage receives the copy that matches serialized data
+                        states.add(entry.state.copy());
+                    }
+                }
+                if (keys.isEmpty()) {
+                    lastFlushLagNanos = maxLagNanos;
+                    return;
+                }
+                try {
+                    store(keys, data, states);
+                    flushedCount.addAndGet(keys.size());
+                } catch (Throwable t) {
+                    failedFlushCount.incrementAndGet();
+                    for (int i = 0; i < keys.size(); i++) {
+                        LocalEntry entry = batchEntries.get(i);
+                        synchronized (entry) {
+                            markDirty(keys.get(i), entry);
+                        }
+                    }
+                    throw new BucketExceptions.BucketExecutionException(t);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stops background flushing and persists the last modifications.
+     */
+    @Override
+    public void close() {
+        scheduledFlush.cancel(false);
+        try {
+            flush();
+        } finally {
+            if (ownScheduler) {
+                scheduler.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return count of buckets that are modified but not persisted yet
+     */
+    public int getDirtyCount() {
+        return Math.max(0, dirtyCount.get());
+    }
+
+    /**
+     * @return count of buckets that are held in memory
+     */
+    public int getLocalCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return total count of reads from storage
+     */
+    public long getLoadedCount() {
+        return loadedCount.get();
+    }
+
+    /**
+     * @return total count of bucket writes to storage
+     */
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    /**
+     * @return total count of failed batches
+     */
+    public long getFailedFlushCount() {
+        return failedFlushCount.get();
+    }
+
+    /**
+     * @return total count of buckets removed from memory because of inactivity
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * @return the age of the oldest modification that was persisted by last flush, in nanoseconds
+     */
+    public long getLastFlushLagNanos() {
+        return lastFlushLagNanos;
+    }
+
+    private ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy.orElseThrow(BucketExceptions::asyncModeIsNotSupported);
+    }
+
+    private LocalEntry getOrCreate(K key) {
+        LocalEntry entry = entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        LocalEntry newEntry = new LocalEntry();
+        entry = entries.putIfAbsent(key, newEntry);
+        return entry != null ? entry : newEntry;
+    }
+
+    private void loadEntry(K key, LocalEntry entry) {
+        byte[] data = load(key);
+        loadedCount.incrementAndGet();
+        entry.state = data == null ? null : InternalSerializationHelper.deserializeState(data);
+        entry.loaded = true;
+    }
+
+    private <T> CommandResult<T> execute(K key, LocalEntry entry, Request<T> request) {
+        Long clientSideTime = request.getClientSideTime();
+        long timeNanos = clientSideTime != null ? clientSideTime : System.currentTimeMillis() * 1_000_000;
+        entry.lastAccessNanos = System.nanoTime();
+        entry.modified = false;
+        CommandResult<T> result = request.getCommand().execute(entry, timeNanos);
+        if (entry.modified && !entry.dirty) {
+            entry.dirtySinceNanos = entry.lastAccessNanos;
+            markDirty(key, entry);
+        }
+        return result;
+    }
+
+    private void markDirty(K key, LocalEntry entry) {
+        if (entry.dirty) {
+            return;
+        }
+        entry.dirty = true;
+        dirtyKeys.add(key);
+        if (dirtyCount.incrementAndGet() >= config.getMaxBatchSize() && earlyFlushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushSilently);
+        }
+    }
+
+    private void flushAndEvictIdle() {
+        flushSilently();
+        long nowNanos = System.nanoTime();
+        long keepIdleNanos = config.getKeepIdle().toNanos();
+        flushLock.lock();
+        try {
+            for (Map.Entry<K, LocalEntry> mapEntry : entries.entrySet()) {
+                LocalEntry entry = mapEntry.getValue();
+                synchronized (entry) {
+                    if (!entry.dirty && nowNanos - entry.lastAccessNanos >= keepIdleNanos) {
+                        entry.removed = true;
+                        entries.remove(mapEntry.getKey(), entry);
+                        evictedCount.incrementAndGet();
+                    }
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushSilently() {
+        try {
+            flush();
+        } catch (Throwable t) {
+            // failure is already counted, modified buckets will be persisted by next flush
+        }
+    }
+
+    /**
+     * The entry that holds the state of bucket, the state is modified in place by commands.
+     * All fields are guarded by monitor of entry, {@link #loaded} is also read without monitor as a hint for asynchronous mode.
+     */
+    private static final class LocalEntry implements MutableBucketEntry {
+
+        private RemoteBucketState state;
+        private volatile boolean loaded;
+        private boolean modified;
+        private boolean dirty;
+        private boolean removed;
+        private long dirtySinceNanos;
+        private long lastAccessNanos = System.nanoTime();
+
+        @Override
+        public boolean exists() {
+            return state != null;
+        }
+
+        @Override
+        public void set(RemoteBucketState state) {
+            this.state = state;
+            this.modified = true;
+        }
+
+        @Override
+        public RemoteBucketState get() {
+            return state;
+        }
+
+    }
+
+}
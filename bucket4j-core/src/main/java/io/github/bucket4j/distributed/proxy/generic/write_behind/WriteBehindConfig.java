@@ -0,0 +1,131 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.generic.write_behind;
+
+import io.github.bucket4j.BucketExceptions;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Configuration of {@link AbstractWriteBehindProxyManager}.
+ *
+ * <p>This class is immutable, each <b>with</b> method returns new instance.
+ */
+public class WriteBehindConfig {
+
+    private static final WriteBehindConfig defaultConfig = new WriteBehindConfig(Duration.ofSeconds(1), 1000, Duration.ofMinutes(1), Optional.empty());
+
+    private final Duration flushInterval;
+    private final int maxBatchSize;
+    private final Duration keepIdle;
+    private final Optional<ScheduledExecutorService> scheduler;
+
+    private WriteBehindConfig(Duration flushInterval, int maxBatchSize, Duration keepIdle, Optional<ScheduledExecutorService> scheduler) {
+        this.flushInterval = flushInterval;
+        this.maxBatchSize = maxBatchSize;
+        this.keepIdle = keepIdle;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Returns default configuration: flush every second by batches of 1000 buckets, keep clean buckets in memory during one minute after last access.
+     *
+     * @return default configuration
+     */
+    public static WriteBehindConfig getDefault() {
+        return defaultConfig;
+    }
+
+    /**
+     * Returns new config with specified interval between flushes.
+     * The interval bounds the amount of state that can be lost in case of crash.
+     *
+     * @param flushInterval interval between flushes
+     *
+     * @return new config
+     */
+    public WriteBehindConfig withFlushInterval(Duration flushInterval) {
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw BucketExceptions.nonPositiveFlushInterval(flushInterval);
+        }
+        return new WriteBehindConfig(flushInterval, maxBatchSize, keepIdle, scheduler);
+    }
+
+    /**
+     * Returns new config with specified maximum count of buckets that are persisted by single batch.
+     * Flush is started before the end of interval when count of modified buckets reaches this value.
+     *
+     * @param maxBatchSize maximum count of buckets in the batch
+     *
+     * @return new config
+     */
+    public WriteBehindConfig withMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw BucketExceptions.nonPositiveFlushBatchSize(maxBatchSize);
+        }
+        return new WriteBehindConfig(flushInterval, maxBatchSize, keepIdle, scheduler);
+    }
+
+    /**
+     * Returns new config with specified duration after last access when persisted bucket is removed from memory.
+     *
+     * @param keepIdle how long bucket is kept in memory after last access
+     *
+     * @return new config
+     */
+    public WriteBehindConfig withKeepIdle(Duration keepIdle) {
+        if (keepIdle.isNegative()) {
+            throw BucketExceptions.negativeKeepIdleDuration(keepIdle);
+        }
+        return new WriteBehindConfig(flushInterval, maxBatchSize, keepIdle, scheduler);
+    }
+
+    /**
+     * Returns new config with specified scheduler that is used for flushing.
+     * By default, each proxy manager creates own single thread scheduler that is shut down by {@link AbstractWriteBehindProxyManager#close()}.
+     *
+     * @param scheduler the scheduler for flushing
+     *
+     * @return new config
+     */
+    public WriteBehindConfig withScheduler(ScheduledExecutorService scheduler) {
+        return new WriteBehindConfig(flushInterval, maxBatchSize, keepIdle, Optional.of(Objects.requireNonNull(scheduler)));
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public Duration getKeepIdle() {
+        return keepIdle;
+    }
+
+    public Optional<ScheduledExecutorService> getScheduler() {
+        return scheduler;
+    }
+
+}
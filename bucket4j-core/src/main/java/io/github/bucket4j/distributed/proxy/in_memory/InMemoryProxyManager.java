@@ -0,0 +1,241 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.in_memory;
+
+import io.github.bucket4j.distributed.proxy.AbstractProxyManager;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ExpiredEntriesCleaner;
+import io.github.bucket4j.distributed.proxy.ExpiredEntriesSweeper;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.Request;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Proxy manager that holds buckets in the memory of current JVM, without any dependency on third-party caching library.
+ *
+ * <p>Commands are executed without serialization, under the monitor of the entry that holds the state of bucket,
+ * so execution of command against existing bucket neither locks the map nor allocates intermediate objects.
+ * Such proxy manager is useful when the semantic of {@link io.github.bucket4j.distributed.proxy.ProxyManager},
+ * like per-key configuration, configuration replacement or optimizations, is needed for buckets that are not shared between JVMs.
+ *
+ * <p>Bucket is considered expired after <b>keepAfterRefillDuration</b> since the moment when all consumed tokens have been refilled.
+ * Each creation of new bucket checks a few existing buckets and removes the expired ones,
+ * so the count of expired buckets held in the memory is proportional to the rate of bucket creation.
+ * Additionally, expired buckets can be removed in background by {@link ExpiredEntriesSweeper}.
+ *
+ * @param <K> type of key
+ */
+public class InMemoryProxyManager<K> extends AbstractProxyManager<K> implements ExpiredEntriesCleaner {
+
+    private static final int ENTRIES_TO_CHECK_PER_CREATION = 2;
+
+    private final ConcurrentHashMap<K, Entry> entries = new ConcurrentHashMap<>();
+    private final long keepAfterRefillDurationNanos;
+
+    private final AtomicBoolean incrementalRemovalInProgress = new AtomicBoolean();
+    // guarded by incrementalRemovalInProgress
+    private Iterator<Map.Entry<K, Entry>> incrementalRemovalIterator;
+
+    /**
+     * Creates new instance of {@link InMemoryProxyManager}
+     *
+     * @param keepAfterRefillDuration specifies how long bucket should be held in the memory after all consumed tokens have been refilled.
+     */
+    public InMemoryProxyManager(Duration keepAfterRefillDuration) {
+        this(keepAfterRefillDuration, ClientSideConfig.getDefault());
+    }
+
+    /**
+     * Creates new instance of {@link InMemoryProxyManager}
+     *
+     * @param keepAfterRefillDuration specifies how long bucket should be held in the memory after all consumed tokens have been refilled.
+     * @param clientSideConfig the client side configuration
+     */
+    public InMemoryProxyManager(Duration keepAfterRefillDuration, ClientSideConfig clientSideConfig) {
+        super(clientSideConfig);
+        this.keepAfterRefillDurationNanos = keepAfterRefillDuration.toNanos();
+    }
+
+    @Override
+    public <T> CommandResult<T> execute(K key, Request<T> request) {
+        RemoteCommand<T> command = request.getCommand();
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                // command is executed even if it is unable to create the bucket, because it is responsible for shaping of result
+                Entry newEntry = new Entry();
+                entry = entries.putIfAbsent(key, newEntry);
+                if (entry == null) {
+                    entry = newEntry;
+                    removeExpiredIncrementally();
+                }
+            }
+
+            synchronized (entry) {
+                if (entry.removed) {
+                    // bucket has been removed while this thread waited for the monitor
+                    continue;
+                }
+                long currentTimeNanos = getRequestTime(request);
+                entry.modified = false;
+                try {
+                    CommandResult<T> result = command.execute(entry, currentTimeNanos);
+                    if (entry.state != null && entry.modified) {
+                        entry.expirationTimeNanos = currentTimeNanos + entry.state.calculateFullRefillingTime(currentTimeNanos) + keepAfterRefillDurationNanos;
+                    }
+                    return result;
+                } finally {
+                    if (entry.state == null) {
+                        // command has not created the bucket or failed
+                        entry.removed = true;
+                        entries.remove(key, entry);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+
+    @Override
+    public <T> CompletableFuture<CommandResult<T>> executeAsync(K key, Request<T> request) {
+        CommandResult<T> result = execute(key, request);
+        return CompletableFuture.completedFuture(result);
+    }
+
+    @Override
+    public void removeProxy(K key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.removed = true;
+            }
+        }
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(K key) {
+        removeProxy(key);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public int removeExpired(int batchSize) {
+        long currentTimeNanos = getCurrentTime();
+        int removedCount = 0;
+        for (Map.Entry<K, Entry> mapEntry : entries.entrySet()) {
+            if (removedCount >= batchSize) {
+                break;
+            }
+            if (tryRemoveExpired(mapEntry.getKey(), mapEntry.getValue(), currentTimeNanos)) {
+                removedCount++;
+            }
+        }
+        return removedCount;
+    }
+
+    int getEntryCount() {
+        return entries.size();
+    }
+
+    private void removeExpiredIncrementally() {
+        if (!incrementalRemovalInProgress.compareAndSet(false, true)) {
+            // another thread is already doing the same
+            return;
+        }
+        try {
+            long currentTimeNanos = getCurrentTime();
+            for (int i = 0; i < ENTRIES_TO_CHECK_PER_CREATION; i++) {
+                if (incrementalRemovalIterator == null || !incrementalRemovalIterator.hasNext()) {
+                    incrementalRemovalIterator = entries.entrySet().iterator();
+                    if (!incrementalRemovalIterator.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<K, Entry> mapEntry = incrementalRemovalIterator.next();
+                tryRemoveExpired(mapEntry.getKey(), mapEntry.getValue(), currentTimeNanos);
+            }
+        } finally {
+            incrementalRemovalInProgress.set(false);
+        }
+    }
+
+    private boolean tryRemoveExpired(K key, Entry entry, long currentTimeNanos) {
+        synchronized (entry) {
+            if (entry.removed || entry.expirationTimeNanos > currentTimeNanos) {
+                return false;
+            }
+            entry.removed = true;
+            return entries.remove(key, entry);
+        }
+    }
+
+    private long getCurrentTime() {
+        Long clientSideTime = getClientSideTime();
+        return clientSideTime != null ? clientSideTime : System.currentTimeMillis() * 1_000_000;
+    }
+
+    private static long getRequestTime(Request<?> request) {
+        Long clientSideTime = request.getClientSideTime();
+        return clientSideTime != null ? clientSideTime : System.currentTimeMillis() * 1_000_000;
+    }
+
+    /**
+     * The entry that holds the state of bucket, the state is modified in place by commands.
+     * All fields are guarded by monitor of entry.
+     */
+    private static final class Entry implements MutableBucketEntry {
+
+        private RemoteBucketState state;
+        private boolean modified;
+        private boolean removed;
+        private long expirationTimeNanos = Long.MAX_VALUE;
+
+        @Override
+        public boolean exists() {
+            return state != null;
+        }
+
+        @Override
+        public void set(RemoteBucketState state) {
+            this.state = state;
+            this.modified = true;
+        }
+
+        @Override
+        public RemoteBucketState get() {
+            return state;
+        }
+
+    }
+
+}
@@ -0,0 +1,79 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.optimization;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.optimization.delay.AdaptiveDelayOptimization;
+
+/**
+ * Describes the bounds inside which {@link AdaptiveDelayOptimization} is allowed to tune thresholds of local execution.
+ *
+ * @see AdaptiveDelayOptimization
+ * @see Optimizations#adaptiveDelaying(AdaptiveDelayParameters)
+ */
+public class AdaptiveDelayParameters {
+
+    public static final double DEFAULT_LATENCY_MULTIPLIER = 10.0;
+
+    public final DelayParameters minParameters;
+    public final DelayParameters maxParameters;
+    public final double latencyMultiplier;
+
+    /**
+     * Creates the new instance of {@link AdaptiveDelayParameters}
+     *
+     * @param minParameters the tightest thresholds, they are used at start and when bucket is close to exhaustion.
+     * @param maxParameters the widest thresholds, they bound the inaccuracy that is allowed when remote storage is slow.
+     *                      Both thresholds must be not less than corresponding thresholds of {@code minParameters}.
+     */
+    public AdaptiveDelayParameters(DelayParameters minParameters, DelayParameters maxParameters) {
+        this(minParameters, maxParameters, DEFAULT_LATENCY_MULTIPLIER);
+    }
+
+    private AdaptiveDelayParameters(DelayParameters minParameters, DelayParameters maxParameters, double latencyMultiplier) {
+        if (minParameters == null || maxParameters == null) {
+            throw BucketExceptions.nullBoundsForAdaptiveDelayParameters();
+        }
+        if (maxParameters.maxUnsynchronizedTokens < minParameters.maxUnsynchronizedTokens
+                || maxParameters.maxUnsynchronizedTimeoutNanos < minParameters.maxUnsynchronizedTimeoutNanos) {
+            throw BucketExceptions.maxBoundForAdaptiveDelayParametersCanNotBeTighterThanMin(minParameters, maxParameters);
+        }
+        if (!(latencyMultiplier > 0.0)) {
+            throw BucketExceptions.nonPositiveLatencyMultiplierForAdaptiveDelayParameters(latencyMultiplier);
+        }
+        this.minParameters = minParameters;
+        this.maxParameters = maxParameters;
+        this.latencyMultiplier = latencyMultiplier;
+    }
+
+    /**
+     * Specifies how long the bucket proxy can act locally relatively to the latency of remote call,
+     * for example the default multiplier {@code 10} means that the timeout between synchronizations is chosen ten times longer than observed round-trip.
+     *
+     * @param latencyMultiplier the ratio between timeout of local execution and latency of remote call. Must be a positive number.
+     *
+     * @return the new instance of {@link AdaptiveDelayParameters} with configured multiplier
+     */
+    public AdaptiveDelayParameters withLatencyMultiplier(double latencyMultiplier) {
+        return new AdaptiveDelayParameters(minParameters, maxParameters, latencyMultiplier);
+    }
+
+}
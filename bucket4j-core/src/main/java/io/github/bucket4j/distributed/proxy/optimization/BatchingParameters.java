@@ -0,0 +1,118 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.proxy.optimization;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingOptimization;
+import io.github.bucket4j.util.concurrent.BatchSizeHistogram;
+import io.github.bucket4j.util.concurrent.FlatCombiningBatchHelper;
+
+import java.time.Duration;
+
+/**
+ * Describes parameters for {@link BatchingOptimization}.
+ *
+ * @see BatchingOptimization
+ * @see Optimizations#batching(BatchingParameters)
+ */
+public class BatchingParameters {
+
+    /**
+     * Parameters which are used by {@link Optimizations#batching()}: batch size is not limited and there is no linger.
+     */
+    public static final BatchingParameters UNLIMITED = new BatchingParameters(Integer.MAX_VALUE, Duration.ZERO);
+
+    public final int maxBatchSize;
+    public final long lingerNanos;
+    public final BatchSizeHistogram histogram;
+    public final int flatCombiningCapacity;
+
+    /**
+     * Creates the new instance of {@link BatchingParameters}
+     *
+     * @param maxBatchSize the maximum amount of commands that are combined into one request to external storage. Must be a positive number.
+     * @param linger how long the thread that is responsible to send the batch waits for another commands to join the batch.
+     *               Linger is applied only for synchronous requests and only when contention on the bucket is detected. Must not be negative.
+     */
+    public BatchingParameters(int maxBatchSize, Duration linger) {
+        this(maxBatchSize, linger, null);
+    }
+
+    /**
+     * Creates the new instance of {@link BatchingParameters}
+     *
+     * @param maxBatchSize the maximum amount of commands that are combined into one request to external storage. Must be a positive number.
+     * @param linger how long the thread that is responsible to send the batch waits for another commands to join the batch.
+     *               Linger is applied only for synchronous requests and only when contention on the bucket is detected. Must not be negative.
+     * @param histogram the histogram where sizes of batches sent to external storage are recorded, can be {@code null}
+     */
+    public BatchingParameters(int maxBatchSize, Duration linger, BatchSizeHistogram histogram) {
+        this(maxBatchSize, linger, histogram, 0);
+    }
+
+    private BatchingParameters(int maxBatchSize, Duration linger, BatchSizeHistogram histogram, int flatCombiningCapacity) {
+        if (maxBatchSize <= 0) {
+            throw BucketExceptions.nonPositiveMaxBatchSizeForBatchingParameters(maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+
+        if (linger == null) {
+            throw BucketExceptions.nullLingerForBatchingParameters();
+        }
+        if (linger.isNegative()) {
+            throw BucketExceptions.negativeLingerForBatchingParameters(linger);
+        }
+        this.lingerNanos = linger.toNanos();
+        this.histogram = histogram;
+        this.flatCombiningCapacity = flatCombiningCapacity;
+    }
+
+    /**
+     * Returns the copy of this parameters that records sizes of batches into specified histogram
+     *
+     * @param histogram the histogram where sizes of batches sent to external storage are recorded
+     *
+     * @return the copy of this parameters with configured histogram
+     */
+    public BatchingParameters withHistogram(BatchSizeHistogram histogram) {
+        return new BatchingParameters(maxBatchSize, Duration.ofNanos(lingerNanos), histogram, flatCombiningCapacity);
+    }
+
+    /**
+     * Returns the copy of this parameters that switches synchronous requests to {@link FlatCombiningBatchHelper},
+     * which publishes requests into bounded ring of pre-allocated slots instead of allocating the node per request.
+     * Linger is not applied in this mode, asynchronous requests are not affected.
+     *
+     * @param capacity the capacity of the ring, it is rounded up to power of two. Should be not less than expected count of concurrent callers.
+     *
+     * @return the copy of this parameters with flat-combining enabled
+     */
+    public BatchingParameters withFlatCombining(int capacity) {
+        if (capacity <= 0) {
+            throw BucketExceptions.nonPositiveFlatCombiningCapacityForBatchingParameters(capacity);
+        }
+        return new BatchingParameters(maxBatchSize, Duration.ofNanos(lingerNanos), histogram, capacity);
+    }
+
+    public boolean isFlatCombiningEnabled() {
+        return flatCombiningCapacity > 0;
+    }
+
+}
@@ -28,6 +28,9 @@ public class DefaultOptimizationListener implements OptimizationListener {
 
     private final AtomicLong mergeCount = new AtomicLong();
     private final AtomicLong skipCount = new AtomicLong();
+    private final AtomicLong adjustmentCount = new AtomicLong();
+    private volatile DelayParameters lastDelayParameters;
+    private volatile long lastRoundTripNanos;
 
     @Override
     public void incrementMergeCount(int count) {
@@ -39,6 +42,13 @@ public class DefaultOptimizationListener implements OptimizationListener {
         skipCount.addAndGet(count);
     }
 
+    @Override
+    public void onDelayParametersAdjusted(DelayParameters delayParameters, long roundTripNanos) {
+        lastDelayParameters = delayParameters;
+        lastRoundTripNanos = roundTripNanos;
+        adjustmentCount.incrementAndGet();
+    }
+
     public long getMergeCount() {
         return mergeCount.get();
     }
@@ -47,4 +57,19 @@ public class DefaultOptimizationListener implements OptimizationListener {
         return skipCount.get();
     }
 
+    public long getAdjustmentCount() {
+        return adjustmentCount.get();
+    }
+
+    /**
+     * @return the thresholds that were chosen by last adjustment, or null if there were no adjustments
+     */
+    public DelayParameters getLastDelayParameters() {
+        return lastDelayParameters;
+    }
+
+    public long getLastRoundTripNanos() {
+        return lastRoundTripNanos;
+    }
+
 }
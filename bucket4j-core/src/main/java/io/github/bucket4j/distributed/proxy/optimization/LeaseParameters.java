@@ -0,0 +1,67 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.optimization;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.optimization.leasing.LeasingOptimization;
+
+import java.time.Duration;
+
+/**
+ * Describes parameters for {@link LeasingOptimization}.
+ *
+ * @see LeasingOptimization
+ * @see Optimizations#leasing(LeaseParameters)
+ */
+public class LeaseParameters {
+
+    public final long minLeaseTokens;
+    public final long maxLeaseTokens;
+    public final long leaseDurationNanos;
+
+    /**
+     * Creates the new instance of {@link LeaseParameters}
+     *
+     * @param minLeaseTokens the minimum amount of tokens that is requested from external storage per lease. Must be a positive number.
+     * @param maxLeaseTokens the maximum amount of tokens that is requested from external storage per lease. Must be not less than {@code minLeaseTokens}.
+     * @param leaseDuration how long leased tokens can be spent locally, unused tokens of expired lease are returned back to external storage with the next remote call of the same bucket proxy. Must be a positive duration.
+     */
+    public LeaseParameters(long minLeaseTokens, long maxLeaseTokens, Duration leaseDuration) {
+        if (minLeaseTokens <= 0) {
+            throw BucketExceptions.nonPositiveMinLeaseTokensForLeaseParameters(minLeaseTokens);
+        }
+        this.minLeaseTokens = minLeaseTokens;
+
+        if (maxLeaseTokens < minLeaseTokens) {
+            throw BucketExceptions.maxLeaseTokensForLeaseParametersCanNotBeLessThanMinLeaseTokens(minLeaseTokens, maxLeaseTokens);
+        }
+        this.maxLeaseTokens = maxLeaseTokens;
+
+        if (leaseDuration == null) {
+            throw BucketExceptions.nullLeaseDurationForLeaseParameters();
+        }
+        if (leaseDuration.isNegative() || leaseDuration.isZero()) {
+            throw BucketExceptions.nonPositiveLeaseDurationForLeaseParameters(leaseDuration);
+        }
+        this.leaseDurationNanos = leaseDuration.toNanos();
+    }
+
+}
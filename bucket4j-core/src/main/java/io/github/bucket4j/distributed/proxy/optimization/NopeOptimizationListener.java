@@ -33,4 +33,9 @@ public class NopeOptimizationListener implements OptimizationListener {
         // do nothing
     }
 
+    @Override
+    public void onDelayParametersAdjusted(DelayParameters delayParameters, long roundTripNanos) {
+        // do nothing
+    }
+
 }
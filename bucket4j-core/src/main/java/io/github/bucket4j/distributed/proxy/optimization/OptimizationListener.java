@@ -49,4 +49,14 @@ public interface OptimizationListener {
      */
     void incrementSkipCount(int count);
 
+    /**
+     * This method is invoked every time when self-tuning optimization decided to change the thresholds of local execution.
+     *
+     * @param delayParameters the new thresholds
+     * @param roundTripNanos the smoothed latency of remote call that was taken into account by decision
+     */
+    default void onDelayParametersAdjusted(DelayParameters delayParameters, long roundTripNanos) {
+        // do nothing by default
+    }
+
 }
@@ -20,16 +20,25 @@
 package io.github.bucket4j.distributed.proxy.optimization;
 
 import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.proxy.optimization.background.BackgroundSyncOptimization;
 import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingOptimization;
 import io.github.bucket4j.distributed.proxy.optimization.predictive.PredictiveOptimization;
+import io.github.bucket4j.distributed.proxy.optimization.delay.AdaptiveDelayOptimization;
 import io.github.bucket4j.distributed.proxy.optimization.delay.DelayOptimization;
+import io.github.bucket4j.distributed.proxy.optimization.leasing.LeasingOptimization;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Provides factory methods for all request optimizations that are built-in into Bucket4j library.
  *
  * @see BatchingOptimization
  * @see DelayOptimization
+ * @see AdaptiveDelayOptimization
  * @see PredictiveOptimization
+ * @see LeasingOptimization
+ * @see BackgroundSyncOptimization
  * @see OptimizationListener
  */
 public class Optimizations {
@@ -45,6 +54,36 @@ public class Optimizations {
         return new BatchingOptimization(NopeOptimizationListener.INSTANCE);
     }
 
+    /**
+     * Creates optimization that combines independent requests to same bucket into batches in order to reduce request count to remote storage,
+     * the size of batches and the time spent to accumulate them is controlled by {@code batchingParameters}.
+     *
+     * @param batchingParameters limits for batches
+     *
+     * @return new instance of {@link BatchingOptimization}
+     *
+     * @see BatchingOptimization
+     * @see BatchingParameters
+     */
+    public static Optimization batching(BatchingParameters batchingParameters) {
+        return new BatchingOptimization(NopeOptimizationListener.INSTANCE, batchingParameters);
+    }
+
+    /**
+     * Has the same semantic as {@link #batching(BatchingParameters)}.
+     *
+     * @param maxBatchSize the maximum amount of commands that are combined into one request to external storage
+     * @param linger how long the thread that is responsible to send the batch waits for another commands to join the batch
+     *
+     * @return new instance of {@link BatchingOptimization}
+     *
+     * @see BatchingOptimization
+     * @see BatchingParameters
+     */
+    public static Optimization batching(int maxBatchSize, Duration linger) {
+        return batching(new BatchingParameters(maxBatchSize, linger));
+    }
+
     /**
      * Creates optimization that can serve requests locally without synchronization with external storage until thresholds are not violated.
      *
@@ -58,6 +97,21 @@ public class Optimizations {
         return new DelayOptimization(delayParameters, NopeOptimizationListener.INSTANCE, TimeMeter.SYSTEM_MILLISECONDS);
     }
 
+    /**
+     * Creates optimization that can serve requests locally without synchronization with external storage until thresholds are not violated,
+     * thresholds are tuned automatically according to observed latency of external storage and contention on the bucket.
+     *
+     * @param adaptiveDelayParameters bounds inside which thresholds are tuned
+     *
+     * @return new instance of {@link AdaptiveDelayOptimization}
+     *
+     * @see AdaptiveDelayOptimization
+     * @see AdaptiveDelayParameters
+     */
+    public static Optimization adaptiveDelaying(AdaptiveDelayParameters adaptiveDelayParameters) {
+        return new AdaptiveDelayOptimization(adaptiveDelayParameters, NopeOptimizationListener.INSTANCE, TimeMeter.SYSTEM_NANOTIME);
+    }
+
     /**
      * Creates optimization that can serve requests locally without synchronization with external storage until thresholds are not violated,
      * and additionally tries to predict aggregated consumption rate in whole cluster in order to reduce the risk of overconsumption that caused by {@link DelayOptimization}.
@@ -90,4 +144,34 @@ public class Optimizations {
         return new PredictiveOptimization(defaultPrediction, delayParameters, NopeOptimizationListener.INSTANCE, TimeMeter.SYSTEM_NANOTIME);
     }
 
+    /**
+     * Creates optimization that takes a lease of tokens from external storage and serves {@code tryConsume} requests locally until the lease is spent or expired.
+     *
+     * @param leaseParameters parameters that control the size and duration of lease
+     *
+     * @return new instance of {@link LeasingOptimization}
+     *
+     * @see LeasingOptimization
+     * @see LeaseParameters
+     */
+    public static Optimization leasing(LeaseParameters leaseParameters) {
+        return new LeasingOptimization(leaseParameters, NopeOptimizationListener.INSTANCE, TimeMeter.SYSTEM_NANOTIME);
+    }
+
+    /**
+     * Decorates optimization in order to synchronize postponed tokens with external storage proactively on the scheduler,
+     * so remote round-trip is moved out of request path.
+     *
+     * @param optimization the optimization to decorate, typically {@link #delaying(DelayParameters)} or {@link #predicting(DelayParameters)}
+     * @param scheduler the scheduler that is shared between all buckets, its lifecycle is managed by caller
+     * @param syncPeriod how often the used buckets are synchronized. Must be a positive duration.
+     *
+     * @return new instance of {@link BackgroundSyncOptimization}
+     *
+     * @see BackgroundSyncOptimization
+     */
+    public static Optimization backgroundSync(Optimization optimization, ScheduledExecutorService scheduler, Duration syncPeriod) {
+        return new BackgroundSyncOptimization(optimization, scheduler, syncPeriod);
+    }
+
 }
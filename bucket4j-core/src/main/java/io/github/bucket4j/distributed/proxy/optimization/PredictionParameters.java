@@ -35,6 +35,7 @@ public class PredictionParameters {
     public final int minSamples;
     public final int maxSamples;
     public final long sampleMaxAgeNanos;
+    public final long rateSmoothingHalfLifeNanos;
 
     /**
      * Creates new instance of {@link PredictionParameters}
@@ -62,6 +63,30 @@ public class PredictionParameters {
             throw BucketExceptions.nonPositiveSampleMaxAgeForPredictionParameters(maxUnsynchronizedTimeoutNanos);
         }
         this.sampleMaxAgeNanos = maxUnsynchronizedTimeoutNanos;
+        this.rateSmoothingHalfLifeNanos = 0;
+    }
+
+    private PredictionParameters(PredictionParameters prototype, long rateSmoothingHalfLifeNanos) {
+        this.minSamples = prototype.minSamples;
+        this.maxSamples = prototype.maxSamples;
+        this.sampleMaxAgeNanos = prototype.sampleMaxAgeNanos;
+        this.rateSmoothingHalfLifeNanos = rateSmoothingHalfLifeNanos;
+    }
+
+    /**
+     * Returns the copy of this parameters that smooths predicted consumption rate by exponentially weighted moving average,
+     * so single burst observed between two synchronizations does not cause sharp jump of prediction.
+     * The weight of rate that was observed {@code halfLife} ago is a half of the weight of rate that is observed just now.
+     *
+     * @param halfLife the half-life of observed rate. Must be a positive duration.
+     *
+     * @return the new instance of {@link PredictionParameters} with configured smoothing
+     */
+    public PredictionParameters withRateSmoothing(Duration halfLife) {
+        if (halfLife == null || halfLife.isNegative() || halfLife.isZero()) {
+            throw BucketExceptions.nonPositiveRateSmoothingHalfLifeForPredictionParameters(halfLife);
+        }
+        return new PredictionParameters(this, halfLife.toNanos());
     }
 
     public static PredictionParameters createDefault(DelayParameters delayParameters) {
@@ -81,4 +106,8 @@ public class PredictionParameters {
         return sampleMaxAgeNanos;
     }
 
+    public long getRateSmoothingHalfLifeNanos() {
+        return rateSmoothingHalfLifeNanos;
+    }
+
 }
@@ -0,0 +1,130 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.optimization.background;
+
+import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
+import io.github.bucket4j.distributed.proxy.CommandExecutor;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.commands.SyncCommand;
+import io.github.bucket4j.distributed.versioning.Version;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class BackgroundSyncExecutor implements CommandExecutor, AsyncCommandExecutor {
+
+    private static final SyncCommand SYNC_IF_SOMETHING_POSTPONED = new SyncCommand(1, 0);
+
+    private final CommandExecutor optimizedExecutor;
+    private final AsyncCommandExecutor optimizedAsyncExecutor;
+
+    private volatile boolean usedSinceLastSync;
+
+    BackgroundSyncExecutor(CommandExecutor optimizedExecutor) {
+        this.optimizedExecutor = optimizedExecutor;
+        this.optimizedAsyncExecutor = null;
+    }
+
+    BackgroundSyncExecutor(AsyncCommandExecutor optimizedAsyncExecutor) {
+        this.optimizedExecutor = null;
+        this.optimizedAsyncExecutor = optimizedAsyncExecutor;
+    }
+
+    @Override
+    public Version getBackwardCompatibilityVersion() {
+        return optimizedExecutor != null ? optimizedExecutor.getBackwardCompatibilityVersion() : optimizedAsyncExecutor.getBackwardCompatibilityVersion();
+    }
+
+    @Override
+    public <T> CommandResult<T> execute(RemoteCommand<T> command) {
+        usedSinceLastSync = true;
+        return optimizedExecutor.execute(command);
+    }
+
+    @Override
+    public <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command) {
+        usedSinceLastSync = true;
+        return optimizedAsyncExecutor.executeAsync(command);
+    }
+
+    void schedule(ScheduledExecutorService scheduler, long syncPeriodNanos) {
+        SyncTask task = new SyncTask(this);
+        task.future = scheduler.scheduleWithFixedDelay(task, syncPeriodNanos, syncPeriodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void syncInBackground(AtomicBoolean syncInProgress) {
+        if (!usedSinceLastSync) {
+            return;
+        }
+        usedSinceLastSync = false;
+        if (optimizedExecutor != null) {
+            optimizedExecutor.execute(SYNC_IF_SOMETHING_POSTPONED);
+            return;
+        }
+        syncInProgress.set(true);
+        optimizedAsyncExecutor.executeAsync(SYNC_IF_SOMETHING_POSTPONED)
+            .whenComplete((result, error) -> syncInProgress.set(false));
+    }
+
+    /**
+     * Refers to executor weakly, so background synchronization does not prevent garbage collection of bucket proxy.
+     */
+    private static final class SyncTask implements Runnable {
+
+        private final WeakReference<BackgroundSyncExecutor> executorRef;
+        private final AtomicBoolean syncInProgress = new AtomicBoolean();
+        private volatile ScheduledFuture<?> future;
+
+        private SyncTask(BackgroundSyncExecutor executor) {
+            this.executorRef = new WeakReference<>(executor);
+        }
+
+        @Override
+        public void run() {
+            BackgroundSyncExecutor executor = executorRef.get();
+            if (executor == null) {
+                ScheduledFuture<?> future = this.future;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                return;
+            }
+            if (syncInProgress.get()) {
+                // previous asynchronous synchronization is not completed yet
+                return;
+            }
+            try {
+                executor.syncInBackground(syncInProgress);
+            } catch (Throwable e) {
+                // failure will be observed by the next request that needs remote call,
+                // the exception must not be propagated because it stops periodic execution
+                syncInProgress.set(false);
+            }
+        }
+
+    }
+
+}
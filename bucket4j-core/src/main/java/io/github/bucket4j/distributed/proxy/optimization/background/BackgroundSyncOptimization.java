@@ -0,0 +1,79 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.optimization.background;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
+import io.github.bucket4j.distributed.proxy.CommandExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Decorates another optimization, for example {@link io.github.bucket4j.distributed.proxy.optimization.delay.DelayOptimization}
+ * or {@link io.github.bucket4j.distributed.proxy.optimization.predictive.PredictiveOptimization},
+ * in order to synchronize postponed tokens with remote storage proactively on the shared scheduler,
+ * instead of waiting for request that crosses the thresholds and pays the round-trip latency inline.
+ *
+ * <p>Each {@code syncPeriod} the bucket that has been used since the previous tick executes {@code syncByCondition(1, Duration.ZERO)},
+ * so postponed tokens are flushed and local state is refreshed, while idle buckets do not produce any remote calls.
+ * Background synchronization is executed through the decorated optimization, so requests that arrive while it is in progress
+ * are batched together with it in the same way as concurrent requests are.
+ * Periodic task is cancelled automatically when the bucket proxy becomes unreachable.
+ */
+public class BackgroundSyncOptimization implements Optimization {
+
+    private final Optimization optimization;
+    private final ScheduledExecutorService scheduler;
+    private final long syncPeriodNanos;
+
+    public BackgroundSyncOptimization(Optimization optimization, ScheduledExecutorService scheduler, Duration syncPeriod) {
+        this.optimization = Objects.requireNonNull(optimization);
+        this.scheduler = Objects.requireNonNull(scheduler);
+        if (syncPeriod.isNegative() || syncPeriod.isZero()) {
+            throw BucketExceptions.nonPositiveBackgroundSyncPeriod(syncPeriod);
+        }
+        this.syncPeriodNanos = syncPeriod.toNanos();
+    }
+
+    @Override
+    public Optimization withListener(OptimizationListener listener) {
+        return new BackgroundSyncOptimization(optimization.withListener(listener), scheduler, Duration.ofNanos(syncPeriodNanos));
+    }
+
+    @Override
+    public CommandExecutor apply(CommandExecutor originalExecutor) {
+        BackgroundSyncExecutor executor = new BackgroundSyncExecutor(optimization.apply(originalExecutor));
+        executor.schedule(scheduler, syncPeriodNanos);
+        return executor;
+    }
+
+    @Override
+    public AsyncCommandExecutor apply(AsyncCommandExecutor originalExecutor) {
+        BackgroundSyncExecutor executor = new BackgroundSyncExecutor(optimization.apply(originalExecutor));
+        executor.schedule(scheduler, syncPeriodNanos);
+        return executor;
+    }
+
+}
@@ -21,11 +21,12 @@
 package io.github.bucket4j.distributed.proxy.optimization.batch;
 
 import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.BatchingParameters;
 import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.RemoteCommand;
-import io.github.bucket4j.distributed.remote.commands.MultiCommand;
-import io.github.bucket4j.distributed.remote.MultiResult;
+import io.github.bucket4j.distributed.remote.commands.AggregatedTryConsumeCommand;
+import io.github.bucket4j.distributed.versioning.Version;
 import io.github.bucket4j.util.concurrent.BatchHelper;
 
 import java.util.List;
@@ -34,22 +35,51 @@ import java.util.function.Function;
 
 public class AsyncBatchingExecutor implements AsyncCommandExecutor {
 
-    private final BatchHelper<RemoteCommand<?>, CommandResult<?>, MultiCommand, CommandResult<MultiResult>> batchingHelper;
+    private final BatchHelper<RemoteCommand<?>, CommandResult<?>, RemoteCommand<?>, List<CommandResult<?>>> batchingHelper;
     private final AsyncCommandExecutor wrappedExecutor;
     private final OptimizationListener listener;
+    private volatile boolean aggregationEnabled;
 
-    private final Function<List<RemoteCommand<?>>, MultiCommand> taskCombiner = new Function<List<RemoteCommand<?>>, MultiCommand>() {
+    private final Function<List<RemoteCommand<?>>, RemoteCommand<?>> taskCombiner = new Function<List<RemoteCommand<?>>, RemoteCommand<?>>() {
         @Override
-        public MultiCommand apply(List<RemoteCommand<?>> commands) {
+        public RemoteCommand<?> apply(List<RemoteCommand<?>> commands) {
             listener.incrementMergeCount(commands.size() - 1);
-            return new MultiCommand(commands);
+            return CommandAggregation.combine(commands, aggregationEnabled);
         }
     };
 
-    private final Function<MultiCommand, CompletableFuture<CommandResult<MultiResult>>> combinedTaskExecutor = new Function<MultiCommand, CompletableFuture<CommandResult<MultiResult>>>() {
+    private final Function<RemoteCommand<?>, CompletableFuture<List<CommandResult<?>>>> combinedTaskExecutor = new Function<RemoteCommand<?>, CompletableFuture<List<CommandResult<?>>>>() {
         @Override
-        public CompletableFuture<CommandResult<MultiResult>> apply(MultiCommand multiCommand) {
-            return wrappedExecutor.executeAsync(multiCommand);
+        public CompletableFuture<List<CommandResult<?>>> apply(RemoteCommand<?> combinedCommand) {
+            CompletableFuture<? extends CommandResult<?>> combinedFuture;
+            try {
+                combinedFuture = wrappedExecutor.executeAsync(combinedCommand);
+            } catch (RuntimeException e) {
+                if (!CommandAggregation.isAggregationUnsupported(combinedCommand, e)) {
+                    throw e;
+                }
+                return executeWithoutAggregation((AggregatedTryConsumeCommand) combinedCommand);
+            }
+
+            CompletableFuture<List<CommandResult<?>>> resultFuture = new CompletableFuture<>();
+            combinedFuture.whenComplete((combinedResult, error) -> {
+                try {
+                    if (error != null) {
+                        if (!CommandAggregation.isAggregationUnsupported(combinedCommand, error)) {
+                            resultFuture.completeExceptionally(error);
+                            return;
+                        }
+                        propagate(executeWithoutAggregation((AggregatedTryConsumeCommand) combinedCommand), resultFuture);
+                    } else if (CommandAggregation.isAggregationUnsupported(combinedCommand, combinedResult)) {
+                        propagate(executeWithoutAggregation((AggregatedTryConsumeCommand) combinedCommand), resultFuture);
+                    } else {
+                        resultFuture.complete(CommandAggregation.split(combinedCommand, combinedResult));
+                    }
+                } catch (Throwable t) {
+                    resultFuture.completeExceptionally(t);
+                }
+            });
+            return resultFuture;
         }
     };
 
@@ -61,25 +91,49 @@ public class AsyncBatchingExecutor implements AsyncCommandExecutor {
         }
     };
 
-    private final Function<CommandResult<MultiResult>, List<CommandResult<?>>> combinedResultSplitter = new Function<CommandResult<MultiResult>, List<CommandResult<?>>>() {
-        @Override
-        public List<CommandResult<?>> apply(CommandResult<MultiResult> multiResult) {
-            return multiResult.getData().getResults();
-        }
-    };
+    private final Function<List<CommandResult<?>>, List<CommandResult<?>>> combinedResultSplitter = Function.identity();
 
 
     public AsyncBatchingExecutor(AsyncCommandExecutor originalExecutor, OptimizationListener listener) {
+        this(originalExecutor, listener, BatchingParameters.UNLIMITED);
+    }
+
+    public AsyncBatchingExecutor(AsyncCommandExecutor originalExecutor, OptimizationListener listener, BatchingParameters batchingParameters) {
         this.wrappedExecutor = originalExecutor;
         this.listener = listener;
-        this.batchingHelper = BatchHelper.async(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter);
+        this.aggregationEnabled = CommandAggregation.isAggregationSupportedBy(originalExecutor.getBackwardCompatibilityVersion());
+        this.batchingHelper = BatchHelper.async(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter)
+                .withLimits(batchingParameters.maxBatchSize, batchingParameters.lingerNanos, batchingParameters.histogram);
     }
 
 
+    @Override
+    public Version getBackwardCompatibilityVersion() {
+        return wrappedExecutor.getBackwardCompatibilityVersion();
+    }
+
     @Override
     public <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command) {
         CompletableFuture<T> future = (CompletableFuture<T>) batchingHelper.executeAsync(command);
         return (CompletableFuture<CommandResult<T>>) future;
     }
 
+    private CompletableFuture<List<CommandResult<?>>> executeWithoutAggregation(AggregatedTryConsumeCommand aggregatedCommand) {
+        // remote side is older than configured backward compatibility version, there is no reason to try again
+        aggregationEnabled = false;
+        RemoteCommand<?> multiCommand = aggregatedCommand.toMultiCommand();
+        return wrappedExecutor.executeAsync(multiCommand)
+                .thenApply(multiResult -> CommandAggregation.split(multiCommand, multiResult));
+    }
+
+    private static <T> void propagate(CompletableFuture<T> source, CompletableFuture<T> target) {
+        source.whenComplete((result, error) -> {
+            if (error != null) {
+                target.completeExceptionally(error);
+            } else {
+                target.complete(result);
+            }
+        });
+    }
+
 }
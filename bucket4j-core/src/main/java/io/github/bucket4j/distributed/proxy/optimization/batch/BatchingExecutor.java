@@ -21,34 +21,50 @@
 package io.github.bucket4j.distributed.proxy.optimization.batch;
 
 import io.github.bucket4j.distributed.proxy.CommandExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.BatchingParameters;
 import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.RemoteCommand;
-import io.github.bucket4j.distributed.remote.commands.MultiCommand;
-import io.github.bucket4j.distributed.remote.MultiResult;
+import io.github.bucket4j.distributed.remote.commands.AggregatedTryConsumeCommand;
+import io.github.bucket4j.distributed.versioning.Version;
 import io.github.bucket4j.util.concurrent.BatchHelper;
+import io.github.bucket4j.util.concurrent.FlatCombiningBatchHelper;
 
 import java.util.List;
 import java.util.function.Function;
 
 public class BatchingExecutor implements CommandExecutor {
 
-    private final BatchHelper<RemoteCommand<?>, CommandResult<?>, MultiCommand, CommandResult<MultiResult>> batchingHelper;
+    private final BatchHelper<RemoteCommand<?>, CommandResult<?>, RemoteCommand<?>, List<CommandResult<?>>> batchingHelper;
+    private final FlatCombiningBatchHelper<RemoteCommand<?>, CommandResult<?>, RemoteCommand<?>, List<CommandResult<?>>> flatCombiningHelper;
     private final CommandExecutor wrappedExecutor;
     private final OptimizationListener listener;
+    private volatile boolean aggregationEnabled;
 
-    private final Function<List<RemoteCommand<?>>, MultiCommand> taskCombiner = new Function<List<RemoteCommand<?>>, MultiCommand>() {
+    private final Function<List<RemoteCommand<?>>, RemoteCommand<?>> taskCombiner = new Function<List<RemoteCommand<?>>, RemoteCommand<?>>() {
         @Override
-        public MultiCommand apply(List<RemoteCommand<?>> commands) {
+        public RemoteCommand<?> apply(List<RemoteCommand<?>> commands) {
             listener.incrementMergeCount(commands.size() - 1);
-            return new MultiCommand(commands);
+            return CommandAggregation.combine(commands, aggregationEnabled);
         }
     };
 
-    private final Function<MultiCommand, CommandResult<MultiResult>> combinedTaskExecutor = new Function<MultiCommand, CommandResult<MultiResult>>() {
+    private final Function<RemoteCommand<?>, List<CommandResult<?>>> combinedTaskExecutor = new Function<RemoteCommand<?>, List<CommandResult<?>>>() {
         @Override
-        public CommandResult<MultiResult> apply(MultiCommand multiCommand) {
-            return wrappedExecutor.execute(multiCommand);
+        public List<CommandResult<?>> apply(RemoteCommand<?> combinedCommand) {
+            CommandResult<?> combinedResult;
+            try {
+                combinedResult = wrappedExecutor.execute(combinedCommand);
+            } catch (RuntimeException e) {
+                if (!CommandAggregation.isAggregationUnsupported(combinedCommand, e)) {
+                    throw e;
+                }
+                return executeWithoutAggregation((AggregatedTryConsumeCommand) combinedCommand);
+            }
+            if (CommandAggregation.isAggregationUnsupported(combinedCommand, combinedResult)) {
+                return executeWithoutAggregation((AggregatedTryConsumeCommand) combinedCommand);
+            }
+            return CommandAggregation.split(combinedCommand, combinedResult);
         }
     };
 
@@ -59,22 +75,45 @@ public class BatchingExecutor implements CommandExecutor {
         }
     };
 
-    private final Function<CommandResult<MultiResult>, List<CommandResult<?>>> combinedResultSplitter = new Function<CommandResult<MultiResult>, List<CommandResult<?>>>() {
-        @Override
-        public List<CommandResult<?>> apply(CommandResult<MultiResult> multiResult) {
-            return multiResult.getData().getResults();
-        }
-    };
+    private final Function<List<CommandResult<?>>, List<CommandResult<?>>> combinedResultSplitter = Function.identity();
 
     public BatchingExecutor(CommandExecutor originalExecutor, OptimizationListener listener) {
+        this(originalExecutor, listener, BatchingParameters.UNLIMITED);
+    }
+
+    public BatchingExecutor(CommandExecutor originalExecutor, OptimizationListener listener, BatchingParameters batchingParameters) {
         this.wrappedExecutor = originalExecutor;
         this.listener = listener;
-        this.batchingHelper = BatchHelper.sync(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter);
+        this.aggregationEnabled = CommandAggregation.isAggregationSupportedBy(originalExecutor.getBackwardCompatibilityVersion());
+        if (batchingParameters.isFlatCombiningEnabled()) {
+            this.batchingHelper = null;
+            this.flatCombiningHelper = FlatCombiningBatchHelper.sync(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter, batchingParameters.flatCombiningCapacity)
+                    .withLimits(batchingParameters.maxBatchSize, batchingParameters.histogram);
+        } else {
+            this.batchingHelper = BatchHelper.sync(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter)
+                    .withLimits(batchingParameters.maxBatchSize, batchingParameters.lingerNanos, batchingParameters.histogram);
+            this.flatCombiningHelper = null;
+        }
+    }
+
+    @Override
+    public Version getBackwardCompatibilityVersion() {
+        return wrappedExecutor.getBackwardCompatibilityVersion();
     }
 
     @Override
     public <T> CommandResult<T> execute(RemoteCommand<T> command) {
+        if (flatCombiningHelper != null) {
+            return (CommandResult<T>) flatCombiningHelper.execute(command);
+        }
         return (CommandResult<T>) batchingHelper.execute(command);
     }
 
+    private List<CommandResult<?>> executeWithoutAggregation(AggregatedTryConsumeCommand aggregatedCommand) {
+        // remote side is older than configured backward compatibility version, there is no reason to try again
+        aggregationEnabled = false;
+        RemoteCommand<?> multiCommand = aggregatedCommand.toMultiCommand();
+        return CommandAggregation.split(multiCommand, wrappedExecutor.execute(multiCommand));
+    }
+
 }
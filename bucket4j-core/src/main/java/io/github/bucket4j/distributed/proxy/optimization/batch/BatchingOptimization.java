@@ -22,6 +22,7 @@ package io.github.bucket4j.distributed.proxy.optimization.batch;
 
 import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
 import io.github.bucket4j.distributed.proxy.CommandExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.BatchingParameters;
 import io.github.bucket4j.distributed.proxy.optimization.Optimization;
 import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
 
@@ -29,29 +30,38 @@ import java.util.Objects;
 
 /**
  * Optimization that combines independent requests to same bucket into batches in order to reduce request count to remote storage.
+ *
+ * <p>
+ * The size of batches and the time which is spent to accumulate them is controlled by {@link BatchingParameters}.
  */
 public class BatchingOptimization implements Optimization {
 
     private final OptimizationListener listener;
+    private final BatchingParameters batchingParameters;
 
     public BatchingOptimization(OptimizationListener listener) {
+        this(listener, BatchingParameters.UNLIMITED);
+    }
+
+    public BatchingOptimization(OptimizationListener listener, BatchingParameters batchingParameters) {
         this.listener = Objects.requireNonNull(listener);
+        this.batchingParameters = Objects.requireNonNull(batchingParameters);
     }
 
     @Override
     public Optimization withListener(OptimizationListener listener) {
         Objects.requireNonNull(listener);
-        return new BatchingOptimization(listener);
+        return new BatchingOptimization(listener, batchingParameters);
     }
 
     @Override
     public CommandExecutor apply(CommandExecutor originalExecutor) {
-        return new BatchingExecutor(originalExecutor, listener);
+        return new BatchingExecutor(originalExecutor, listener, batchingParameters);
     }
 
     @Override
     public AsyncCommandExecutor apply(AsyncCommandExecutor originalExecutor) {
-        return new AsyncBatchingExecutor(originalExecutor, listener);
+        return new AsyncBatchingExecutor(originalExecutor, listener, batchingParameters);
     }
 
 }
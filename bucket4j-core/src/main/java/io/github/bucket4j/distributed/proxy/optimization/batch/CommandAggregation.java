@@ -0,0 +1,111 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.optimization.batch;
+
+import io.github.bucket4j.distributed.remote.AggregatedTryConsumeResult;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MultiResult;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.UnsupportedTypeError;
+import io.github.bucket4j.distributed.remote.UsageOfUnsupportedApiError;
+import io.github.bucket4j.distributed.remote.commands.AggregatedTryConsumeCommand;
+import io.github.bucket4j.distributed.remote.commands.MultiCommand;
+import io.github.bucket4j.distributed.versioning.UsageOfUnsupportedApiException;
+import io.github.bucket4j.distributed.versioning.Version;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Combines batch of commands into single remote command and splits the result back.
+ * Homogeneous batches of {@code tryConsume} requests are encoded as {@link AggregatedTryConsumeCommand},
+ * all other batches as {@link MultiCommand}.
+ */
+class CommandAggregation {
+
+    private static final Version AGGREGATED_COMMAND_REQUIRED_VERSION = new AggregatedTryConsumeCommand(new long[0]).getRequiredVersion();
+
+    /**
+     * Checks that {@link AggregatedTryConsumeCommand} can be sent to the remote side,
+     * aggregation is disabled up front when the client is configured to be compatible with the version that does not know this command.
+     */
+    static boolean isAggregationSupportedBy(Version backwardCompatibilityVersion) {
+        return backwardCompatibilityVersion.getNumber() >= AGGREGATED_COMMAND_REQUIRED_VERSION.getNumber();
+    }
+
+    static RemoteCommand<?> combine(List<RemoteCommand<?>> commands, boolean aggregationEnabled) {
+        if (aggregationEnabled) {
+            AggregatedTryConsumeCommand aggregatedCommand = AggregatedTryConsumeCommand.aggregateIfPossible(commands);
+            if (aggregatedCommand != null) {
+                return aggregatedCommand;
+            }
+        }
+        return new MultiCommand(commands);
+    }
+
+    static List<CommandResult<?>> split(RemoteCommand<?> combinedCommand, CommandResult<?> combinedResult) {
+        if (combinedCommand instanceof AggregatedTryConsumeCommand) {
+            int count = ((AggregatedTryConsumeCommand) combinedCommand).getCount();
+            if (combinedResult.isError()) {
+                return Collections.nCopies(count, combinedResult);
+            }
+            AggregatedTryConsumeResult aggregatedResult = (AggregatedTryConsumeResult) combinedResult.getData();
+            List<CommandResult<?>> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(aggregatedResult.isConsumed(i) ? CommandResult.TRUE : CommandResult.FALSE);
+            }
+            return results;
+        }
+
+        MultiCommand multiCommand = (MultiCommand) combinedCommand;
+        if (combinedResult.isError()) {
+            return Collections.nCopies(multiCommand.getCommands().size(), combinedResult);
+        }
+        return ((MultiResult) combinedResult.getData()).getResults();
+    }
+
+    /**
+     * Detects that remote side is not able to execute {@link AggregatedTryConsumeCommand} even though the configured backward compatibility version allows it,
+     * it happens when backend is older than version which client is configured to be compatible with.
+     */
+    static boolean isAggregationUnsupported(RemoteCommand<?> combinedCommand, CommandResult<?> combinedResult) {
+        if (!(combinedCommand instanceof AggregatedTryConsumeCommand) || !combinedResult.isError()) {
+            return false;
+        }
+        int resultTypeId = combinedResult.getResultTypeId();
+        return resultTypeId == UnsupportedTypeError.SERIALIZATION_HANDLE.getTypeId()
+            || resultTypeId == UsageOfUnsupportedApiError.SERIALIZATION_HANDLE.getTypeId();
+    }
+
+    static boolean isAggregationUnsupported(RemoteCommand<?> combinedCommand, Throwable error) {
+        if (!(combinedCommand instanceof AggregatedTryConsumeCommand)) {
+            return false;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UsageOfUnsupportedApiException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.optimization.delay;
+
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
+import io.github.bucket4j.distributed.proxy.CommandExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.AdaptiveDelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
+import io.github.bucket4j.distributed.proxy.optimization.batch.AsyncBatchingExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.batch.BatchingExecutor;
+
+import java.util.Objects;
+
+/**
+ * Self-tuning version of {@link DelayOptimization} that chooses thresholds of local execution instead of user.
+ *
+ * <p>Thresholds are recalculated after each synchronization with remote storage:
+ * <ul>
+ *     <li>timeout between synchronizations follows the smoothed round-trip latency multiplied by {@link AdaptiveDelayParameters#latencyMultiplier},
+ *     so thresholds are widened when backend slows down and tightened when it becomes fast again;</li>
+ *     <li>amount of unsynchronized tokens is scaled proportionally to the timeout;</li>
+ *     <li>when bucket is close to exhaustion, amount of unsynchronized tokens is limited by the share of available tokens
+ *     that corresponds to the share of consumption by this proxy, so the more other nodes compete for the bucket the tighter thresholds are.</li>
+ * </ul>
+ * Thresholds never leave the bounds specified by {@link AdaptiveDelayParameters}, each change is reported via {@link OptimizationListener#onDelayParametersAdjusted}.
+ *
+ * @see AdaptiveDelayParameters
+ */
+public class AdaptiveDelayOptimization implements Optimization {
+
+    private final AdaptiveDelayParameters parameters;
+    private final OptimizationListener listener;
+    private final TimeMeter timeMeter;
+
+    public AdaptiveDelayOptimization(AdaptiveDelayParameters parameters, OptimizationListener listener, TimeMeter timeMeter) {
+        this.parameters = Objects.requireNonNull(parameters);
+        this.listener = Objects.requireNonNull(listener);
+        this.timeMeter = Objects.requireNonNull(timeMeter);
+    }
+
+    @Override
+    public Optimization withListener(OptimizationListener listener) {
+        return new AdaptiveDelayOptimization(parameters, listener, timeMeter);
+    }
+
+    @Override
+    public CommandExecutor apply(CommandExecutor originalExecutor) {
+        AdaptiveDelayedCommandExecutor adaptiveCommandExecutor = new AdaptiveDelayedCommandExecutor(originalExecutor, parameters, listener, timeMeter);
+        return new BatchingExecutor(adaptiveCommandExecutor, listener);
+    }
+
+    @Override
+    public AsyncCommandExecutor apply(AsyncCommandExecutor originalExecutor) {
+        AdaptiveDelayedCommandExecutor adaptiveCommandExecutor = new AdaptiveDelayedCommandExecutor(originalExecutor, parameters, listener, timeMeter);
+        return new AsyncBatchingExecutor(adaptiveCommandExecutor, listener);
+    }
+
+}
@@ -0,0 +1,109 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.optimization.delay;
+
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
+import io.github.bucket4j.distributed.proxy.CommandExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.AdaptiveDelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import java.time.Duration;
+
+class AdaptiveDelayedCommandExecutor extends DelayedCommandExecutor {
+
+    private static final double LATENCY_SMOOTHING_FACTOR = 0.2;
+    private static final double MIN_RELATIVE_CHANGE = 0.1;
+
+    private final AdaptiveDelayParameters parameters;
+    private final OptimizationListener listener;
+
+    private double smoothedRoundTripNanos = -1.0;
+    private long previousConsumedTokensCounter = -1;
+
+    AdaptiveDelayedCommandExecutor(CommandExecutor originalExecutor, AdaptiveDelayParameters parameters, OptimizationListener listener, TimeMeter timeMeter) {
+        super(originalExecutor, parameters.minParameters, listener, timeMeter);
+        this.parameters = parameters;
+        this.listener = listener;
+    }
+
+    AdaptiveDelayedCommandExecutor(AsyncCommandExecutor originalAsyncExecutor, AdaptiveDelayParameters parameters, OptimizationListener listener, TimeMeter timeMeter) {
+        super(originalAsyncExecutor, parameters.minParameters, listener, timeMeter);
+        this.parameters = parameters;
+        this.listener = listener;
+    }
+
+    @Override
+    void onSynchronization(long roundTripNanos, long selfConsumedTokens, RemoteBucketState state) {
+        if (smoothedRoundTripNanos < 0) {
+            smoothedRoundTripNanos = roundTripNanos;
+        } else {
+            smoothedRoundTripNanos += (roundTripNanos - smoothedRoundTripNanos) * LATENCY_SMOOTHING_FACTOR;
+        }
+
+        DelayParameters min = parameters.minParameters;
+        DelayParameters max = parameters.maxParameters;
+
+        // the slower backend is the longer bucket is allowed to act locally
+        double desiredTimeoutNanos = smoothedRoundTripNanos * parameters.latencyMultiplier;
+        long timeoutNanos = (long) Math.max(min.maxUnsynchronizedTimeoutNanos, Math.min(max.maxUnsynchronizedTimeoutNanos, desiredTimeoutNanos));
+        double widening;
+        if (max.maxUnsynchronizedTimeoutNanos == min.maxUnsynchronizedTimeoutNanos) {
+            widening = desiredTimeoutNanos >= max.maxUnsynchronizedTimeoutNanos ? 1.0 : 0.0;
+        } else {
+            widening = (double) (timeoutNanos - min.maxUnsynchronizedTimeoutNanos) / (max.maxUnsynchronizedTimeoutNanos - min.maxUnsynchronizedTimeoutNanos);
+        }
+        long tokens = min.maxUnsynchronizedTokens + (long) ((max.maxUnsynchronizedTokens - min.maxUnsynchronizedTokens) * widening);
+
+        // the share of consumption by this proxy since previous synchronization, other nodes compete for the rest
+        double selfShare = 1.0;
+        long consumedTokensCounter = state.getRemoteStat().getConsumedTokens();
+        if (previousConsumedTokensCounter >= 0 && selfConsumedTokens != Long.MAX_VALUE) {
+            long totalConsumedTokens = consumedTokensCounter - previousConsumedTokensCounter;
+            if (totalConsumedTokens > 0 && selfConsumedTokens < totalConsumedTokens) {
+                selfShare = (double) selfConsumedTokens / totalConsumedTokens;
+            }
+        }
+        previousConsumedTokensCounter = consumedTokensCounter;
+
+        // do not postpone more than a half of tokens that this proxy can expect to get from the rest of bucket
+        long budget = (long) (state.getAvailableTokens() * selfShare / 2);
+        if (budget < tokens) {
+            tokens = Math.max(min.maxUnsynchronizedTokens, budget);
+            timeoutNanos = min.maxUnsynchronizedTimeoutNanos;
+        }
+
+        DelayParameters current = delayParameters;
+        if (tokens < current.maxUnsynchronizedTokens
+                || isSignificantChange(current.maxUnsynchronizedTokens, tokens)
+                || isSignificantChange(current.maxUnsynchronizedTimeoutNanos, timeoutNanos)) {
+            delayParameters = new DelayParameters(tokens, Duration.ofNanos(timeoutNanos));
+            listener.onDelayParametersAdjusted(delayParameters, (long) smoothedRoundTripNanos);
+        }
+    }
+
+    private static boolean isSignificantChange(long currentValue, long newValue) {
+        return Math.abs(newValue - currentValue) > currentValue * MIN_RELATIVE_CHANGE;
+    }
+
+}
@@ -31,6 +31,7 @@ import io.github.bucket4j.distributed.remote.BucketEntryWrapper;
 import io.github.bucket4j.distributed.remote.commands.ConsumeIgnoringRateLimitsCommand;
 import io.github.bucket4j.distributed.remote.commands.CreateSnapshotCommand;
 import io.github.bucket4j.distributed.remote.commands.MultiCommand;
+import io.github.bucket4j.distributed.versioning.Version;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -43,10 +44,11 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
 
     private final CommandExecutor originalExecutor;
     private final AsyncCommandExecutor originalAsyncExecutor;
-    private final DelayParameters delayParameters;
     private final OptimizationListener listener;
     private final TimeMeter timeMeter;
 
+    DelayParameters delayParameters;
+
     private RemoteBucketState state;
 
     private long lastSyncTimeNanos;
@@ -68,6 +70,11 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
         this.timeMeter = timeMeter;
     }
 
+    @Override
+    public Version getBackwardCompatibilityVersion() {
+        return originalExecutor != null ? originalExecutor.getBackwardCompatibilityVersion() : originalAsyncExecutor.getBackwardCompatibilityVersion();
+    }
+
     @Override
     public <T> CommandResult<T> execute(RemoteCommand<T> command) {
         CommandResult<T> localResult = tryConsumeLocally(command);
@@ -78,8 +85,9 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
         }
 
         MultiCommand remoteCommand = prepareRemoteCommand(command);
+        long requestTimeNanos = timeMeter.currentTimeNanos();
         MultiResult multiResult = originalExecutor.execute(remoteCommand).getData();
-        rememberRemoteCommandResult(multiResult);
+        rememberRemoteCommandResult(remoteCommand, multiResult, requestTimeNanos);
         return (CommandResult<T>) multiResult.getResults().get(ORIGINAL_COMMAND_INDEX);
     }
 
@@ -93,10 +101,11 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
         }
 
         MultiCommand remoteCommand = prepareRemoteCommand(command);
+        long requestTimeNanos = timeMeter.currentTimeNanos();
         CompletableFuture<CommandResult<MultiResult>> resultFuture = originalAsyncExecutor.executeAsync(remoteCommand);
         return resultFuture.thenApply(remoteResult -> {
             MultiResult multiResult = remoteResult.getData();
-            rememberRemoteCommandResult(multiResult);
+            rememberRemoteCommandResult(remoteCommand, multiResult, requestTimeNanos);
             return (CommandResult<T>) multiResult.getResults().get(ORIGINAL_COMMAND_INDEX);
         });
     }
@@ -168,7 +177,7 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
         return new MultiCommand(commands);
     }
 
-    private void rememberRemoteCommandResult(MultiResult multiResult) {
+    private void rememberRemoteCommandResult(MultiCommand remoteCommand, MultiResult multiResult, long requestTimeNanos) {
         postponedToConsumeTokens = 0;
         lastSyncTimeNanos = timeMeter.currentTimeNanos();
         CommandResult<?> snapshotResult = multiResult.getResults().get(GET_SNAPSHOT_COMMAND_INDEX);
@@ -177,6 +186,18 @@ class DelayedCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
             return;
         }
         this.state = (RemoteBucketState) snapshotResult.getData();
+        onSynchronization(lastSyncTimeNanos - requestTimeNanos, remoteCommand.getConsumedTokens(multiResult), state);
+    }
+
+    /**
+     * Is invoked after each successful synchronization with remote storage, allows subclasses to tune {@link #delayParameters}.
+     *
+     * @param roundTripNanos duration of remote call
+     * @param selfConsumedTokens amount of tokens consumed by this proxy that were synchronized by remote call
+     * @param state the fresh state of bucket
+     */
+    void onSynchronization(long roundTripNanos, long selfConsumedTokens, RemoteBucketState state) {
+        // do nothing by default
     }
 
 
@@ -0,0 +1,209 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.optimization.leasing;
+
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
+import io.github.bucket4j.distributed.proxy.CommandExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.LeaseParameters;
+import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MultiResult;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.commands.AddTokensCommand;
+import io.github.bucket4j.distributed.remote.commands.LeaseTokensCommand;
+import io.github.bucket4j.distributed.remote.commands.MultiCommand;
+import io.github.bucket4j.distributed.remote.commands.TryConsumeCommand;
+import io.github.bucket4j.distributed.versioning.Version;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+class LeasingCommandExecutor implements CommandExecutor, AsyncCommandExecutor {
+
+    private static final int ORIGINAL_COMMAND_INDEX = 1;
+
+    private final CommandExecutor originalExecutor;
+    private final AsyncCommandExecutor originalAsyncExecutor;
+    private final LeaseParameters leaseParameters;
+    private final OptimizationListener listener;
+    private final TimeMeter timeMeter;
+
+    private final AtomicReference<Lease> currentLease = new AtomicReference<>();
+    private volatile long nextLeaseSize;
+
+    LeasingCommandExecutor(CommandExecutor originalExecutor, LeaseParameters leaseParameters, OptimizationListener listener, TimeMeter timeMeter) {
+        this.originalExecutor = originalExecutor;
+        this.originalAsyncExecutor = null;
+        this.leaseParameters = leaseParameters;
+        this.listener = listener;
+        this.timeMeter = timeMeter;
+        this.nextLeaseSize = leaseParameters.minLeaseTokens;
+    }
+
+    LeasingCommandExecutor(AsyncCommandExecutor originalAsyncExecutor, LeaseParameters leaseParameters, OptimizationListener listener, TimeMeter timeMeter) {
+        this.originalExecutor = null;
+        this.originalAsyncExecutor = originalAsyncExecutor;
+        this.leaseParameters = leaseParameters;
+        this.listener = listener;
+        this.timeMeter = timeMeter;
+        this.nextLeaseSize = leaseParameters.minLeaseTokens;
+    }
+
+    @Override
+    public Version getBackwardCompatibilityVersion() {
+        return originalExecutor != null ? originalExecutor.getBackwardCompatibilityVersion() : originalAsyncExecutor.getBackwardCompatibilityVersion();
+    }
+
+    @Override
+    public <T> CommandResult<T> execute(RemoteCommand<T> command) {
+        if (!(command instanceof TryConsumeCommand)) {
+            long unusedTokens = revokeLease(timeMeter.currentTimeNanos());
+            if (unusedTokens == 0) {
+                return originalExecutor.execute(command);
+            }
+            MultiResult multiResult = originalExecutor.execute(returnTokensAndExecute(unusedTokens, command)).getData();
+            return (CommandResult<T>) multiResult.getResults().get(ORIGINAL_COMMAND_INDEX);
+        }
+
+        long tokensToConsume = ((TryConsumeCommand) command).getTokensToConsume();
+        if (tryConsumeFromLease(tokensToConsume)) {
+            // remote call is not needed
+            listener.incrementSkipCount(1);
+            return (CommandResult<T>) CommandResult.TRUE;
+        }
+
+        LeaseTokensCommand leaseCommand = prepareLeaseCommand(tokensToConsume);
+        CommandResult<Long> leaseResult = originalExecutor.execute(leaseCommand);
+        return (CommandResult<T>) rememberLease(leaseCommand, leaseResult);
+    }
+
+    @Override
+    public <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command) {
+        if (!(command instanceof TryConsumeCommand)) {
+            long unusedTokens = revokeLease(timeMeter.currentTimeNanos());
+            if (unusedTokens == 0) {
+                return originalAsyncExecutor.executeAsync(command);
+            }
+            return originalAsyncExecutor.executeAsync(returnTokensAndExecute(unusedTokens, command))
+                .thenApply(remoteResult -> (CommandResult<T>) remoteResult.getData().getResults().get(ORIGINAL_COMMAND_INDEX));
+        }
+
+        long tokensToConsume = ((TryConsumeCommand) command).getTokensToConsume();
+        if (tryConsumeFromLease(tokensToConsume)) {
+            // remote call is not needed
+            listener.incrementSkipCount(1);
+            return CompletableFuture.completedFuture((CommandResult<T>) CommandResult.TRUE);
+        }
+
+        LeaseTokensCommand leaseCommand = prepareLeaseCommand(tokensToConsume);
+        return originalAsyncExecutor.executeAsync(leaseCommand)
+            .thenApply(leaseResult -> (CommandResult<T>) rememberLease(leaseCommand, leaseResult));
+    }
+
+    private boolean tryConsumeFromLease(long tokensToConsume) {
+        Lease lease = currentLease.get();
+        if (lease == null || timeMeter.currentTimeNanos() - lease.startNanos >= leaseParameters.leaseDurationNanos) {
+            return false;
+        }
+        return lease.tryConsume(tokensToConsume);
+    }
+
+    private LeaseTokensCommand prepareLeaseCommand(long requiredTokens) {
+        long unusedTokens = revokeLease(timeMeter.currentTimeNanos());
+        return new LeaseTokensCommand(unusedTokens, requiredTokens, nextLeaseSize);
+    }
+
+    private MultiCommand returnTokensAndExecute(long unusedTokens, RemoteCommand<?> command) {
+        List<RemoteCommand<?>> commands = new ArrayList<>(2);
+        commands.add(new AddTokensCommand(unusedTokens));
+        commands.add(command);
+        return new MultiCommand(commands);
+    }
+
+    private long revokeLease(long currentTimeNanos) {
+        Lease lease = currentLease.getAndSet(null);
+        if (lease == null) {
+            return 0;
+        }
+        long unusedTokens = lease.remainingTokens.getAndSet(0);
+        adaptLeaseSize(lease, unusedTokens, currentTimeNanos);
+        return unusedTokens;
+    }
+
+    private void adaptLeaseSize(Lease lease, long unusedTokens, long currentTimeNanos) {
+        long consumedTokens = lease.grantedTokens - unusedTokens;
+        long leaseDurationNanos = leaseParameters.leaseDurationNanos;
+        long elapsedNanos = Math.max(1, Math.min(currentTimeNanos - lease.startNanos, leaseDurationNanos));
+        // amount of tokens that would be consumed during whole lease duration with observed rate
+        double projectedTokens = (double) consumedTokens * leaseDurationNanos / elapsedNanos;
+        double smoothedTokens = (nextLeaseSize + projectedTokens) / 2;
+        nextLeaseSize = (long) Math.max(leaseParameters.minLeaseTokens, Math.min(leaseParameters.maxLeaseTokens, smoothedTokens));
+    }
+
+    private CommandResult<Boolean> rememberLease(LeaseTokensCommand leaseCommand, CommandResult<Long> leaseResult) {
+        if (leaseResult.isError()) {
+            return (CommandResult) leaseResult;
+        }
+        long leasedTokens = leaseResult.getData();
+        if (leasedTokens == LeaseTokensCommand.REJECTED) {
+            return CommandResult.FALSE;
+        }
+
+        Lease lease = new Lease(timeMeter.currentTimeNanos(), leaseCommand.getRequiredTokens() + leasedTokens, leasedTokens);
+        Lease concurrentLease = currentLease.getAndSet(lease);
+        if (concurrentLease != null) {
+            // lease was concurrently renewed by another thread, so its tokens should not be lost
+            lease.remainingTokens.addAndGet(concurrentLease.remainingTokens.getAndSet(0));
+        }
+        return CommandResult.TRUE;
+    }
+
+    private static final class Lease {
+
+        private final long startNanos;
+        private final long grantedTokens;
+        private final AtomicLong remainingTokens;
+
+        private Lease(long startNanos, long grantedTokens, long remainingTokens) {
+            this.startNanos = startNanos;
+            this.grantedTokens = grantedTokens;
+            this.remainingTokens = new AtomicLong(remainingTokens);
+        }
+
+        private boolean tryConsume(long tokensToConsume) {
+            while (true) {
+                long remaining = remainingTokens.get();
+                if (remaining < tokensToConsume) {
+                    return false;
+                }
+                if (remainingTokens.compareAndSet(remaining, remaining - tokensToConsume)) {
+                    return true;
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.proxy.optimization.leasing;
+
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
+import io.github.bucket4j.distributed.proxy.CommandExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.LeaseParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.OptimizationListener;
+import io.github.bucket4j.distributed.remote.commands.LeaseTokensCommand;
+import io.github.bucket4j.distributed.versioning.Version;
+
+import java.util.Objects;
+
+/**
+ * Optimization that takes a lease of tokens from remote bucket and spends them locally.
+ *
+ * <p>Each remote call atomically returns unused tokens of previous lease, consumes tokens requested by {@code tryConsume}
+ * and leases additional tokens which are used to serve subsequent {@code tryConsume} requests by lock-free local counter,
+ * so amount of remote calls is proportional to the amount of lease renewals instead of amount of requests.
+ * Lease size adapts to consumption rate observed by this client: it is chosen so that lease is spent in {@link LeaseParameters#leaseDurationNanos},
+ * bounded by {@link LeaseParameters#minLeaseTokens} and {@link LeaseParameters#maxLeaseTokens}.
+ *
+ * <p>Only {@code tryConsume} requests are served locally, any other request returns unused leased tokens to the remote bucket
+ * and is executed remotely. Unused tokens of expired lease are not returned at the moment of expiration,
+ * they are returned together with the next remote call of the same bucket proxy, so the remote bucket can temporarily miss
+ * up to {@link LeaseParameters#maxLeaseTokens} tokens per client. If the bucket proxy is not used anymore, for example because of client shutdown,
+ * unused tokens of its last lease are lost, that is the same as they would be consumed.
+ *
+ * <p>Leasing requires all nodes to understand {@link LeaseTokensCommand} that was introduced in {@link io.github.bucket4j.distributed.versioning.Versions#v_8_2_0},
+ * when the client is configured to be backward compatible with older version, the optimization is not applied and requests are executed as is.
+ *
+ * @see LeaseParameters
+ */
+public class LeasingOptimization implements Optimization {
+
+    private static final Version LEASE_COMMAND_REQUIRED_VERSION = new LeaseTokensCommand(0, 1, 1).getRequiredVersion();
+
+    private final LeaseParameters leaseParameters;
+    private final OptimizationListener listener;
+    private final TimeMeter timeMeter;
+
+    public LeasingOptimization(LeaseParameters leaseParameters, OptimizationListener listener, TimeMeter timeMeter) {
+        this.leaseParameters = Objects.requireNonNull(leaseParameters);
+        this.listener = Objects.requireNonNull(listener);
+        this.timeMeter = Objects.requireNonNull(timeMeter);
+    }
+
+    @Override
+    public Optimization withListener(OptimizationListener listener) {
+        return new LeasingOptimization(leaseParameters, listener, timeMeter);
+    }
+
+    @Override
+    public CommandExecutor apply(CommandExecutor originalExecutor) {
+        if (!isSupportedBy(originalExecutor.getBackwardCompatibilityVersion())) {
+            return originalExecutor;
+        }
+        return new LeasingCommandExecutor(originalExecutor, leaseParameters, listener, timeMeter);
+    }
+
+    @Override
+    public AsyncCommandExecutor apply(AsyncCommandExecutor originalExecutor) {
+        if (!isSupportedBy(originalExecutor.getBackwardCompatibilityVersion())) {
+            return originalExecutor;
+        }
+        return new LeasingCommandExecutor(originalExecutor, leaseParameters, listener, timeMeter);
+    }
+
+    private static boolean isSupportedBy(Version backwardCompatibilityVersion) {
+        return backwardCompatibilityVersion.getNumber() >= LEASE_COMMAND_REQUIRED_VERSION.getNumber();
+    }
+
+}
@@ -25,6 +25,7 @@ import io.github.bucket4j.distributed.proxy.CommandExecutor;
 import io.github.bucket4j.distributed.proxy.optimization.*;
 import io.github.bucket4j.distributed.remote.*;
 import io.github.bucket4j.distributed.remote.commands.*;
+import io.github.bucket4j.distributed.versioning.Version;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -67,6 +68,11 @@ class PredictiveCommandExecutor implements CommandExecutor, AsyncCommandExecutor
         this.timeMeter = timeMeter;
     }
 
+    @Override
+    public Version getBackwardCompatibilityVersion() {
+        return originalExecutor != null ? originalExecutor.getBackwardCompatibilityVersion() : originalAsyncExecutor.getBackwardCompatibilityVersion();
+    }
+
     @Override
     public <T> CommandResult<T> execute(RemoteCommand<T> command) {
         CommandResult<T> result = tryConsumeLocally(command);
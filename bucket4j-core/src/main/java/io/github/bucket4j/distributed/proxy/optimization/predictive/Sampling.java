@@ -21,36 +21,52 @@ package io.github.bucket4j.distributed.proxy.optimization.predictive;
 
 import io.github.bucket4j.distributed.proxy.optimization.PredictionParameters;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-
+/**
+ * Keeps samples of remote synchronizations in order to predict the rate of consumption by other participants of the cluster.
+ *
+ * <p>Samples are stored in ring buffer that is spread across parallel primitive arrays and is allocated once,
+ * so neither request served locally nor remote synchronization produces garbage.
+ * The oldest sample is located at {@code first} index, the freshest sample is located at {@code first + size - 1} modulo capacity.
+ */
 public class Sampling {
 
     private final PredictionParameters predictionParameters;
 
-    private LinkedList<Sample> samples = new LinkedList<>();
+    private final long[] syncTimeNanos;
+    private final long[] observedConsumptionCounter;
+    private final long[] selfConsumedTokens;
+    private int first;
+    private int size;
+
     private double othersRate;
 
+    private boolean smoothedRateInitialized;
+    private double smoothedRate;
+    private long smoothedRateTimeNanos;
+
     public Sampling(PredictionParameters predictionParameters) {
         this.predictionParameters = predictionParameters;
+        // one additional slot for fresh sample which is added before the oldest one is evicted
+        int capacity = predictionParameters.maxSamples + 1;
+        this.syncTimeNanos = new long[capacity];
+        this.observedConsumptionCounter = new long[capacity];
+        this.selfConsumedTokens = new long[capacity];
     }
 
     public boolean isNeedToExecuteRemoteImmediately(long currentTimeNanos) {
-        while (!samples.isEmpty()) {
-            Sample sample = samples.getFirst();
-            long sampleAge = currentTimeNanos - sample.syncTimeNanos;
+        while (size > 0) {
+            long sampleAge = currentTimeNanos - syncTimeNanos[first];
             if (sampleAge > predictionParameters.sampleMaxAgeNanos) {
-                samples.removeFirst();
+                removeFirst();
             } else {
                 break;
             }
         }
-        return othersRate == Double.POSITIVE_INFINITY || samples.size() < predictionParameters.minSamples;
+        return othersRate == Double.POSITIVE_INFINITY || size < predictionParameters.minSamples;
     }
 
     public long predictedConsumptionByOthersSinceLastSync(long currentTimeNanos) {
-        Sample freshSample = samples.getLast();
-        long timeSinceLastSync = currentTimeNanos - freshSample.syncTimeNanos;
+        long timeSinceLastSync = currentTimeNanos - syncTimeNanos[index(size - 1)];
         if (timeSinceLastSync <= 0 || othersRate == 0.0) {
             return 0L;
         }
@@ -64,47 +80,57 @@ public class Sampling {
 
     public void rememberRemoteCommandResult(long selfConsumedTokens, long consumedTokensCounter, long now) {
         othersRate = 0.0;
-        Sample freshSample = new Sample(now, consumedTokensCounter, selfConsumedTokens);
-
-        Iterator<Sample> samplesIterator = samples.iterator();
-        while (samplesIterator.hasNext()) {
-            Sample sample = samplesIterator.next();
-            if (freshSample.observedConsumptionCounter < sample.observedConsumptionCounter) {
-                samplesIterator.remove();
-            } else if (now - sample.syncTimeNanos > predictionParameters.sampleMaxAgeNanos) {
-                samplesIterator.remove();
-            } else if (freshSample.syncTimeNanos < sample.syncTimeNanos) {
-                samplesIterator.remove();
-            } else if (freshSample.syncTimeNanos == sample.syncTimeNanos) {
-                if (sample != samples.getFirst()) {
-                    freshSample.selfConsumedTokens += sample.selfConsumedTokens;
-                    samplesIterator.remove();
-                }
+        long freshSelfConsumedTokens = selfConsumedTokens;
+
+        // compact the buffer in place by removing samples that contradict to the fresh one
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int sampleIndex = index(i);
+            long sampleSyncTimeNanos = this.syncTimeNanos[sampleIndex];
+            if (consumedTokensCounter < this.observedConsumptionCounter[sampleIndex]) {
+                continue;
+            } else if (now - sampleSyncTimeNanos > predictionParameters.sampleMaxAgeNanos) {
+                continue;
+            } else if (now < sampleSyncTimeNanos) {
+                continue;
+            } else if (now == sampleSyncTimeNanos && kept > 0) {
+                freshSelfConsumedTokens += this.selfConsumedTokens[sampleIndex];
+                continue;
             }
+            if (kept != i) {
+                int targetIndex = index(kept);
+                this.syncTimeNanos[targetIndex] = sampleSyncTimeNanos;
+                this.observedConsumptionCounter[targetIndex] = this.observedConsumptionCounter[sampleIndex];
+                this.selfConsumedTokens[targetIndex] = this.selfConsumedTokens[sampleIndex];
+            }
+            kept++;
         }
-
-        samples.addLast(freshSample);
-        if (samples.size() > predictionParameters.maxSamples) {
-            samples.removeFirst();
-        } else if (samples.size() < predictionParameters.minSamples) {
+        size = kept;
+
+        int freshIndex = index(size);
+        this.syncTimeNanos[freshIndex] = now;
+        this.observedConsumptionCounter[freshIndex] = consumedTokensCounter;
+        this.selfConsumedTokens[freshIndex] = freshSelfConsumedTokens;
+        size++;
+        if (size > predictionParameters.maxSamples) {
+            removeFirst();
+        } else if (size < predictionParameters.minSamples) {
             return;
         }
 
         // let's predict consumption rate in the cluster
-        Sample oldestSample = samples.getFirst();
         long tokensSelfConsumedDuringSamplePeriod = 0;
-        for (Sample sample : samples) {
-            if (sample != oldestSample) {
-                tokensSelfConsumedDuringSamplePeriod += sample.selfConsumedTokens;
-            }
+        for (int i = 1; i < size; i++) {
+            tokensSelfConsumedDuringSamplePeriod += this.selfConsumedTokens[index(i)];
         }
 
-        long tokensConsumedByOthersDuringSamplingPeriod = freshSample.observedConsumptionCounter - oldestSample.observedConsumptionCounter - tokensSelfConsumedDuringSamplePeriod;
+        long tokensConsumedByOthersDuringSamplingPeriod = consumedTokensCounter - this.observedConsumptionCounter[first] - tokensSelfConsumedDuringSamplePeriod;
         if (tokensConsumedByOthersDuringSamplingPeriod <= 0) {
+            othersRate = smooth(0.0, now);
             return;
         }
 
-        long timeBetweenSynchronizations = freshSample.syncTimeNanos - oldestSample.syncTimeNanos;
+        long timeBetweenSynchronizations = now - this.syncTimeNanos[first];
         if (timeBetweenSynchronizations == 0) {
             // should never be there in real cases.
             // cannot divide by zero
@@ -112,27 +138,48 @@ public class Sampling {
             return;
         }
 
-        this.othersRate = (double) tokensConsumedByOthersDuringSamplingPeriod / (double) timeBetweenSynchronizations;
+        double observedRate = (double) tokensConsumedByOthersDuringSamplingPeriod / (double) timeBetweenSynchronizations;
+        this.othersRate = smooth(observedRate, now);
     }
 
     public long getLastSyncTimeNanos() {
-        return samples.getLast().syncTimeNanos;
+        return syncTimeNanos[index(size - 1)];
     }
 
     public void clear() {
-        samples.clear();
+        first = 0;
+        size = 0;
+        smoothedRateInitialized = false;
     }
 
-    private static class Sample {
-        private long syncTimeNanos;
-        private long observedConsumptionCounter;
-        private long selfConsumedTokens;
+    double getOthersRate() {
+        return othersRate;
+    }
 
-        public Sample(long syncTimeNanos, long observedConsumptionCounter, long selfConsumedTokens) {
-            this.syncTimeNanos = syncTimeNanos;
-            this.observedConsumptionCounter = observedConsumptionCounter;
-            this.selfConsumedTokens = selfConsumedTokens;
+    private double smooth(double observedRate, long now) {
+        long halfLifeNanos = predictionParameters.rateSmoothingHalfLifeNanos;
+        if (halfLifeNanos == 0) {
+            return observedRate;
+        }
+        if (!smoothedRateInitialized) {
+            smoothedRateInitialized = true;
+            smoothedRate = observedRate;
+        } else if (now > smoothedRateTimeNanos) {
+            double weightOfPrevious = Math.pow(0.5, (double) (now - smoothedRateTimeNanos) / halfLifeNanos);
+            smoothedRate = observedRate + (smoothedRate - observedRate) * weightOfPrevious;
         }
+        smoothedRateTimeNanos = now;
+        return smoothedRate;
+    }
+
+    private void removeFirst() {
+        first = index(1);
+        size--;
+    }
+
+    private int index(int position) {
+        int index = first + position;
+        return index < syncTimeNanos.length ? index : index - syncTimeNanos.length;
     }
 
 }
@@ -28,6 +28,7 @@ public abstract class AbstractBinaryTransaction implements MutableBucketEntry {
 
     private final byte[] requestBytes;
     private Version backwardCompatibilityVersion;
+    private boolean configurationByReference;
 
     protected AbstractBinaryTransaction(byte[] requestBytes) {
         this.requestBytes = requestBytes;
@@ -46,11 +47,13 @@ public abstract class AbstractBinaryTransaction implements MutableBucketEntry {
         }
 
         backwardCompatibilityVersion = request.getBackwardCompatibilityVersion();
+        configurationByReference = request.isConfigurationByReference();
 
         try {
             long time = request.getClientSideTime() != null? request.getClientSideTime(): System.currentTimeMillis() * 1_000_000;
             RemoteCommand<?> command = request.getCommand();
-            CommandResult<?> result = command.execute(this, time);
+            MutableBucketEntry entry = configurationByReference ? new ConfigurationResolvingEntry() : this;
+            CommandResult<?> result = command.execute(entry, time);
             return serializeResult(result, request.getBackwardCompatibilityVersion());
         } catch (UnsupportedTypeException e) {
             return serializeResult(CommandResult.unsupportedType(e.getTypeId()), backwardCompatibilityVersion);
@@ -63,7 +66,7 @@ public abstract class AbstractBinaryTransaction implements MutableBucketEntry {
 
     @Override
     public void set(RemoteBucketState state) {
-        byte[] stateBytes = serializeState(state, backwardCompatibilityVersion);
+        byte[] stateBytes = serializeState(state, backwardCompatibilityVersion, configurationByReference);
         setRawState(stateBytes);
     }
 
@@ -73,10 +76,55 @@ public abstract class AbstractBinaryTransaction implements MutableBucketEntry {
         return deserializeState(stateBytes);
     }
 
+    /**
+     * Returns the backward compatibility version of request that is being executed,
+     * implementations can use it to decide which format is understood by all nodes in the cluster.
+     *
+     * @return the backward compatibility version of request
+     */
+    protected Version getBackwardCompatibilityVersion() {
+        return backwardCompatibilityVersion;
+    }
+
     protected abstract byte[] getRawState();
 
     protected abstract void setRawState(byte[] stateBytes);
 
+    // reports state which references unknown configuration as absent, so client repeats the command together with configuration
+    private final class ConfigurationResolvingEntry implements MutableBucketEntry {
+
+        private RemoteBucketState resolvedState;
+
+        @Override
+        public boolean exists() {
+            if (!AbstractBinaryTransaction.this.exists()) {
+                return false;
+            }
+            try {
+                resolvedState = AbstractBinaryTransaction.this.get();
+                return true;
+            } catch (ConfigurationNotFoundException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void set(RemoteBucketState state) {
+            AbstractBinaryTransaction.this.set(state);
+        }
+
+        @Override
+        public RemoteBucketState get() {
+            RemoteBucketState state = resolvedState;
+            if (state == null) {
+                return AbstractBinaryTransaction.this.get();
+            }
+            resolvedState = null;
+            return state;
+        }
+
+    }
+
 
 
 }
@@ -0,0 +1,127 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.remote;
+
+import io.github.bucket4j.distributed.remote.commands.AggregatedTryConsumeCommand;
+import io.github.bucket4j.distributed.serialization.DeserializationAdapter;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.serialization.SerializationAdapter;
+import io.github.bucket4j.distributed.serialization.SerializationHandle;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.github.bucket4j.distributed.versioning.Versions.v_8_2_0;
+
+/**
+ * The result of {@link AggregatedTryConsumeCommand}, outcomes of individual consumptions are packed into bitset.
+ */
+public class AggregatedTryConsumeResult implements ComparableByContent<AggregatedTryConsumeResult> {
+
+    private final int count;
+    private final long[] consumedBits;
+
+    public static final SerializationHandle<AggregatedTryConsumeResult> SERIALIZATION_HANDLE = new SerializationHandle<AggregatedTryConsumeResult>() {
+        @Override
+        public <S> AggregatedTryConsumeResult deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
+            int formatNumber = adapter.readInt(input);
+            Versions.check(formatNumber, v_8_2_0, v_8_2_0);
+
+            int count = adapter.readInt(input);
+            long[] consumedBits = adapter.readLongArray(input);
+            return new AggregatedTryConsumeResult(count, consumedBits);
+        }
+
+        @Override
+        public <O> void serialize(SerializationAdapter<O> adapter, O output, AggregatedTryConsumeResult result, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            adapter.writeInt(output, v_8_2_0.getNumber());
+
+            adapter.writeInt(output, result.count);
+            adapter.writeLongArray(output, result.consumedBits);
+        }
+
+        @Override
+        public int getTypeId() {
+            return 20;
+        }
+
+        @Override
+        public Class<AggregatedTryConsumeResult> getSerializedType() {
+            return AggregatedTryConsumeResult.class;
+        }
+
+        @Override
+        public AggregatedTryConsumeResult fromJsonCompatibleSnapshot(Map<String, Object> snapshot) throws IOException {
+            int formatNumber = readIntValue(snapshot, "version");
+            Versions.check(formatNumber, v_8_2_0, v_8_2_0);
+
+            int count = readIntValue(snapshot, "count");
+            long[] consumedBits = readLongArray(snapshot, "consumedBits");
+            return new AggregatedTryConsumeResult(count, consumedBits);
+        }
+
+        @Override
+        public Map<String, Object> toJsonCompatibleSnapshot(AggregatedTryConsumeResult result, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            Map<String, Object> snapshot = new HashMap<>();
+            snapshot.put("version", v_8_2_0.getNumber());
+            snapshot.put("count", result.count);
+            snapshot.put("consumedBits", result.consumedBits);
+            return snapshot;
+        }
+
+        @Override
+        public String getTypeName() {
+            return "AggregatedTryConsumeResult";
+        }
+
+    };
+
+    public AggregatedTryConsumeResult(int count) {
+        this(count, new long[(count + 63) >>> 6]);
+    }
+
+    public AggregatedTryConsumeResult(int count, long[] consumedBits) {
+        this.count = count;
+        this.consumedBits = consumedBits;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isConsumed(int index) {
+        return (consumedBits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void markConsumed(int index) {
+        consumedBits[index >>> 6] |= 1L << index;
+    }
+
+    @Override
+    public boolean equalsByContent(AggregatedTryConsumeResult other) {
+        return count == other.count && Arrays.equals(consumedBits, other.consumedBits);
+    }
+
+}
@@ -0,0 +1,204 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.remote;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.serialization.ByteBufferSerializationAdapter;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.serialization.SizeCalculatingSerializationAdapter;
+import io.github.bucket4j.distributed.versioning.Versions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of configurations that are referenced by fingerprint from the persisted state,
+ * see {@link io.github.bucket4j.distributed.proxy.ClientSideConfig#withConfigurationByReference()}.
+ *
+ * <p>Configuration is registered each time when it is carried by command that creates or replaces the state.
+ * When state references configuration that is unknown to the node, the bucket is reported as not found,
+ * so client repeats the command together with its configuration, that makes the configuration known to the node.
+ *
+ * <p>Registry is bounded by {@link #MAX_SIZE} configurations, when the bound is reached arbitrary configurations are evicted one by one
+ * to make room for the new one, that is safe because configurations are registered again by the mechanism above.
+ *
+ * <p>Two different configurations can have the same fingerprint with negligible but non-zero probability,
+ * in such case the configuration that was registered later can not be referenced by fingerprint, see {@link #tryRegister(BucketConfiguration)}.
+ */
+public final class BucketConfigurationRegistry {
+
+    public static final int MAX_SIZE = 10_000;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final ConcurrentHashMap<Long, BucketConfiguration> configurations = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<BucketConfiguration, Long> fingerprints = new ConcurrentHashMap<>();
+
+    private BucketConfigurationRegistry() {
+        // private constructor for utility class
+    }
+
+    /**
+     * Registers configuration and returns its fingerprint.
+     *
+     * @param configuration configuration to register
+     *
+     * @return fingerprint that identifies content of configuration
+     *
+     * @throws IllegalStateException if another configuration with the same fingerprint is registered
+     */
+    public static long register(BucketConfiguration configuration) {
+        Long fingerprint = tryRegister(configuration);
+        if (fingerprint == null) {
+            throw BucketExceptions.configurationFingerprintCollision(calculateFingerprint(configuration));
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Registers configuration and returns its fingerprint, unless another configuration with the same fingerprint is registered.
+     *
+     * @param configuration configuration to register
+     *
+     * @return fingerprint that identifies content of configuration, or {@code null} if configuration can not be referenced by fingerprint
+     */
+    public static Long tryRegister(BucketConfiguration configuration) {
+        Long fingerprint = fingerprints.get(configuration);
+        if (fingerprint != null) {
+            return fingerprint;
+        }
+        fingerprint = calculateFingerprint(configuration);
+        evictIfNecessary();
+        BucketConfiguration registeredConfiguration = configurations.putIfAbsent(fingerprint, configuration);
+        if (registeredConfiguration != null && !registeredConfiguration.equals(configuration)) {
+            return null;
+        }
+        fingerprints.putIfAbsent(configuration, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * Returns registered configuration with specified fingerprint.
+     *
+     * @param fingerprint fingerprint of configuration
+     *
+     * @return registered configuration or {@code null} if configuration is unknown to this node
+     */
+    public static BucketConfiguration find(long fingerprint) {
+        return configurations.get(fingerprint);
+    }
+
+    /**
+     * Registers configuration represented in binary form that is returned by {@link #serializeConfiguration(BucketConfiguration)},
+     * configuration is deserialized only when it is unknown to this node.
+     *
+     * @param serializedConfiguration binary form of configuration
+     *
+     * @return fingerprint that identifies content of configuration
+     */
+    public static long registerSerialized(byte[] serializedConfiguration) {
+        long fingerprint = calculateFingerprint(serializedConfiguration);
+        if (configurations.containsKey(fingerprint)) {
+            return fingerprint;
+        }
+        BucketConfiguration configuration;
+        try {
+            configuration = BucketConfiguration.SERIALIZATION_HANDLE.deserialize(ByteBufferSerializationAdapter.INSTANCE, ByteBuffer.wrap(serializedConfiguration));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return register(configuration);
+    }
+
+    /**
+     * Calculates 64-bit FNV-1a hash of binary form of configuration. The binary form does not depend on the JVM,
+     * so all nodes calculate the same fingerprint for configurations with the same content.
+     *
+     * @param configuration the configuration
+     *
+     * @return fingerprint that identifies content of configuration
+     */
+    public static long calculateFingerprint(BucketConfiguration configuration) {
+        return calculateFingerprint(serializeConfiguration(configuration));
+    }
+
+    /**
+     * Returns binary form of configuration which is used for calculation of fingerprint.
+     *
+     * @param configuration the configuration
+     *
+     * @return binary form of configuration
+     */
+    public static byte[] serializeConfiguration(BucketConfiguration configuration) {
+        try {
+            SizeCalculatingSerializationAdapter.Counter counter = new SizeCalculatingSerializationAdapter.Counter();
+            BucketConfiguration.SERIALIZATION_HANDLE.serialize(SizeCalculatingSerializationAdapter.INSTANCE, counter, configuration, Versions.v_7_0_0, Scope.PERSISTED_STATE);
+            ByteBuffer buffer = ByteBuffer.allocate(counter.getSize());
+            BucketConfiguration.SERIALIZATION_HANDLE.serialize(ByteBufferSerializationAdapter.INSTANCE, buffer, configuration, Versions.v_7_0_0, Scope.PERSISTED_STATE);
+            return buffer.array();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void evictIfNecessary() {
+        if (configurations.size() < MAX_SIZE) {
+            return;
+        }
+        Iterator<Map.Entry<Long, BucketConfiguration>> iterator = configurations.entrySet().iterator();
+        while (configurations.size() >= MAX_SIZE && iterator.hasNext()) {
+            Map.Entry<Long, BucketConfiguration> entry = iterator.next();
+            iterator.remove();
+            fingerprints.remove(entry.getValue(), entry.getKey());
+        }
+    }
+
+    private static long calculateFingerprint(byte[] serializedConfiguration) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < serializedConfiguration.length; i++) {
+            hash ^= serializedConfiguration[i] & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns count of registered configurations.
+     *
+     * @return count of registered configurations
+     */
+    public static int size() {
+        return configurations.size();
+    }
+
+    /**
+     * Forgets all registered configurations, intended for testing purposes.
+     */
+    public static void clear() {
+        configurations.clear();
+        fingerprints.clear();
+    }
+
+}
@@ -0,0 +1,39 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.remote;
+
+/**
+ * Exception which thrown when persisted state references the configuration by fingerprint,
+ * but configuration with such fingerprint is not registered in {@link BucketConfigurationRegistry} of current node.
+ */
+public class ConfigurationNotFoundException extends IllegalStateException {
+
+    private final long fingerprint;
+
+    public ConfigurationNotFoundException(long fingerprint) {
+        super("Configuration with fingerprint " + Long.toHexString(fingerprint) + " is not registered");
+        this.fingerprint = fingerprint;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+}
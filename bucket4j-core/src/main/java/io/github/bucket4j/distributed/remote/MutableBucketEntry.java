@@ -20,10 +20,26 @@
 
 package io.github.bucket4j.distributed.remote;
 
+/**
+ * The entry in the storage that holds the state of bucket during execution of {@link RemoteCommand}.
+ *
+ * <p>
+ * Command must call {@link #set(RemoteBucketState)} only when it has changed something that can be observed by clients,
+ * like consumed or added tokens, new configuration or freshly created state.
+ * Changes made by refill must not be reported via {@link #set(RemoteBucketState)},
+ * because refill can be recomputed at any moment from the timestamp stored inside the state.
+ * Storages skip the write when {@link #set(RemoteBucketState)} was not called,
+ * so read-only and rejected commands are executed as pure reads.
+ */
 public interface MutableBucketEntry {
 
     boolean exists();
 
+    /**
+     * Marks the state as modified, the state will be persisted when execution of command is finished.
+     *
+     * @param state the modified state
+     */
     void set(RemoteBucketState state);
 
     RemoteBucketState get();
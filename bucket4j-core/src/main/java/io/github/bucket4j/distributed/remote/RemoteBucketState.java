@@ -37,6 +37,7 @@ import java.util.Map;
 
 import static io.github.bucket4j.distributed.versioning.Versions.v_7_0_0;
 import static io.github.bucket4j.distributed.versioning.Versions.v_8_1_0;
+import static io.github.bucket4j.distributed.versioning.Versions.v_8_2_0;
 
 
 public class RemoteBucketState implements ComparableByContent<RemoteBucketState> {
@@ -49,9 +50,16 @@ public class RemoteBucketState implements ComparableByContent<RemoteBucketState>
         @Override
         public <S> RemoteBucketState deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
             int formatNumber = adapter.readInt(input);
-            Versions.check(formatNumber, v_7_0_0, v_8_1_0);
+            Versions.check(formatNumber, v_7_0_0, v_8_2_0);
 
-            BucketConfiguration bucketConfiguration = BucketConfiguration.SERIALIZATION_HANDLE.deserialize(adapter, input);
+            BucketConfiguration bucketConfiguration;
+            long configurationFingerprint = 0;
+            if (formatNumber >= v_8_2_0.getNumber()) {
+                configurationFingerprint = adapter.readLong(input);
+                bucketConfiguration = BucketConfigurationRegistry.find(configurationFingerprint);
+            } else {
+                bucketConfiguration = BucketConfiguration.SERIALIZATION_HANDLE.deserialize(adapter, input);
+            }
             BucketState bucketState = BucketState.deserialize(adapter, input);
             bucketState.setConfiguration(bucketConfiguration);
             RemoteStat stat = RemoteStat.SERIALIZATION_HANDLE.deserialize(adapter, input);
@@ -63,35 +71,15 @@ public class RemoteBucketState implements ComparableByContent<RemoteBucketState>
                     configurationVersion = adapter.readLong(input);
                 }
             }
+            if (bucketConfiguration == null) {
+                throw new ConfigurationNotFoundException(configurationFingerprint);
+            }
             return new RemoteBucketState(bucketState, stat, configurationVersion);
         }
 
         @Override
         public <O> void serialize(SerializationAdapter<O> adapter, O output, RemoteBucketState remoteState, Version backwardCompatibilityVersion, Scope scope) throws IOException {
-            Version serializationVersion;
-            if (remoteState.configurationVersion == null) {
-                serializationVersion = v_7_0_0;
-            } else if (backwardCompatibilityVersion.getNumber() >= v_8_1_0.getNumber()) {
-                serializationVersion = v_8_1_0;
-            } else if (scope == Scope.RESPONSE) {
-                serializationVersion = v_7_0_0;
-            } else {
-                throw new IllegalStateException("configurationVersion is not supported in format number " + backwardCompatibilityVersion.getNumber());
-            }
-            adapter.writeInt(output, serializationVersion.getNumber());
-
-            BucketConfiguration.SERIALIZATION_HANDLE.serialize(adapter, output, remoteState.getConfiguration(), backwardCompatibilityVersion, scope);
-            BucketState.serialize(adapter, output, remoteState.state, backwardCompatibilityVersion, scope);
-            RemoteStat.SERIALIZATION_HANDLE.serialize(adapter, output, remoteState.stat, backwardCompatibilityVersion, scope);
-
-            if (serializationVersion == v_8_1_0) {
-                if (remoteState.configurationVersion != null) {
-                    adapter.writeBoolean(output, true);
-                    adapter.writeLong(output, remoteState.configurationVersion);
-                } else {
-                    adapter.writeBoolean(output, false);
-                }
-            }
+            RemoteBucketState.serialize(adapter, output, remoteState, backwardCompatibilityVersion, scope, false);
         }
 
         @Override
@@ -149,6 +137,86 @@ public class RemoteBucketState implements ComparableByContent<RemoteBucketState>
 
     };
 
+    /**
+     * Handle that writes the fingerprint of configuration registered in {@link BucketConfigurationRegistry} instead of the configuration itself,
+     * if {@code backwardCompatibilityVersion} allows format {@link Versions#v_8_2_0}. The state written by this handle is readable by {@link #SERIALIZATION_HANDLE}.
+     */
+    public static final SerializationHandle<RemoteBucketState> CONFIGURATION_BY_REFERENCE_SERIALIZATION_HANDLE = new SerializationHandle<RemoteBucketState>() {
+        @Override
+        public <S> RemoteBucketState deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
+            return SERIALIZATION_HANDLE.deserialize(adapter, input);
+        }
+
+        @Override
+        public <O> void serialize(SerializationAdapter<O> adapter, O output, RemoteBucketState remoteState, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            RemoteBucketState.serialize(adapter, output, remoteState, backwardCompatibilityVersion, scope, true);
+        }
+
+        @Override
+        public int getTypeId() {
+            return SERIALIZATION_HANDLE.getTypeId();
+        }
+
+        @Override
+        public Class<RemoteBucketState> getSerializedType() {
+            return RemoteBucketState.class;
+        }
+
+        @Override
+        public RemoteBucketState fromJsonCompatibleSnapshot(Map<String, Object> snapshot) throws IOException {
+            return SERIALIZATION_HANDLE.fromJsonCompatibleSnapshot(snapshot);
+        }
+
+        @Override
+        public Map<String, Object> toJsonCompatibleSnapshot(RemoteBucketState remoteState, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            return SERIALIZATION_HANDLE.toJsonCompatibleSnapshot(remoteState, backwardCompatibilityVersion, scope);
+        }
+
+        @Override
+        public String getTypeName() {
+            return SERIALIZATION_HANDLE.getTypeName();
+        }
+
+    };
+
+    private static <O> void serialize(SerializationAdapter<O> adapter, O output, RemoteBucketState remoteState, Version backwardCompatibilityVersion, Scope scope, boolean configurationByReference) throws IOException {
+        Long configurationFingerprint = null;
+        if (configurationByReference && backwardCompatibilityVersion.getNumber() >= v_8_2_0.getNumber()) {
+            // configuration is persisted inline when its fingerprint collides with another configuration
+            configurationFingerprint = BucketConfigurationRegistry.tryRegister(remoteState.getConfiguration());
+        }
+        Version serializationVersion;
+        if (configurationFingerprint != null) {
+            serializationVersion = v_8_2_0;
+        } else if (remoteState.configurationVersion == null) {
+            serializationVersion = v_7_0_0;
+        } else if (backwardCompatibilityVersion.getNumber() >= v_8_1_0.getNumber()) {
+            serializationVersion = v_8_1_0;
+        } else if (scope == Scope.RESPONSE) {
+            serializationVersion = v_7_0_0;
+        } else {
+            throw new IllegalStateException("configurationVersion is not supported in format number " + backwardCompatibilityVersion.getNumber());
+        }
+        adapter.writeInt(output, serializationVersion.getNumber());
+
+        if (serializationVersion == v_8_2_0) {
+            adapter.writeLong(output, configurationFingerprint);
+        } else {
+            BucketConfiguration.SERIALIZATION_HANDLE.serialize(adapter, output, remoteState.getConfiguration(), backwardCompatibilityVersion, scope);
+        }
+        BucketState.serialize(adapter, output, remoteState.state, backwardCompatibilityVersion, scope);
+        RemoteStat.SERIALIZATION_HANDLE.serialize(adapter, output, remoteState.stat, backwardCompatibilityVersion, scope);
+
+        if (serializationVersion != v_7_0_0) {
+            if (remoteState.configurationVersion != null) {
+                adapter.writeBoolean(output, true);
+                adapter.writeLong(output, remoteState.configurationVersion);
+            } else {
+                adapter.writeBoolean(output, false);
+            }
+        }
+    }
+
     public RemoteBucketState(BucketState state, RemoteStat stat, Long configurationVersion) {
         this.state = state;
         this.stat = stat;
@@ -34,17 +34,24 @@ import java.util.Objects;
 
 import static io.github.bucket4j.distributed.versioning.Versions.v_7_0_0;
 import static io.github.bucket4j.distributed.versioning.Versions.v_8_1_0;
+import static io.github.bucket4j.distributed.versioning.Versions.v_8_2_0;
 
 public class Request<T> implements ComparableByContent<Request<T>> {
 
     private final Version backwardCompatibilityVersion;
     private final RemoteCommand<T> command;
     private final Long clientSideTime;
+    private final boolean configurationByReference;
 
     public Request(RemoteCommand<T> command, Version backwardCompatibilityVersion, Long clientSideTime) {
+        this(command, backwardCompatibilityVersion, clientSideTime, false);
+    }
+
+    public Request(RemoteCommand<T> command, Version backwardCompatibilityVersion, Long clientSideTime, boolean configurationByReference) {
         this.command = command;
         this.clientSideTime = clientSideTime;
         this.backwardCompatibilityVersion = backwardCompatibilityVersion;
+        this.configurationByReference = configurationByReference;
     }
 
     public RemoteCommand<T> getCommand() {
@@ -59,11 +66,15 @@ public class Request<T> implements ComparableByContent<Request<T>> {
         return clientSideTime;
     }
 
+    public boolean isConfigurationByReference() {
+        return configurationByReference;
+    }
+
     public static SerializationHandle<Request<?>> SERIALIZATION_HANDLE = new SerializationHandle<Request<?>>() {
         @Override
         public <S> Request<?> deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
             int formatNumber = adapter.readInt(input);
-            Versions.check(formatNumber, v_7_0_0, v_7_0_0);
+            Versions.check(formatNumber, v_7_0_0, v_8_2_0);
 
             int backwardCompatibilityNumber = adapter.readInt(input);
             Version requestBackwardCompatibilityVersion = Versions.byNumber(backwardCompatibilityNumber);
@@ -76,15 +87,21 @@ public class Request<T> implements ComparableByContent<Request<T>> {
                 clientTime = adapter.readLong(input);
             }
 
-            return new Request<>(command, requestBackwardCompatibilityVersion, clientTime);
+            boolean configurationByReference = false;
+            if (formatNumber >= v_8_2_0.getNumber()) {
+                configurationByReference = adapter.readBoolean(input);
+            }
+
+            return new Request<>(command, requestBackwardCompatibilityVersion, clientTime, configurationByReference);
         }
 
         @Override
         public <O> void serialize(SerializationAdapter<O> adapter, O output, Request<?> request, Version backwardCompatibilityVersion, Scope scope) throws IOException {
-            Version effectiveVersion = request.command.getRequiredVersion();
+            Version effectiveVersion = request.getEffectiveVersion();
             Versions.check(effectiveVersion.getNumber(), v_7_0_0, request.backwardCompatibilityVersion);
 
-            adapter.writeInt(output, v_7_0_0.getNumber());
+            Version formatVersion = request.configurationByReference ? v_8_2_0 : v_7_0_0;
+            adapter.writeInt(output, formatVersion.getNumber());
             adapter.writeInt(output, effectiveVersion.getNumber());
 
             RemoteCommand.serialize(adapter, output, request.command, backwardCompatibilityVersion, scope);
@@ -95,6 +112,10 @@ public class Request<T> implements ComparableByContent<Request<T>> {
             } else {
                 adapter.writeBoolean(output, false);
             }
+
+            if (formatVersion == v_8_2_0) {
+                adapter.writeBoolean(output, true);
+            }
         }
 
         @Override
@@ -110,7 +131,7 @@ public class Request<T> implements ComparableByContent<Request<T>> {
         @Override
         public Request<?> fromJsonCompatibleSnapshot(Map<String, Object> snapshot) throws IOException {
             int formatNumber = readIntValue(snapshot, "version");
-            Versions.check(formatNumber, v_7_0_0, v_7_0_0);
+            Versions.check(formatNumber, v_7_0_0, v_8_2_0);
 
             int backwardCompatibilityNumber = readIntValue(snapshot, "backwardCompatibilityNumber");
             Version requestBackwardCompatibilityVersion = Versions.byNumber(backwardCompatibilityNumber);
@@ -122,21 +143,26 @@ public class Request<T> implements ComparableByContent<Request<T>> {
                 clientTime = readLongValue(snapshot, "clientTime");
             }
 
-            return new Request<>(command, requestBackwardCompatibilityVersion, clientTime);
+            boolean configurationByReference = formatNumber >= v_8_2_0.getNumber() && (Boolean) snapshot.get("configurationByReference");
+
+            return new Request<>(command, requestBackwardCompatibilityVersion, clientTime, configurationByReference);
         }
 
         @Override
         public Map<String, Object> toJsonCompatibleSnapshot(Request<?> request, Version backwardCompatibilityVersion, Scope scope) throws IOException {
-            Version effectiveVersion = request.command.getRequiredVersion();
+            Version effectiveVersion = request.getEffectiveVersion();
             Versions.check(effectiveVersion.getNumber(), v_7_0_0, request.backwardCompatibilityVersion);
 
             Map<String, Object> result = new HashMap<>();
-            result.put("version", v_7_0_0.getNumber());
+            result.put("version", request.configurationByReference ? v_8_2_0.getNumber() : v_7_0_0.getNumber());
             result.put("backwardCompatibilityNumber", effectiveVersion.getNumber());
             result.put("command", RemoteCommand.toJsonCompatibleSnapshot(request.command, backwardCompatibilityVersion, scope));
             if (request.clientSideTime != null) {
                 result.put("clientTime", request.clientSideTime);
             }
+            if (request.configurationByReference) {
+                result.put("configurationByReference", true);
+            }
             return result;
         }
 
@@ -147,11 +173,17 @@ public class Request<T> implements ComparableByContent<Request<T>> {
 
     };
 
+    private Version getEffectiveVersion() {
+        Version requiredVersion = command.getRequiredVersion();
+        return configurationByReference ? Versions.max(requiredVersion, v_8_2_0) : requiredVersion;
+    }
+
     @Override
     public boolean equalsByContent(Request<T> other) {
         return // backwardCompatibilityVersion.equals(other.backwardCompatibilityVersion) &&
                 ComparableByContent.equals(command, other.command)
-            && Objects.equals(clientSideTime, other.clientSideTime);
+            && Objects.equals(clientSideTime, other.clientSideTime)
+            && configurationByReference == other.configurationByReference;
     }
 
 }
\ No newline at end of file
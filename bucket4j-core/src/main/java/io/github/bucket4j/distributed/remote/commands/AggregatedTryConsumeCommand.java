@@ -0,0 +1,225 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.remote.commands;
+
+import io.github.bucket4j.distributed.remote.AggregatedTryConsumeResult;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.serialization.DeserializationAdapter;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.serialization.SerializationAdapter;
+import io.github.bucket4j.distributed.serialization.SerializationHandle;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.bucket4j.distributed.versioning.Versions.v_8_2_0;
+
+/**
+ * Compact equivalent of {@link MultiCommand} that consists only from {@link TryConsumeCommand}s.
+ *
+ * <p>Amounts of tokens are transferred as primitive array and outcomes are returned as bitset,
+ * so the size of request and response does not depend on the size of nested commands and results.
+ * The command produces the same outcomes as {@link MultiCommand} with the same sequence of {@link TryConsumeCommand}s.
+ */
+public class AggregatedTryConsumeCommand implements RemoteCommand<AggregatedTryConsumeResult>, ComparableByContent<AggregatedTryConsumeCommand> {
+
+    private long[] tokensToConsume;
+
+    public static final SerializationHandle<AggregatedTryConsumeCommand> SERIALIZATION_HANDLE = new SerializationHandle<AggregatedTryConsumeCommand>() {
+        @Override
+        public <S> AggregatedTryConsumeCommand deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
+            int formatNumber = adapter.readInt(input);
+            Versions.check(formatNumber, v_8_2_0, v_8_2_0);
+
+            long[] tokensToConsume = adapter.readLongArray(input);
+            return new AggregatedTryConsumeCommand(tokensToConsume);
+        }
+
+        @Override
+        public <O> void serialize(SerializationAdapter<O> adapter, O output, AggregatedTryConsumeCommand command, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            adapter.writeInt(output, v_8_2_0.getNumber());
+
+            adapter.writeLongArray(output, command.tokensToConsume);
+        }
+
+        @Override
+        public int getTypeId() {
+            return 44;
+        }
+
+        @Override
+        public Class<AggregatedTryConsumeCommand> getSerializedType() {
+            return AggregatedTryConsumeCommand.class;
+        }
+
+        @Override
+        public AggregatedTryConsumeCommand fromJsonCompatibleSnapshot(Map<String, Object> snapshot) throws IOException {
+            int formatNumber = readIntValue(snapshot, "version");
+            Versions.check(formatNumber, v_8_2_0, v_8_2_0);
+
+            long[] tokensToConsume = readLongArray(snapshot, "tokensToConsume");
+            return new AggregatedTryConsumeCommand(tokensToConsume);
+        }
+
+        @Override
+        public Map<String, Object> toJsonCompatibleSnapshot(AggregatedTryConsumeCommand command, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            Map<String, Object> result = new HashMap<>();
+            result.put("version", v_8_2_0.getNumber());
+            result.put("tokensToConsume", command.tokensToConsume);
+            return result;
+        }
+
+        @Override
+        public String getTypeName() {
+            return "AggregatedTryConsumeCommand";
+        }
+
+    };
+
+    public AggregatedTryConsumeCommand(long[] tokensToConsume) {
+        this.tokensToConsume = tokensToConsume;
+    }
+
+    /**
+     * Aggregates commands into {@link AggregatedTryConsumeCommand} if all of them are {@link TryConsumeCommand}s.
+     *
+     * @param commands the commands to aggregate
+     *
+     * @return aggregated command, or {@code null} if commands are not homogeneous
+     */
+    public static AggregatedTryConsumeCommand aggregateIfPossible(List<? extends RemoteCommand<?>> commands) {
+        long[] tokensToConsume = new long[commands.size()];
+        for (int i = 0; i < tokensToConsume.length; i++) {
+            RemoteCommand<?> command = commands.get(i);
+            if (command.getClass() != TryConsumeCommand.class) {
+                return null;
+            }
+            tokensToConsume[i] = ((TryConsumeCommand) command).getTokensToConsume();
+        }
+        return new AggregatedTryConsumeCommand(tokensToConsume);
+    }
+
+    @Override
+    public CommandResult<AggregatedTryConsumeResult> execute(MutableBucketEntry mutableEntry, long currentTimeNanos) {
+        if (!mutableEntry.exists()) {
+            return CommandResult.bucketNotFound();
+        }
+
+        RemoteBucketState state = mutableEntry.get();
+        state.refillAllBandwidth(currentTimeNanos);
+        long availableToConsume = state.getAvailableTokens();
+        AggregatedTryConsumeResult result = new AggregatedTryConsumeResult(tokensToConsume.length);
+        boolean consumed = false;
+        for (int i = 0; i < tokensToConsume.length; i++) {
+            long tokens = tokensToConsume[i];
+            if (tokens <= availableToConsume) {
+                state.consume(tokens);
+                availableToConsume = state.getAvailableTokens();
+                result.markConsumed(i);
+                consumed = true;
+            }
+        }
+        if (consumed) {
+            mutableEntry.set(state);
+        }
+        return CommandResult.success(result, AggregatedTryConsumeResult.SERIALIZATION_HANDLE);
+    }
+
+    /**
+     * Converts this command to equivalent {@link MultiCommand}, it is useful when remote side does not support {@link AggregatedTryConsumeCommand}.
+     *
+     * @return equivalent {@link MultiCommand}
+     */
+    public MultiCommand toMultiCommand() {
+        List<RemoteCommand<?>> commands = new ArrayList<>(tokensToConsume.length);
+        for (long tokens : tokensToConsume) {
+            commands.add(new TryConsumeCommand(tokens));
+        }
+        return new MultiCommand(commands);
+    }
+
+    public long[] getTokensToConsume() {
+        return tokensToConsume;
+    }
+
+    public int getCount() {
+        return tokensToConsume.length;
+    }
+
+    @Override
+    public SerializationHandle getSerializationHandle() {
+        return SERIALIZATION_HANDLE;
+    }
+
+    @Override
+    public boolean equalsByContent(AggregatedTryConsumeCommand other) {
+        return Arrays.equals(tokensToConsume, other.tokensToConsume);
+    }
+
+    @Override
+    public boolean isImmediateSyncRequired(long unsynchronizedTokens, long nanosSinceLastSync) {
+        return false;
+    }
+
+    @Override
+    public long estimateTokensToConsume() {
+        long sum = 0;
+        for (long tokens : tokensToConsume) {
+            sum += tokens;
+            if (sum < 0L) {
+                // math overflow
+                return Long.MAX_VALUE;
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public long getConsumedTokens(AggregatedTryConsumeResult result) {
+        long sum = 0;
+        for (int i = 0; i < tokensToConsume.length; i++) {
+            if (result.isConsumed(i)) {
+                sum += tokensToConsume[i];
+                if (sum < 0L) {
+                    // math overflow
+                    return Long.MAX_VALUE;
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public Version getRequiredVersion() {
+        return v_8_2_0;
+    }
+
+}
@@ -107,17 +107,26 @@ public class CreateInitialStateAndExecuteCommand<T> implements RemoteCommand<T>,
 
     @Override
     public CommandResult<T> execute(MutableBucketEntry mutableEntry, long currentTimeNanos) {
+        // makes the configuration resolvable when persisted state references it by fingerprint
+        BucketConfigurationRegistry.tryRegister(configuration);
+
         RemoteBucketState state;
+        boolean stateCreated;
         if (mutableEntry.exists()) {
             state = mutableEntry.get();
+            stateCreated = false;
         } else {
             BucketState bucketState = BucketState.createInitialState(configuration, MathType.INTEGER_64_BITS, currentTimeNanos);
             state = new RemoteBucketState(bucketState, new RemoteStat(0), null);
+            stateCreated = true;
         }
 
         BucketEntryWrapper entryWrapper = new BucketEntryWrapper(state);
         CommandResult<T> result = targetCommand.execute(entryWrapper, currentTimeNanos);
-        mutableEntry.set(entryWrapper.get());
+        // existed state which was only refilled by target command is not written back, because refill can be recomputed from timestamp
+        if (stateCreated || entryWrapper.stateModified) {
+            mutableEntry.set(entryWrapper.get());
+        }
         return result;
     }
 
@@ -168,6 +177,7 @@ public class CreateInitialStateAndExecuteCommand<T> implements RemoteCommand<T>,
     private static class BucketEntryWrapper implements MutableBucketEntry {
 
         private RemoteBucketState state;
+        private boolean stateModified;
 
         public BucketEntryWrapper(RemoteBucketState state) {
             this.state = state;
@@ -181,6 +191,7 @@ public class CreateInitialStateAndExecuteCommand<T> implements RemoteCommand<T>,
         @Override
         public void set(RemoteBucketState state) {
             this.state = state;
+            this.stateModified = true;
         }
 
         @Override
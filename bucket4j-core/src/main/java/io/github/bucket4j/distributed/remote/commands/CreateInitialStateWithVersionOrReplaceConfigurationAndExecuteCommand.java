@@ -121,6 +121,9 @@ public class CreateInitialStateWithVersionOrReplaceConfigurationAndExecuteComman
 
     @Override
     public CommandResult<T> execute(MutableBucketEntry mutableEntry, long currentTimeNanos) {
+        // makes the configuration resolvable when persisted state references it by fingerprint
+        BucketConfigurationRegistry.tryRegister(configuration);
+
         BucketEntryWrapper entryWrapper;
         if (mutableEntry.exists()) {
             RemoteBucketState state = mutableEntry.get();
@@ -142,7 +145,6 @@ public class CreateInitialStateWithVersionOrReplaceConfigurationAndExecuteComman
         if (entryWrapper.isStateModified()) {
             mutableEntry.set(entryWrapper.get());
         }
-        mutableEntry.set(entryWrapper.get());
         return result;
     }
 
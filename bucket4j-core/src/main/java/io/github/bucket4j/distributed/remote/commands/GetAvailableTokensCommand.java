@@ -90,6 +90,11 @@ public class GetAvailableTokensCommand implements RemoteCommand<Long>, Comparabl
 
     };
 
+    /**
+     * The command does not have parameters, so single instance can be shared in order to avoid allocation of command and request on the hot path.
+     */
+    public static final GetAvailableTokensCommand INSTANCE = new GetAvailableTokensCommand();
+
     @Override
     public CommandResult<Long> execute(MutableBucketEntry mutableEntry, long currentTimeNanos) {
         if (!mutableEntry.exists()) {
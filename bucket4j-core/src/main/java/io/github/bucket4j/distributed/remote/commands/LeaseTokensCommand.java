@@ -0,0 +1,197 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package io.github.bucket4j.distributed.remote.commands;
+
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.serialization.DeserializationAdapter;
+import io.github.bucket4j.distributed.serialization.Scope;
+import io.github.bucket4j.distributed.serialization.SerializationAdapter;
+import io.github.bucket4j.distributed.serialization.SerializationHandle;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.github.bucket4j.distributed.serialization.PrimitiveSerializationHandles.LONG_HANDLE;
+import static io.github.bucket4j.distributed.versioning.Versions.v_8_2_0;
+
+/**
+ * Renews the lease of tokens that are spent locally by client.
+ *
+ * <p>At first the command returns {@code tokensToReturn} unused tokens of previous lease back to the bucket,
+ * then consumes {@code requiredTokens} and additionally leases up to {@code tokensToLease} tokens if they are available.
+ * The result of command is the count of leased tokens that were consumed in addition to {@code requiredTokens},
+ * or {@code -1} if {@code requiredTokens} can not be consumed, in this case nothing is leased.
+ */
+public class LeaseTokensCommand implements RemoteCommand<Long>, ComparableByContent<LeaseTokensCommand> {
+
+    public static final long REJECTED = -1L;
+
+    private long tokensToReturn;
+    private long requiredTokens;
+    private long tokensToLease;
+
+    public static final SerializationHandle<LeaseTokensCommand> SERIALIZATION_HANDLE = new SerializationHandle<LeaseTokensCommand>() {
+        @Override
+        public <S> LeaseTokensCommand deserialize(DeserializationAdapter<S> adapter, S input) throws IOException {
+            int formatNumber = adapter.readInt(input);
+            Versions.check(formatNumber, v_8_2_0, v_8_2_0);
+
+            long tokensToReturn = adapter.readLong(input);
+            long requiredTokens = adapter.readLong(input);
+            long tokensToLease = adapter.readLong(input);
+            return new LeaseTokensCommand(tokensToReturn, requiredTokens, tokensToLease);
+        }
+
+        @Override
+        public <O> void serialize(SerializationAdapter<O> adapter, O output, LeaseTokensCommand command, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            adapter.writeInt(output, v_8_2_0.getNumber());
+
+            adapter.writeLong(output, command.tokensToReturn);
+            adapter.writeLong(output, command.requiredTokens);
+            adapter.writeLong(output, command.tokensToLease);
+        }
+
+        @Override
+        public int getTypeId() {
+            return 43;
+        }
+
+        @Override
+        public Class<LeaseTokensCommand> getSerializedType() {
+            return LeaseTokensCommand.class;
+        }
+
+        @Override
+        public LeaseTokensCommand fromJsonCompatibleSnapshot(Map<String, Object> snapshot) throws IOException {
+            int formatNumber = readIntValue(snapshot, "version");
+            Versions.check(formatNumber, v_8_2_0, v_8_2_0);
+
+            long tokensToReturn = readLongValue(snapshot, "tokensToReturn");
+            long requiredTokens = readLongValue(snapshot, "requiredTokens");
+            long tokensToLease = readLongValue(snapshot, "tokensToLease");
+            return new LeaseTokensCommand(tokensToReturn, requiredTokens, tokensToLease);
+        }
+
+        @Override
+        public Map<String, Object> toJsonCompatibleSnapshot(LeaseTokensCommand command, Version backwardCompatibilityVersion, Scope scope) throws IOException {
+            Map<String, Object> result = new HashMap<>();
+            result.put("version", v_8_2_0.getNumber());
+            result.put("tokensToReturn", command.tokensToReturn);
+            result.put("requiredTokens", command.requiredTokens);
+            result.put("tokensToLease", command.tokensToLease);
+            return result;
+        }
+
+        @Override
+        public String getTypeName() {
+            return "LeaseTokensCommand";
+        }
+
+    };
+
+    public LeaseTokensCommand(long tokensToReturn, long requiredTokens, long tokensToLease) {
+        this.tokensToReturn = tokensToReturn;
+        this.requiredTokens = requiredTokens;
+        this.tokensToLease = tokensToLease;
+    }
+
+    @Override
+    public CommandResult<Long> execute(MutableBucketEntry mutableEntry, long currentTimeNanos) {
+        if (!mutableEntry.exists()) {
+            return CommandResult.bucketNotFound();
+        }
+
+        RemoteBucketState state = mutableEntry.get();
+        state.refillAllBandwidth(currentTimeNanos);
+        if (tokensToReturn > 0) {
+            state.addTokens(tokensToReturn);
+        }
+        long availableToConsume = state.getAvailableTokens();
+        if (requiredTokens > availableToConsume) {
+            if (tokensToReturn > 0) {
+                mutableEntry.set(state);
+            }
+            return CommandResult.success(REJECTED, LONG_HANDLE);
+        }
+
+        long leasedTokens = Math.max(0, Math.min(tokensToLease, availableToConsume - requiredTokens));
+        long tokensToConsume = requiredTokens + leasedTokens;
+        if (tokensToConsume > 0) {
+            state.consume(tokensToConsume);
+        }
+        if (tokensToConsume > 0 || tokensToReturn > 0) {
+            mutableEntry.set(state);
+        }
+        return CommandResult.success(leasedTokens, LONG_HANDLE);
+    }
+
+    public long getTokensToReturn() {
+        return tokensToReturn;
+    }
+
+    public long getRequiredTokens() {
+        return requiredTokens;
+    }
+
+    public long getTokensToLease() {
+        return tokensToLease;
+    }
+
+    @Override
+    public SerializationHandle getSerializationHandle() {
+        return SERIALIZATION_HANDLE;
+    }
+
+    @Override
+    public boolean equalsByContent(LeaseTokensCommand other) {
+        return tokensToReturn == other.tokensToReturn
+                && requiredTokens == other.requiredTokens
+                && tokensToLease == other.tokensToLease;
+    }
+
+    @Override
+    public boolean isImmediateSyncRequired(long unsynchronizedTokens, long nanosSinceLastSync) {
+        return true;
+    }
+
+    @Override
+    public long estimateTokensToConsume() {
+        return requiredTokens + tokensToLease;
+    }
+
+    @Override
+    public long getConsumedTokens(Long result) {
+        return result == REJECTED ? 0 : requiredTokens + result;
+    }
+
+    @Override
+    public Version getRequiredVersion() {
+        return v_8_2_0;
+    }
+
+}
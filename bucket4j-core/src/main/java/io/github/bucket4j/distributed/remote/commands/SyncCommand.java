@@ -25,7 +25,6 @@ import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.Nothing;
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.MutableBucketEntry;
-import io.github.bucket4j.distributed.remote.RemoteBucketState;
 import io.github.bucket4j.distributed.remote.RemoteCommand;
 import io.github.bucket4j.distributed.serialization.DeserializationAdapter;
 import io.github.bucket4j.distributed.serialization.Scope;
@@ -126,9 +125,7 @@ public class SyncCommand implements RemoteCommand<Nothing>, ComparableByContent<
         if (!mutableEntry.exists()) {
             return CommandResult.bucketNotFound();
         }
-        RemoteBucketState state = mutableEntry.get();
-        state.refillAllBandwidth(currentTimeNanos);
-        mutableEntry.set(state);
+        // refill is not persisted, because it can be recomputed from timestamp at any moment
         return CommandResult.NOTHING;
     }
 
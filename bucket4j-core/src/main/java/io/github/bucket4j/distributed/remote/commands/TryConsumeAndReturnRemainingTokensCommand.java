@@ -43,7 +43,9 @@ import static io.github.bucket4j.distributed.versioning.Versions.v_7_0_0;
 
 public class TryConsumeAndReturnRemainingTokensCommand implements RemoteCommand<ConsumptionProbe>, ComparableByContent<TryConsumeAndReturnRemainingTokensCommand> {
 
-    private long tokensToConsume;
+    private static final TryConsumeAndReturnRemainingTokensCommand ONE_TOKEN = new TryConsumeAndReturnRemainingTokensCommand(1);
+
+    private final long tokensToConsume;
 
     public static final SerializationHandle<TryConsumeAndReturnRemainingTokensCommand> SERIALIZATION_HANDLE = new SerializationHandle<TryConsumeAndReturnRemainingTokensCommand>() {
         @Override
@@ -101,6 +103,18 @@ public class TryConsumeAndReturnRemainingTokensCommand implements RemoteCommand<
         this.tokensToConsume = tokensToConsume;
     }
 
+    /**
+     * Returns command that consumes specified amount of tokens, the command for single token is shared because it is immutable,
+     * that allows to avoid allocation of command and request on the hot path.
+     *
+     * @param tokensToConsume amount of tokens to consume
+     *
+     * @return command that consumes specified amount of tokens
+     */
+    public static TryConsumeAndReturnRemainingTokensCommand create(long tokensToConsume) {
+        return tokensToConsume == 1 ? ONE_TOKEN : new TryConsumeAndReturnRemainingTokensCommand(tokensToConsume);
+    }
+
     @Override
     public CommandResult<ConsumptionProbe> execute(MutableBucketEntry mutableEntry, long currentTimeNanos) {
         if (!mutableEntry.exists()) {
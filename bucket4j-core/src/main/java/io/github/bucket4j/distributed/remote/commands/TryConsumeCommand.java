@@ -40,7 +40,9 @@ import static io.github.bucket4j.distributed.versioning.Versions.v_7_0_0;
 
 public class TryConsumeCommand implements RemoteCommand<Boolean>, ComparableByContent<TryConsumeCommand> {
 
-    private long tokensToConsume;
+    private static final TryConsumeCommand ONE_TOKEN = new TryConsumeCommand(1);
+
+    private final long tokensToConsume;
 
     public static final SerializationHandle<TryConsumeCommand> SERIALIZATION_HANDLE = new SerializationHandle<TryConsumeCommand>() {
         @Override
@@ -97,6 +99,18 @@ public class TryConsumeCommand implements RemoteCommand<Boolean>, ComparableByCo
         this.tokensToConsume = tokensToConsume;
     }
 
+    /**
+     * Returns command that consumes specified amount of tokens, the command for single token is shared because it is immutable,
+     * that allows to avoid allocation of command and request on the hot path.
+     *
+     * @param tokensToConsume amount of tokens to consume
+     *
+     * @return command that consumes specified amount of tokens
+     */
+    public static TryConsumeCommand create(long tokensToConsume) {
+        return tokensToConsume == 1 ? ONE_TOKEN : new TryConsumeCommand(tokensToConsume);
+    }
+
     @Override
     public CommandResult<Boolean> execute(MutableBucketEntry mutableEntry, long currentTimeNanos) {
         if (!mutableEntry.exists()) {
@@ -20,90 +20,189 @@
 package io.github.bucket4j.distributed.serialization;
 
 import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.ConfigurationNotFoundException;
 import io.github.bucket4j.distributed.remote.RemoteBucketState;
 import io.github.bucket4j.distributed.remote.Request;
 import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Helper for conversion of internal objects to and from the binary form that is shared by all backends.
+ *
+ * <p>Methods that produce {@code byte[]} calculate the exact size first, so array is allocated once and never copied.
+ * Methods that work with {@link ByteBuffer} allow to avoid the array at all when backend accepts buffers,
+ * in particular the {@code serializeXxxToThreadLocalBuffer} methods reuse per-thread buffer
+ * that stays valid only until the next call of any {@code ToThreadLocalBuffer} method by the same thread.
+ *
+ * <p>When backward compatibility version is {@link Versions#v_8_2_0} or newer, the state and requests are written in compact form
+ * by {@link VarintSerializationAdapter} behind the four-byte header that holds the number of {@link Versions#v_8_2_0}.
+ * Older readers treat the header as unsupported format number, newer readers recognize the header and accept both forms.
+ */
+public class InternalSerializationHelper {
 
-import java.io.*;
+    private static final int INITIAL_THREAD_LOCAL_BUFFER_SIZE = 256;
 
-public class InternalSerializationHelper {
+    private static final int COMPACT_FORMAT_HEADER = Versions.v_8_2_0.getNumber();
+
+    private static final ThreadLocal<ByteBuffer> THREAD_LOCAL_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_THREAD_LOCAL_BUFFER_SIZE));
 
     public static byte[] serializeState(RemoteBucketState state, Version backwardCompatibilityVersion) {
-        try {
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-            DataOutputStream output = new DataOutputStream(byteStream);
+        return serialize(RemoteBucketState.SERIALIZATION_HANDLE, state, backwardCompatibilityVersion, Scope.PERSISTED_STATE, isCompact(backwardCompatibilityVersion));
+    }
+
+    public static byte[] serializeState(RemoteBucketState state, Version backwardCompatibilityVersion, boolean configurationByReference) {
+        SerializationHandle<RemoteBucketState> handle = configurationByReference ? RemoteBucketState.CONFIGURATION_BY_REFERENCE_SERIALIZATION_HANDLE : RemoteBucketState.SERIALIZATION_HANDLE;
+        return serialize(handle, state, backwardCompatibilityVersion, Scope.PERSISTED_STATE, isCompact(backwardCompatibilityVersion));
+    }
 
-            RemoteBucketState.SERIALIZATION_HANDLE.serialize(DataOutputSerializationAdapter.INSTANCE, output, state, backwardCompatibilityVersion, Scope.PERSISTED_STATE);
+    public static int serializedSizeOfState(RemoteBucketState state, Version backwardCompatibilityVersion) {
+        return serializedSize(RemoteBucketState.SERIALIZATION_HANDLE, state, backwardCompatibilityVersion, Scope.PERSISTED_STATE, isCompact(backwardCompatibilityVersion));
+    }
 
-            output.close();
-            byteStream.close();
+    public static void serializeState(RemoteBucketState state, Version backwardCompatibilityVersion, ByteBuffer target) {
+        serialize(RemoteBucketState.SERIALIZATION_HANDLE, state, backwardCompatibilityVersion, Scope.PERSISTED_STATE, isCompact(backwardCompatibilityVersion), target);
+    }
 
-            return byteStream.toByteArray();
-        } catch (Exception e) {
-            throw new IllegalStateException(e);
-        }
+    public static ByteBuffer serializeStateToThreadLocalBuffer(RemoteBucketState state, Version backwardCompatibilityVersion) {
+        return serializeToThreadLocalBuffer(RemoteBucketState.SERIALIZATION_HANDLE, state, backwardCompatibilityVersion, Scope.PERSISTED_STATE, isCompact(backwardCompatibilityVersion));
     }
 
     public static RemoteBucketState deserializeState(byte[] bytes) {
-        try {
-            try (DataInputStream inputSteam = new DataInputStream(new ByteArrayInputStream(bytes))) {
-                return RemoteBucketState.SERIALIZATION_HANDLE.deserialize(DataOutputSerializationAdapter.INSTANCE, inputSteam);
-            }
-        } catch (Exception e) {
-            throw new IllegalStateException(e);
-        }
+        return deserializeState(ByteBuffer.wrap(bytes));
+    }
+
+    public static RemoteBucketState deserializeState(ByteBuffer buffer) {
+        return deserialize(RemoteBucketState.SERIALIZATION_HANDLE, buffer);
     }
 
     public static byte[] serializeRequest(Request<?> request) {
-        try {
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-            DataOutputStream output = new DataOutputStream(byteStream);
+        return serialize(Request.SERIALIZATION_HANDLE, request, request.getBackwardCompatibilityVersion(), Scope.REQUEST, isCompact(request.getBackwardCompatibilityVersion()));
+    }
 
-            Request.SERIALIZATION_HANDLE.serialize(DataOutputSerializationAdapter.INSTANCE, output, request, request.getBackwardCompatibilityVersion(), Scope.REQUEST);
-            
-            output.close();
-            byteStream.close();
+    public static int serializedSizeOfRequest(Request<?> request) {
+        return serializedSize(Request.SERIALIZATION_HANDLE, request, request.getBackwardCompatibilityVersion(), Scope.REQUEST, isCompact(request.getBackwardCompatibilityVersion()));
+    }
 
-            return byteStream.toByteArray();
-        } catch (Exception e) {
-            throw new IllegalStateException(e);
-        }
+    public static void serializeRequest(Request<?> request, ByteBuffer target) {
+        serialize(Request.SERIALIZATION_HANDLE, request, request.getBackwardCompatibilityVersion(), Scope.REQUEST, isCompact(request.getBackwardCompatibilityVersion()), target);
+    }
+
+    public static ByteBuffer serializeRequestToThreadLocalBuffer(Request<?> request) {
+        return serializeToThreadLocalBuffer(Request.SERIALIZATION_HANDLE, request, request.getBackwardCompatibilityVersion(), Scope.REQUEST, isCompact(request.getBackwardCompatibilityVersion()));
     }
 
     public static <T> Request<T> deserializeRequest(byte[] bytes) {
+        return deserializeRequest(ByteBuffer.wrap(bytes));
+    }
+
+    public static <T> Request<T> deserializeRequest(ByteBuffer buffer) {
+        boolean compact = isCompact(buffer);
+        Request<T> request = (Request<T>) deserialize(Request.SERIALIZATION_HANDLE, buffer);
+        if (compact && !isCompact(request.getBackwardCompatibilityVersion())) {
+            // client that writes compact requests is able to read compact results, and compact state is allowed for it as well
+            request = new Request<>(request.getCommand(), Versions.v_8_2_0, request.getClientSideTime(), request.isConfigurationByReference());
+        }
+        return request;
+    }
+
+    public static byte[] serializeResult(CommandResult<?> result, Version backwardCompatibilityVersion) {
+        return serialize(CommandResult.SERIALIZATION_HANDLE, result, backwardCompatibilityVersion, Scope.RESPONSE, isCompact(backwardCompatibilityVersion));
+    }
+
+    public static int serializedSizeOfResult(CommandResult<?> result, Version backwardCompatibilityVersion) {
+        return serializedSize(CommandResult.SERIALIZATION_HANDLE, result, backwardCompatibilityVersion, Scope.RESPONSE, isCompact(backwardCompatibilityVersion));
+    }
+
+    public static void serializeResult(CommandResult<?> result, Version backwardCompatibilityVersion, ByteBuffer target) {
+        serialize(CommandResult.SERIALIZATION_HANDLE, result, backwardCompatibilityVersion, Scope.RESPONSE, isCompact(backwardCompatibilityVersion), target);
+    }
+
+    public static ByteBuffer serializeResultToThreadLocalBuffer(CommandResult<?> result, Version backwardCompatibilityVersion) {
+        return serializeToThreadLocalBuffer(CommandResult.SERIALIZATION_HANDLE, result, backwardCompatibilityVersion, Scope.RESPONSE, isCompact(backwardCompatibilityVersion));
+    }
+
+    public static <T> CommandResult<T> deserializeResult(byte[] bytes, Version backwardCompatibilityVersion) {
+        return deserializeResult(ByteBuffer.wrap(bytes), backwardCompatibilityVersion);
+    }
+
+    public static <T> CommandResult<T> deserializeResult(ByteBuffer buffer, Version backwardCompatibilityVersion) {
+        return (CommandResult<T>) deserialize(CommandResult.SERIALIZATION_HANDLE, buffer);
+    }
+
+    private static <T> byte[] serialize(SerializationHandle<T> handle, T object, Version backwardCompatibilityVersion, Scope scope, boolean compact) {
+        byte[] bytes = new byte[serializedSize(handle, object, backwardCompatibilityVersion, scope, compact)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        serialize(handle, object, backwardCompatibilityVersion, scope, compact, buffer);
+        if (buffer.hasRemaining()) {
+            throw new IllegalStateException("Calculated size " + bytes.length + " does not match to written size " + buffer.position());
+        }
+        return bytes;
+    }
+
+    private static <T> int serializedSize(SerializationHandle<T> handle, T object, Version backwardCompatibilityVersion, Scope scope, boolean compact) {
         try {
-            try (DataInputStream inputSteam = new DataInputStream(new ByteArrayInputStream(bytes))) {
-                return (Request<T>) Request.SERIALIZATION_HANDLE.deserialize(DataOutputSerializationAdapter.INSTANCE, inputSteam);
+            if (compact) {
+                VarintSerializationAdapter.Output output = new VarintSerializationAdapter.Output(null);
+                handle.serialize(VarintSerializationAdapter.INSTANCE, output, object, backwardCompatibilityVersion, scope);
+                return Integer.BYTES + output.getSize();
             }
+            SizeCalculatingSerializationAdapter.Counter counter = new SizeCalculatingSerializationAdapter.Counter();
+            handle.serialize(SizeCalculatingSerializationAdapter.INSTANCE, counter, object, backwardCompatibilityVersion, scope);
+            return counter.getSize();
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
     }
 
-    public static byte[] serializeResult(CommandResult<?> result, Version backwardCompatibilityVersion) {
+    private static <T> void serialize(SerializationHandle<T> handle, T object, Version backwardCompatibilityVersion, Scope scope, boolean compact, ByteBuffer target) {
         try {
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-            DataOutputStream output = new DataOutputStream(byteStream);
-
-            CommandResult.SERIALIZATION_HANDLE.serialize(DataOutputSerializationAdapter.INSTANCE, output, result, backwardCompatibilityVersion, Scope.RESPONSE);
-
-            output.close();
-            byteStream.close();
-
-            return byteStream.toByteArray();
+            if (compact) {
+                target.putInt(COMPACT_FORMAT_HEADER);
+                handle.serialize(VarintSerializationAdapter.INSTANCE, new VarintSerializationAdapter.Output(target), object, backwardCompatibilityVersion, scope);
+            } else {
+                handle.serialize(ByteBufferSerializationAdapter.INSTANCE, target, object, backwardCompatibilityVersion, scope);
+            }
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
     }
 
-    public static <T> CommandResult<T> deserializeResult(byte[] bytes, Version backwardCompatibilityVersion) {
+    private static <T> ByteBuffer serializeToThreadLocalBuffer(SerializationHandle<T> handle, T object, Version backwardCompatibilityVersion, Scope scope, boolean compact) {
+        int size = serializedSize(handle, object, backwardCompatibilityVersion, scope, compact);
+        ByteBuffer buffer = THREAD_LOCAL_BUFFER.get();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Integer.highestOneBit(size - 1) << 1);
+            THREAD_LOCAL_BUFFER.set(buffer);
+        }
+        buffer.clear();
+        serialize(handle, object, backwardCompatibilityVersion, scope, compact, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static <T> T deserialize(SerializationHandle<T> handle, ByteBuffer buffer) {
         try {
-            try (DataInputStream inputSteam = new DataInputStream(new ByteArrayInputStream(bytes))) {
-                return (CommandResult<T>) CommandResult.SERIALIZATION_HANDLE.deserialize(DataOutputSerializationAdapter.INSTANCE, inputSteam);
+            if (isCompact(buffer)) {
+                buffer.getInt();
+                return handle.deserialize(VarintSerializationAdapter.INSTANCE, new VarintSerializationAdapter.Input(buffer));
             }
+            return handle.deserialize(ByteBufferSerializationAdapter.INSTANCE, buffer);
+        } catch (ConfigurationNotFoundException e) {
+            throw e;
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
     }
 
+    private static boolean isCompact(Version backwardCompatibilityVersion) {
+        return backwardCompatibilityVersion.getNumber() >= Versions.v_8_2_0.getNumber();
+    }
+
+    private static boolean isCompact(ByteBuffer buffer) {
+        // legacy form starts from format number of top-level object, that never reaches the number of compact form
+        return buffer.remaining() >= Integer.BYTES && buffer.getInt(buffer.position()) == COMPACT_FORMAT_HEADER;
+    }
+
 }
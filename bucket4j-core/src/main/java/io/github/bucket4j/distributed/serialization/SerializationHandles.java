@@ -50,6 +50,7 @@ public class SerializationHandles {
             UsageOfObsoleteApiError.SERIALIZATION_HANDLE, // 17
             UsageOfUnsupportedApiError.SERIALIZATION_HANDLE, // 18
             UnsupportedNamedTypeError.SERIALIZATION_HANDLE, // 19
+            AggregatedTryConsumeResult.SERIALIZATION_HANDLE, // 20
 
             CreateInitialStateAndExecuteCommand.SERIALIZATION_HANDLE, // 21
             MultiCommand.SERIALIZATION_HANDLE, // 22
@@ -72,6 +73,8 @@ public class SerializationHandles {
             ConfigurationNeedToBeReplacedError.SERIALIZATION_HANDLE, // 40
             CreateInitialStateWithVersionOrReplaceConfigurationAndExecuteCommand.SERIALIZATION_HANDLE, // 41
             CheckConfigurationVersionAndExecuteCommand.SERIALIZATION_HANDLE, // 42
+            LeaseTokensCommand.SERIALIZATION_HANDLE, // 43
+            AggregatedTryConsumeCommand.SERIALIZATION_HANDLE, // 44
 
             LockFreeBucket.SERIALIZATION_HANDLE, // 60
             SynchronizedBucket.SERIALIZATION_HANDLE, // 61
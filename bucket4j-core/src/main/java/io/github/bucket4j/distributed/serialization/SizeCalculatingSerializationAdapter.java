@@ -0,0 +1,98 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.serialization;
+
+import java.io.IOException;
+
+/**
+ * Serialization adapter that writes nothing and only calculates the exact count of bytes
+ * that {@link DataOutputSerializationAdapter} and {@link ByteBufferSerializationAdapter} would produce for the same object.
+ */
+public class SizeCalculatingSerializationAdapter implements SerializationAdapter<SizeCalculatingSerializationAdapter.Counter> {
+
+    public static SizeCalculatingSerializationAdapter INSTANCE = new SizeCalculatingSerializationAdapter();
+
+    private SizeCalculatingSerializationAdapter() {}
+
+    public static class Counter {
+
+        private int size;
+
+        public int getSize() {
+            return size;
+        }
+
+        public void reset() {
+            size = 0;
+        }
+
+    }
+
+    @Override
+    public void writeBoolean(Counter target, boolean value) throws IOException {
+        target.size += 1;
+    }
+
+    @Override
+    public void writeByte(Counter target, byte value) throws IOException {
+        target.size += 1;
+    }
+
+    @Override
+    public void writeInt(Counter target, int value) throws IOException {
+        target.size += Integer.BYTES;
+    }
+
+    @Override
+    public void writeLong(Counter target, long value) throws IOException {
+        target.size += Long.BYTES;
+    }
+
+    @Override
+    public void writeLongArray(Counter target, long[] value) throws IOException {
+        target.size += Integer.BYTES + value.length * Long.BYTES;
+    }
+
+    @Override
+    public void writeDoubleArray(Counter target, double[] value) throws IOException {
+        target.size += Integer.BYTES + value.length * Double.BYTES;
+    }
+
+    @Override
+    public void writeString(Counter target, String value) throws IOException {
+        target.size += Short.BYTES + modifiedUtf8Length(value);
+    }
+
+    static int modifiedUtf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length += 1;
+            } else if (c <= 0x07FF) {
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,259 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.distributed.serialization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary format that is used by {@link InternalSerializationHelper} since {@link io.github.bucket4j.distributed.versioning.Versions#v_8_2_0}.
+ *
+ * <ul>
+ *     <li>{@code int} values are written as zig-zag varints, so format numbers, type identifiers and array sizes take one byte.</li>
+ *     <li>{@code long} values are written as zig-zag varints with two-bit tag that says whether value is written as is,
+ *     as delta to the last big value (timestamps, refill periods) seen in the same stream, or as raw eight bytes when varint would be longer.</li>
+ *     <li>{@code boolean}, {@code byte}, {@code double} and {@code String} values are written in the same way as by {@link ByteBufferSerializationAdapter}.</li>
+ * </ul>
+ * Because of delta encoding the adapter is stateful per stream, the state is kept by {@link Output} and {@link Input}.
+ */
+public class VarintSerializationAdapter implements SerializationAdapter<VarintSerializationAdapter.Output>, DeserializationAdapter<VarintSerializationAdapter.Input> {
+
+    public static VarintSerializationAdapter INSTANCE = new VarintSerializationAdapter();
+
+    private static final int TAG_ABSOLUTE = 0;
+    private static final int TAG_DELTA = 1;
+    private static final int TAG_RAW = 2;
+
+    // values of this magnitude are remembered as base for delta encoding of next values
+    private static final long BASE_THRESHOLD = 1L << 32;
+
+    private VarintSerializationAdapter() {}
+
+    public static class Output {
+
+        private final ByteBuffer buffer;
+        private int size;
+        private long base;
+
+        /**
+         * @param buffer target buffer, or {@code null} when only size of serialized data should be calculated
+         */
+        public Output(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        private void put(byte value) {
+            if (buffer != null) {
+                buffer.put(value);
+            }
+            size++;
+        }
+
+    }
+
+    public static class Input {
+
+        private final ByteBuffer buffer;
+        private long base;
+
+        public Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+    }
+
+    @Override
+    public boolean readBoolean(Input source) throws IOException {
+        return source.buffer.get() != 0;
+    }
+
+    @Override
+    public byte readByte(Input source) throws IOException {
+        return source.buffer.get();
+    }
+
+    @Override
+    public int readInt(Input source) throws IOException {
+        long value = readVarint(source.buffer);
+        if ((value >>> 32) != 0) {
+            throw new IOException("Varint " + value + " does not fit into int");
+        }
+        int zigZag = (int) value;
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    @Override
+    public long readLong(Input source) throws IOException {
+        long header = readVarint(source.buffer);
+        int tag = (int) (header & 0b11);
+        long value;
+        switch (tag) {
+            case TAG_ABSOLUTE: value = decodeZigZag(header >>> 2); break;
+            case TAG_DELTA: value = source.base + decodeZigZag(header >>> 2); break;
+            case TAG_RAW: value = source.buffer.getLong(); break;
+            default: throw new IOException("Unknown tag " + tag);
+        }
+        if (isBase(value)) {
+            source.base = value;
+        }
+        return value;
+    }
+
+    @Override
+    public long[] readLongArray(Input source) throws IOException {
+        int size = readInt(source);
+        long array[] = new long[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = readLong(source);
+        }
+        return array;
+    }
+
+    @Override
+    public double[] readDoubleArray(Input source) throws IOException {
+        int size = readInt(source);
+        double array[] = new double[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = source.buffer.getDouble();
+        }
+        return array;
+    }
+
+    @Override
+    public String readString(Input source) throws IOException {
+        return ByteBufferSerializationAdapter.INSTANCE.readString(source.buffer);
+    }
+
+    @Override
+    public void writeBoolean(Output target, boolean value) throws IOException {
+        target.put(value ? (byte) 1 : (byte) 0);
+    }
+
+    @Override
+    public void writeByte(Output target, byte value) throws IOException {
+        target.put(value);
+    }
+
+    @Override
+    public void writeInt(Output target, int value) throws IOException {
+        writeVarint(target, ((value << 1) ^ (value >> 31)) & 0xFFFF_FFFFL);
+    }
+
+    @Override
+    public void writeLong(Output target, long value) throws IOException {
+        long absolute = encodeZigZag(value);
+        long delta = value - target.base;
+        boolean deltaOverflow = ((value ^ target.base) & (value ^ delta)) < 0;
+        long zigZagDelta = deltaOverflow ? -1 : encodeZigZag(delta);
+
+        // payload should leave two bits for the tag
+        long payload = absolute;
+        int tag = TAG_ABSOLUTE;
+        if (Long.compareUnsigned(zigZagDelta, payload) < 0) {
+            payload = zigZagDelta;
+            tag = TAG_DELTA;
+        }
+        if ((payload >>> 62) != 0 || varintLength(payload << 2) > Long.BYTES + 1) {
+            writeVarint(target, TAG_RAW);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                target.put((byte) (value >>> shift));
+            }
+        } else {
+            writeVarint(target, (payload << 2) | tag);
+        }
+
+        if (isBase(value)) {
+            target.base = value;
+        }
+    }
+
+    @Override
+    public void writeLongArray(Output target, long[] value) throws IOException {
+        writeInt(target, value.length);
+        for (int i = 0; i < value.length; i++) {
+            writeLong(target, value[i]);
+        }
+    }
+
+    @Override
+    public void writeDoubleArray(Output target, double[] value) throws IOException {
+        writeInt(target, value.length);
+        for (int i = 0; i < value.length; i++) {
+            long bits = Double.doubleToRawLongBits(value[i]);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                target.put((byte) (bits >>> shift));
+            }
+        }
+    }
+
+    @Override
+    public void writeString(Output target, String value) throws IOException {
+        if (target.buffer != null) {
+            ByteBufferSerializationAdapter.INSTANCE.writeString(target.buffer, value);
+        }
+        target.size += Short.BYTES + SizeCalculatingSerializationAdapter.modifiedUtf8Length(value);
+    }
+
+    private static boolean isBase(long value) {
+        return value >= BASE_THRESHOLD || value <= -BASE_THRESHOLD;
+    }
+
+    private static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(Output target, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        target.put((byte) value);
+    }
+
+    private static int varintLength(long value) {
+        int length = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static long readVarint(ByteBuffer source) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = source.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+}
@@ -22,7 +22,8 @@ package io.github.bucket4j.distributed.versioning;
 public enum Versions implements Version {
 
     v_7_0_0(1),
-    v_8_1_0(2)
+    v_8_1_0(2),
+    v_8_2_0(3)
     ;
 
     private final int number;
@@ -68,7 +69,7 @@ public enum Versions implements Version {
     }
 
     public static Version getLatest() {
-        return v_8_1_0;
+        return v_8_2_0;
     }
 
     public static Version getOldest() {
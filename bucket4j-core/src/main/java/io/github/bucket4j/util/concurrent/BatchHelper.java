@@ -19,12 +19,14 @@
  */
 package io.github.bucket4j.util.concurrent;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
@@ -32,6 +34,17 @@ import static java.util.Objects.requireNonNull;
 /**
  * Helper class for batching
  *
+ * <p>
+ * By default, all tasks accumulated while previous batch is in progress are combined into one batch.
+ * This can be tuned via {@link #withLimits(int, long, BatchSizeHistogram)}:
+ * <ul>
+ *     <li>{@code maxBatchSize} - the oldest tasks are combined into batch of at most this size, the rest tasks are left for next batches;</li>
+ *     <li>{@code lingerNanos} - how long the thread that is responsible to execute the batch waits for another tasks to join,
+ *     linger is applied only by synchronous {@link #execute(Object)} and only when contention is detected,
+ *     so the task that arrived to idle helper is always executed immediately;</li>
+ *     <li>{@code histogram} - optional histogram where sizes of executed batches are recorded.</li>
+ * </ul>
+ *
  * @param <T> Task type
  * @param <R> Task result type
  * @param <CT> Combined task type
@@ -56,9 +69,16 @@ public class BatchHelper<T, R, CT, CR> {
     private final Function<CT, CompletableFuture<CR>> asyncCombinedTaskExecutor;
     private final Function<T, CompletableFuture<R>> asyncTaskExecutor;
     private final Function<CR, List<R>> combinedResultSplitter;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final BatchSizeHistogram histogram;
 
     private final AtomicReference<WaitingTask> headReference = new AtomicReference<>(QUEUE_EMPTY);
 
+    // tasks which were taken from the stack but did not fit into the batch because of maxBatchSize,
+    // accessed only by the owner of exclusive lock, happens-before is provided by headReference and by completion of waiting futures
+    private final ArrayDeque<WaitingTask<T, R>> overflow = new ArrayDeque<>();
+
     public static <T, R, CT, CR> BatchHelper<T, R, CT, CR> sync(
             Function<List<T>, CT> taskCombiner,
             Function<CT, CR> combinedTaskExecutor,
@@ -116,6 +136,27 @@ public class BatchHelper<T, R, CT, CR> {
                         Function<CT, CompletableFuture<CR>> asyncCombinedTaskExecutor,
                         Function<T, CompletableFuture<R>> asyncTaskExecutor,
                         Function<CR, List<R>> combinedResultSplitter) {
+        this(taskCombiner, combinedTaskExecutor, taskExecutor, asyncCombinedTaskExecutor, asyncTaskExecutor, combinedResultSplitter, Integer.MAX_VALUE, 0L, null);
+    }
+
+    private BatchHelper(Function<List<T>, CT> taskCombiner,
+                        Function<CT, CR> combinedTaskExecutor,
+                        Function<T, R> taskExecutor,
+                        Function<CT, CompletableFuture<CR>> asyncCombinedTaskExecutor,
+                        Function<T, CompletableFuture<R>> asyncTaskExecutor,
+                        Function<CR, List<R>> combinedResultSplitter,
+                        int maxBatchSize,
+                        long lingerNanos,
+                        BatchSizeHistogram histogram) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive, but was " + maxBatchSize);
+        }
+        if (lingerNanos < 0) {
+            throw new IllegalArgumentException("lingerNanos must not be negative, but was " + lingerNanos);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = lingerNanos;
+        this.histogram = histogram;
         this.taskCombiner = requireNonNull(taskCombiner);
         this.combinedTaskExecutor = requireNonNull(combinedTaskExecutor);
         this.taskExecutor = requireNonNull(taskExecutor);
@@ -124,10 +165,25 @@ public class BatchHelper<T, R, CT, CR> {
         this.combinedResultSplitter = requireNonNull(combinedResultSplitter);
     }
 
+    /**
+     * Creates new helper that has the same behavior as this one, but combines tasks into batches according to the specified limits.
+     *
+     * @param maxBatchSize the maximum amount of tasks in one batch, use {@link Integer#MAX_VALUE} to disable the limit
+     * @param lingerNanos how long the thread that is responsible to execute the batch waits for another tasks to join the batch, zero means no waiting
+     * @param histogram the histogram where sizes of executed batches are recorded, can be {@code null}
+     *
+     * @return new helper with configured limits
+     */
+    public BatchHelper<T, R, CT, CR> withLimits(int maxBatchSize, long lingerNanos, BatchSizeHistogram histogram) {
+        return new BatchHelper<>(taskCombiner, combinedTaskExecutor, taskExecutor, asyncCombinedTaskExecutor, asyncTaskExecutor,
+                combinedResultSplitter, maxBatchSize, lingerNanos, histogram);
+    }
+
     public R execute(T task) {
         WaitingTask<T, R> waitingNode = lockExclusivelyOrEnqueue(task);
 
         if (waitingNode == null) {
+            recordBatchSize(1);
             try {
                 return taskExecutor.apply(task);
             } finally {
@@ -157,6 +213,7 @@ public class BatchHelper<T, R, CT, CR> {
             return waitingTask.future;
         }
 
+        recordBatchSize(1);
         try {
             return asyncTaskExecutor.apply(task)
                     .whenComplete((result, error) -> scheduleNextBatchAsync());
@@ -168,10 +225,11 @@ public class BatchHelper<T, R, CT, CR> {
     }
 
     private void scheduleNextBatchAsync() {
-        List<WaitingTask<T, R>> waitingNodes = takeAllWaitingTasksOrFreeLock();
+        List<WaitingTask<T, R>> waitingNodes = takeNextBatchOrFreeLock();
         if (waitingNodes.isEmpty()) {
             return;
         }
+        recordBatchSize(waitingNodes.size());
 
         try {
             List<T> commandsInBatch = new ArrayList<>(waitingNodes.size());
@@ -216,38 +274,66 @@ public class BatchHelper<T, R, CT, CR> {
     }
 
     private R executeBatch(WaitingTask<T, R> currentWaitingNode) {
-        List<WaitingTask<T, R>> waitingNodes = takeAllWaitingTasksOrFreeLock();
-
-        if (waitingNodes.size() == 1) {
-            T singleCommand = waitingNodes.get(0).wrappedTask;
-            return taskExecutor.apply(singleCommand);
+        if (lingerNanos > 0 && overflow.size() < maxBatchSize) {
+            // give a chance to another tasks to join the batch
+            LockSupport.parkNanos(lingerNanos);
         }
 
-        try {
-            int resultIndex = -1;
-            List<T> commandsInBatch = new ArrayList<>(waitingNodes.size());
-            for (int i = 0; i < waitingNodes.size(); i++) {
-                WaitingTask<T, R> waitingNode = waitingNodes.get(i);
-                commandsInBatch.add(waitingNode.wrappedTask);
+        // when maxBatchSize is limited the current task can be not in the first batch,
+        // so current thread executes batches until own task is completed
+        while (true) {
+            List<WaitingTask<T, R>> waitingNodes = takeNextBatchOrFreeLock();
+            recordBatchSize(waitingNodes.size());
+
+            if (waitingNodes.size() == 1) {
+                WaitingTask<T, R> waitingNode = waitingNodes.get(0);
                 if (waitingNode == currentWaitingNode) {
-                    resultIndex = i;
+                    return taskExecutor.apply(waitingNode.wrappedTask);
                 }
+                try {
+                    waitingNode.future.complete(taskExecutor.apply(waitingNode.wrappedTask));
+                } catch (Throwable e) {
+                    waitingNode.future.completeExceptionally(e);
+                }
+                continue;
             }
-            CT multiCommand = taskCombiner.apply(commandsInBatch);
 
-            CR multiResult = combinedTaskExecutor.apply(multiCommand);
-            List<R> singleResults = combinedResultSplitter.apply(multiResult);
-            for (int i = 0; i < waitingNodes.size(); i++) {
-                R singleResult = singleResults.get(i);
-                waitingNodes.get(i).future.complete(singleResult);
-            }
+            int resultIndex = -1;
+            try {
+                List<T> commandsInBatch = new ArrayList<>(waitingNodes.size());
+                for (int i = 0; i < waitingNodes.size(); i++) {
+                    WaitingTask<T, R> waitingNode = waitingNodes.get(i);
+                    commandsInBatch.add(waitingNode.wrappedTask);
+                    if (waitingNode == currentWaitingNode) {
+                        resultIndex = i;
+                    }
+                }
+                CT multiCommand = taskCombiner.apply(commandsInBatch);
 
-            return singleResults.get(resultIndex);
-        } catch (Throwable e) {
-            for (WaitingTask<T, R> waitingNode : waitingNodes) {
-                waitingNode.future.completeExceptionally(e);
+                CR multiResult = combinedTaskExecutor.apply(multiCommand);
+                List<R> singleResults = combinedResultSplitter.apply(multiResult);
+                for (int i = 0; i < waitingNodes.size(); i++) {
+                    R singleResult = singleResults.get(i);
+                    waitingNodes.get(i).future.complete(singleResult);
+                }
+
+                if (resultIndex >= 0) {
+                    return singleResults.get(resultIndex);
+                }
+            } catch (Throwable e) {
+                for (WaitingTask<T, R> waitingNode : waitingNodes) {
+                    waitingNode.future.completeExceptionally(e);
+                }
+                if (resultIndex >= 0) {
+                    throw new BatchFailedException(e);
+                }
             }
-            throw new BatchFailedException(e);
+        }
+    }
+
+    private void recordBatchSize(int batchSize) {
+        if (histogram != null) {
+            histogram.record(batchSize);
         }
     }
 
@@ -274,6 +360,12 @@ public class BatchHelper<T, R, CT, CR> {
     }
 
     private void wakeupAnyThreadFromNextBatchOrFreeLock() {
+        if (!overflow.isEmpty()) {
+            // tasks from overflow are older than tasks in the stack
+            WaitingTask next = overflow.peekFirst();
+            next.future.complete(NEED_TO_EXECUTE_NEXT_BATCH);
+            return;
+        }
         while (true) {
             WaitingTask previous = headReference.get();
             if (previous == QUEUE_EMPTY_BUT_EXECUTION_IN_PROGRESS) {
@@ -293,11 +385,34 @@ public class BatchHelper<T, R, CT, CR> {
         }
     }
 
-    private List<WaitingTask<T, R>> takeAllWaitingTasksOrFreeLock() {
+    private List<WaitingTask<T, R>> takeNextBatchOrFreeLock() {
+        if (overflow.isEmpty()) {
+            List<WaitingTask<T, R>> waitingNodes = takeAllWaitingTasks(true);
+            if (waitingNodes.size() <= maxBatchSize) {
+                return waitingNodes;
+            }
+            overflow.addAll(waitingNodes);
+        } else {
+            // the lock must not be released because overflow still contains the tasks
+            overflow.addAll(takeAllWaitingTasks(false));
+        }
+
+        int batchSize = Math.min(maxBatchSize, overflow.size());
+        List<WaitingTask<T, R>> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(overflow.pollFirst());
+        }
+        return batch;
+    }
+
+    private List<WaitingTask<T, R>> takeAllWaitingTasks(boolean freeLockIfEmpty) {
         WaitingTask<T, R> head;
         while (true) {
             head = headReference.get();
             if (head == QUEUE_EMPTY_BUT_EXECUTION_IN_PROGRESS) {
+                if (!freeLockIfEmpty) {
+                    return Collections.emptyList();
+                }
                 if (headReference.compareAndSet(QUEUE_EMPTY_BUT_EXECUTION_IN_PROGRESS, QUEUE_EMPTY)) {
                     return Collections.emptyList();
                 } else {
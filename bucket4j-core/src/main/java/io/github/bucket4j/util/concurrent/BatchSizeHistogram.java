@@ -0,0 +1,143 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of batch sizes produced by {@link BatchHelper}.
+ *
+ * <p>
+ * Sizes are accumulated into power-of-two buckets, bucket with index {@code i} counts batches which size is in range {@code [2^i, 2^(i+1))},
+ * so percentiles are reported with precision of one bucket.
+ */
+public class BatchSizeHistogram {
+
+    static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicInteger max = new AtomicInteger();
+
+    /**
+     * Records the size of executed batch
+     *
+     * @param batchSize amount of tasks that were executed together
+     */
+    public void record(int batchSize) {
+        if (batchSize <= 0) {
+            return;
+        }
+        buckets.incrementAndGet(bucketIndex(batchSize));
+        count.increment();
+        sum.add(batchSize);
+        if (batchSize > max.get()) {
+            max.accumulateAndGet(batchSize, Math::max);
+        }
+    }
+
+    /**
+     * @return amount of batches recorded by this histogram
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the total amount of tasks in all recorded batches
+     */
+    public long getTotalTasks() {
+        return sum.sum();
+    }
+
+    /**
+     * @return the biggest recorded batch size
+     */
+    public int getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return mean size of recorded batches, or zero if nothing was recorded
+     */
+    public double getMean() {
+        long batches = count.sum();
+        return batches == 0 ? 0.0 : (double) sum.sum() / batches;
+    }
+
+    /**
+     * Returns the amount of batches which size is in range {@code [2^bucketIndex, 2^(bucketIndex+1))}
+     *
+     * @param bucketIndex index of bucket, from {@code 0} to {@code 31}
+     *
+     * @return amount of batches in the bucket
+     */
+    public long getBucketCount(int bucketIndex) {
+        return buckets.get(bucketIndex);
+    }
+
+    /**
+     * Returns the upper bound of batch size below which the given fraction of batches are observed.
+     *
+     * @param quantile quantile in range {@code [0, 1]}
+     *
+     * @return the upper bound of bucket that contains requested quantile, or zero if nothing was recorded
+     */
+    public int getQuantileUpperBound(double quantile) {
+        if (quantile < 0.0 || quantile > 1.0) {
+            throw new IllegalArgumentException("quantile must be in range [0, 1], but was " + quantile);
+        }
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(quantile * total));
+        long accumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            accumulated += snapshot[i];
+            if (accumulated >= threshold) {
+                return Math.min(max.get(), i == BUCKET_COUNT - 1 ? Integer.MAX_VALUE : (1 << (i + 1)) - 1);
+            }
+        }
+        return max.get();
+    }
+
+    static int bucketIndex(int batchSize) {
+        return 31 - Integer.numberOfLeadingZeros(batchSize);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchSizeHistogram{" +
+                "count=" + getCount() +
+                ", mean=" + getMean() +
+                ", max=" + getMax() +
+                '}';
+    }
+
+}
@@ -0,0 +1,305 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.util.concurrent;
+
+import io.github.bucket4j.util.concurrent.BatchHelper.BatchFailedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Alternative to {@link BatchHelper} for synchronous execution that is based on flat-combining.
+ *
+ * <p>
+ * Instead of allocating the node per each task and pushing it to linked stack, the tasks are published into bounded ring of pre-allocated slots,
+ * the producers are ordered by sequence that is claimed via single {@code getAndIncrement}.
+ * The thread that acquires combiner lock drains published slots in sequence order, so there is no need to reverse anything,
+ * executes them as batch and writes results back into the slots. Other threads spin for a short time and then park until their slot is completed.
+ *
+ * <p>
+ * When ring is full the producer waits until the slot is released by producer from the previous round,
+ * so the capacity should be chosen according to the expected count of concurrent callers.
+ *
+ * @param <T> Task type
+ * @param <R> Task result type
+ * @param <CT> Combined task type
+ * @param <CR> Combined task result
+ */
+public class FlatCombiningBatchHelper<T, R, CT, CR> {
+
+    private static final int FREE = 0;
+    private static final int PUBLISHED = 1;
+    private static final int DONE = 2;
+
+    // spinning is useless on single core, because the thread which can complete the slot is not running
+    private static final int SPINS_BEFORE_PARK = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+    private final Function<List<T>, CT> taskCombiner;
+    private final Function<CT, CR> combinedTaskExecutor;
+    private final Function<T, R> taskExecutor;
+    private final Function<CR, List<R>> combinedResultSplitter;
+    private final int maxBatchSize;
+    private final BatchSizeHistogram histogram;
+
+    private final Slot<T, R>[] slots;
+    private final int mask;
+    private final AtomicLong producerSequence = new AtomicLong();
+    private final AtomicBoolean combinerLock = new AtomicBoolean();
+    // written only by owner of combinerLock
+    private volatile long consumerSequence;
+
+    public static <T, R, CT, CR> FlatCombiningBatchHelper<T, R, CT, CR> sync(
+            Function<List<T>, CT> taskCombiner,
+            Function<CT, CR> combinedTaskExecutor,
+            Function<T, R> taskExecutor,
+            Function<CR, List<R>> combinedResultSplitter,
+            int capacity) {
+        return new FlatCombiningBatchHelper<>(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter, capacity, Integer.MAX_VALUE, null);
+    }
+
+    private FlatCombiningBatchHelper(Function<List<T>, CT> taskCombiner,
+                                     Function<CT, CR> combinedTaskExecutor,
+                                     Function<T, R> taskExecutor,
+                                     Function<CR, List<R>> combinedResultSplitter,
+                                     int capacity,
+                                     int maxBatchSize,
+                                     BatchSizeHistogram histogram) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, but was " + capacity);
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive, but was " + maxBatchSize);
+        }
+        this.taskCombiner = requireNonNull(taskCombiner);
+        this.combinedTaskExecutor = requireNonNull(combinedTaskExecutor);
+        this.taskExecutor = requireNonNull(taskExecutor);
+        this.combinedResultSplitter = requireNonNull(combinedResultSplitter);
+        this.histogram = histogram;
+
+        int roundedCapacity = Integer.highestOneBit(capacity);
+        if (roundedCapacity < capacity) {
+            roundedCapacity <<= 1;
+        }
+        this.mask = roundedCapacity - 1;
+        this.maxBatchSize = Math.min(maxBatchSize, roundedCapacity);
+        this.slots = new Slot[roundedCapacity];
+        for (int i = 0; i < roundedCapacity; i++) {
+            slots[i] = new Slot<>(i);
+        }
+    }
+
+    /**
+     * Creates new helper that has the same behavior as this one, but limits the size of batches.
+     *
+     * @param maxBatchSize the maximum amount of tasks in one batch, the batch size is additionally limited by capacity of the ring
+     * @param histogram the histogram where sizes of executed batches are recorded, can be {@code null}
+     *
+     * @return new helper with configured limits
+     */
+    public FlatCombiningBatchHelper<T, R, CT, CR> withLimits(int maxBatchSize, BatchSizeHistogram histogram) {
+        return new FlatCombiningBatchHelper<>(taskCombiner, combinedTaskExecutor, taskExecutor, combinedResultSplitter,
+                slots.length, maxBatchSize, histogram);
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public R execute(T task) {
+        long sequence = producerSequence.getAndIncrement();
+        Slot<T, R> slot = slots[(int) sequence & mask];
+
+        // when ring is full the slot is still occupied by the task from previous round
+        int spins = 0;
+        while (slot.turn != sequence) {
+            spins = backoff(spins);
+        }
+        slot.task = task;
+        slot.waiter = Thread.currentThread();
+        slot.state = PUBLISHED;
+
+        boolean wasInterrupted = false;
+        try {
+            spins = 0;
+            while (true) {
+                if (slot.state == DONE) {
+                    return takeResult(slot, sequence);
+                }
+                if (combinerLock.compareAndSet(false, true)) {
+                    try {
+                        combine(slot);
+                    } finally {
+                        releaseCombinerLock();
+                    }
+                    if (slot.state == DONE) {
+                        continue;
+                    }
+                }
+                if (spins < SPINS_BEFORE_PARK) {
+                    spins++;
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.park(this);
+                    wasInterrupted = wasInterrupted || Thread.interrupted();
+                }
+            }
+        } finally {
+            if (wasInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void combine(Slot<T, R> ownSlot) {
+        List<Slot<T, R>> batch = new ArrayList<>(Math.min(maxBatchSize, 16));
+        while (ownSlot.state != DONE) {
+            long head = consumerSequence;
+            for (long sequence = head; batch.size() < maxBatchSize; sequence++) {
+                Slot<T, R> slot = slots[(int) sequence & mask];
+                if (slot.turn != sequence || slot.state != PUBLISHED) {
+                    break;
+                }
+                batch.add(slot);
+            }
+            if (batch.isEmpty()) {
+                // own task is published but not reachable yet, because some previous producer did not finish publishing
+                return;
+            }
+
+            executeBatch(batch);
+            consumerSequence = head + batch.size();
+            batch.clear();
+        }
+    }
+
+    private void executeBatch(List<Slot<T, R>> batch) {
+        if (histogram != null) {
+            histogram.record(batch.size());
+        }
+
+        if (batch.size() == 1) {
+            Slot<T, R> slot = batch.get(0);
+            try {
+                complete(slot, taskExecutor.apply(slot.task), null);
+            } catch (Throwable e) {
+                complete(slot, null, e);
+            }
+            return;
+        }
+
+        int completed = 0;
+        try {
+            List<T> tasks = new ArrayList<>(batch.size());
+            for (Slot<T, R> slot : batch) {
+                tasks.add(slot.task);
+            }
+            CT combinedTask = taskCombiner.apply(tasks);
+            CR combinedResult = combinedTaskExecutor.apply(combinedTask);
+            List<R> results = combinedResultSplitter.apply(combinedResult);
+            for (; completed < batch.size(); completed++) {
+                complete(batch.get(completed), results.get(completed), null);
+            }
+        } catch (Throwable e) {
+            // completed slots can be already reused by another producers, so they must not be touched
+            BatchFailedException error = new BatchFailedException(e);
+            for (int i = completed; i < batch.size(); i++) {
+                complete(batch.get(i), null, error);
+            }
+        }
+    }
+
+    private void complete(Slot<T, R> slot, R result, Throwable error) {
+        Thread waiter = slot.waiter;
+        slot.result = result;
+        slot.error = error;
+        slot.state = DONE;
+        if (waiter != Thread.currentThread()) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private void releaseCombinerLock() {
+        combinerLock.set(false);
+
+        // the task that was published after last check of combiner is not lost,
+        // because its producer either acquires the lock itself or is woken up there
+        Slot<T, R> head = slots[(int) consumerSequence & mask];
+        if (head.state == PUBLISHED) {
+            Thread waiter = head.waiter;
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    private R takeResult(Slot<T, R> slot, long sequence) {
+        R result = slot.result;
+        Throwable error = slot.error;
+        slot.task = null;
+        slot.result = null;
+        slot.error = null;
+        slot.waiter = null;
+        slot.state = FREE;
+        // pass the slot to the producer from next round
+        slot.turn = sequence + slots.length;
+
+        if (error == null) {
+            return result;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        throw new BatchFailedException(error);
+    }
+
+    private static int backoff(int spins) {
+        if (spins < SPINS_BEFORE_PARK) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+        return spins + 1;
+    }
+
+    private static final class Slot<T, R> {
+
+        volatile long turn;
+        volatile int state = FREE;
+        volatile Thread waiter;
+        T task;
+        R result;
+        Throwable error;
+
+        Slot(long turn) {
+            this.turn = turn;
+        }
+
+    }
+
+}
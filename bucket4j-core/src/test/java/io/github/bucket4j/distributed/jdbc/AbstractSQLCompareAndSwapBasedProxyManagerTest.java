@@ -0,0 +1,54 @@
+package io.github.bucket4j.distributed.jdbc;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AbstractSQLCompareAndSwapBasedProxyManagerTest {
+
+    private final List<String> invocations = new ArrayList<>();
+    private boolean autoCommit = false;
+
+    private final PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {PreparedStatement.class}, (proxy, method, args) -> {
+        if (method.getName().equals("executeUpdate")) {
+            invocations.add("executeUpdate autoCommit=" + autoCommit);
+            return 1;
+        }
+        return null;
+    });
+
+    private final Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {Connection.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+            case "getAutoCommit": return autoCommit;
+            case "setAutoCommit": autoCommit = (Boolean) args[0]; return null;
+            case "prepareStatement": return statement;
+            case "close": invocations.add("close autoCommit=" + autoCommit); return null;
+            default: throw new UnsupportedOperationException(method.getName());
+        }
+    });
+
+    private final DataSource dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {DataSource.class}, (proxy, method, args) -> {
+        if (method.getName().equals("getConnection")) {
+            return connection;
+        }
+        throw new UnsupportedOperationException(method.getName());
+    });
+
+    @Test
+    public void shouldRestoreAutoCommitModeOfConnection() {
+        AbstractSQLCompareAndSwapBasedProxyManager proxyManager = new AbstractSQLCompareAndSwapBasedProxyManager(new SQLProxyConfiguration(dataSource), "INSERT", null) {};
+
+        proxyManager.removeProxy(1L);
+        assertEquals(2, invocations.size());
+        assertEquals("executeUpdate autoCommit=true", invocations.get(0));
+        assertEquals("close autoCommit=false", invocations.get(1));
+    }
+
+}
@@ -0,0 +1,63 @@
+package io.github.bucket4j.distributed.jdbc;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class SQLProxyConfigurationTest {
+
+    private final DataSource dataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {DataSource.class}, (proxy, method, args) -> {
+        throw new UnsupportedOperationException();
+    });
+
+    @Test
+    public void shouldCalculateExpirationTime() {
+        TimeMeterMock clock = new TimeMeterMock(Duration.ofSeconds(100).toNanos());
+        SQLProxyConfiguration configuration = SQLProxyConfigurationBuilder.builder()
+                .withClientSideConfig(ClientSideConfig.getDefault().withClientClock(clock))
+                .withTableSettings(BucketTableSettings.getDefault().withExpiresAtColumn("expires_at"))
+                .withExpirationStrategy(ExpirationAfterWriteStrategy.fixedTimeToLive(Duration.ofSeconds(10)))
+                .build(dataSource);
+
+        assertEquals("expires_at", configuration.getExpiresAtName().get());
+
+        // expiration time is anchored to the wall clock regardless of the clock of buckets
+        long before = System.currentTimeMillis();
+        long expiresAt = configuration.calculateExpiresAtMillis(null);
+        long after = System.currentTimeMillis();
+        assertTrue(expiresAt >= before + 10_000L && expiresAt <= after + 10_000L);
+        assertTrue(configuration.getCurrentTimeMillis() >= before);
+    }
+
+    @Test
+    public void shouldNotExpireByDefault() {
+        SQLProxyConfiguration configuration = SQLProxyConfigurationBuilder.builder()
+                .withTableSettings(BucketTableSettings.getDefault().withExpiresAtColumn("expires_at"))
+                .build(dataSource);
+
+        assertNull(configuration.calculateExpiresAtMillis(null));
+        assertFalse(new SQLProxyConfiguration(dataSource).getExpiresAtName().isPresent());
+    }
+
+    @Test(expected = BucketExceptions.BucketExecutionException.class)
+    public void shouldRequireExpirationColumnForExpirationStrategy() {
+        SQLProxyConfigurationBuilder.builder()
+                .withExpirationStrategy(ExpirationAfterWriteStrategy.fixedTimeToLive(Duration.ofSeconds(10)))
+                .build(dataSource);
+    }
+
+    @Test(expected = BucketExceptions.BucketExecutionException.class)
+    public void constructorShouldRequireExpirationColumnForExpirationStrategy() {
+        new SQLProxyConfiguration(dataSource, ClientSideConfig.getDefault(), BucketTableSettings.getDefault(),
+                ExpirationAfterWriteStrategy.fixedTimeToLive(Duration.ofSeconds(10)));
+    }
+
+}
@@ -0,0 +1,254 @@
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.AbstractBinaryTransaction;
+import io.github.bucket4j.distributed.remote.BucketConfigurationRegistry;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.serialization.InternalSerializationHelper;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.mock.TimeMeterMock;
+import io.github.bucket4j.util.ComparableByContent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationByReferenceTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofMinutes(1)).withId("minutely"))
+            .addLimit(Bandwidth.simple(100, Duration.ofHours(1)).withId("hourly"))
+            .build();
+
+    private static final BucketConfiguration ANOTHER_CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(20, Duration.ofMinutes(1)))
+            .build();
+
+    private final ClientSideConfig byReference = ClientSideConfig.getDefault()
+            .withClientClock(new TimeMeterMock(0))
+            .withConfigurationByReference();
+
+    @Before
+    public void clearRegistry() {
+        BucketConfigurationRegistry.clear();
+    }
+
+    @Test
+    public void persistedStateShouldBeSmallerThanStateWithFullConfiguration() {
+        InMemoryCasProxyManager fullManager = new InMemoryCasProxyManager(ClientSideConfig.getDefault().withClientClock(new TimeMeterMock(0)));
+        fullManager.builder().build(1L, CONFIGURATION).tryConsume(1);
+
+        InMemoryCasProxyManager referenceManager = new InMemoryCasProxyManager(byReference);
+        referenceManager.builder().build(1L, CONFIGURATION).tryConsume(1);
+
+        int fullSize = fullManager.stateMap.get(1L).length;
+        int referenceSize = referenceManager.stateMap.get(1L).length;
+        assertTrue("full state size " + fullSize + ", state size with configuration by reference " + referenceSize,
+                referenceSize < fullSize);
+        assertEquals(1, BucketConfigurationRegistry.size());
+    }
+
+    @Test
+    public void shouldRecoverUnknownConfigurationWithoutLossOfState_compareAndSwap() {
+        InMemoryCasProxyManager proxyManager = new InMemoryCasProxyManager(byReference);
+        checkRecoveryWithoutLossOfState(proxyManager);
+    }
+
+    @Test
+    public void shouldRecoverUnknownConfigurationWithoutLossOfState_binaryTransaction() {
+        InMemoryBinaryProxyManager proxyManager = new InMemoryBinaryProxyManager(byReference);
+        checkRecoveryWithoutLossOfState(proxyManager);
+    }
+
+    private void checkRecoveryWithoutLossOfState(AbstractProxyManager<Long> proxyManager) {
+        BucketProxy bucket = proxyManager.builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(3));
+
+        // emulates restart of node which does not know configuration anymore
+        BucketConfigurationRegistry.clear();
+
+        BucketProxy sameBucketFromAnotherClient = proxyManager.builder().build(1L, CONFIGURATION);
+        assertTrue(sameBucketFromAnotherClient.tryConsume(1));
+        assertEquals(6, sameBucketFromAnotherClient.getAvailableTokens());
+        assertEquals(6, bucket.getAvailableTokens());
+    }
+
+    @Test
+    public void shouldRecreateBucketWhenConfigurationIsUnknownEvenAfterRetry() {
+        InMemoryCasProxyManager proxyManager = new InMemoryCasProxyManager(byReference);
+        assertTrue(proxyManager.builder().build(1L, CONFIGURATION).tryConsume(3));
+        BucketConfigurationRegistry.clear();
+
+        BucketProxy bucket = proxyManager.builder().build(1L, ANOTHER_CONFIGURATION);
+        assertTrue(bucket.tryConsume(1));
+        assertEquals(19, bucket.getAvailableTokens());
+    }
+
+    @Test
+    public void shouldReadStateWithFullConfiguration() {
+        InMemoryCasProxyManager fullManager = new InMemoryCasProxyManager(ClientSideConfig.getDefault().withClientClock(new TimeMeterMock(0)));
+        assertTrue(fullManager.builder().build(1L, CONFIGURATION).tryConsume(3));
+        BucketConfigurationRegistry.clear();
+
+        InMemoryCasProxyManager referenceManager = new InMemoryCasProxyManager(byReference);
+        referenceManager.stateMap.putAll(fullManager.stateMap);
+        BucketProxy bucket = referenceManager.builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(1));
+        assertEquals(6, bucket.getAvailableTokens());
+    }
+
+    @Test
+    public void fingerprintShouldDependOnContentOnly() {
+        BucketConfiguration copy = BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(10, Duration.ofMinutes(1)).withId("minutely"))
+                .addLimit(Bandwidth.simple(100, Duration.ofHours(1)).withId("hourly"))
+                .build();
+        assertEquals(BucketConfigurationRegistry.calculateFingerprint(CONFIGURATION), BucketConfigurationRegistry.calculateFingerprint(copy));
+        assertTrue(BucketConfigurationRegistry.calculateFingerprint(CONFIGURATION) != BucketConfigurationRegistry.calculateFingerprint(ANOTHER_CONFIGURATION));
+    }
+
+    @Test
+    public void shouldRegisterSerializedConfiguration() {
+        byte[] serializedConfiguration = BucketConfigurationRegistry.serializeConfiguration(CONFIGURATION);
+        long fingerprint = BucketConfigurationRegistry.registerSerialized(serializedConfiguration);
+        assertEquals(BucketConfigurationRegistry.calculateFingerprint(CONFIGURATION), fingerprint);
+        assertTrue(ComparableByContent.equals(CONFIGURATION, BucketConfigurationRegistry.find(fingerprint)));
+        assertEquals(fingerprint, BucketConfigurationRegistry.registerSerialized(serializedConfiguration));
+        assertEquals(1, BucketConfigurationRegistry.size());
+    }
+
+    @Test
+    public void shouldEvictConfigurationsOneByOneWhenRegistryIsFull() {
+        long firstFingerprint = BucketConfigurationRegistry.register(CONFIGURATION);
+        for (int capacity = 1; capacity < BucketConfigurationRegistry.MAX_SIZE; capacity++) {
+            BucketConfigurationRegistry.register(BucketConfiguration.builder()
+                    .addLimit(Bandwidth.simple(capacity, Duration.ofMinutes(1)).withId("evictable"))
+                    .build());
+        }
+        assertEquals(BucketConfigurationRegistry.MAX_SIZE, BucketConfigurationRegistry.size());
+
+        long fingerprint = BucketConfigurationRegistry.register(ANOTHER_CONFIGURATION);
+        assertEquals(BucketConfigurationRegistry.MAX_SIZE, BucketConfigurationRegistry.size());
+        assertTrue(ComparableByContent.equals(ANOTHER_CONFIGURATION, BucketConfigurationRegistry.find(fingerprint)));
+
+        // evicted configuration is registered again as usual
+        assertEquals(firstFingerprint, BucketConfigurationRegistry.register(CONFIGURATION));
+        assertTrue(ComparableByContent.equals(CONFIGURATION, BucketConfigurationRegistry.find(firstFingerprint)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireCompatibleVersion() {
+        ClientSideConfig.getDefault().backwardCompatibleWith(Versions.v_8_1_0).withConfigurationByReference();
+    }
+
+    private static class InMemoryCasProxyManager extends AbstractCompareAndSwapBasedProxyManager<Long> {
+
+        private final Map<Long, byte[]> stateMap = new HashMap<>();
+
+        InMemoryCasProxyManager(ClientSideConfig clientSideConfig) {
+            super(clientSideConfig);
+        }
+
+        @Override
+        protected CompareAndSwapOperation beginCompareAndSwapOperation(Long key) {
+            return new CompareAndSwapOperation() {
+                @Override
+                public Optional<byte[]> getStateData() {
+                    return Optional.ofNullable(stateMap.get(key));
+                }
+                @Override
+                public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                    stateMap.put(key, newData);
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(Long key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected CompletableFuture<Void> removeAsync(Long key) {
+            stateMap.remove(key);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void removeProxy(Long key) {
+            stateMap.remove(key);
+        }
+
+        @Override
+        public boolean isAsyncModeSupported() {
+            return false;
+        }
+
+    }
+
+    private static class InMemoryBinaryProxyManager extends AbstractProxyManager<Long> {
+
+        private final Map<Long, byte[]> stateMap = new HashMap<>();
+
+        InMemoryBinaryProxyManager(ClientSideConfig clientSideConfig) {
+            super(clientSideConfig);
+        }
+
+        @Override
+        public <T> CommandResult<T> execute(Long key, Request<T> request) {
+            AbstractBinaryTransaction transaction = new AbstractBinaryTransaction(InternalSerializationHelper.serializeRequest(request)) {
+                @Override
+                public boolean exists() {
+                    return stateMap.containsKey(key);
+                }
+                @Override
+                protected byte[] getRawState() {
+                    return stateMap.get(key);
+                }
+                @Override
+                protected void setRawState(byte[] stateBytes) {
+                    stateMap.put(key, stateBytes);
+                }
+            };
+            return InternalSerializationHelper.deserializeResult(transaction.execute(), request.getBackwardCompatibilityVersion());
+        }
+
+        @Override
+        public <T> CompletableFuture<CommandResult<T>> executeAsync(Long key, Request<T> request) {
+            return CompletableFuture.completedFuture(execute(key, request));
+        }
+
+        @Override
+        protected CompletableFuture<Void> removeAsync(Long key) {
+            stateMap.remove(key);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void removeProxy(Long key) {
+            stateMap.remove(key);
+        }
+
+        @Override
+        public boolean isAsyncModeSupported() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.mock.LockBasedProxyManagerMock;
+import io.github.bucket4j.mock.SelectForUpdateBasedProxyManagerMock;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ExecutionStrategyTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofMinutes(1)))
+            .build();
+
+    @Test
+    public void boundedStrategyShouldNotExceedMaxConcurrency() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            ExecutionStrategy strategy = ExecutionStrategy.background(executor, 3);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxObserved = new AtomicInteger();
+            CountDownLatch release = new CountDownLatch(1);
+
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                int value = i;
+                futures.add(strategy.executeAsync(() -> {
+                    int current = running.incrementAndGet();
+                    maxObserved.accumulateAndGet(current, Math::max);
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    running.decrementAndGet();
+                    return value;
+                }));
+            }
+            Thread.sleep(100);
+            assertEquals(3, running.get());
+            release.countDown();
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, (int) futures.get(i).get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(3, maxObserved.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void selectForUpdateBasedProxyManagerShouldSupportAsyncModeWithConfiguredStrategy() throws Exception {
+        ClientSideConfig config = ClientSideConfig.getDefault()
+                .withClientClock(new TimeMeterMock(0))
+                .withExecutionStrategy(ExecutionStrategy.background(Runnable::run));
+        SelectForUpdateBasedProxyManagerMock<Long> proxyManager = new SelectForUpdateBasedProxyManagerMock<>(config);
+        assertTrue(proxyManager.isAsyncModeSupported());
+
+        AsyncBucketProxy bucket = proxyManager.asAsync().builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(3).get());
+        assertEquals(7L, (long) bucket.getAvailableTokens().get());
+
+        proxyManager.asAsync().removeProxy(1L).get();
+        assertFalse(proxyManager.asAsync().getProxyConfiguration(1L).get().isPresent());
+    }
+
+    @Test
+    public void lockBasedProxyManagerShouldSupportAsyncModeWithConfiguredStrategy() throws Exception {
+        ClientSideConfig config = ClientSideConfig.getDefault()
+                .withClientClock(new TimeMeterMock(0))
+                .withExecutionStrategy(ExecutionStrategy.background(Runnable::run, 1));
+        LockBasedProxyManagerMock<Long> proxyManager = new LockBasedProxyManagerMock<>(config);
+
+        AsyncBucketProxy bucket = proxyManager.asAsync().builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(3).get());
+        assertEquals(7L, (long) bucket.getAvailableTokens().get());
+    }
+
+    @Test
+    public void asyncModeShouldNotBeSupportedWithoutExplicitStrategy() {
+        ClientSideConfig config = ClientSideConfig.getDefault().withClientClock(new TimeMeterMock(0));
+        assertFalse(new SelectForUpdateBasedProxyManagerMock<Long>(config).isAsyncModeSupported());
+        assertFalse(new LockBasedProxyManagerMock<Long>(config).isAsyncModeSupported());
+    }
+
+    @Test
+    public void blockingCompareAndSwapOperationShouldBeExecutedViaStrategy() throws Exception {
+        AtomicInteger submittedTasks = new AtomicInteger();
+        ExecutionStrategy strategy = ExecutionStrategy.background(task -> {
+            submittedTasks.incrementAndGet();
+            task.run();
+        });
+        byte[] persisted = {1, 2, 3};
+        CompareAndSwapOperation blockingOperation = new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData() {
+                return Optional.of(persisted);
+            }
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                return originalData == persisted;
+            }
+        };
+
+        AsyncCompareAndSwapOperation operation = AsyncCompareAndSwapOperation.executeVia(blockingOperation, strategy);
+        assertSame(persisted, operation.getStateData().get().get());
+        assertTrue(operation.compareAndSwap(persisted, new byte[0], null).get());
+        assertFalse(operation.compareAndSwap(new byte[0], new byte[0], null).get());
+        assertEquals(3, submittedTasks.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckMaxConcurrency() {
+        ExecutionStrategy.background(Runnable::run, 0);
+    }
+
+}
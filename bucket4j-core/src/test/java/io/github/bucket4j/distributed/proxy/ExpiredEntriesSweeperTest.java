@@ -0,0 +1,83 @@
+package io.github.bucket4j.distributed.proxy;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ExpiredEntriesSweeperTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void shutdownScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void shouldRemoveExpiredEntriesInBatches() throws Exception {
+        AtomicInteger expiredEntries = new AtomicInteger(25);
+        AtomicInteger invocations = new AtomicInteger();
+        CountDownLatch cleaned = new CountDownLatch(1);
+        ExpiredEntriesCleaner cleaner = batchSize -> {
+            invocations.incrementAndGet();
+            int removed = Math.min(batchSize, expiredEntries.get());
+            if (expiredEntries.addAndGet(-removed) == 0) {
+                cleaned.countDown();
+            }
+            return removed;
+        };
+
+        ExpiredEntriesSweeper sweeper = new ExpiredEntriesSweeper(cleaner, scheduler, 10, Duration.ofMillis(1), Duration.ofMillis(10));
+        sweeper.start();
+        assertTrue(cleaned.await(10, TimeUnit.SECONDS));
+        sweeper.stop();
+        awaitInFlightBatch();
+
+        assertEquals(3, invocations.get());
+        assertEquals(25, sweeper.getRemovedCount());
+        assertEquals(0, sweeper.getFailedBatchCount());
+    }
+
+    @Test
+    public void shouldContinueAfterFailure() throws Exception {
+        CountDownLatch invoked = new CountDownLatch(3);
+        ExpiredEntriesCleaner cleaner = batchSize -> {
+            invoked.countDown();
+            throw new IllegalStateException("database is not available");
+        };
+
+        ExpiredEntriesSweeper sweeper = new ExpiredEntriesSweeper(cleaner, scheduler, 10, Duration.ZERO, Duration.ofMillis(1));
+        sweeper.start();
+        assertTrue(invoked.await(10, TimeUnit.SECONDS));
+        sweeper.stop();
+        awaitInFlightBatch();
+
+        assertTrue(sweeper.getFailedBatchCount() >= 3);
+        assertEquals(0, sweeper.getRemovedCount());
+    }
+
+    private void awaitInFlightBatch() throws Exception {
+        // latch is released from inside of cleaner before sweeper updates its counters,
+        // scheduler is single threaded so this task is executed only after the batch that is in progress
+        scheduler.submit(() -> {}).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckBatchSize() {
+        new ExpiredEntriesSweeper(batchSize -> 0, scheduler, 0, Duration.ZERO, Duration.ofSeconds(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckInterval() {
+        new ExpiredEntriesSweeper(batchSize -> 0, scheduler, 10, Duration.ZERO, Duration.ZERO);
+    }
+
+}
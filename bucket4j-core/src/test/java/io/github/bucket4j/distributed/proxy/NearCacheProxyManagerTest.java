@@ -0,0 +1,173 @@
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.in_memory.InMemoryProxyManager;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.remote.commands.CreateSnapshotCommand;
+import io.github.bucket4j.distributed.remote.commands.MultiCommand;
+import io.github.bucket4j.tck.AbstractDistributedBucketTest;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NearCacheProxyManagerTest extends AbstractDistributedBucketTest<String> {
+
+    private final CountingProxyManager target = new CountingProxyManager();
+    private final NearCacheProxyManager<String> nearCache = new NearCacheProxyManager<>(target, NearCacheConfig.getDefault()
+            .withSyncPeriod(Duration.ofHours(1))
+            .withMaxUnsynchronizedTokens(10)
+            .withMaxSize(2));
+
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(1000, Duration.ofDays(1)))
+            .build();
+
+    @After
+    public void closeNearCache() {
+        nearCache.close();
+    }
+
+    @Override
+    protected ProxyManager<String> getProxyManager() {
+        return new NearCacheProxyManager<>(new InMemoryProxyManager<>(Duration.ofMinutes(1)), NearCacheConfig.getDefault());
+    }
+
+    @Override
+    protected String generateRandomKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Test
+    public void testConsumptionIsServedLocallyWithinThreshold() {
+        Bucket bucket = nearCache.builder().build("key", configuration);
+
+        // first command creates the bucket remotely
+        assertTrue(bucket.tryConsume(1));
+        long remoteCalls = target.remoteCalls.get();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(bucket.tryConsume(1));
+        }
+        assertEquals(remoteCalls, target.remoteCalls.get());
+        assertEquals(10, nearCache.getLocallyExecutedCount());
+
+        // threshold is exceeded, so command goes to the target together with locally consumed tokens
+        assertTrue(bucket.tryConsume(1));
+        assertEquals(remoteCalls + 1, target.remoteCalls.get());
+        assertEquals(988, target.builder().build("key", configuration).getAvailableTokens());
+    }
+
+    @Test
+    public void testFlushSynchronizesLocallyConsumedTokensInBatch() {
+        Bucket bucket1 = nearCache.builder().build("key1", configuration);
+        Bucket bucket2 = nearCache.builder().build("key2", configuration);
+        bucket1.tryConsume(1);
+        bucket2.tryConsume(1);
+        bucket1.tryConsume(5);
+        bucket2.tryConsume(7);
+        long remoteCalls = target.remoteCalls.get();
+
+        nearCache.flush();
+        assertEquals(remoteCalls + 2, target.remoteCalls.get());
+        assertEquals(994, target.builder().build("key1", configuration).getAvailableTokens());
+        assertEquals(992, target.builder().build("key2", configuration).getAvailableTokens());
+
+        // nothing was consumed since last synchronization
+        remoteCalls = target.remoteCalls.get();
+        nearCache.flush();
+        assertEquals(remoteCalls, target.remoteCalls.get());
+    }
+
+    @Test
+    public void testTokensConsumedByOtherNodesAreVisibleAfterSynchronization() {
+        Bucket bucket = nearCache.builder().build("key", configuration);
+        bucket.tryConsume(1);
+
+        target.builder().build("key", configuration).tryConsume(900);
+        assertEquals(999, bucket.getAvailableTokens());
+
+        nearCache.flush();
+        assertEquals(99, bucket.getAvailableTokens());
+    }
+
+    @Test
+    public void testCommandsBypassNearCacheWhenMaxSizeIsReached() {
+        nearCache.builder().build("key1", configuration).tryConsume(1);
+        nearCache.builder().build("key2", configuration).tryConsume(1);
+        assertEquals(2, nearCache.getLocalCount());
+
+        Bucket bucket3 = nearCache.builder().build("key3", configuration);
+        bucket3.tryConsume(1);
+        long remoteCalls = target.remoteCalls.get();
+        bucket3.tryConsume(1);
+        bucket3.tryConsume(1);
+        assertEquals(remoteCalls + 2, target.remoteCalls.get());
+        assertEquals(2, nearCache.getLocalCount());
+    }
+
+    @Test
+    public void testRemovalDiscardsLocalState() {
+        nearCache.builder().build("key", configuration).tryConsume(1);
+        nearCache.removeProxy("key");
+
+        assertEquals(0, nearCache.getLocalCount());
+        assertFalse(target.getProxyConfiguration("key").isPresent());
+    }
+
+    @Test
+    public void testCloseSynchronizesLocallyConsumedTokens() {
+        Bucket bucket = nearCache.builder().build("key", configuration);
+        bucket.tryConsume(1);
+        bucket.tryConsume(9);
+
+        nearCache.close();
+        assertEquals(990, target.builder().build("key", configuration).getAvailableTokens());
+    }
+
+    @Test
+    public void testSynchronizationOfNotConsumedBucketOnlyReadsState() {
+        Bucket bucket = nearCache.builder().build("key", configuration);
+        bucket.tryConsume(1);
+        assertEquals(999, bucket.getAvailableTokens());
+        target.commands.clear();
+
+        nearCache.flush();
+        assertEquals(1, target.commands.size());
+        List<RemoteCommand<?>> syncCommands = ((MultiCommand) target.commands.get(0)).getCommands();
+        assertEquals(1, syncCommands.size());
+        assertTrue(syncCommands.get(0) instanceof CreateSnapshotCommand);
+        assertEquals(999, target.builder().build("key", configuration).getAvailableTokens());
+    }
+
+    private static class CountingProxyManager extends InMemoryProxyManager<String> {
+
+        private final AtomicLong remoteCalls = new AtomicLong();
+        private final List<RemoteCommand<?>> commands = new CopyOnWriteArrayList<>();
+
+        CountingProxyManager() {
+            super(Duration.ofMinutes(1));
+        }
+
+        @Override
+        public <T> CommandResult<T> execute(String key, Request<T> request) {
+            remoteCalls.incrementAndGet();
+            commands.add(request.getCommand());
+            return super.execute(key, request);
+        }
+
+    }
+
+}
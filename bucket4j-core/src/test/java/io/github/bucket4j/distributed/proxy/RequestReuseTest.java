@@ -0,0 +1,114 @@
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RequestReuseTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofMinutes(1)))
+            .build();
+
+    @Test
+    public void requestShouldBeReusedForSharedCommand() {
+        RecordingProxyManager proxyManager = new RecordingProxyManager(ClientSideConfig.getDefault());
+        BucketProxy bucket = proxyManager.builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(1));
+        assertTrue(bucket.tryConsume(1));
+        assertTrue(bucket.tryConsume(1));
+        assertEquals(7, bucket.getAvailableTokens());
+
+        List<Request<?>> requests = proxyManager.requests;
+        // first request is rejected because bucket does not exist, then it is repeated together with configuration
+        assertEquals(5, requests.size());
+        assertSame(requests.get(2), requests.get(3));
+        assertNotSame(requests.get(3), requests.get(4));
+    }
+
+    @Test
+    public void requestShouldNotBeReusedWhenItCarriesClientSideTime() {
+        RecordingProxyManager proxyManager = new RecordingProxyManager(ClientSideConfig.getDefault().withClientClock(new TimeMeterMock(0)));
+        BucketProxy bucket = proxyManager.builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(1));
+        assertTrue(bucket.tryConsume(1));
+        assertTrue(bucket.tryConsume(1));
+
+        List<Request<?>> requests = proxyManager.requests;
+        assertNotSame(requests.get(2), requests.get(3));
+        assertSame(requests.get(2).getCommand(), requests.get(3).getCommand());
+    }
+
+    private static class RecordingProxyManager extends AbstractProxyManager<Long> {
+
+        private final Map<Long, RemoteBucketState> stateMap = new HashMap<>();
+        private final List<Request<?>> requests = new ArrayList<>();
+
+        RecordingProxyManager(ClientSideConfig clientSideConfig) {
+            super(clientSideConfig);
+        }
+
+        @Override
+        protected <T> CommandResult<T> execute(Long key, Request<T> request) {
+            requests.add(request);
+            MutableBucketEntry entry = new MutableBucketEntry() {
+                @Override
+                public boolean exists() {
+                    return stateMap.containsKey(key);
+                }
+                @Override
+                public void set(RemoteBucketState state) {
+                    stateMap.put(key, state);
+                }
+                @Override
+                public RemoteBucketState get() {
+                    return stateMap.get(key).copy();
+                }
+            };
+            Long clientSideTime = request.getClientSideTime();
+            long timeNanos = clientSideTime != null ? clientSideTime : System.currentTimeMillis() * 1_000_000;
+            return request.getCommand().execute(entry, timeNanos);
+        }
+
+        @Override
+        protected <T> CompletableFuture<CommandResult<T>> executeAsync(Long key, Request<T> request) {
+            return CompletableFuture.completedFuture(execute(key, request));
+        }
+
+        @Override
+        protected CompletableFuture<Void> removeAsync(Long key) {
+            stateMap.remove(key);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void removeProxy(Long key) {
+            stateMap.remove(key);
+        }
+
+        @Override
+        public boolean isAsyncModeSupported() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+package io.github.bucket4j.distributed.proxy;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.in_memory.InMemoryProxyManager;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.commands.CreateInitialStateAndExecuteCommand;
+import io.github.bucket4j.distributed.remote.commands.TryConsumeCommand;
+import io.github.bucket4j.tck.AbstractDistributedBucketTest;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedProxyManagerTest extends AbstractDistributedBucketTest<String> {
+
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofMinutes(1)))
+            .build();
+
+    @Override
+    protected ProxyManager<String> getProxyManager() {
+        return new ShardedProxyManager<>(createShards(3));
+    }
+
+    @Override
+    protected String generateRandomKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Test
+    public void testKeysAreSpreadAcrossShards() {
+        Map<String, InMemoryProxyManager<String>> shards = createShards(4);
+        ShardedProxyManager<String> proxyManager = new ShardedProxyManager<>(shards);
+        for (int i = 0; i < 4000; i++) {
+            proxyManager.builder().build("key-" + i, configuration).tryConsume(1);
+        }
+
+        for (Map.Entry<String, InMemoryProxyManager<String>> shard : shards.entrySet()) {
+            int count = 0;
+            for (int i = 0; i < 4000; i++) {
+                String key = "key-" + i;
+                if (shard.getValue().getProxyConfiguration(key).isPresent()) {
+                    assertEquals(shard.getKey(), proxyManager.getShardName(key));
+                    count++;
+                }
+            }
+            assertTrue(shard.getKey() + " owns " + count + " keys", count > 800 && count < 1200);
+        }
+    }
+
+    @Test
+    public void testChoiceOfShardDoesNotDependOnOrderOfShards() {
+        Map<String, InMemoryProxyManager<String>> shards = createShards(5);
+        Map<String, InMemoryProxyManager<String>> reversedShards = new LinkedHashMap<>();
+        List<String> names = new ArrayList<>(shards.keySet());
+        for (int i = names.size() - 1; i >= 0; i--) {
+            reversedShards.put(names.get(i), shards.get(names.get(i)));
+        }
+        ShardedProxyManager<String> proxyManager = new ShardedProxyManager<>(shards);
+        ShardedProxyManager<String> reversedProxyManager = new ShardedProxyManager<>(reversedShards);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(proxyManager.getShardName("key-" + i), reversedProxyManager.getShardName("key-" + i));
+        }
+    }
+
+    @Test
+    public void testOnlyKeysOfChangedShardAreMoved() {
+        ShardedProxyManager<String> proxyManager = new ShardedProxyManager<>(createShards(3));
+        List<ShardedProxyManager.Rebalance<String>> rebalances = new ArrayList<>();
+        proxyManager.addRebalanceListener(rebalances::add);
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            owners.put("key-" + i, proxyManager.getShardName("key-" + i));
+        }
+
+        proxyManager.addShard("shard-3", new InMemoryProxyManager<>(Duration.ofMinutes(1)));
+        assertEquals(1, rebalances.size());
+        int movedCount = 0;
+        for (Map.Entry<String, String> owner : owners.entrySet()) {
+            String key = owner.getKey();
+            String currentOwner = proxyManager.getShardName(key);
+            assertEquals(owner.getValue(), rebalances.get(0).getPreviousShardName(key));
+            assertEquals(currentOwner, rebalances.get(0).getCurrentShardName(key));
+            if (rebalances.get(0).isMoved(key)) {
+                assertEquals("shard-3", currentOwner);
+                movedCount++;
+            } else {
+                assertEquals(owner.getValue(), currentOwner);
+            }
+        }
+        assertTrue(movedCount > 150 && movedCount < 350);
+
+        proxyManager.removeShard("shard-3");
+        assertEquals(2, rebalances.size());
+        for (Map.Entry<String, String> owner : owners.entrySet()) {
+            assertEquals(owner.getValue(), proxyManager.getShardName(owner.getKey()));
+        }
+    }
+
+    @Test
+    public void testExecuteAllGroupsCommandsByShards() throws Exception {
+        Map<String, InMemoryProxyManager<String>> shards = createShards(3);
+        ShardedProxyManager<String> proxyManager = new ShardedProxyManager<>(shards);
+        Map<String, RemoteCommand<Boolean>> commands = new LinkedHashMap<>();
+        for (int i = 0; i < 30; i++) {
+            commands.put("key-" + i, new CreateInitialStateAndExecuteCommand<>(configuration, new TryConsumeCommand(3)));
+        }
+
+        Map<String, CommandResult<Boolean>> results = proxyManager.executeAll(commands);
+        Map<String, CommandResult<Boolean>> asyncResults = proxyManager.executeAllAsync(commands).get();
+
+        assertEquals(commands.keySet(), results.keySet());
+        assertEquals(commands.keySet(), asyncResults.keySet());
+        for (String key : commands.keySet()) {
+            assertTrue(results.get(key).getData());
+            assertTrue(asyncResults.get(key).getData());
+            assertEquals(4, shards.get(proxyManager.getShardName(key)).builder().build(key, configuration).getAvailableTokens());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShardsAreRequired() {
+        new ShardedProxyManager<>(new HashMap<String, InMemoryProxyManager<String>>());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLastShardCanNotBeRemoved() {
+        ShardedProxyManager<String> proxyManager = new ShardedProxyManager<>(createShards(1));
+        proxyManager.removeShard("shard-0");
+    }
+
+    @Test
+    public void testRemovalOfUnknownShardIsIgnored() {
+        ShardedProxyManager<String> proxyManager = new ShardedProxyManager<>(createShards(2));
+        assertEquals(null, proxyManager.removeShard("unknown"));
+        assertFalse(proxyManager.getShards().containsKey("unknown"));
+        assertEquals(2, proxyManager.getShards().size());
+    }
+
+    @Test
+    public void testByteArrayKeysAreHashedByContent() {
+        Map<String, InMemoryProxyManager<byte[]>> shards = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            shards.put("shard-" + i, new InMemoryProxyManager<>(Duration.ofMinutes(1)));
+        }
+        ShardedProxyManager<byte[]> proxyManager = new ShardedProxyManager<>(shards);
+
+        for (int i = 0; i < 100; i++) {
+            byte[] key = ("key-" + i).getBytes(StandardCharsets.UTF_8);
+            assertEquals(proxyManager.getShardName(key), proxyManager.getShardName(key.clone()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testArrayKeysOtherThanByteArrayAreRejectedByDefaultHasher() {
+        Map<String, InMemoryProxyManager<long[]>> shards = new LinkedHashMap<>();
+        shards.put("shard-0", new InMemoryProxyManager<>(Duration.ofMinutes(1)));
+        shards.put("shard-1", new InMemoryProxyManager<>(Duration.ofMinutes(1)));
+        new ShardedProxyManager<>(shards).getShardName(new long[] {42});
+    }
+
+    private static Map<String, InMemoryProxyManager<String>> createShards(int count) {
+        Map<String, InMemoryProxyManager<String>> shards = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            shards.put("shard-" + i, new InMemoryProxyManager<>(Duration.ofMinutes(1)));
+        }
+        return shards;
+    }
+
+}
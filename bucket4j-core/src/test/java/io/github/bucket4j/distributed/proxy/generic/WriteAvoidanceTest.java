@@ -0,0 +1,130 @@
+package io.github.bucket4j.distributed.proxy.generic;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.TokensInheritanceStrategy;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WriteAvoidanceTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofMinutes(1)))
+            .build();
+
+    private final TimeMeterMock clock = new TimeMeterMock(0);
+    private final WriteCountingProxyManager proxyManager = new WriteCountingProxyManager(ClientSideConfig.getDefault().withClientClock(clock));
+
+    @Test
+    public void readOnlyAndRejectedCommandsShouldNotWrite() {
+        BucketProxy bucket = proxyManager.builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(10));
+        assertEquals(1, proxyManager.writes);
+
+        clock.addSeconds(6);
+        assertEquals(1, bucket.getAvailableTokens());
+        bucket.estimateAbilityToConsume(5);
+        assertFalse(bucket.tryConsume(5));
+        assertFalse(bucket.tryConsumeAndReturnRemaining(5).isConsumed());
+        assertEquals(1, proxyManager.writes);
+
+        assertTrue(bucket.tryConsume(1));
+        assertEquals(2, proxyManager.writes);
+        assertEquals(0, bucket.getAvailableTokens());
+    }
+
+    @Test
+    public void initializationOfExistedBucketShouldNotWriteWhenTargetCommandIsReadOnly() {
+        assertTrue(proxyManager.builder().build(1L, CONFIGURATION).tryConsume(3));
+        assertEquals(1, proxyManager.writes);
+
+        // another client which did not initialize the bucket yet sends command together with configuration
+        BucketProxy anotherClient = proxyManager.builder().build(1L, CONFIGURATION);
+        assertEquals(7, anotherClient.getAvailableTokens());
+        assertEquals(1, proxyManager.writes);
+    }
+
+    @Test
+    public void implicitConfigurationReplacementShouldWriteOnlyWhenConfigurationIsReplaced() {
+        BucketProxy bucket = proxyManager.builder()
+                .withImplicitConfigurationReplacement(1, TokensInheritanceStrategy.AS_IS)
+                .build(1L, CONFIGURATION);
+        assertEquals(10, bucket.getAvailableTokens());
+        assertEquals(1, proxyManager.writes);
+        assertEquals(10, bucket.getAvailableTokens());
+        assertEquals(1, proxyManager.writes);
+
+        BucketProxy upgradedBucket = proxyManager.builder()
+                .withImplicitConfigurationReplacement(2, TokensInheritanceStrategy.AS_IS)
+                .build(1L, CONFIGURATION);
+        assertEquals(10, upgradedBucket.getAvailableTokens());
+        assertEquals(2, proxyManager.writes);
+        assertEquals(10, upgradedBucket.getAvailableTokens());
+        assertEquals(2, proxyManager.writes);
+    }
+
+    private static class WriteCountingProxyManager extends AbstractCompareAndSwapBasedProxyManager<Long> {
+
+        private final Map<Long, byte[]> stateMap = new HashMap<>();
+        private int writes;
+
+        WriteCountingProxyManager(ClientSideConfig clientSideConfig) {
+            super(clientSideConfig);
+        }
+
+        @Override
+        protected CompareAndSwapOperation beginCompareAndSwapOperation(Long key) {
+            return new CompareAndSwapOperation() {
+                @Override
+                public Optional<byte[]> getStateData() {
+                    return Optional.ofNullable(stateMap.get(key));
+                }
+                @Override
+                public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                    writes++;
+                    stateMap.put(key, newData);
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(Long key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected CompletableFuture<Void> removeAsync(Long key) {
+            stateMap.remove(key);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void removeProxy(Long key) {
+            stateMap.remove(key);
+        }
+
+        @Override
+        public boolean isAsyncModeSupported() {
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,202 @@
+package io.github.bucket4j.distributed.proxy.generic.compare_and_swap;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class CompareAndSwapRetryPolicyTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofMinutes(1)))
+            .build();
+
+    @Test
+    public void shouldRetryUntilSuccessByDefault() throws Exception {
+        FailingCasProxyManager proxyManager = new FailingCasProxyManager(ClientSideConfig.getDefault(), 10_000);
+
+        BucketProxy bucket = proxyManager.builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(1));
+
+        proxyManager.failuresToEmulate = 10_000;
+        AsyncBucketProxy asyncBucket = proxyManager.asAsync().builder().build(1L, CONFIGURATION);
+        assertTrue(asyncBucket.tryConsume(1).get());
+        assertEquals(8, bucket.getAvailableTokens());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenAttemptsAreExhausted() throws Exception {
+        DefaultCompareAndSwapRetryListener listener = CompareAndSwapRetryListener.createDefault(10);
+        CompareAndSwapRetryPolicy retryPolicy = CompareAndSwapRetryPolicy.maxAttempts(3).withListener(listener);
+        FailingCasProxyManager proxyManager = new FailingCasProxyManager(ClientSideConfig.getDefault().withCompareAndSwapRetryPolicy(retryPolicy), 3);
+
+        try {
+            proxyManager.builder().build(1L, CONFIGURATION).tryConsume(1);
+            fail();
+        } catch (BucketExceptions.BucketExecutionException e) {
+            // ok
+        }
+        assertEquals(2, listener.getRetryCount());
+        assertEquals(2, listener.getRetryCount(1L));
+        assertEquals(1, listener.getExhaustedCount());
+
+        proxyManager.failuresToEmulate = 3;
+        try {
+            proxyManager.asAsync().builder().build(1L, CONFIGURATION).tryConsume(1).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof BucketExceptions.BucketExecutionException);
+        }
+        assertEquals(4, listener.getRetryCount());
+        assertEquals(2, listener.getExhaustedCount());
+    }
+
+    @Test
+    public void retryCountersPerKeyShouldBeBounded() {
+        DefaultCompareAndSwapRetryListener listener = CompareAndSwapRetryListener.createDefault(2);
+        for (long key = 1; key <= 3; key++) {
+            listener.onRetry(key, 1);
+            listener.onRetry(key, 2);
+        }
+        listener.onRetry(new byte[] {1}, 1);
+        assertEquals(7, listener.getRetryCount());
+        assertEquals(2, listener.getRetryCountPerKey().size());
+        assertEquals(2, listener.getRetryCount(1L));
+        assertEquals(0, listener.getRetryCount(3L));
+
+        listener.resetRetryCountPerKey();
+        listener.onRetry(new byte[] {1}, 1);
+        assertEquals(1, listener.getRetryCount(new byte[] {1}));
+
+        DefaultCompareAndSwapRetryListener aggregatedOnly = CompareAndSwapRetryListener.createDefault();
+        aggregatedOnly.onRetry(1L, 1);
+        assertEquals(1, aggregatedOnly.getRetryCount());
+        assertTrue(aggregatedOnly.getRetryCountPerKey().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckMaxTrackedKeys() {
+        CompareAndSwapRetryListener.createDefault(0);
+    }
+
+    @Test
+    public void shouldFallbackToLocalEstimateWhenAttemptsAreExhausted() throws Exception {
+        CompareAndSwapRetryPolicy retryPolicy = CompareAndSwapRetryPolicy.maxAttempts(2)
+                .withExponentialBackoff(Duration.ofNanos(1), Duration.ofMillis(1))
+                .withFallbackToLocalEstimate();
+        FailingCasProxyManager proxyManager = new FailingCasProxyManager(ClientSideConfig.getDefault().withCompareAndSwapRetryPolicy(retryPolicy), 2);
+
+        BucketProxy bucket = proxyManager.builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(1));
+        assertNull(proxyManager.stateMap.get(1L));
+
+        proxyManager.failuresToEmulate = 2;
+        assertTrue(proxyManager.asAsync().builder().build(1L, CONFIGURATION).tryConsume(1).get());
+        assertNull(proxyManager.stateMap.get(1L));
+
+        // nothing was persisted, so bucket is created from scratch
+        assertEquals(10, bucket.getAvailableTokens());
+    }
+
+    @Test
+    public void backoffShouldBeBoundedByMaxDelay() {
+        CompareAndSwapRetryPolicy retryPolicy = CompareAndSwapRetryPolicy.maxAttempts(100)
+                .withExponentialBackoff(Duration.ofMillis(1), Duration.ofMillis(8));
+        for (int failedAttempts = 1; failedAttempts < 100; failedAttempts++) {
+            long upperBound = Math.min(Duration.ofMillis(8).toNanos(), Duration.ofMillis(1).toNanos() << Math.min(failedAttempts - 1, 10));
+            long backoff = retryPolicy.calculateBackoffNanos(failedAttempts);
+            assertTrue(backoff >= 0 && backoff <= upperBound);
+        }
+        assertEquals(0, CompareAndSwapRetryPolicy.UNLIMITED.calculateBackoffNanos(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckMaxAttempts() {
+        CompareAndSwapRetryPolicy.maxAttempts(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckMaxDelay() {
+        CompareAndSwapRetryPolicy.maxAttempts(3).withExponentialBackoff(Duration.ofMillis(10), Duration.ofMillis(1));
+    }
+
+    private static class FailingCasProxyManager extends AbstractCompareAndSwapBasedProxyManager<Long> {
+
+        private final Map<Long, byte[]> stateMap = new HashMap<>();
+        private int failuresToEmulate;
+
+        FailingCasProxyManager(ClientSideConfig clientSideConfig, int failuresToEmulate) {
+            super(clientSideConfig.withClientClock(new TimeMeterMock(0)));
+            this.failuresToEmulate = failuresToEmulate;
+        }
+
+        @Override
+        protected CompareAndSwapOperation beginCompareAndSwapOperation(Long key) {
+            return new CompareAndSwapOperation() {
+                @Override
+                public Optional<byte[]> getStateData() {
+                    return Optional.ofNullable(stateMap.get(key));
+                }
+                @Override
+                public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                    return tryCompareAndSwap(key, newData);
+                }
+            };
+        }
+
+        @Override
+        protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(Long key) {
+            return new AsyncCompareAndSwapOperation() {
+                @Override
+                public CompletableFuture<Optional<byte[]>> getStateData() {
+                    return CompletableFuture.completedFuture(Optional.ofNullable(stateMap.get(key)));
+                }
+                @Override
+                public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                    return CompletableFuture.completedFuture(tryCompareAndSwap(key, newData));
+                }
+            };
+        }
+
+        private boolean tryCompareAndSwap(Long key, byte[] newData) {
+            if (failuresToEmulate > 0) {
+                failuresToEmulate--;
+                return false;
+            }
+            stateMap.put(key, newData);
+            return true;
+        }
+
+        @Override
+        protected CompletableFuture<Void> removeAsync(Long key) {
+            stateMap.remove(key);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void removeProxy(Long key) {
+            stateMap.remove(key);
+        }
+
+        @Override
+        public boolean isAsyncModeSupported() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package io.github.bucket4j.distributed.proxy.generic.select_for_update;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.commands.CreateInitialStateAndExecuteCommand;
+import io.github.bucket4j.distributed.remote.commands.TryConsumeCommand;
+import io.github.bucket4j.mock.SelectForUpdateBasedProxyManagerMock;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SelectForUpdateBatchExecutionTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(2, Duration.ofMinutes(1)))
+            .build();
+
+    private final SelectForUpdateBasedProxyManagerMock<Long> proxyManager = new SelectForUpdateBasedProxyManagerMock<>(
+            ClientSideConfig.getDefault().withClientClock(new TimeMeterMock(0)));
+
+    @Test
+    public void shouldExecuteCommandsInSingleTransactionInNaturalOrderOfKeys() {
+        Map<Long, RemoteCommand<Boolean>> commands = new LinkedHashMap<>();
+        commands.put(3L, new CreateInitialStateAndExecuteCommand<>(CONFIGURATION, new TryConsumeCommand(1)));
+        commands.put(1L, new CreateInitialStateAndExecuteCommand<>(CONFIGURATION, new TryConsumeCommand(2)));
+        commands.put(2L, new CreateInitialStateAndExecuteCommand<>(CONFIGURATION, new TryConsumeCommand(3)));
+
+        // first transaction creates missing rows, second one executes commands
+        Map<Long, CommandResult<Boolean>> results = proxyManager.executeAll(commands);
+        assertEquals(Arrays.asList(1L, 2L, 3L), Arrays.asList(results.keySet().toArray()));
+        assertTrue(results.get(1L).getData());
+        assertFalse(results.get(2L).getData());
+        assertTrue(results.get(3L).getData());
+        assertEquals(Arrays.asList(Arrays.asList(1L, 2L, 3L), Arrays.asList(1L, 2L, 3L)), proxyManager.getLockedKeys());
+
+        // state is shared with single key execution
+        BucketProxy bucket1 = proxyManager.builder().build(1L, CONFIGURATION);
+        BucketProxy bucket3 = proxyManager.builder().build(3L, CONFIGURATION);
+        assertEquals(0, bucket1.getAvailableTokens());
+        assertEquals(1, bucket3.getAvailableTokens());
+
+        results = proxyManager.executeAll(commands);
+        assertFalse(results.get(1L).getData());
+        assertFalse(results.get(2L).getData());
+        assertTrue(results.get(3L).getData());
+        assertEquals(3, proxyManager.getLockedKeys().size());
+        assertEquals(0, bucket3.getAvailableTokens());
+    }
+
+    @Test
+    public void shouldReturnBucketNotFoundForNonInitializationCommand() {
+        Map<Long, RemoteCommand<Boolean>> commands = new LinkedHashMap<>();
+        commands.put(1L, new TryConsumeCommand(1));
+        commands.put(2L, new CreateInitialStateAndExecuteCommand<>(CONFIGURATION, new TryConsumeCommand(1)));
+
+        Map<Long, CommandResult<Boolean>> results = proxyManager.executeAll(commands);
+        assertTrue(results.get(1L).isBucketNotFound());
+        assertTrue(results.get(2L).getData());
+    }
+
+    @Test
+    public void shouldTryConsumeFromSeveralBucketsInSingleTransaction() throws Exception {
+        Map<Long, Long> tokensToConsume = new LinkedHashMap<>();
+        tokensToConsume.put(2L, 2L);
+        tokensToConsume.put(1L, 3L);
+
+        Map<Long, Boolean> results = proxyManager.tryConsumeAll(tokensToConsume, () -> CONFIGURATION);
+        assertEquals(Arrays.asList(1L, 2L), Arrays.asList(results.keySet().toArray()));
+        assertFalse(results.get(1L));
+        assertTrue(results.get(2L));
+
+        tokensToConsume.put(1L, 1L);
+        results = proxyManager.tryConsumeAll(tokensToConsume, () -> CONFIGURATION);
+        assertTrue(results.get(1L));
+        assertFalse(results.get(2L));
+        assertEquals(1, proxyManager.builder().build(1L, CONFIGURATION).getAvailableTokens());
+    }
+
+    @Test
+    public void shouldRejectKeysThatAreNotComparable() {
+        SelectForUpdateBasedProxyManagerMock<Object> proxyManager = new SelectForUpdateBasedProxyManagerMock<>(ClientSideConfig.getDefault());
+        Map<Object, RemoteCommand<Boolean>> commands = new LinkedHashMap<>();
+        commands.put(new Object(), new CreateInitialStateAndExecuteCommand<>(CONFIGURATION, new TryConsumeCommand(1)));
+        commands.put(new Object(), new CreateInitialStateAndExecuteCommand<>(CONFIGURATION, new TryConsumeCommand(1)));
+
+        try {
+            proxyManager.executeAll(commands);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains(Object.class.getTypeName()));
+        }
+        assertTrue(proxyManager.getLockedKeys().isEmpty());
+    }
+
+    @Test
+    public void shouldFailWhenBatchTransactionIsNotSupported() {
+        SelectForUpdateBasedProxyManagerMock<Long> proxyManager = new SelectForUpdateBasedProxyManagerMock<Long>(ClientSideConfig.getDefault()) {
+            @Override
+            public boolean isBatchTransactionSupported() {
+                return false;
+            }
+        };
+        Map<Long, RemoteCommand<Boolean>> commands = new LinkedHashMap<>();
+        commands.put(1L, new CreateInitialStateAndExecuteCommand<>(CONFIGURATION, new TryConsumeCommand(1)));
+
+        try {
+            proxyManager.executeAll(commands);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // ok
+        }
+        assertTrue(proxyManager.getLockedKeys().isEmpty());
+    }
+
+}
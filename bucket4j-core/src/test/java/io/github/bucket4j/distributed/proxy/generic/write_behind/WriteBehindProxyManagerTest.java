@@ -0,0 +1,255 @@
+package io.github.bucket4j.distributed.proxy.generic.write_behind;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ExecutionStrategy;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WriteBehindProxyManagerTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofMinutes(1)))
+            .build();
+
+    private InMemoryWriteBehindProxyManager proxyManager;
+
+    @After
+    public void close() {
+        if (proxyManager != null) {
+            proxyManager.failStore = false;
+            proxyManager.close();
+        }
+    }
+
+    @Test
+    public void shouldPersistModifiedBucketsOnlyOnFlush() {
+        proxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault().withFlushInterval(Duration.ofHours(1)));
+        BucketProxy bucket = proxyManager.builder().build(1L, CONFIGURATION);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryConsume(1));
+        }
+        assertTrue(proxyManager.storage.isEmpty());
+        assertEquals(1, proxyManager.getLoadedCount());
+        assertEquals(1, proxyManager.getDirtyCount());
+
+        proxyManager.flush();
+        assertEquals(1, proxyManager.storeInvocations);
+        assertEquals(1, proxyManager.getFlushedCount());
+        assertEquals(0, proxyManager.getDirtyCount());
+
+        // state is restored from storage by another instance
+        InMemoryWriteBehindProxyManager anotherProxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault());
+        anotherProxyManager.storage.putAll(proxyManager.storage);
+        assertEquals(7, anotherProxyManager.builder().build(1L, CONFIGURATION).getAvailableTokens());
+        anotherProxyManager.close();
+    }
+
+    @Test
+    public void shouldFlushByBatches() {
+        proxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault()
+                .withFlushInterval(Duration.ofHours(1))
+                .withMaxBatchSize(1000));
+        for (long key = 0; key < 2500; key++) {
+            proxyManager.builder().build(key, CONFIGURATION).tryConsume(1);
+        }
+        proxyManager.flush();
+        assertEquals(2500, proxyManager.storage.size());
+        assertEquals(3, proxyManager.storeInvocations);
+    }
+
+    @Test
+    public void shouldKeepBucketsDirtyWhenFlushFailed() {
+        proxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault().withFlushInterval(Duration.ofHours(1)));
+        proxyManager.builder().build(1L, CONFIGURATION).tryConsume(1);
+
+        proxyManager.failStore = true;
+        try {
+            proxyManager.flush();
+            fail();
+        } catch (BucketExceptions.BucketExecutionException e) {
+            // expected
+        }
+        assertEquals(1, proxyManager.getFailedFlushCount());
+        assertEquals(1, proxyManager.getDirtyCount());
+
+        proxyManager.failStore = false;
+        proxyManager.flush();
+        assertEquals(1, proxyManager.storage.size());
+        assertEquals(0, proxyManager.getDirtyCount());
+    }
+
+    @Test
+    public void shouldEvictIdleBucketsAfterFlush() throws InterruptedException {
+        proxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault()
+                .withFlushInterval(Duration.ofMillis(10))
+                .withKeepIdle(Duration.ZERO));
+        BucketProxy bucket = proxyManager.builder().build(1L, CONFIGURATION);
+        bucket.tryConsume(1);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (proxyManager.getEvictedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, proxyManager.getEvictedCount());
+        assertEquals(0, proxyManager.getLocalCount());
+        assertEquals(1, proxyManager.storage.size());
+
+        assertEquals(9, bucket.getAvailableTokens());
+        assertEquals(2, proxyManager.getLoadedCount());
+    }
+
+    @Test
+    public void shouldRemoveBucketFromMemoryAndStorage() {
+        proxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault());
+        BucketProxy bucket = proxyManager.builder().build(1L, CONFIGURATION);
+        bucket.tryConsume(1);
+        proxyManager.flush();
+
+        proxyManager.removeProxy(1L);
+        assertTrue(proxyManager.storage.isEmpty());
+        assertEquals(0, proxyManager.getLocalCount());
+        assertEquals(10, bucket.getAvailableTokens());
+    }
+
+    @Test
+    public void removalShouldNotBeOverwrittenByConcurrentLoading() throws Exception {
+        proxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault().withFlushInterval(Duration.ofHours(1)));
+        proxyManager.builder().build(1L, CONFIGURATION).tryConsume(1);
+        proxyManager.flush();
+        proxyManager.close();
+
+        // another instance reads the persisted state and blocks until bucket is removed concurrently
+        InMemoryWriteBehindProxyManager anotherProxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault().withFlushInterval(Duration.ofHours(1)));
+        anotherProxyManager.storage.putAll(proxyManager.storage);
+        proxyManager = anotherProxyManager;
+        anotherProxyManager.loadStarted = new CountDownLatch(1);
+        anotherProxyManager.loadReleased = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> anotherProxyManager.builder().build(1L, CONFIGURATION).tryConsume(1));
+        consumer.start();
+        assertTrue(anotherProxyManager.loadStarted.await(10, TimeUnit.SECONDS));
+
+        Thread remover = new Thread(() -> anotherProxyManager.removeProxy(1L));
+        remover.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (remover.getState() != Thread.State.BLOCKED && remover.getState() != Thread.State.TERMINATED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        anotherProxyManager.loadReleased.countDown();
+        consumer.join();
+        remover.join();
+
+        anotherProxyManager.flush();
+        assertTrue(anotherProxyManager.storage.isEmpty());
+        assertEquals(0, anotherProxyManager.getLocalCount());
+    }
+
+    @Test
+    public void closeShouldPersistLastModifications() {
+        proxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault().withFlushInterval(Duration.ofHours(1)));
+        proxyManager.builder().build(1L, CONFIGURATION).tryConsume(1);
+        proxyManager.close();
+        assertEquals(1, proxyManager.storage.size());
+    }
+
+    @Test
+    public void asyncModeShouldNotBeSupportedWithoutExecutionStrategy() {
+        proxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault());
+        assertFalse(proxyManager.isAsyncModeSupported());
+    }
+
+    @Test
+    public void asyncModeShouldLoadBucketsViaExecutionStrategy() throws Exception {
+        AtomicInteger submittedTasks = new AtomicInteger();
+        ExecutionStrategy executionStrategy = ExecutionStrategy.background(task -> {
+            submittedTasks.incrementAndGet();
+            task.run();
+        });
+        proxyManager = new InMemoryWriteBehindProxyManager(WriteBehindConfig.getDefault(), executionStrategy);
+        assertTrue(proxyManager.isAsyncModeSupported());
+
+        AsyncBucketProxy bucket = proxyManager.asAsync().builder().build(1L, CONFIGURATION);
+        assertTrue(bucket.tryConsume(1).get());
+        assertEquals(1, submittedTasks.get());
+
+        // bucket is held in memory, so storage is not touched
+        assertTrue(bucket.tryConsume(1).get());
+        assertEquals(1, submittedTasks.get());
+        assertEquals(8L, (long) bucket.getAvailableTokens().get());
+
+        proxyManager.asAsync().removeProxy(1L).get();
+        assertEquals(2, submittedTasks.get());
+        assertEquals(0, proxyManager.getLocalCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckBatchSize() {
+        WriteBehindConfig.getDefault().withMaxBatchSize(0);
+    }
+
+    private static class InMemoryWriteBehindProxyManager extends AbstractWriteBehindProxyManager<Long> {
+
+        private final Map<Long, byte[]> storage = new ConcurrentHashMap<>();
+        private volatile int storeInvocations;
+        private volatile boolean failStore;
+        private volatile CountDownLatch loadStarted;
+        private volatile CountDownLatch loadReleased;
+
+        InMemoryWriteBehindProxyManager(WriteBehindConfig config) {
+            super(ClientSideConfig.getDefault().withClientClock(new TimeMeterMock(0)), config);
+        }
+
+        InMemoryWriteBehindProxyManager(WriteBehindConfig config, ExecutionStrategy executionStrategy) {
+            super(ClientSideConfig.getDefault().withClientClock(new TimeMeterMock(0)).withExecutionStrategy(executionStrategy), config);
+        }
+
+        @Override
+        protected byte[] load(Long key) {
+            byte[] data = storage.get(key);
+            if (loadStarted != null) {
+                loadStarted.countDown();
+                try {
+                    loadReleased.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return data;
+        }
+
+        @Override
+        protected void store(List<Long> keys, List<byte[]> data, List<RemoteBucketState> states) {
+            if (failStore) {
+                throw new IllegalStateException("storage is not available");
+            }
+            storeInvocations++;
+            for (int i = 0; i < keys.size(); i++) {
+                storage.put(keys.get(i), data.get(i));
+            }
+        }
+
+        @Override
+        protected void delete(Long key) {
+            storage.remove(key);
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package io.github.bucket4j.distributed.proxy.in_memory;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MutableBucketEntry;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.remote.commands.GetAvailableTokensCommand;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.mock.TimeMeterMock;
+import io.github.bucket4j.tck.AbstractDistributedBucketTest;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InMemoryProxyManagerTest extends AbstractDistributedBucketTest<String> {
+
+    private final TimeMeterMock clock = new TimeMeterMock(0);
+    private final InMemoryProxyManager<String> proxyManagerWithClock = new InMemoryProxyManager<>(Duration.ofSeconds(1), ClientSideConfig.getDefault().withClientClock(clock));
+
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofSeconds(10)))
+            .build();
+
+    @Override
+    protected ProxyManager<String> getProxyManager() {
+        return new InMemoryProxyManager<>(Duration.ofMinutes(1));
+    }
+
+    @Override
+    protected String generateRandomKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Test
+    public void testExpiredBucketsAreRemovedOnCreationOfNewBuckets() {
+        Bucket bucket = proxyManagerWithClock.builder().build("expired", configuration);
+        bucket.tryConsume(10);
+
+        // 10 seconds to full refill plus 1 second to keep
+        clock.addSeconds(11);
+        assertTrue(proxyManagerWithClock.getProxyConfiguration("expired").isPresent());
+
+        proxyManagerWithClock.builder().build("new", configuration).tryConsume(1);
+        assertFalse(proxyManagerWithClock.getProxyConfiguration("expired").isPresent());
+        assertTrue(proxyManagerWithClock.getProxyConfiguration("new").isPresent());
+    }
+
+    @Test
+    public void testConsumptionProlongsExpiration() {
+        Bucket bucket = proxyManagerWithClock.builder().build("key", configuration);
+        bucket.tryConsume(1);
+
+        clock.addSeconds(1);
+        bucket.tryConsume(10);
+        clock.addSeconds(2);
+        assertEquals(0, proxyManagerWithClock.removeExpired(10));
+        assertEquals(2, bucket.getAvailableTokens());
+
+        clock.addSeconds(10);
+        assertEquals(1, proxyManagerWithClock.removeExpired(10));
+        assertFalse(proxyManagerWithClock.getProxyConfiguration("key").isPresent());
+    }
+
+    @Test
+    public void testEntryIsNotLeakedWhenCommandFails() {
+        GetAvailableTokensCommand failingCommand = new GetAvailableTokensCommand() {
+            @Override
+            public CommandResult<Long> execute(MutableBucketEntry mutableEntry, long currentTimeNanos) {
+                throw new IllegalStateException("command failed");
+            }
+        };
+        try {
+            proxyManagerWithClock.execute("key", new Request<>(failingCommand, Versions.getLatest(), 0L));
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(0, proxyManagerWithClock.getEntryCount());
+    }
+
+    @Test
+    public void testRemoveExpiredRespectsBatchSize() {
+        for (int i = 0; i < 5; i++) {
+            proxyManagerWithClock.builder().build("key-" + i, configuration).tryConsume(1);
+        }
+        clock.addSeconds(60);
+
+        assertEquals(3, proxyManagerWithClock.removeExpired(3));
+        assertEquals(2, proxyManagerWithClock.removeExpired(3));
+        assertEquals(0, proxyManagerWithClock.removeExpired(3));
+    }
+
+    @Test
+    public void testNoTokensAreLostOrDuplicatedUnderContention() throws InterruptedException {
+        InMemoryProxyManager<String> proxyManager = new InMemoryProxyManager<>(Duration.ofMinutes(1));
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(100_000, Duration.ofDays(365)))
+                .build();
+        int threadCount = 8;
+        AtomicLong consumed = new AtomicLong();
+        CountDownLatch startLatch = new CountDownLatch(threadCount);
+        CountDownLatch stopLatch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(() -> {
+                Bucket bucket = proxyManager.builder().build("key", configuration);
+                startLatch.countDown();
+                try {
+                    startLatch.await();
+                    while (bucket.tryConsume(1)) {
+                        consumed.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    stopLatch.countDown();
+                }
+            }).start();
+        }
+        stopLatch.await();
+
+        assertEquals(100_000, consumed.get());
+    }
+
+}
@@ -0,0 +1,150 @@
+package io.github.bucket4j.distributed.proxy.optimization.background;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.proxy.optimization.DefaultOptimizationListener;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.delay.DelayOptimization;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.mock.ProxyManagerMock;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BackgroundSyncOptimizationTest {
+
+    private final TimeMeterMock clock = new TimeMeterMock();
+    private int remoteCalls;
+    private final ProxyManagerMock<Long> proxyManager = new ProxyManagerMock<Long>(clock) {
+        @Override
+        public <T> CommandResult<T> execute(Long key, Request<T> request) {
+            remoteCalls++;
+            return super.execute(key, request);
+        }
+    };
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(100, Duration.ofDays(1)))
+            .build();
+    private final ManualScheduler scheduler = new ManualScheduler();
+    private final Optimization optimization = new BackgroundSyncOptimization(
+            new DelayOptimization(new DelayParameters(50, Duration.ofMinutes(1)), new DefaultOptimizationListener(), clock),
+            scheduler, Duration.ofMillis(100)
+    );
+
+    @After
+    public void shutdownScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void shouldFlushPostponedTokensInBackground() {
+        Bucket optimizedBucket = proxyManager.builder().withOptimization(optimization).build(1L, configuration);
+        Bucket notOptimizedBucket = proxyManager.builder().build(1L, configuration);
+
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertEquals(99, notOptimizedBucket.getAvailableTokens());
+        assertEquals(1, scheduler.tasks.size());
+
+        remoteCalls = 0;
+        scheduler.runAll();
+        assertEquals(1, remoteCalls);
+        assertEquals(97, notOptimizedBucket.getAvailableTokens());
+
+        // bucket was not used since previous tick
+        remoteCalls = 0;
+        scheduler.runAll();
+        assertEquals(0, remoteCalls);
+
+        // nothing is postponed, so sync is served locally
+        assertEquals(97, optimizedBucket.getAvailableTokens());
+        remoteCalls = 0;
+        scheduler.runAll();
+        assertEquals(0, remoteCalls);
+    }
+
+    @Test
+    public void shouldFlushPostponedTokensOfAsyncBucketInBackground() throws Exception {
+        AsyncBucketProxy optimizedBucket = proxyManager.asAsync().builder().withOptimization(optimization).build(1L, configuration);
+        Bucket notOptimizedBucket = proxyManager.builder().build(1L, configuration);
+
+        assertTrue(optimizedBucket.tryConsume(1).get());
+        assertTrue(optimizedBucket.tryConsume(2).get());
+        assertEquals(99, notOptimizedBucket.getAvailableTokens());
+
+        scheduler.runAll();
+        assertEquals(97, notOptimizedBucket.getAvailableTokens());
+    }
+
+    @Test
+    public void shouldNotPropagateFailureOfBackgroundSync() {
+        Bucket optimizedBucket = proxyManager.builder().withOptimization(optimization).build(1L, configuration);
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertTrue(optimizedBucket.tryConsume(1));
+
+        proxyManager.setException(new RuntimeException());
+        scheduler.runAll();
+        assertFalse(scheduler.futures.get(0).isCancelled());
+    }
+
+    @Test
+    public void shouldCancelBackgroundSyncWhenBucketBecomesUnreachable() throws Exception {
+        Bucket optimizedBucket = proxyManager.builder().withOptimization(optimization).build(1L, configuration);
+        assertTrue(optimizedBucket.tryConsume(1));
+        optimizedBucket = null;
+
+        ScheduledFuture<?> future = scheduler.futures.get(0);
+        for (int i = 0; i < 100 && !future.isCancelled(); i++) {
+            System.gc();
+            Thread.sleep(10);
+            scheduler.runAll();
+        }
+        assertTrue(future.isCancelled());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckSyncPeriod() {
+        new BackgroundSyncOptimization(optimization, scheduler, Duration.ZERO);
+    }
+
+    private static final class ManualScheduler extends ScheduledThreadPoolExecutor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<ScheduledFuture<?>> futures = new ArrayList<>();
+
+        private ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            tasks.add(command);
+            // the task is executed manually, the real schedule is needed only to provide cancellable future
+            ScheduledFuture<?> future = super.scheduleWithFixedDelay(() -> {}, 1, 1, TimeUnit.DAYS);
+            futures.add(future);
+            return future;
+        }
+
+        private void runAll() {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,206 @@
+package io.github.bucket4j.distributed.proxy.optimization.batch;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.AsyncCommandExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.DefaultOptimizationListener;
+import io.github.bucket4j.distributed.remote.AggregatedTryConsumeResult;
+import io.github.bucket4j.distributed.remote.BucketEntryWrapper;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.MultiResult;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.commands.AggregatedTryConsumeCommand;
+import io.github.bucket4j.distributed.remote.commands.CreateInitialStateAndExecuteCommand;
+import io.github.bucket4j.distributed.remote.commands.GetAvailableTokensCommand;
+import io.github.bucket4j.distributed.remote.commands.MultiCommand;
+import io.github.bucket4j.distributed.remote.commands.TryConsumeCommand;
+import io.github.bucket4j.distributed.versioning.UsageOfUnsupportedApiException;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class AggregatedTryConsumeBatchingTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofMinutes(1)))
+            .addLimit(Bandwidth.simple(100, Duration.ofHours(1)))
+            .build();
+
+    private final BucketEntryWrapper entry = createEntry();
+
+    @Test
+    public void aggregatedCommandShouldBehaveAsMultiCommand() {
+        long[] amounts = {3, 5, 4, 2, 1, 7};
+        BucketEntryWrapper anotherEntry = createEntry();
+
+        List<RemoteCommand<?>> commands = new ArrayList<>();
+        for (long amount : amounts) {
+            commands.add(new TryConsumeCommand(amount));
+        }
+        MultiResult multiResult = new MultiCommand(commands).execute(anotherEntry, 0L).getData();
+        AggregatedTryConsumeCommand aggregatedCommand = AggregatedTryConsumeCommand.aggregateIfPossible(commands);
+        AggregatedTryConsumeResult aggregatedResult = aggregatedCommand.execute(entry, 0L).getData();
+
+        for (int i = 0; i < amounts.length; i++) {
+            assertEquals(multiResult.getResults().get(i).getData(), aggregatedResult.isConsumed(i));
+        }
+        assertEquals(new MultiCommand(commands).getConsumedTokens(multiResult), aggregatedCommand.getConsumedTokens(aggregatedResult));
+        assertEquals(anotherEntry.get().getAvailableTokens(), entry.get().getAvailableTokens());
+        assertEquals(22, aggregatedCommand.estimateTokensToConsume());
+    }
+
+    @Test
+    public void shouldNotAggregateHeterogeneousCommands() {
+        assertNull(AggregatedTryConsumeCommand.aggregateIfPossible(Arrays.asList(new TryConsumeCommand(1), new GetAvailableTokensCommand())));
+        assertNotNull(AggregatedTryConsumeCommand.aggregateIfPossible(Arrays.asList(new TryConsumeCommand(1), new TryConsumeCommand(2))));
+    }
+
+    @Test
+    public void missingBucketShouldBeReportedForEachCommand() {
+        AggregatedTryConsumeCommand command = new AggregatedTryConsumeCommand(new long[] {1, 2, 3});
+        CommandResult<AggregatedTryConsumeResult> result = command.execute(new BucketEntryWrapper(null), 0L);
+        List<CommandResult<?>> results = CommandAggregation.split(command, result);
+        assertEquals(3, results.size());
+        for (CommandResult<?> singleResult : results) {
+            assertTrue(singleResult.isBucketNotFound());
+        }
+    }
+
+    @Test
+    public void batchingShouldUseAggregatedCommandForHomogeneousBatch() throws Exception {
+        RecordingExecutor recordingExecutor = new RecordingExecutor(false);
+        DefaultOptimizationListener listener = new DefaultOptimizationListener();
+        AsyncBatchingExecutor batchingExecutor = new AsyncBatchingExecutor(recordingExecutor, listener);
+
+        CompletableFuture<CommandResult<Long>> first = batchingExecutor.executeAsync(new GetAvailableTokensCommand());
+        List<CompletableFuture<CommandResult<Boolean>>> futures = new ArrayList<>();
+        for (long amount : new long[] {4, 4, 4}) {
+            futures.add(batchingExecutor.executeAsync(new TryConsumeCommand(amount)));
+        }
+        recordingExecutor.releaseBlocked();
+
+        assertEquals(10L, (long) first.get().getData());
+        assertTrue(futures.get(0).get().getData());
+        assertTrue(futures.get(1).get().getData());
+        assertFalse(futures.get(2).get().getData());
+        assertEquals(2, listener.getMergeCount());
+        assertTrue(recordingExecutor.executedCommands.get(1) instanceof AggregatedTryConsumeCommand);
+    }
+
+    @Test
+    public void batchingShouldUseMultiCommandForHeterogeneousBatch() throws Exception {
+        RecordingExecutor recordingExecutor = new RecordingExecutor(false);
+        AsyncBatchingExecutor batchingExecutor = new AsyncBatchingExecutor(recordingExecutor, new DefaultOptimizationListener());
+
+        batchingExecutor.executeAsync(new TryConsumeCommand(1));
+        CompletableFuture<CommandResult<Boolean>> second = batchingExecutor.executeAsync(new TryConsumeCommand(1));
+        CompletableFuture<CommandResult<Long>> third = batchingExecutor.executeAsync(new GetAvailableTokensCommand());
+        recordingExecutor.releaseBlocked();
+
+        assertTrue(second.get().getData());
+        assertEquals(8L, (long) third.get().getData());
+        assertTrue(recordingExecutor.executedCommands.get(1) instanceof MultiCommand);
+    }
+
+    @Test
+    public void batchingShouldFallbackToMultiCommandWhenAggregationIsNotSupported() throws Exception {
+        RecordingExecutor recordingExecutor = new RecordingExecutor(true);
+        AsyncBatchingExecutor batchingExecutor = new AsyncBatchingExecutor(recordingExecutor, new DefaultOptimizationListener());
+
+        for (int round = 0; round < 2; round++) {
+            batchingExecutor.executeAsync(new TryConsumeCommand(1));
+            CompletableFuture<CommandResult<Boolean>> second = batchingExecutor.executeAsync(new TryConsumeCommand(1));
+            CompletableFuture<CommandResult<Boolean>> third = batchingExecutor.executeAsync(new TryConsumeCommand(1));
+            recordingExecutor.releaseBlocked();
+            assertTrue(second.get().getData());
+            assertTrue(third.get().getData());
+        }
+        assertEquals(6, 10 - entry.get().getAvailableTokens());
+
+        List<Class<?>> types = new ArrayList<>();
+        for (RemoteCommand<?> command : recordingExecutor.executedCommands) {
+            types.add(command.getClass());
+        }
+        assertEquals(Arrays.asList(
+                TryConsumeCommand.class, AggregatedTryConsumeCommand.class, MultiCommand.class,
+                TryConsumeCommand.class, MultiCommand.class
+        ), types);
+    }
+
+    @Test
+    public void batchingShouldNotAggregateWhenClientIsCompatibleWithOlderVersion() throws Exception {
+        RecordingExecutor recordingExecutor = new RecordingExecutor(true);
+        recordingExecutor.backwardCompatibilityVersion = Versions.v_8_1_0;
+        AsyncBatchingExecutor batchingExecutor = new AsyncBatchingExecutor(recordingExecutor, new DefaultOptimizationListener());
+
+        batchingExecutor.executeAsync(new TryConsumeCommand(1));
+        CompletableFuture<CommandResult<Boolean>> second = batchingExecutor.executeAsync(new TryConsumeCommand(1));
+        CompletableFuture<CommandResult<Boolean>> third = batchingExecutor.executeAsync(new TryConsumeCommand(1));
+        recordingExecutor.releaseBlocked();
+        assertTrue(second.get().getData());
+        assertTrue(third.get().getData());
+
+        List<Class<?>> types = new ArrayList<>();
+        for (RemoteCommand<?> command : recordingExecutor.executedCommands) {
+            types.add(command.getClass());
+        }
+        assertEquals(Arrays.asList(TryConsumeCommand.class, MultiCommand.class), types);
+    }
+
+    private static BucketEntryWrapper createEntry() {
+        BucketEntryWrapper entry = new BucketEntryWrapper(null);
+        new CreateInitialStateAndExecuteCommand<>(CONFIGURATION, new GetAvailableTokensCommand()).execute(entry, 0L);
+        return entry;
+    }
+
+    /**
+     * Executes commands against local entry, the first command is blocked until {@link #releaseBlocked()} in order to accumulate the batch.
+     */
+    private class RecordingExecutor implements AsyncCommandExecutor {
+
+        private final boolean rejectAggregation;
+        private final List<RemoteCommand<?>> executedCommands = new ArrayList<>();
+        private CompletableFuture<Void> blocker;
+        private boolean blockNext = true;
+        private Version backwardCompatibilityVersion = Versions.getLatest();
+
+        private RecordingExecutor(boolean rejectAggregation) {
+            this.rejectAggregation = rejectAggregation;
+        }
+
+        @Override
+        public <T> CompletableFuture<CommandResult<T>> executeAsync(RemoteCommand<T> command) {
+            executedCommands.add(command);
+            if (rejectAggregation && (command instanceof AggregatedTryConsumeCommand)) {
+                throw new UsageOfUnsupportedApiException(Versions.v_8_1_0.getNumber(), Versions.v_7_0_0.getNumber());
+            }
+            CommandResult<T> result = command.execute(entry, 0L);
+            if (blockNext) {
+                blockNext = false;
+                blocker = new CompletableFuture<>();
+                return blocker.thenApply(nothing -> result);
+            }
+            return CompletableFuture.completedFuture(result);
+        }
+
+        @Override
+        public Version getBackwardCompatibilityVersion() {
+            return backwardCompatibilityVersion;
+        }
+
+        void releaseBlocked() {
+            blocker.complete(null);
+            blockNext = true;
+        }
+
+    }
+
+}
@@ -1,6 +1,7 @@
 package io.github.bucket4j.distributed.proxy.optimization.batch.mock;
 
 import io.github.bucket4j.util.concurrent.BatchHelper;
+import io.github.bucket4j.util.concurrent.FlatCombiningBatchHelper;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -33,6 +34,14 @@ public class MockBatchExecutor {
             CombinedResult::getResults
     );
 
+    private FlatCombiningBatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> flatCombiningBatchHelper = FlatCombiningBatchHelper.sync(
+            CombinedMockCommand::new,
+            this::executeSync,
+            (cmd) -> (Long) this.executeSync(cmd),
+            CombinedResult::getResults,
+            2
+    );
+
     private final MockState state = new MockState();
 
     public MockState getState() {
@@ -47,6 +56,10 @@ public class MockBatchExecutor {
         return asyncBatchHelper;
     }
 
+    public FlatCombiningBatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> getFlatCombiningBatchHelper() {
+        return flatCombiningBatchHelper;
+    }
+
     private <T> CompletableFuture<T> executeAsync(MockCommand<T> command) {
         return CompletableFuture.supplyAsync(() -> command.apply(state), executor);
     }
@@ -0,0 +1,125 @@
+package io.github.bucket4j.distributed.proxy.optimization.delay;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.optimization.AdaptiveDelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.DefaultOptimizationListener;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.mock.ProxyManagerMock;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveDelayOptimizationTest {
+
+    private final TimeMeterMock clock = new TimeMeterMock();
+    private long latencyMillis;
+    private final ProxyManagerMock<Long> proxyManager = new ProxyManagerMock<Long>(clock) {
+        @Override
+        public <T> CommandResult<T> execute(Long key, Request<T> request) {
+            clock.addMillis(latencyMillis);
+            return super.execute(key, request);
+        }
+    };
+    private final DefaultOptimizationListener listener = new DefaultOptimizationListener();
+    private final AdaptiveDelayParameters parameters = new AdaptiveDelayParameters(
+            new DelayParameters(10, Duration.ofMillis(10)),
+            new DelayParameters(100, Duration.ofMillis(1010))
+    );
+
+    @Test
+    public void shouldWidenThresholdsWhenBackendIsSlow() {
+        Bucket bucket = buildBucket(1_000_000);
+
+        latencyMillis = 50;
+        assertTrue(bucket.tryConsume(1));
+        assertEquals(1, listener.getAdjustmentCount());
+        DelayParameters delayParameters = listener.getLastDelayParameters();
+        assertEquals(Duration.ofMillis(500).toNanos(), delayParameters.maxUnsynchronizedTimeoutNanos);
+        assertEquals(54, delayParameters.maxUnsynchronizedTokens);
+        assertEquals(Duration.ofMillis(50).toNanos(), listener.getLastRoundTripNanos());
+
+        // thresholds are widened, so requests are served locally
+        for (int i = 0; i < 50; i++) {
+            assertTrue(bucket.tryConsume(1));
+        }
+        assertEquals(50, listener.getSkipCount());
+    }
+
+    @Test
+    public void shouldTightenThresholdsWhenBackendBecomesFast() {
+        Bucket bucket = buildBucket(1_000_000);
+
+        latencyMillis = 100;
+        assertTrue(bucket.tryConsume(1));
+        assertEquals(Duration.ofMillis(1000).toNanos(), listener.getLastDelayParameters().maxUnsynchronizedTimeoutNanos);
+
+        latencyMillis = 0;
+        for (int i = 0; i < 30; i++) {
+            // each request exceeds the timeout, so each one is synchronized
+            clock.addMillis(1001);
+            assertTrue(bucket.tryConsume(1));
+        }
+        DelayParameters delayParameters = listener.getLastDelayParameters();
+        assertTrue(delayParameters.maxUnsynchronizedTimeoutNanos < Duration.ofMillis(20).toNanos());
+        assertTrue(delayParameters.maxUnsynchronizedTokens < 20);
+    }
+
+    @Test
+    public void shouldNeverLeaveBounds() {
+        Bucket bucket = buildBucket(1_000_000);
+
+        latencyMillis = 10_000;
+        assertTrue(bucket.tryConsume(1));
+        DelayParameters delayParameters = listener.getLastDelayParameters();
+        assertEquals(Duration.ofMillis(1010).toNanos(), delayParameters.maxUnsynchronizedTimeoutNanos);
+        assertEquals(100, delayParameters.maxUnsynchronizedTokens);
+    }
+
+    @Test
+    public void shouldTightenThresholdsWhenBucketIsCloseToExhaustion() {
+        Bucket bucket = buildBucket(100);
+        Bucket notOptimizedBucket = proxyManager.builder().build(1L, BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(100, Duration.ofDays(1)))
+                .build());
+
+        latencyMillis = 100;
+        assertTrue(bucket.tryConsume(1));
+        assertEquals(49, listener.getLastDelayParameters().maxUnsynchronizedTokens);
+
+        // another node consumes almost everything
+        latencyMillis = 0;
+        assertEquals(80, notOptimizedBucket.tryConsumeAsMuchAsPossible(80));
+        clock.addMillis(2000);
+        assertTrue(bucket.tryConsume(1));
+        DelayParameters delayParameters = listener.getLastDelayParameters();
+        assertEquals(10, delayParameters.maxUnsynchronizedTokens);
+        assertEquals(Duration.ofMillis(10).toNanos(), delayParameters.maxUnsynchronizedTimeoutNanos);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckBounds() {
+        new AdaptiveDelayParameters(new DelayParameters(10, Duration.ofSeconds(1)), new DelayParameters(5, Duration.ofSeconds(2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckLatencyMultiplier() {
+        parameters.withLatencyMultiplier(0.0);
+    }
+
+    private Bucket buildBucket(long capacity) {
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(capacity, Duration.ofDays(1)))
+                .build();
+        return proxyManager.builder()
+                .withOptimization(new AdaptiveDelayOptimization(parameters, listener, clock))
+                .build(1L, configuration);
+    }
+
+}
@@ -0,0 +1,187 @@
+package io.github.bucket4j.distributed.proxy.optimization.leasing;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.proxy.optimization.DefaultOptimizationListener;
+import io.github.bucket4j.distributed.proxy.optimization.LeaseParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.mock.ProxyManagerMock;
+import io.github.bucket4j.mock.TimeMeterMock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class LeasingCommandExecutorTest {
+
+    private final TimeMeterMock clock = new TimeMeterMock();
+    private final ProxyManagerMock<Long> proxyManager = new ProxyManagerMock<>(clock);
+    private final DefaultOptimizationListener listener = new DefaultOptimizationListener();
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(100, Duration.ofMillis(1000)))
+            .build();
+    private final LeaseParameters parameters = new LeaseParameters(10, 50, Duration.ofMillis(100));
+    private final Optimization optimization = new LeasingOptimization(parameters, listener, clock);
+
+    @Test
+    public void shouldServeRequestsFromLease() {
+        Bucket optimizedBucket = proxyManager.builder().withOptimization(optimization).build(1L, configuration);
+        Bucket notOptimizedBucket = proxyManager.builder().build(1L, configuration);
+
+        // first request initializes the bucket and takes the lease of minimal size
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertEquals(88, notOptimizedBucket.getAvailableTokens());
+        assertEquals(0, listener.getSkipCount());
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(optimizedBucket.tryConsume(1));
+        }
+        assertEquals(88, notOptimizedBucket.getAvailableTokens());
+        assertEquals(10, listener.getSkipCount());
+
+        // lease was spent without time passing, so lease grows
+        assertTrue(optimizedBucket.tryConsume(1));
+        long nextLeaseSize = 88 - 1 - notOptimizedBucket.getAvailableTokens();
+        assertTrue(nextLeaseSize > 10 && nextLeaseSize <= 50);
+    }
+
+    @Test
+    public void shouldReturnUnusedTokensWhenLeaseExpires() {
+        Bucket optimizedBucket = proxyManager.builder().withOptimization(optimization).build(1L, configuration);
+        Bucket notOptimizedBucket = proxyManager.builder().build(1L, configuration);
+
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertEquals(88, notOptimizedBucket.getAvailableTokens());
+
+        // 10 tokens are refilled, 10 unused tokens are returned, 1 token is consumed and lease is shrunk
+        clock.addMillis(100);
+        assertTrue(optimizedBucket.tryConsume(1));
+        long leasedTokens = 100 - 1 - notOptimizedBucket.getAvailableTokens();
+        assertEquals(10, leasedTokens);
+    }
+
+    @Test
+    public void shouldReturnUnusedTokensBeforeExecutionOfOtherCommands() {
+        Bucket optimizedBucket = proxyManager.builder().withOptimization(optimization).build(1L, configuration);
+        Bucket notOptimizedBucket = proxyManager.builder().build(1L, configuration);
+
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertTrue(optimizedBucket.tryConsume(1));
+        assertEquals(88, notOptimizedBucket.getAvailableTokens());
+
+        assertEquals(97, optimizedBucket.getAvailableTokens());
+        assertEquals(97, notOptimizedBucket.getAvailableTokens());
+    }
+
+    @Test
+    public void shouldRejectWhenRemoteBucketIsEmpty() {
+        Bucket optimizedBucket = proxyManager.builder().withOptimization(optimization).build(1L, configuration);
+        Bucket notOptimizedBucket = proxyManager.builder().build(1L, configuration);
+
+        assertTrue(optimizedBucket.tryConsume(1));
+        notOptimizedBucket.tryConsumeAsMuchAsPossible();
+
+        assertFalse(optimizedBucket.tryConsume(1));
+        assertEquals(0, notOptimizedBucket.getAvailableTokens());
+    }
+
+    @Test
+    public void shouldServeAsyncRequestsFromLease() throws Exception {
+        AsyncBucketProxy optimizedBucket = proxyManager.asAsync().builder().withOptimization(optimization).build(1L, configuration);
+        Bucket notOptimizedBucket = proxyManager.builder().build(1L, configuration);
+
+        assertTrue(optimizedBucket.tryConsume(1).get());
+        assertTrue(optimizedBucket.tryConsume(1).get());
+        assertTrue(optimizedBucket.tryConsume(5).get());
+        assertEquals(88, notOptimizedBucket.getAvailableTokens());
+        assertEquals(1, listener.getSkipCount());
+
+        assertEquals(93, (long) optimizedBucket.getAvailableTokens().get());
+        assertEquals(93, notOptimizedBucket.getAvailableTokens());
+    }
+
+    @Test
+    public void shouldNotLoseTokensUnderConcurrentConsumption() throws Exception {
+        ProxyManagerMock<Long> proxyManager = new ProxyManagerMock<Long>(clock) {
+            @Override
+            public synchronized <T> CommandResult<T> execute(Long key, Request<T> request) {
+                return super.execute(key, request);
+            }
+        };
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(10_000, Duration.ofMinutes(1)))
+                .build();
+        Bucket optimizedBucket = proxyManager.builder().withOptimization(optimization).build(1L, configuration);
+
+        int threadCount = 8;
+        AtomicLong consumed = new AtomicLong();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                for (int j = 0; j < 2_000; j++) {
+                    if (optimizedBucket.tryConsume(1)) {
+                        consumed.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(10_000, consumed.get());
+        assertEquals(0, optimizedBucket.getAvailableTokens());
+        assertTrue(listener.getSkipCount() > 0);
+    }
+
+    @Test
+    public void shouldNotLeaseWhenClientIsCompatibleWithVersionThatDoesNotSupportLeasing() {
+        ProxyManagerMock<Long> oldProxyManager = new ProxyManagerMock<>(clock, Versions.v_8_1_0);
+        Bucket optimizedBucket = oldProxyManager.builder().withOptimization(optimization).build(1L, configuration);
+        Bucket notOptimizedBucket = oldProxyManager.builder().build(1L, configuration);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(optimizedBucket.tryConsume(1));
+        }
+        assertEquals(90, notOptimizedBucket.getAvailableTokens());
+        assertEquals(0, listener.getSkipCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckMinLeaseTokens() {
+        new LeaseParameters(0, 10, Duration.ofSeconds(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckMaxLeaseTokens() {
+        new LeaseParameters(10, 9, Duration.ofSeconds(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckLeaseDuration() {
+        new LeaseParameters(10, 20, Duration.ZERO);
+    }
+
+}
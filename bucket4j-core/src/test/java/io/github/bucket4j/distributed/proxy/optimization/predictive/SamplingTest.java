@@ -0,0 +1,209 @@
+package io.github.bucket4j.distributed.proxy.optimization.predictive;
+
+import io.github.bucket4j.distributed.proxy.optimization.PredictionParameters;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SamplingTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    public void shouldRequireMinSamplesBeforePrediction() {
+        Sampling sampling = new Sampling(new PredictionParameters(3, 5, Duration.ofSeconds(1)));
+
+        sampling.rememberRemoteCommandResult(10, 10, 0);
+        assertTrue(sampling.isNeedToExecuteRemoteImmediately(MILLI));
+        sampling.rememberRemoteCommandResult(10, 120, 100 * MILLI);
+        assertTrue(sampling.isNeedToExecuteRemoteImmediately(150 * MILLI));
+        sampling.rememberRemoteCommandResult(10, 230, 200 * MILLI);
+        assertFalse(sampling.isNeedToExecuteRemoteImmediately(250 * MILLI));
+
+        // 200 tokens consumed by others during 200 millis
+        assertEquals(1.0 / MILLI, sampling.getOthersRate(), 1e-12);
+        assertEquals(200 * MILLI, sampling.getLastSyncTimeNanos());
+        assertEquals(50, sampling.predictedConsumptionByOthersSinceLastSync(250 * MILLI));
+    }
+
+    @Test
+    public void shouldEvictStaleSamples() {
+        Sampling sampling = new Sampling(new PredictionParameters(2, 5, Duration.ofMillis(100)));
+
+        sampling.rememberRemoteCommandResult(0, 0, 0);
+        sampling.rememberRemoteCommandResult(0, 10, 50 * MILLI);
+        assertFalse(sampling.isNeedToExecuteRemoteImmediately(100 * MILLI));
+        assertTrue(sampling.isNeedToExecuteRemoteImmediately(101 * MILLI));
+    }
+
+    @Test
+    public void shouldKeepOnlyMaxSamples() {
+        Sampling sampling = new Sampling(new PredictionParameters(2, 3, Duration.ofSeconds(10)));
+
+        // others consume 10 tokens per milli during first samples and 1 token per milli later
+        sampling.rememberRemoteCommandResult(0, 0, 0);
+        sampling.rememberRemoteCommandResult(0, 1000, 100 * MILLI);
+        sampling.rememberRemoteCommandResult(0, 1100, 200 * MILLI);
+        sampling.rememberRemoteCommandResult(0, 1200, 300 * MILLI);
+        assertEquals(1.0 / MILLI, sampling.getOthersRate(), 1e-12);
+    }
+
+    @Test
+    public void shouldSmoothRateWhenConfigured() {
+        PredictionParameters parameters = new PredictionParameters(2, 2, Duration.ofSeconds(10))
+                .withRateSmoothing(Duration.ofMillis(100));
+        Sampling sampling = new Sampling(parameters);
+
+        sampling.rememberRemoteCommandResult(0, 0, 0);
+        sampling.rememberRemoteCommandResult(0, 100, 100 * MILLI);
+        assertEquals(1.0 / MILLI, sampling.getOthersRate(), 1e-12);
+
+        // burst of 3 tokens per milli is blended with previous rate with equal weights because exactly one half-life has passed
+        sampling.rememberRemoteCommandResult(0, 400, 200 * MILLI);
+        assertEquals(2.0 / MILLI, sampling.getOthersRate(), 1e-12);
+
+        sampling.clear();
+        sampling.rememberRemoteCommandResult(0, 400, 300 * MILLI);
+        sampling.rememberRemoteCommandResult(0, 900, 400 * MILLI);
+        assertEquals(5.0 / MILLI, sampling.getOthersRate(), 1e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckRateSmoothingHalfLife() {
+        new PredictionParameters(2, 10, Duration.ofSeconds(1)).withRateSmoothing(Duration.ZERO);
+    }
+
+    @Test
+    public void shouldBehaveTheSameWayAsLinkedListBasedSampling() {
+        Random random = new Random(42);
+        for (int round = 0; round < 100; round++) {
+            int minSamples = 2 + random.nextInt(3);
+            int maxSamples = minSamples + random.nextInt(5);
+            PredictionParameters parameters = new PredictionParameters(minSamples, maxSamples, 50 + random.nextInt(100));
+            Sampling sampling = new Sampling(parameters);
+            LinkedListSampling reference = new LinkedListSampling(parameters);
+
+            long now = 0;
+            long counter = 0;
+            for (int i = 0; i < 1000; i++) {
+                // time sometimes stays the same, sometimes goes backward because of clock skew
+                now += random.nextInt(40) - 5;
+                if (random.nextInt(10) == 0) {
+                    // observed counter sometimes goes back when bucket is recreated
+                    counter = Math.max(0, counter - random.nextInt(50));
+                } else {
+                    counter += random.nextInt(50);
+                }
+                long selfConsumed = random.nextInt(10);
+                sampling.rememberRemoteCommandResult(selfConsumed, counter, now);
+                reference.rememberRemoteCommandResult(selfConsumed, counter, now);
+
+                long checkTime = now + random.nextInt(60);
+                boolean needToExecuteRemote = reference.isNeedToExecuteRemoteImmediately(checkTime);
+                assertEquals(needToExecuteRemote, sampling.isNeedToExecuteRemoteImmediately(checkTime));
+                assertEquals(reference.othersRate, sampling.getOthersRate(), 0.0);
+                if (!needToExecuteRemote) {
+                    assertEquals(reference.getLastSyncTimeNanos(), sampling.getLastSyncTimeNanos());
+                    assertEquals(reference.predictedConsumptionByOthersSinceLastSync(checkTime), sampling.predictedConsumptionByOthersSinceLastSync(checkTime));
+                }
+            }
+        }
+    }
+
+    /**
+     * Straightforward implementation of sampling that is used as reference of expected behavior.
+     */
+    private static class LinkedListSampling {
+
+        private final PredictionParameters predictionParameters;
+        private final LinkedList<Sample> samples = new LinkedList<>();
+        private double othersRate;
+
+        LinkedListSampling(PredictionParameters predictionParameters) {
+            this.predictionParameters = predictionParameters;
+        }
+
+        boolean isNeedToExecuteRemoteImmediately(long currentTimeNanos) {
+            while (!samples.isEmpty() && currentTimeNanos - samples.getFirst().syncTimeNanos > predictionParameters.sampleMaxAgeNanos) {
+                samples.removeFirst();
+            }
+            return othersRate == Double.POSITIVE_INFINITY || samples.size() < predictionParameters.minSamples;
+        }
+
+        long predictedConsumptionByOthersSinceLastSync(long currentTimeNanos) {
+            long timeSinceLastSync = currentTimeNanos - samples.getLast().syncTimeNanos;
+            if (timeSinceLastSync <= 0 || othersRate == 0.0) {
+                return 0L;
+            }
+            double predictedConsumptionSinceLastSync = othersRate * timeSinceLastSync;
+            return predictedConsumptionSinceLastSync >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) predictedConsumptionSinceLastSync;
+        }
+
+        void rememberRemoteCommandResult(long selfConsumedTokens, long consumedTokensCounter, long now) {
+            othersRate = 0.0;
+            Sample freshSample = new Sample(now, consumedTokensCounter, selfConsumedTokens);
+            Iterator<Sample> samplesIterator = samples.iterator();
+            while (samplesIterator.hasNext()) {
+                Sample sample = samplesIterator.next();
+                if (freshSample.observedConsumptionCounter < sample.observedConsumptionCounter) {
+                    samplesIterator.remove();
+                } else if (now - sample.syncTimeNanos > predictionParameters.sampleMaxAgeNanos) {
+                    samplesIterator.remove();
+                } else if (freshSample.syncTimeNanos < sample.syncTimeNanos) {
+                    samplesIterator.remove();
+                } else if (freshSample.syncTimeNanos == sample.syncTimeNanos && sample != samples.getFirst()) {
+                    freshSample.selfConsumedTokens += sample.selfConsumedTokens;
+                    samplesIterator.remove();
+                }
+            }
+
+            samples.addLast(freshSample);
+            if (samples.size() > predictionParameters.maxSamples) {
+                samples.removeFirst();
+            } else if (samples.size() < predictionParameters.minSamples) {
+                return;
+            }
+
+            Sample oldestSample = samples.getFirst();
+            long tokensSelfConsumedDuringSamplePeriod = 0;
+            for (Sample sample : samples) {
+                if (sample != oldestSample) {
+                    tokensSelfConsumedDuringSamplePeriod += sample.selfConsumedTokens;
+                }
+            }
+            long tokensConsumedByOthersDuringSamplingPeriod = freshSample.observedConsumptionCounter - oldestSample.observedConsumptionCounter - tokensSelfConsumedDuringSamplePeriod;
+            if (tokensConsumedByOthersDuringSamplingPeriod <= 0) {
+                return;
+            }
+            long timeBetweenSynchronizations = freshSample.syncTimeNanos - oldestSample.syncTimeNanos;
+            if (timeBetweenSynchronizations == 0) {
+                othersRate = Double.POSITIVE_INFINITY;
+                return;
+            }
+            othersRate = (double) tokensConsumedByOthersDuringSamplingPeriod / (double) timeBetweenSynchronizations;
+        }
+
+        long getLastSyncTimeNanos() {
+            return samples.getLast().syncTimeNanos;
+        }
+
+        private static class Sample {
+            private final long syncTimeNanos;
+            private final long observedConsumptionCounter;
+            private long selfConsumedTokens;
+
+            Sample(long syncTimeNanos, long observedConsumptionCounter, long selfConsumedTokens) {
+                this.syncTimeNanos = syncTimeNanos;
+                this.observedConsumptionCounter = observedConsumptionCounter;
+                this.selfConsumedTokens = selfConsumedTokens;
+            }
+        }
+
+    }
+
+}
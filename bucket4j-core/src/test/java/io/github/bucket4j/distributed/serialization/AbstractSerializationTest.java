@@ -236,6 +236,10 @@ public abstract class AbstractSerializationTest {
                 CommandResult.success(resultWithComplexPayload, EstimationProbe.SERIALIZATION_HANDLE),
                 CommandResult.bucketNotFound()
         )));
+        AggregatedTryConsumeResult aggregatedResult = new AggregatedTryConsumeResult(70);
+        aggregatedResult.markConsumed(0);
+        aggregatedResult.markConsumed(69);
+        testSerialization(aggregatedResult);
         // verbose results
         RemoteStat remoteStat = new RemoteStat(42);
         RemoteBucketState remoteBucketState = new RemoteBucketState(bucketState, remoteStat, null);
@@ -295,10 +299,13 @@ public abstract class AbstractSerializationTest {
         testSerialization(new VerboseCommand<>(new ReplaceConfigurationCommand(configuration, TokensInheritanceStrategy.AS_IS)));
         testSerialization(new SyncCommand(20, 10000000));
         testSerialization(new ResetCommand());
+        testSerialization(new LeaseTokensCommand(10, 1, 100));
+        testSerialization(new AggregatedTryConsumeCommand(new long[] {1, 2, 3}));
 
         testSerialization(new Request<>(new GetAvailableTokensCommand(), Versions.getLatest(), null));
         testSerialization(new Request<>(new GetAvailableTokensCommand(), Versions.getLatest(), 0L));
         testSerialization(new Request<>(new GetAvailableTokensCommand(), Versions.getLatest(), System.currentTimeMillis()));
+        testSerialization(new Request<>(new GetAvailableTokensCommand(), Versions.getLatest(), null, true));
     }
 
     @Test
@@ -0,0 +1,90 @@
+package io.github.bucket4j.distributed.serialization;
+
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.util.ComparableByContent;
+import io.github.bucket4j.distributed.versioning.Versions;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ByteBufferSerializationTest extends AbstractSerializationTest {
+
+    private Map<Class, SerializationHandle> allHandles = new HashMap<Class, SerializationHandle>()
+    {{
+        for (SerializationHandle<?> handle : SerializationHandles.CORE_HANDLES.getAllHandles()) {
+            put(handle.getSerializedType(), handle);
+        }
+    }};
+
+    @Override
+    protected <T> T serializeAndDeserialize(T object, Scope scope) {
+        SerializationHandle serializationHandle = allHandles.get(object.getClass());
+        if (serializationHandle == null) {
+            throw new IllegalArgumentException("Serializer for class " + object.getClass() + " is not specified");
+        }
+        try {
+            SizeCalculatingSerializationAdapter.Counter counter = new SizeCalculatingSerializationAdapter.Counter();
+            serializationHandle.serialize(SizeCalculatingSerializationAdapter.INSTANCE, counter, object, Versions.getLatest(), scope);
+
+            ByteBuffer buffer = ByteBuffer.allocate(counter.getSize());
+            serializationHandle.serialize(ByteBufferSerializationAdapter.INSTANCE, buffer, object, Versions.getLatest(), scope);
+            assertFalse("calculated size should be exact", buffer.hasRemaining());
+
+            // binary format must be the same as produced by DataOutputStream
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            serializationHandle.serialize(DataOutputSerializationAdapter.INSTANCE, new DataOutputStream(baos), object, Versions.getLatest(), scope);
+            assertArrayEquals(baos.toByteArray(), buffer.array());
+
+            buffer.flip();
+            T deserialized = (T) serializationHandle.deserialize(ByteBufferSerializationAdapter.INSTANCE, buffer);
+            if (buffer.hasRemaining()) {
+                throw new IllegalStateException("Buffer was not read to the end for class " + object.getClass());
+            }
+            return deserialized;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void serializeNonAsciiString() {
+        char[] chars = new char[0xFFFF / 3];
+        Arrays.fill(chars, '€');
+        String[] values = {"", "\u0000", "été", "中文", new String(chars)};
+        for (String value : values) {
+            testSerialization(CommandResult.unsupportedNamedType(value));
+        }
+    }
+
+    @Test
+    public void threadLocalBufferShouldBeReusedAndGrown() {
+        CommandResult<?> small = CommandResult.unsupportedNamedType("small");
+        ByteBuffer first = InternalSerializationHelper.serializeResultToThreadLocalBuffer(small, Versions.getLatest());
+        assertEquals(InternalSerializationHelper.serializedSizeOfResult(small, Versions.getLatest()), first.remaining());
+        ByteBuffer second = InternalSerializationHelper.serializeResultToThreadLocalBuffer(small, Versions.getLatest());
+        assertSame(first, second);
+
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'x');
+        CommandResult<?> big = CommandResult.unsupportedNamedType(new String(chars));
+        ByteBuffer third = InternalSerializationHelper.serializeResultToThreadLocalBuffer(big, Versions.getLatest());
+        byte[] bytes = new byte[third.remaining()];
+        third.get(bytes);
+        assertArrayEquals(InternalSerializationHelper.serializeResult(big, Versions.getLatest()), bytes);
+
+        CommandResult<?> deserialized = InternalSerializationHelper.deserializeResult(ByteBuffer.wrap(bytes), Versions.getLatest());
+        assertTrue(ComparableByContent.equals(big, deserialized));
+    }
+
+}
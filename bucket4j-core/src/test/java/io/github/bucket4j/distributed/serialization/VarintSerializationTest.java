@@ -0,0 +1,152 @@
+package io.github.bucket4j.distributed.serialization;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketState;
+import io.github.bucket4j.MathType;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteStat;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.Request;
+import io.github.bucket4j.distributed.remote.commands.AggregatedTryConsumeCommand;
+import io.github.bucket4j.distributed.remote.commands.GetAvailableTokensCommand;
+import io.github.bucket4j.distributed.remote.commands.LeaseTokensCommand;
+import io.github.bucket4j.distributed.versioning.UsageOfUnsupportedApiException;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VarintSerializationTest extends AbstractSerializationTest {
+
+    private Map<Class, SerializationHandle> allHandles = new HashMap<Class, SerializationHandle>()
+    {{
+        for (SerializationHandle<?> handle : SerializationHandles.CORE_HANDLES.getAllHandles()) {
+            put(handle.getSerializedType(), handle);
+        }
+    }};
+
+    @Override
+    protected <T> T serializeAndDeserialize(T object, Scope scope) {
+        SerializationHandle serializationHandle = allHandles.get(object.getClass());
+        if (serializationHandle == null) {
+            throw new IllegalArgumentException("Serializer for class " + object.getClass() + " is not specified");
+        }
+        try {
+            VarintSerializationAdapter.Output sizeCalculator = new VarintSerializationAdapter.Output(null);
+            serializationHandle.serialize(VarintSerializationAdapter.INSTANCE, sizeCalculator, object, Versions.getLatest(), scope);
+
+            ByteBuffer buffer = ByteBuffer.allocate(sizeCalculator.getSize());
+            serializationHandle.serialize(VarintSerializationAdapter.INSTANCE, new VarintSerializationAdapter.Output(buffer), object, Versions.getLatest(), scope);
+            assertEquals(sizeCalculator.getSize(), buffer.position());
+
+            buffer.flip();
+            T deserialized = (T) serializationHandle.deserialize(VarintSerializationAdapter.INSTANCE, new VarintSerializationAdapter.Input(buffer));
+            if (buffer.hasRemaining()) {
+                throw new IllegalStateException("Buffer was not read to the end for class " + object.getClass());
+            }
+            return deserialized;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void shouldRoundTripEdgeLongValues() throws Exception {
+        long now = System.currentTimeMillis() * 1_000_000;
+        long[] values = {0, 1, -1, 63, -64, 1L << 32, -(1L << 32), now, now + 1, now - 1_000_000_000, 0, now,
+                Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1, now, Long.MIN_VALUE, Long.MAX_VALUE};
+
+        VarintSerializationAdapter adapter = VarintSerializationAdapter.INSTANCE;
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        VarintSerializationAdapter.Output output = new VarintSerializationAdapter.Output(buffer);
+        for (long value : values) {
+            adapter.writeLong(output, value);
+        }
+        adapter.writeLongArray(output, values);
+        adapter.writeInt(output, Integer.MIN_VALUE);
+        adapter.writeInt(output, Integer.MAX_VALUE);
+        adapter.writeInt(output, -1);
+
+        buffer.flip();
+        VarintSerializationAdapter.Input input = new VarintSerializationAdapter.Input(buffer);
+        for (long value : values) {
+            assertEquals(value, adapter.readLong(input));
+        }
+        long[] array = adapter.readLongArray(input);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], array[i]);
+        }
+        assertEquals(Integer.MIN_VALUE, adapter.readInt(input));
+        assertEquals(Integer.MAX_VALUE, adapter.readInt(input));
+        assertEquals(-1, adapter.readInt(input));
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void compactStateShouldBeSmallerAndBothFormatsShouldBeReadable() {
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(1000, Duration.ofMinutes(1)))
+                .addLimit(Bandwidth.classic(100_000, io.github.bucket4j.Refill.intervallyAligned(100_000, Duration.ofHours(1), Instant.now(), false)))
+                .build();
+        BucketState bucketState = BucketState.createInitialState(configuration, MathType.INTEGER_64_BITS, System.currentTimeMillis() * 1_000_000);
+        RemoteBucketState state = new RemoteBucketState(bucketState, new RemoteStat(14), 3L);
+
+        byte[] legacy = InternalSerializationHelper.serializeState(state, Versions.v_8_1_0);
+        byte[] compact = InternalSerializationHelper.serializeState(state, Versions.v_8_2_0);
+        assertTrue("compact " + compact.length + " legacy " + legacy.length, compact.length * 10 < legacy.length * 6);
+
+        assertTrue(ComparableByContent.equals(state, InternalSerializationHelper.deserializeState(legacy)));
+        assertTrue(ComparableByContent.equals(state, InternalSerializationHelper.deserializeState(compact)));
+        assertEquals(compact.length, InternalSerializationHelper.serializedSizeOfState(state, Versions.v_8_2_0));
+        assertEquals(legacy.length, InternalSerializationHelper.serializedSizeOfState(state, Versions.v_8_1_0));
+    }
+
+    @Test
+    public void commandsIntroducedIn_8_2_0_shouldRejectOlderBackwardCompatibilityVersion() {
+        List<RemoteCommand<?>> commands = Arrays.asList(
+                new LeaseTokensCommand(0, 1, 10),
+                new AggregatedTryConsumeCommand(new long[] {1, 2})
+        );
+        for (RemoteCommand<?> command : commands) {
+            assertEquals(Versions.v_8_2_0, command.getRequiredVersion());
+            for (Version version : Arrays.asList(Versions.v_7_0_0, Versions.v_8_1_0)) {
+                try {
+                    InternalSerializationHelper.serializeRequest(new Request<>(command, version, null));
+                    fail(command + " should not be serializable for " + version);
+                } catch (IllegalStateException e) {
+                    UsageOfUnsupportedApiException cause = (UsageOfUnsupportedApiException) e.getCause();
+                    assertEquals(Versions.v_8_2_0.getNumber(), cause.getRequestedFormatNumber());
+                    assertEquals(version.getNumber(), cause.getMaxSupportedFormatNumber());
+                }
+            }
+            Request<?> request = InternalSerializationHelper.deserializeRequest(InternalSerializationHelper.serializeRequest(new Request<>(command, Versions.v_8_2_0, null)));
+            assertTrue(ComparableByContent.equals(command, request.getCommand()));
+        }
+    }
+
+    @Test
+    public void compactRequestShouldAllowCompactStateAndResult() {
+        Request<Long> legacyRequest = new Request<>(new GetAvailableTokensCommand(), Versions.v_8_1_0, 42L);
+        Request<Long> deserializedLegacy = InternalSerializationHelper.deserializeRequest(InternalSerializationHelper.serializeRequest(legacyRequest));
+        assertEquals(Versions.v_7_0_0, deserializedLegacy.getBackwardCompatibilityVersion());
+
+        Request<Long> compactRequest = new Request<>(new GetAvailableTokensCommand(), Versions.v_8_2_0, 42L);
+        Request<Long> deserializedCompact = InternalSerializationHelper.deserializeRequest(InternalSerializationHelper.serializeRequest(compactRequest));
+        assertEquals(Versions.v_8_2_0, deserializedCompact.getBackwardCompatibilityVersion());
+        assertEquals(42L, (long) deserializedCompact.getClientSideTime());
+    }
+
+}
@@ -51,7 +51,7 @@ public class ProxyManagerMock<K> extends AbstractProxyManager<K> {
     }
 
     public ProxyManagerMock(TimeMeter timeMeter, Version backwardCompatibilityVersion) {
-        super(ClientSideConfig.getDefault().withClientClock(timeMeter));
+        super(ClientSideConfig.getDefault().withClientClock(timeMeter).backwardCompatibleWith(backwardCompatibilityVersion));
     }
 
     public void setException(RuntimeException exception) {
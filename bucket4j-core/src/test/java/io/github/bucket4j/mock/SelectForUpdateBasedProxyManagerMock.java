@@ -22,15 +22,19 @@ import io.github.bucket4j.distributed.proxy.generic.pessimistic_locking.Abstract
 import io.github.bucket4j.distributed.proxy.generic.pessimistic_locking.LockBasedTransaction;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedBatchTransaction;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
 import io.github.bucket4j.distributed.remote.RemoteBucketState;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class SelectForUpdateBasedProxyManagerMock<K> extends AbstractSelectForUpdateBasedProxyManager<K> {
 
     private final Map<K, byte[]> stateMap = new HashMap<>();
+    private final List<List<K>> lockedKeys = new ArrayList<>();
 
     public SelectForUpdateBasedProxyManagerMock(ClientSideConfig clientSideConfig) {
         super(clientSideConfig);
@@ -50,7 +54,7 @@ public class SelectForUpdateBasedProxyManagerMock<K> extends AbstractSelectForUp
 
             @Override
             public void update(byte[] data, RemoteBucketState newState) {
-                if (backup == null) {
+                if (!existBeforeTransaction) {
                     throw new IllegalStateException();
                 }
                 stateMap.put(key, data);
@@ -91,6 +95,73 @@ public class SelectForUpdateBasedProxyManagerMock<K> extends AbstractSelectForUp
         };
     }
 
+    @Override
+    public boolean isBatchTransactionSupported() {
+        return true;
+    }
+
+    @Override
+    protected SelectForUpdateBasedBatchTransaction<K> allocateBatchTransaction() {
+        Map<K, byte[]> backup = new HashMap<>();
+
+        return new SelectForUpdateBasedBatchTransaction<K>() {
+            @Override
+            public void begin() {
+                backup.clear();
+            }
+
+            @Override
+            public void rollback() {
+                stateMap.putAll(backup);
+            }
+
+            @Override
+            public void commit() {
+                // do nothing
+            }
+
+            @Override
+            public Map<K, byte[]> tryLockAndGet(List<K> keys) {
+                lockedKeys.add(new ArrayList<>(keys));
+                Map<K, byte[]> result = new HashMap<>();
+                for (K key : keys) {
+                    if (stateMap.containsKey(key)) {
+                        result.put(key, stateMap.get(key));
+                    }
+                }
+                return result;
+            }
+
+            @Override
+            public void insertEmptyData(List<K> keys) {
+                for (K key : keys) {
+                    stateMap.putIfAbsent(key, null);
+                }
+            }
+
+            @Override
+            public void update(List<K> keys, List<byte[]> data, List<RemoteBucketState> newStates) {
+                for (int i = 0; i < keys.size(); i++) {
+                    K key = keys.get(i);
+                    if (!stateMap.containsKey(key)) {
+                        throw new IllegalStateException();
+                    }
+                    backup.putIfAbsent(key, stateMap.get(key));
+                    stateMap.put(key, data.get(i));
+                }
+            }
+
+            @Override
+            public void release() {
+                // do nothing
+            }
+        };
+    }
+
+    public List<List<K>> getLockedKeys() {
+        return lockedKeys;
+    }
+
     @Override
     public void removeProxy(K key) {
         stateMap.remove(key);
@@ -0,0 +1,184 @@
+package io.github.bucket4j.util.concurrent;
+
+import io.github.bucket4j.distributed.proxy.optimization.BatchingParameters;
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.CombinedMockCommand;
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.CombinedResult;
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.MockBatchExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.MockCommand;
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.SingleMockCommand;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BatchHelperLimitsTest {
+
+    private static final int THREADS = 8;
+    private static final int COMMANDS_PER_THREAD = 2_000;
+
+    @Test(timeout = 30_000)
+    public void syncBatchesShouldNotExceedMaxBatchSize() throws Exception {
+        MockBatchExecutor mockExecutor = new MockBatchExecutor();
+        BatchSizeHistogram histogram = new BatchSizeHistogram();
+        BatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> helper = mockExecutor.getSyncBatchHelper()
+                .withLimits(3, 0, histogram);
+
+        List<Long> results = runConcurrently(() -> helper.execute(new SingleMockCommand(1)));
+
+        assertResultsAreLinearizable(results, mockExecutor.getState().getSum());
+        assertTrue(histogram.getMax() <= 3);
+        assertEquals(THREADS * COMMANDS_PER_THREAD, histogram.getTotalTasks());
+    }
+
+    @Test(timeout = 30_000)
+    public void syncBatchesWithLingerShouldNotExceedMaxBatchSize() throws Exception {
+        MockBatchExecutor mockExecutor = new MockBatchExecutor();
+        BatchSizeHistogram histogram = new BatchSizeHistogram();
+        BatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> helper = mockExecutor.getSyncBatchHelper()
+                .withLimits(2, TimeUnit.MICROSECONDS.toNanos(10), histogram);
+
+        List<Long> results = runConcurrently(() -> helper.execute(new SingleMockCommand(1)));
+
+        assertResultsAreLinearizable(results, mockExecutor.getState().getSum());
+        assertTrue(histogram.getMax() <= 2);
+        assertEquals(THREADS * COMMANDS_PER_THREAD, histogram.getTotalTasks());
+    }
+
+    @Test(timeout = 30_000)
+    public void asyncBatchesShouldNotExceedMaxBatchSize() throws Exception {
+        MockBatchExecutor mockExecutor = new MockBatchExecutor();
+        BatchSizeHistogram histogram = new BatchSizeHistogram();
+        BatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> helper = mockExecutor.getAsyncBatchHelper()
+                .withLimits(4, 0, histogram);
+
+        List<Long> results = runConcurrently(() -> helper.executeAsync(new SingleMockCommand(1)).get());
+
+        assertResultsAreLinearizable(results, mockExecutor.getState().getSum());
+        assertTrue(histogram.getMax() <= 4);
+        assertEquals(THREADS * COMMANDS_PER_THREAD, histogram.getTotalTasks());
+    }
+
+    @Test(timeout = 10_000)
+    public void oldestTasksShouldBeExecutedFirstWhenBatchIsSplit() throws Exception {
+        MockBatchExecutor mockExecutor = new MockBatchExecutor();
+        BatchSizeHistogram histogram = new BatchSizeHistogram();
+        BatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> helper = mockExecutor.getAsyncBatchHelper()
+                .withLimits(2, 0, histogram);
+
+        SingleMockCommand blocker = new SingleMockCommand(1, true);
+        CompletableFuture<Long> blockerFuture = helper.executeAsync(blocker);
+        blocker.arriveSignal.await();
+
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(helper.executeAsync(new SingleMockCommand(10)));
+        }
+        blocker.executePermit.countDown();
+
+        assertEquals(1L, (long) blockerFuture.get());
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(1L + 10 * (i + 1), (long) futures.get(i).get());
+        }
+        // 1 + 2 + 2 + 1
+        assertEquals(4, histogram.getCount());
+        assertEquals(2, histogram.getMax());
+    }
+
+    @Test
+    public void histogramShouldReportStatistics() {
+        BatchSizeHistogram histogram = new BatchSizeHistogram();
+        assertEquals(0, histogram.getQuantileUpperBound(0.5));
+        assertEquals(0.0, histogram.getMean(), 0.0);
+
+        for (int i = 0; i < 90; i++) {
+            histogram.record(1);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(1090, histogram.getTotalTasks());
+        assertEquals(100, histogram.getMax());
+        assertEquals(10.9, histogram.getMean(), 0.0001);
+        assertEquals(90, histogram.getBucketCount(0));
+        assertEquals(10, histogram.getBucketCount(6));
+        assertEquals(1, histogram.getQuantileUpperBound(0.9));
+        assertEquals(100, histogram.getQuantileUpperBound(0.99));
+    }
+
+    @Test
+    public void shouldCheckBatchingParameters() {
+        BatchingParameters parameters = new BatchingParameters(10, Duration.ofMillis(1));
+        assertEquals(10, parameters.maxBatchSize);
+        assertEquals(1_000_000, parameters.lingerNanos);
+        assertNull(parameters.histogram);
+
+        BatchSizeHistogram histogram = new BatchSizeHistogram();
+        assertSame(histogram, parameters.withHistogram(histogram).histogram);
+
+        assertThrows(() -> new BatchingParameters(0, Duration.ZERO));
+        assertThrows(() -> new BatchingParameters(1, null));
+        assertThrows(() -> new BatchingParameters(1, Duration.ofMillis(-1)));
+    }
+
+    private static void assertThrows(Runnable runnable) {
+        try {
+            runnable.run();
+            fail();
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    private static void assertResultsAreLinearizable(List<Long> results, long finalSum) {
+        // each command adds 1, so each command must observe unique prefix sum
+        assertEquals(THREADS * COMMANDS_PER_THREAD, finalSum);
+        Set<Long> uniqueResults = new HashSet<>(results);
+        assertEquals(results.size(), uniqueResults.size());
+        for (long result : results) {
+            assertTrue(result >= 1 && result <= finalSum);
+        }
+    }
+
+    private interface Operation {
+        Long execute() throws Exception;
+    }
+
+    private static List<Long> runConcurrently(Operation operation) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    List<Long> results = new ArrayList<>(COMMANDS_PER_THREAD);
+                    for (int j = 0; j < COMMANDS_PER_THREAD; j++) {
+                        results.add(operation.execute());
+                    }
+                    return results;
+                }));
+            }
+            startLatch.countDown();
+            List<Long> results = new ArrayList<>();
+            for (Future<List<Long>> future : futures) {
+                results.addAll(future.get());
+            }
+            return results;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package io.github.bucket4j.util.concurrent;
+
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.CombinedMockCommand;
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.CombinedResult;
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.MockBatchExecutor;
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.MockCommand;
+import io.github.bucket4j.distributed.proxy.optimization.batch.mock.SingleMockCommand;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class FlatCombiningBatchHelperTest {
+
+    private static final int THREADS = 8;
+    private static final int COMMANDS_PER_THREAD = 5_000;
+
+    @Test
+    public void shouldExecuteSequentialRequests() {
+        MockBatchExecutor mockExecutor = new MockBatchExecutor();
+        FlatCombiningBatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> helper = mockExecutor.getFlatCombiningBatchHelper();
+
+        assertEquals(4L, (long) helper.execute(new SingleMockCommand(4)));
+        assertEquals(10L, (long) helper.execute(new SingleMockCommand(6)));
+        assertEquals(15L, (long) helper.execute(new SingleMockCommand(5)));
+        // ring is reused many times
+        for (int i = 0; i < 100; i++) {
+            helper.execute(new SingleMockCommand(1));
+        }
+        assertEquals(115L, mockExecutor.getState().getSum());
+    }
+
+    @Test
+    public void shouldPropagateErrorOfSingleTask() {
+        MockBatchExecutor mockExecutor = new MockBatchExecutor();
+        FlatCombiningBatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> helper = mockExecutor.getFlatCombiningBatchHelper();
+
+        IllegalStateException error = new IllegalStateException("test");
+        try {
+            helper.execute(new SingleMockCommand(error));
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(error, e);
+        }
+        // helper stays usable after failure
+        assertEquals(1L, (long) helper.execute(new SingleMockCommand(1)));
+    }
+
+    @Test
+    public void capacityShouldBeRoundedToPowerOfTwo() {
+        MockBatchExecutor mockExecutor = new MockBatchExecutor();
+        assertEquals(2, mockExecutor.getFlatCombiningBatchHelper().getCapacity());
+        FlatCombiningBatchHelper<Long, Long, List<Long>, List<Long>> helper = FlatCombiningBatchHelper.sync(
+                tasks -> tasks, tasks -> tasks, task -> task, results -> results, 100);
+        assertEquals(128, helper.getCapacity());
+    }
+
+    @Test(timeout = 60_000)
+    public void shouldBeLinearizableWhenRingIsSmallerThanCountOfThreads() throws Exception {
+        MockBatchExecutor mockExecutor = new MockBatchExecutor();
+        BatchSizeHistogram histogram = new BatchSizeHistogram();
+        FlatCombiningBatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> helper = mockExecutor.getFlatCombiningBatchHelper()
+                .withLimits(Integer.MAX_VALUE, histogram);
+
+        checkLinearizability(helper, mockExecutor, histogram, 2);
+    }
+
+    @Test(timeout = 60_000)
+    public void shouldBeLinearizableWithLimitedBatchSize() throws Exception {
+        MockBatchExecutor mockExecutor = new MockBatchExecutor();
+        BatchSizeHistogram histogram = new BatchSizeHistogram();
+        FlatCombiningBatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> helper = FlatCombiningBatchHelper.sync(
+                CombinedMockCommand::new,
+                cmd -> cmd.apply(mockExecutor.getState()),
+                cmd -> (Long) cmd.apply(mockExecutor.getState()),
+                CombinedResult::getResults,
+                64
+        ).withLimits(3, histogram);
+
+        checkLinearizability(helper, mockExecutor, histogram, 3);
+    }
+
+    private static void checkLinearizability(FlatCombiningBatchHelper<MockCommand, Long, CombinedMockCommand, CombinedResult> helper,
+                                             MockBatchExecutor mockExecutor, BatchSizeHistogram histogram, int maxBatchSize) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    List<Long> results = new ArrayList<>(COMMANDS_PER_THREAD);
+                    for (int j = 0; j < COMMANDS_PER_THREAD; j++) {
+                        results.add(helper.execute(new SingleMockCommand(1)));
+                    }
+                    return results;
+                }));
+            }
+            startLatch.countDown();
+
+            Set<Long> uniqueResults = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                uniqueResults.addAll(future.get());
+            }
+            // each command adds 1, so each command must observe unique prefix sum
+            assertEquals(THREADS * COMMANDS_PER_THREAD, uniqueResults.size());
+            assertEquals(THREADS * COMMANDS_PER_THREAD, mockExecutor.getState().getSum());
+            assertEquals(THREADS * COMMANDS_PER_THREAD, histogram.getTotalTasks());
+            assertTrue(histogram.getMax() <= maxBatchSize);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.grid.hazelcast;
+
+import com.hazelcast.map.EntryProcessor;
+import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.util.ComparableByContent;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Backup processor that ships to backup replicas only the changed part of serialized state instead of whole state.
+ *
+ * <p>
+ * Mutation of bucket usually changes only current size and last refill time of bandwidths and statistics,
+ * while configuration that takes the most of the space stays the same. So delta is encoded as the common prefix and suffix
+ * that are taken from the state already stored on the replica, plus the changed bytes between them.
+ * The delta is applied only when the state on replica matches checksum of the state from which delta was calculated,
+ * otherwise the backup operation fails, so Hazelcast does not advance the replica version and replaces the diverged replica
+ * by the full state taken from the primary during partition replica synchronization.
+ *
+ * <p>
+ * Nodes of older versions are not aware about this processor, so it is used only when request declares
+ * backward compatibility with {@link Versions#v_8_2_0} or newer.
+ *
+ * @param <K> type of key
+ */
+public class DeltaBackupProcessor<K> implements EntryProcessor<K, byte[], byte[]>, ComparableByContent<DeltaBackupProcessor> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int baseLength;
+    private final int baseChecksum;
+    private final int prefixLength;
+    private final int suffixLength;
+    private final byte[] replacement;
+
+    public DeltaBackupProcessor(int baseLength, int baseChecksum, int prefixLength, int suffixLength, byte[] replacement) {
+        this.baseLength = baseLength;
+        this.baseChecksum = baseChecksum;
+        this.prefixLength = prefixLength;
+        this.suffixLength = suffixLength;
+        this.replacement = replacement;
+    }
+
+    /**
+     * Creates backup processor that transfers state to the backup replica in the most compact way.
+     *
+     * @param originalState the state that was stored before mutation, can be null if bucket was just created
+     * @param newState the state after mutation
+     * @param backwardCompatibilityVersion the backward compatibility version of request that produced new state
+     *
+     * @return {@link DeltaBackupProcessor} when delta is smaller than new state and understood by all nodes, {@link SimpleBackupProcessor} otherwise
+     */
+    public static <K> EntryProcessor<K, byte[], byte[]> create(byte[] originalState, byte[] newState, Version backwardCompatibilityVersion) {
+        if (originalState == null || backwardCompatibilityVersion.getNumber() < Versions.v_8_2_0.getNumber()) {
+            return new SimpleBackupProcessor<>(newState);
+        }
+        int maxCommonLength = Math.min(originalState.length, newState.length);
+        int prefixLength = 0;
+        while (prefixLength < maxCommonLength && originalState[prefixLength] == newState[prefixLength]) {
+            prefixLength++;
+        }
+        int suffixLength = 0;
+        while (suffixLength < maxCommonLength - prefixLength
+                && originalState[originalState.length - 1 - suffixLength] == newState[newState.length - 1 - suffixLength]) {
+            suffixLength++;
+        }
+        int replacementLength = newState.length - prefixLength - suffixLength;
+        // four ints of delta header against the length prefix of byte array
+        if (replacementLength + 16 >= newState.length) {
+            return new SimpleBackupProcessor<>(newState);
+        }
+        byte[] replacement = Arrays.copyOfRange(newState, prefixLength, prefixLength + replacementLength);
+        return new DeltaBackupProcessor<>(originalState.length, checksum(originalState), prefixLength, suffixLength, replacement);
+    }
+
+    public int getBaseLength() {
+        return baseLength;
+    }
+
+    public int getBaseChecksum() {
+        return baseChecksum;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public int getSuffixLength() {
+        return suffixLength;
+    }
+
+    public byte[] getReplacement() {
+        return replacement;
+    }
+
+    @Override
+    public byte[] process(Map.Entry<K, byte[]> entry) {
+        byte[] base = entry.getValue();
+        if (base == null || base.length != baseLength || checksum(base) != baseChecksum) {
+            throw new IllegalStateException("Backup replica of " + entry.getKey() + " diverged from primary, delta can not be applied");
+        }
+        entry.setValue(apply(base));
+        return null; // return value from backup processor is ignored, see https://github.com/hazelcast/hazelcast/pull/14995
+    }
+
+    byte[] apply(byte[] base) {
+        byte[] result = new byte[prefixLength + replacement.length + suffixLength];
+        System.arraycopy(base, 0, result, 0, prefixLength);
+        System.arraycopy(replacement, 0, result, prefixLength, replacement.length);
+        System.arraycopy(base, base.length - suffixLength, result, prefixLength + replacement.length, suffixLength);
+        return result;
+    }
+
+    private static int checksum(byte[] state) {
+        CRC32 crc = new CRC32();
+        crc.update(state, 0, state.length);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public boolean equalsByContent(DeltaBackupProcessor other) {
+        return baseLength == other.baseLength
+                && baseChecksum == other.baseChecksum
+                && prefixLength == other.prefixLength
+                && suffixLength == other.suffixLength
+                && Arrays.equals(replacement, other.replacement);
+    }
+
+}
@@ -59,8 +59,9 @@ public class HazelcastEntryProcessor<K, T> implements EntryProcessor<K, byte[],
 
             @Override
             protected void setRawState(byte[] stateBytes) {
+                byte[] originalStateBytes = entry.getValue();
                 entry.setValue(stateBytes);
-                backupProcessor = new SimpleBackupProcessor<>(stateBytes);
+                backupProcessor = DeltaBackupProcessor.create(originalStateBytes, stateBytes, getBackwardCompatibilityVersion());
             }
         }.execute();
     }
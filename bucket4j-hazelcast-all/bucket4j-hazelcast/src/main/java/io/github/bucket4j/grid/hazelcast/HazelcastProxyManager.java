@@ -44,6 +44,7 @@ import io.github.bucket4j.distributed.proxy.ClientSideConfig;
 import io.github.bucket4j.distributed.remote.CommandResult;
 import io.github.bucket4j.distributed.remote.Request;
 import io.github.bucket4j.distributed.versioning.Version;
+import io.github.bucket4j.grid.hazelcast.serialization.DeltaBackupProcessorSerializer;
 import io.github.bucket4j.grid.hazelcast.serialization.HazelcastEntryProcessorSerializer;
 import io.github.bucket4j.grid.hazelcast.serialization.HazelcastOffloadableEntryProcessorSerializer;
 import io.github.bucket4j.grid.hazelcast.serialization.SimpleBackupProcessorSerializer;
@@ -153,6 +154,12 @@ public class HazelcastProxyManager<K> extends AbstractProxyManager<K> {
                         .setTypeClass(HazelcastOffloadableEntryProcessor.class)
         );
 
+        serializationConfig.addSerializerConfig(
+                new SerializerConfig()
+                        .setImplementation(new DeltaBackupProcessorSerializer(typeIdBase + 3))
+                        .setTypeClass(DeltaBackupProcessor.class)
+        );
+
     }
 
 }
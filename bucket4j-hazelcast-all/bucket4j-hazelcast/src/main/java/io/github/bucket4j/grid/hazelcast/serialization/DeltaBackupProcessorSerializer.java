@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2020 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.grid.hazelcast.serialization;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import com.hazelcast.nio.serialization.TypedStreamDeserializer;
+import io.github.bucket4j.grid.hazelcast.DeltaBackupProcessor;
+
+import java.io.IOException;
+
+
+public class DeltaBackupProcessorSerializer implements StreamSerializer<DeltaBackupProcessor>, TypedStreamDeserializer<DeltaBackupProcessor> {
+
+    private final int typeId;
+
+    public DeltaBackupProcessorSerializer(int typeId) {
+        this.typeId = typeId;
+    }
+
+    public Class<DeltaBackupProcessor> getSerializableType() {
+        return DeltaBackupProcessor.class;
+    }
+
+    @Override
+    public int getTypeId() {
+        return typeId;
+    }
+
+    @Override
+    public void destroy() {
+
+    }
+
+    @Override
+    public void write(ObjectDataOutput out, DeltaBackupProcessor serializable) throws IOException {
+        out.writeInt(serializable.getBaseLength());
+        out.writeInt(serializable.getBaseChecksum());
+        out.writeInt(serializable.getPrefixLength());
+        out.writeInt(serializable.getSuffixLength());
+        out.writeByteArray(serializable.getReplacement());
+    }
+
+    @Override
+    public DeltaBackupProcessor read(ObjectDataInput in) throws IOException {
+        return read0(in);
+    }
+
+    @Override
+    public DeltaBackupProcessor read(ObjectDataInput in, Class aClass) throws IOException {
+        return read0(in);
+    }
+
+    private DeltaBackupProcessor read0(ObjectDataInput in) throws IOException {
+        int baseLength = in.readInt();
+        int baseChecksum = in.readInt();
+        int prefixLength = in.readInt();
+        int suffixLength = in.readInt();
+        byte[] replacement = in.readByteArray();
+        return new DeltaBackupProcessor(baseLength, baseChecksum, prefixLength, suffixLength, replacement);
+    }
+
+}
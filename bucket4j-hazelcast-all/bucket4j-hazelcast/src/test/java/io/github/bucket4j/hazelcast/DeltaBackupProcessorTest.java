@@ -0,0 +1,94 @@
+package io.github.bucket4j.hazelcast;
+
+import com.hazelcast.map.EntryProcessor;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketState;
+import io.github.bucket4j.MathType;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.github.bucket4j.distributed.remote.RemoteStat;
+import io.github.bucket4j.distributed.serialization.InternalSerializationHelper;
+import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.grid.hazelcast.DeltaBackupProcessor;
+import io.github.bucket4j.grid.hazelcast.SimpleBackupProcessor;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeltaBackupProcessorTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(1000, Duration.ofMinutes(1)).withId("minutely"))
+            .addLimit(Bandwidth.simple(10_000, Duration.ofHours(1)).withId("hourly"))
+            .build();
+
+    @Test
+    public void backupShouldReceiveSameStateAsPrimary() {
+        for (boolean compact : new boolean[] {false, true}) {
+            RemoteBucketState state = new RemoteBucketState(BucketState.createInitialState(CONFIGURATION, MathType.INTEGER_64_BITS, 0), new RemoteStat(0), null);
+            byte[] original = serialize(state, compact);
+            state.refillAllBandwidth(Duration.ofSeconds(5).toNanos());
+            state.consume(7);
+            state.getRemoteStat().addConsumedTokens(7);
+            byte[] modified = serialize(state, compact);
+
+            EntryProcessor<String, byte[], byte[]> backupProcessor = DeltaBackupProcessor.create(original, modified, Versions.v_8_2_0);
+            assertTrue(backupProcessor instanceof DeltaBackupProcessor);
+            DeltaBackupProcessor<String> delta = (DeltaBackupProcessor<String>) backupProcessor;
+            assertTrue("state size " + modified.length + ", delta size " + delta.getReplacement().length,
+                    delta.getReplacement().length < modified.length / 2);
+
+            Map.Entry<String, byte[]> backupEntry = new AbstractMap.SimpleEntry<>("key", original);
+            delta.process(backupEntry);
+            assertArrayEquals(modified, backupEntry.getValue());
+        }
+    }
+
+    @Test
+    public void backupShouldFailWhenItDivergedFromPrimary() {
+        byte[] original = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24};
+        byte[] modified = original.clone();
+        modified[12] = 42;
+        DeltaBackupProcessor<String> delta = (DeltaBackupProcessor<String>) DeltaBackupProcessor.<String>create(original, modified, Versions.v_8_2_0);
+
+        byte[] diverged = original.clone();
+        diverged[0] = 0;
+        Map.Entry<String, byte[]> backupEntry = new AbstractMap.SimpleEntry<>("key", diverged);
+        try {
+            delta.process(backupEntry);
+            fail("failed backup is required to let Hazelcast resynchronize the replica");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertSame(diverged, backupEntry.getValue());
+    }
+
+    @Test
+    public void fullStateShouldBeShippedWhenDeltaIsNotBeneficial() {
+        byte[] modified = {1, 2, 3};
+        assertTrue(DeltaBackupProcessor.create(null, modified, Versions.v_8_2_0) instanceof SimpleBackupProcessor);
+        assertTrue(DeltaBackupProcessor.create(new byte[] {4, 5, 6}, modified, Versions.v_8_2_0) instanceof SimpleBackupProcessor);
+    }
+
+    @Test
+    public void fullStateShouldBeShippedWhenClusterCanContainNodesOfOlderVersion() {
+        byte[] original = new byte[100];
+        byte[] modified = original.clone();
+        modified[50] = 1;
+        assertTrue(DeltaBackupProcessor.create(original, modified, Versions.v_8_2_0) instanceof DeltaBackupProcessor);
+        assertTrue(DeltaBackupProcessor.create(original, modified, Versions.v_8_1_0) instanceof SimpleBackupProcessor);
+        assertTrue(DeltaBackupProcessor.create(original, modified, Versions.v_7_0_0) instanceof SimpleBackupProcessor);
+    }
+
+    private static byte[] serialize(RemoteBucketState state, boolean compact) {
+        return InternalSerializationHelper.serializeState(state, compact ? Versions.v_8_2_0 : Versions.v_8_1_0);
+    }
+
+}
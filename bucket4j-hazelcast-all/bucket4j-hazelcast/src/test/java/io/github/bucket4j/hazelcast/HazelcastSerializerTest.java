@@ -11,8 +11,10 @@ import io.github.bucket4j.distributed.remote.RemoteCommand;
 import io.github.bucket4j.distributed.remote.Request;
 import io.github.bucket4j.distributed.remote.commands.AddTokensCommand;
 import io.github.bucket4j.distributed.versioning.Versions;
+import io.github.bucket4j.grid.hazelcast.DeltaBackupProcessor;
 import io.github.bucket4j.grid.hazelcast.HazelcastEntryProcessor;
 import io.github.bucket4j.grid.hazelcast.SimpleBackupProcessor;
+import io.github.bucket4j.grid.hazelcast.serialization.DeltaBackupProcessorSerializer;
 import io.github.bucket4j.grid.hazelcast.serialization.HazelcastEntryProcessorSerializer;
 import io.github.bucket4j.grid.hazelcast.serialization.SimpleBackupProcessorSerializer;
 import io.github.bucket4j.util.ComparableByContent;
@@ -49,8 +51,16 @@ public class HazelcastSerializerTest {
                         .setTypeClass(backupSerializer.getSerializableType())
         );
 
+        DeltaBackupProcessorSerializer deltaBackupSerializer = new DeltaBackupProcessorSerializer(1003);
+        serializationConfig.addSerializerConfig(
+                new SerializerConfig()
+                        .setImplementation(deltaBackupSerializer)
+                        .setTypeClass(deltaBackupSerializer.getSerializableType())
+        );
+
         serializerByClass.put(processorSerializer.getSerializableType(), processorSerializer);
         serializerByClass.put(backupSerializer.getSerializableType(), backupSerializer);
+        serializerByClass.put(deltaBackupSerializer.getSerializableType(), deltaBackupSerializer);
 
         this.serializationService = new DefaultSerializationServiceBuilder()
                 .setConfig(serializationConfig)
@@ -63,6 +73,7 @@ public class HazelcastSerializerTest {
         Request request = new Request(command, Versions.getLatest(), null);
         testSerialization(new HazelcastEntryProcessor(request));
         testSerialization(new SimpleBackupProcessor(new byte[] {1,2,3}));
+        testSerialization(new DeltaBackupProcessor(100, 42, 80, 4, new byte[] {1,2,3}));
     }
 
     private <T> T serializeAndDeserialize(T original) {
@@ -0,0 +1,74 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.mysql;
+
+import io.github.bucket4j.distributed.jdbc.AbstractSQLCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfigurationBuilder;
+
+import java.text.MessageFormat;
+
+/**
+ * The extension of Bucket4j library addressed to support <a href="https://www.mysql.com">MySQL</a>
+ * To start work with the MySQL extension you must create a table, which will include the possibility to work with buckets
+ * In order to do this, your table should include the next columns: id as a PRIMARY KEY (BIGINT) and state (BLOB)
+ * To define column names, {@link SQLProxyConfiguration} include {@link BucketTableSettings} which takes settings for the table to work with Bucket4j.
+ *
+ * <p>This implementation solves transaction related problems via optimistic compare-and-swap.
+ * Each statement is executed in auto-commit mode, so neither transaction nor row lock is held during the round trip to the client:
+ * <ul>
+ *     <li>state is read by plain {@code SELECT}</li>
+ *     <li>existed state is replaced by {@code UPDATE ... WHERE id = ? AND state = ?}, that is successful only if nobody changed the state concurrently</li>
+ *     <li>first state is created by {@code INSERT IGNORE}, that is successful only if nobody created the state concurrently</li>
+ * </ul>
+ * Success of {@code UPDATE} is detected by count of matched rows, so {@code useAffectedRows} property of JDBC driver must not be enabled.
+ * In case of concurrent modification the command is re-executed against fresh state,
+ * see {@link io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapRetryPolicy} to control this behavior.
+ * This mode provides the best throughput when the same bucket is rarely modified concurrently,
+ * for highly contended buckets prefer {@link MySQLSelectForUpdateBasedProxyManager}.
+ *
+ * @see {@link SQLProxyConfigurationBuilder} to get more information how to build {@link SQLProxyConfiguration}
+ */
+public class MySQLCompareAndSwapBasedProxyManager extends AbstractSQLCompareAndSwapBasedProxyManager {
+
+    /**
+     *
+     * @param configuration {@link SQLProxyConfiguration} configuration.
+     */
+    public MySQLCompareAndSwapBasedProxyManager(SQLProxyConfiguration configuration) {
+        super(configuration, createInsertSqlQuery(configuration), createRemoveExpiredSqlQuery(configuration));
+    }
+
+    private static String createInsertSqlQuery(SQLProxyConfiguration configuration) {
+        return MessageFormat.format("INSERT IGNORE INTO {0}({1}, {2}{3}) VALUES(?, ?{4})",
+                configuration.getTableName(), configuration.getIdName(), configuration.getStateName(),
+                configuration.getExpiresAtName().map(expiresAtName -> ", " + expiresAtName).orElse(""),
+                configuration.getExpiresAtName().map(expiresAtName -> ", ?").orElse(""));
+    }
+
+    private static String createRemoveExpiredSqlQuery(SQLProxyConfiguration configuration) {
+        return configuration.getExpiresAtName()
+                .map(expiresAtName -> MessageFormat.format("DELETE FROM {0} WHERE {2} < ? LIMIT ?",
+                        configuration.getTableName(), configuration.getIdName(), expiresAtName))
+                .orElse(null);
+    }
+
+}
@@ -23,8 +23,10 @@ import com.mysql.cj.jdbc.exceptions.MySQLTransactionRollbackException;
 import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
 import io.github.bucket4j.distributed.jdbc.SQLProxyConfigurationBuilder;
+import io.github.bucket4j.distributed.proxy.ExpiredEntriesCleaner;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedBatchTransaction;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
 import io.github.bucket4j.distributed.remote.RemoteBucketState;
 
@@ -33,7 +35,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -43,15 +50,21 @@ import java.util.Objects;
  * In order to do this, your table should include the next columns: id as a PRIMARY KEY (BIGINT) and state (BYTEA)
  * To define column names, {@link SQLProxyConfiguration} include {@link io.github.bucket4j.distributed.jdbc.BucketTableSettings} which takes settings for the table to work with Bucket4j
  * @see {@link SQLProxyConfigurationBuilder} to get more information how to build {@link SQLProxyConfiguration}
+ *
+ * <p>Commands for several buckets can be executed in single transaction via {@link #executeAll(Map)},
+ * rows are locked by one {@code SELECT ... WHERE id IN (...) ORDER BY id FOR UPDATE} and missing rows are inserted by one {@code INSERT IGNORE} statement.
  */
-public class MySQLSelectForUpdateBasedProxyManager extends AbstractSelectForUpdateBasedProxyManager<Long> {
+public class MySQLSelectForUpdateBasedProxyManager extends AbstractSelectForUpdateBasedProxyManager<Long> implements ExpiredEntriesCleaner {
 
     private final DataSource dataSource;
     private final SQLProxyConfiguration configuration;
     private final String removeSqlQuery;
+    private final String removeExpiredSqlQuery;
     private final String updateSqlQuery;
     private final String insertSqlQuery;
     private final String selectSqlQuery;
+    private final String batchSelectSqlQueryTemplate;
+    private final String batchInsertSqlQueryTemplate;
 
     /**
      *
@@ -62,10 +75,20 @@ public class MySQLSelectForUpdateBasedProxyManager extends AbstractSelectForUpda
         this.dataSource = Objects.requireNonNull(configuration.getDataSource());
         this.configuration = configuration;
         this.removeSqlQuery = MessageFormat.format("DELETE FROM {0} WHERE {1} = ?", configuration.getTableName(), configuration.getIdName());
-        updateSqlQuery = MessageFormat.format("UPDATE {0} SET {1}=? WHERE {2}=?", configuration.getTableName(), configuration.getStateName(), configuration.getIdName());
+        this.removeExpiredSqlQuery = configuration.getExpiresAtName()
+                .map(expiresAtName -> MessageFormat.format("DELETE FROM {0} WHERE {2} < ? LIMIT ?",
+                        configuration.getTableName(), configuration.getIdName(), expiresAtName))
+                .orElse(null);
+        String expiresAtAssignment = configuration.getExpiresAtName().map(expiresAtName -> ", " + expiresAtName + "=?").orElse("");
+        updateSqlQuery = MessageFormat.format("UPDATE {0} SET {1}=?{3} WHERE {2}=?", configuration.getTableName(), configuration.getStateName(), configuration.getIdName(), expiresAtAssignment);
         insertSqlQuery = MessageFormat.format("INSERT IGNORE INTO {0}({1}, {2}) VALUES(?, null)",
                 configuration.getTableName(), configuration.getIdName(), configuration.getStateName(), configuration.getIdName());
         selectSqlQuery = MessageFormat.format("SELECT {0} FROM {1} WHERE {2} = ? FOR UPDATE", configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
+        // placeholders can not be bound to array in MySQL, so list of parameters is substituted in place of %s for each batch
+        batchSelectSqlQueryTemplate = MessageFormat.format("SELECT {0}, {1} FROM {2} WHERE {0} IN (%s) ORDER BY {0} FOR UPDATE",
+                configuration.getIdName(), configuration.getStateName(), configuration.getTableName());
+        batchInsertSqlQueryTemplate = MessageFormat.format("INSERT IGNORE INTO {0}({1}, {2}) VALUES %s",
+                configuration.getTableName(), configuration.getIdName(), configuration.getStateName());
     }
 
     @Override
@@ -91,8 +114,12 @@ public class MySQLSelectForUpdateBasedProxyManager extends AbstractSelectForUpda
             public void update(byte[] data, RemoteBucketState newState) {
                 try {
                     try (PreparedStatement updateStatement = connection.prepareStatement(updateSqlQuery)) {
-                        updateStatement.setBytes(1, data);
-                        updateStatement.setLong(2, key);
+                        int parameterIndex = 1;
+                        updateStatement.setBytes(parameterIndex++, data);
+                        if (configuration.getExpiresAtName().isPresent()) {
+                            updateStatement.setObject(parameterIndex++, configuration.calculateExpiresAtMillis(newState), Types.BIGINT);
+                        }
+                        updateStatement.setLong(parameterIndex, key);
                         updateStatement.executeUpdate();
                     }
                 } catch (SQLException e) {
@@ -160,6 +187,127 @@ public class MySQLSelectForUpdateBasedProxyManager extends AbstractSelectForUpda
         };
     }
 
+    @Override
+    public boolean isBatchTransactionSupported() {
+        return true;
+    }
+
+    @Override
+    protected SelectForUpdateBasedBatchTransaction<Long> allocateBatchTransaction() {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+
+        return new SelectForUpdateBasedBatchTransaction<Long>() {
+            @Override
+            public void begin() {
+                try {
+                    connection.setAutoCommit(false);
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void rollback() {
+                try {
+                    connection.rollback();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void commit() {
+                try {
+                    connection.commit();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public Map<Long, byte[]> tryLockAndGet(List<Long> keys) {
+                String batchSelectSqlQuery = String.format(batchSelectSqlQueryTemplate, String.join(", ", Collections.nCopies(keys.size(), "?")));
+                try (PreparedStatement selectStatement = connection.prepareStatement(batchSelectSqlQuery)) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        selectStatement.setLong(i + 1, keys.get(i));
+                    }
+                    Map<Long, byte[]> result = new HashMap<>();
+                    try (ResultSet rs = selectStatement.executeQuery()) {
+                        while (rs.next()) {
+                            result.put(rs.getLong(configuration.getIdName()), rs.getBytes(configuration.getStateName()));
+                        }
+                    }
+                    return result;
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void insertEmptyData(List<Long> keys) {
+                String batchInsertSqlQuery = String.format(batchInsertSqlQueryTemplate, String.join(", ", Collections.nCopies(keys.size(), "(?, null)")));
+                try (PreparedStatement insertStatement = connection.prepareStatement(batchInsertSqlQuery)) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        insertStatement.setLong(i + 1, keys.get(i));
+                    }
+                    insertStatement.executeUpdate();
+                } catch (MySQLTransactionRollbackException conflict) {
+                    // do nothing, because parallel transaction has been already inserted the rows
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void update(List<Long> keys, List<byte[]> data, List<RemoteBucketState> newStates) {
+                try (PreparedStatement updateStatement = connection.prepareStatement(updateSqlQuery)) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        int parameterIndex = 1;
+                        updateStatement.setBytes(parameterIndex++, data.get(i));
+                        if (configuration.getExpiresAtName().isPresent()) {
+                            updateStatement.setObject(parameterIndex++, configuration.calculateExpiresAtMillis(newStates.get(i)), Types.BIGINT);
+                        }
+                        updateStatement.setLong(parameterIndex, keys.get(i));
+                        updateStatement.addBatch();
+                    }
+                    updateStatement.executeBatch();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void release() {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public int removeExpired(int batchSize) {
+        if (removeExpiredSqlQuery == null) {
+            throw BucketExceptions.expiresAtColumnIsNotConfigured();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement removeExpiredStatement = connection.prepareStatement(removeExpiredSqlQuery)) {
+                removeExpiredStatement.setLong(1, configuration.getCurrentTimeMillis());
+                removeExpiredStatement.setInt(2, batchSize);
+                return removeExpiredStatement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
     @Override
     public void removeProxy(Long key) {
         try (Connection connection = dataSource.getConnection()) {
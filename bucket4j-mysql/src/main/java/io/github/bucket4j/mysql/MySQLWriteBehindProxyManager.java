@@ -0,0 +1,61 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.mysql;
+
+import io.github.bucket4j.distributed.jdbc.AbstractSQLWriteBehindProxyManager;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfigurationBuilder;
+import io.github.bucket4j.distributed.proxy.generic.write_behind.AbstractWriteBehindProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.write_behind.WriteBehindConfig;
+
+import java.text.MessageFormat;
+
+/**
+ * The extension of Bucket4j library addressed to support <a href="https://www.mysql.com">MySQL</a>
+ * To start work with the MySQL extension you must create a table, which will include the possibility to work with buckets
+ * In order to do this, your table should include the next columns: id as a PRIMARY KEY (BIGINT) and state (BLOB)
+ * To define column names, {@link SQLProxyConfiguration} include {@link BucketTableSettings} which takes settings for the table to work with Bucket4j.
+ *
+ * <p>This implementation executes commands against in-memory state and writes modified buckets to MySQL in background
+ * by batched {@code INSERT ... ON DUPLICATE KEY UPDATE}, see {@link AbstractWriteBehindProxyManager} for restrictions of this mode.
+ *
+ * @see {@link SQLProxyConfigurationBuilder} to get more information how to build {@link SQLProxyConfiguration}
+ */
+public class MySQLWriteBehindProxyManager extends AbstractSQLWriteBehindProxyManager {
+
+    /**
+     *
+     * @param configuration {@link SQLProxyConfiguration} configuration.
+     * @param writeBehindConfig {@link WriteBehindConfig} configuration of background flushing.
+     */
+    public MySQLWriteBehindProxyManager(SQLProxyConfiguration configuration, WriteBehindConfig writeBehindConfig) {
+        super(configuration, writeBehindConfig, createUpsertSqlQuery(configuration));
+    }
+
+    private static String createUpsertSqlQuery(SQLProxyConfiguration configuration) {
+        return MessageFormat.format("INSERT INTO {0}({1}, {2}{3}) VALUES(?, ?{4}) ON DUPLICATE KEY UPDATE {2} = VALUES({2}){5}",
+                configuration.getTableName(), configuration.getIdName(), configuration.getStateName(),
+                configuration.getExpiresAtName().map(expiresAtName -> ", " + expiresAtName).orElse(""),
+                configuration.getExpiresAtName().map(expiresAtName -> ", ?").orElse(""),
+                configuration.getExpiresAtName().map(expiresAtName -> ", " + expiresAtName + " = VALUES(" + expiresAtName + ")").orElse(""));
+    }
+
+}
@@ -2,14 +2,21 @@ package io.github.bucket4j.mysql;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
 import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
 import io.github.bucket4j.distributed.jdbc.SQLProxyConfigurationBuilder;
 import io.github.bucket4j.distributed.proxy.ClientSideConfig;
 import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.remote.CommandResult;
+import io.github.bucket4j.distributed.remote.RemoteCommand;
+import io.github.bucket4j.distributed.remote.commands.CreateInitialStateAndExecuteCommand;
+import io.github.bucket4j.distributed.remote.commands.TryConsumeCommand;
 import io.github.bucket4j.tck.AbstractDistributedBucketTest;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.junit.Test;
 import org.testcontainers.containers.MySQLContainer;
 
 import javax.sql.DataSource;
@@ -17,8 +24,15 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 public class MySQLSelectForUpdateLockBasedTransactionTest extends AbstractDistributedBucketTest<Long> {
 
     private static MySQLContainer container;
@@ -44,6 +58,24 @@ public class MySQLSelectForUpdateLockBasedTransactionTest extends AbstractDistri
         proxyManager = new MySQLSelectForUpdateBasedProxyManager(configuration);
     }
 
+    @Test
+    public void testExecuteAll() {
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(1, Duration.ofMinutes(1)))
+                .build();
+        Map<Long, RemoteCommand<Boolean>> commands = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            commands.put(generateRandomKey(), new CreateInitialStateAndExecuteCommand<>(configuration, new TryConsumeCommand(1)));
+        }
+
+        Map<Long, CommandResult<Boolean>> results = proxyManager.executeAll(commands);
+        assertEquals(commands.keySet(), results.keySet());
+        results.values().forEach(result -> assertTrue(result.getData()));
+
+        results = proxyManager.executeAll(commands);
+        results.values().forEach(result -> assertFalse(result.getData()));
+    }
+
     @Override
     protected ProxyManager<Long> getProxyManager() {
         return proxyManager;
@@ -23,17 +23,24 @@ import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
 import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
 import io.github.bucket4j.distributed.jdbc.SQLProxyConfigurationBuilder;
+import io.github.bucket4j.distributed.proxy.ExpiredEntriesCleaner;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedBatchTransaction;
 import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
 import io.github.bucket4j.distributed.remote.RemoteBucketState;
 
 import javax.sql.DataSource;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -50,16 +57,23 @@ import java.util.Objects;
  * Also, if an UPDATE, DELETE, or SELECT FOR UPDATE from another transaction has already locked a selected row or rows, SELECT FOR UPDATE will wait for the other transaction to complete, and will then lock and return the updated row (or no row, if the row was deleted).
  * Within a SERIALIZABLE transaction, however, an error will be thrown if a row to be locked has changed since the transaction started.
  *
+ * <p>Commands for several buckets can be executed in single transaction via {@link #executeAll(Map)},
+ * in this case all rows are locked by one {@code SELECT ... WHERE id = ANY(?) ORDER BY id FOR UPDATE}
+ * and updated by one batch of {@code UPDATE} statements.
+ *
  * @see {@link SQLProxyConfigurationBuilder} to get more information how to build {@link SQLProxyConfiguration}
  */
-public class PostgreSQLSelectForUpdateBasedProxyManager extends AbstractSelectForUpdateBasedProxyManager<Long> {
+public class PostgreSQLSelectForUpdateBasedProxyManager extends AbstractSelectForUpdateBasedProxyManager<Long> implements ExpiredEntriesCleaner {
 
     private final DataSource dataSource;
     private final SQLProxyConfiguration configuration;
     private final String removeSqlQuery;
+    private final String removeExpiredSqlQuery;
     private final String updateSqlQuery;
     private final String insertSqlQuery;
     private final String selectSqlQuery;
+    private final String batchInsertSqlQuery;
+    private final String batchSelectSqlQuery;
 
     /**
      *
@@ -70,10 +84,19 @@ public class PostgreSQLSelectForUpdateBasedProxyManager extends AbstractSelectFo
         this.dataSource = Objects.requireNonNull(configuration.getDataSource());
         this.configuration = configuration;
         this.removeSqlQuery = MessageFormat.format("DELETE FROM {0} WHERE {1} = ?", configuration.getTableName(), configuration.getIdName());
-        this.updateSqlQuery = MessageFormat.format("UPDATE {0} SET {1}=? WHERE {2}=?", configuration.getTableName(), configuration.getStateName(), configuration.getIdName());
+        this.removeExpiredSqlQuery = configuration.getExpiresAtName()
+                .map(expiresAtName -> MessageFormat.format("DELETE FROM {0} WHERE {1} IN (SELECT {1} FROM {0} WHERE {2} < ? LIMIT ? FOR UPDATE SKIP LOCKED)",
+                        configuration.getTableName(), configuration.getIdName(), expiresAtName))
+                .orElse(null);
+        String expiresAtAssignment = configuration.getExpiresAtName().map(expiresAtName -> ", " + expiresAtName + "=?").orElse("");
+        this.updateSqlQuery = MessageFormat.format("UPDATE {0} SET {1}=?{3} WHERE {2}=?", configuration.getTableName(), configuration.getStateName(), configuration.getIdName(), expiresAtAssignment);
         this.insertSqlQuery = MessageFormat.format("INSERT INTO {0}({1}, {2}) VALUES(?, null) ON CONFLICT({3}) DO NOTHING",
                 configuration.getTableName(), configuration.getIdName(), configuration.getStateName(), configuration.getIdName());
         this.selectSqlQuery = MessageFormat.format("SELECT {0} FROM {1} WHERE {2} = ? FOR UPDATE", configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
+        this.batchInsertSqlQuery = MessageFormat.format("INSERT INTO {0}({1}) SELECT UNNEST(?) ON CONFLICT({1}) DO NOTHING", configuration.getTableName(), configuration.getIdName());
+        // rows are locked in the order of ORDER BY, so concurrent transactions with intersected keys can not deadlock
+        this.batchSelectSqlQuery = MessageFormat.format("SELECT {0}, {1} FROM {2} WHERE {0} = ANY(?) ORDER BY {0} FOR UPDATE",
+                configuration.getIdName(), configuration.getStateName(), configuration.getTableName());
     }
 
     @Override
@@ -144,8 +167,12 @@ public class PostgreSQLSelectForUpdateBasedProxyManager extends AbstractSelectFo
             public void update(byte[] data, RemoteBucketState newState) {
                 try {
                     try (PreparedStatement updateStatement = connection.prepareStatement(updateSqlQuery)) {
-                        updateStatement.setBytes(1, data);
-                        updateStatement.setLong(2, key);
+                        int parameterIndex = 1;
+                        updateStatement.setBytes(parameterIndex++, data);
+                        if (configuration.getExpiresAtName().isPresent()) {
+                            updateStatement.setObject(parameterIndex++, configuration.calculateExpiresAtMillis(newState), Types.BIGINT);
+                        }
+                        updateStatement.setLong(parameterIndex, key);
                         updateStatement.executeUpdate();
                     }
                 } catch (SQLException e) {
@@ -166,6 +193,123 @@ public class PostgreSQLSelectForUpdateBasedProxyManager extends AbstractSelectFo
 
     }
 
+    @Override
+    public boolean isBatchTransactionSupported() {
+        return true;
+    }
+
+    @Override
+    protected SelectForUpdateBasedBatchTransaction<Long> allocateBatchTransaction() {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+
+        return new SelectForUpdateBasedBatchTransaction<Long>() {
+            @Override
+            public void begin() {
+                try {
+                    connection.setAutoCommit(false);
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void rollback() {
+                try {
+                    connection.rollback();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void commit() {
+                try {
+                    connection.commit();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public Map<Long, byte[]> tryLockAndGet(List<Long> keys) {
+                try (PreparedStatement selectStatement = connection.prepareStatement(batchSelectSqlQuery)) {
+                    selectStatement.setArray(1, createKeyArray(connection, keys));
+                    Map<Long, byte[]> result = new HashMap<>();
+                    try (ResultSet rs = selectStatement.executeQuery()) {
+                        while (rs.next()) {
+                            result.put(rs.getLong(configuration.getIdName()), rs.getBytes(configuration.getStateName()));
+                        }
+                    }
+                    return result;
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void insertEmptyData(List<Long> keys) {
+                try (PreparedStatement insertStatement = connection.prepareStatement(batchInsertSqlQuery)) {
+                    insertStatement.setArray(1, createKeyArray(connection, keys));
+                    insertStatement.executeUpdate();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void update(List<Long> keys, List<byte[]> data, List<RemoteBucketState> newStates) {
+                try (PreparedStatement updateStatement = connection.prepareStatement(updateSqlQuery)) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        int parameterIndex = 1;
+                        updateStatement.setBytes(parameterIndex++, data.get(i));
+                        if (configuration.getExpiresAtName().isPresent()) {
+                            updateStatement.setObject(parameterIndex++, configuration.calculateExpiresAtMillis(newStates.get(i)), Types.BIGINT);
+                        }
+                        updateStatement.setLong(parameterIndex, keys.get(i));
+                        updateStatement.addBatch();
+                    }
+                    updateStatement.executeBatch();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void release() {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+        };
+    }
+
+    private static Array createKeyArray(Connection connection, List<Long> keys) throws SQLException {
+        return connection.createArrayOf("bigint", keys.toArray());
+    }
+
+    @Override
+    public int removeExpired(int batchSize) {
+        if (removeExpiredSqlQuery == null) {
+            throw BucketExceptions.expiresAtColumnIsNotConfigured();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement removeExpiredStatement = connection.prepareStatement(removeExpiredSqlQuery)) {
+                removeExpiredStatement.setLong(1, configuration.getCurrentTimeMillis());
+                removeExpiredStatement.setInt(2, batchSize);
+                return removeExpiredStatement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
     @Override
     public void removeProxy(Long key) {
         try (Connection connection = dataSource.getConnection()) {
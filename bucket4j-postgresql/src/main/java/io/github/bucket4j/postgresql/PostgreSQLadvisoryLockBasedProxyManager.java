@@ -23,15 +23,18 @@ import io.github.bucket4j.BucketExceptions;
 import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
 import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
 import io.github.bucket4j.distributed.jdbc.SQLProxyConfigurationBuilder;
+import io.github.bucket4j.distributed.proxy.ExpiredEntriesCleaner;
 import io.github.bucket4j.distributed.proxy.generic.pessimistic_locking.AbstractLockBasedProxyManager;
 import io.github.bucket4j.distributed.proxy.generic.pessimistic_locking.LockBasedTransaction;
 import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import org.postgresql.PGStatement;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.text.MessageFormat;
 import java.util.Objects;
 
@@ -48,16 +51,22 @@ import java.util.Objects;
  * The lock is exclusive.
  * Multiple lock requests stack so that if the same resource is locked three times it must then be unlocked three times to be released for other sessions use.
  * The lock is automatically released at the end of the current transaction and cannot be released explicitly.
+ *
+ * <p>The lock and the select are sent to the server as two statements of single prepared statement,
+ * so they are executed in one network round trip, but select takes its snapshot after the lock is acquired.
+ * The first state is created by upsert, and all statements are prepared on server side from the first execution,
+ * so the typical command costs three round trips: lock with select, update and commit.
  * @see {@link SQLProxyConfigurationBuilder} to get more information how to build {@link SQLProxyConfiguration}
  */
-public class PostgreSQLadvisoryLockBasedProxyManager extends AbstractLockBasedProxyManager<Long> {
+public class PostgreSQLadvisoryLockBasedProxyManager extends AbstractLockBasedProxyManager<Long> implements ExpiredEntriesCleaner {
 
     private final DataSource dataSource;
     private final SQLProxyConfiguration configuration;
     private final String removeSqlQuery;
+    private final String removeExpiredSqlQuery;
     private final String updateSqlQuery;
     private final String insertSqlQuery;
-    private final String selectSqlQuery;
+    private final String lockAndSelectSqlQuery;
 
     /**
      *
@@ -68,9 +77,21 @@ public class PostgreSQLadvisoryLockBasedProxyManager extends AbstractLockBasedPr
         this.dataSource = Objects.requireNonNull(configuration.getDataSource());
         this.configuration = configuration;
         this.removeSqlQuery = MessageFormat.format("DELETE FROM {0} WHERE {1} = ?", configuration.getTableName(), configuration.getIdName());
-        this.updateSqlQuery = MessageFormat.format("UPDATE {0} SET {1}=? WHERE {2}=?", configuration.getTableName(), configuration.getStateName(), configuration.getIdName());
-        this.insertSqlQuery = MessageFormat.format("INSERT INTO {0}({1}, {2}) VALUES(?, ?)", configuration.getTableName(), configuration.getIdName(), configuration.getStateName());
-        this.selectSqlQuery = MessageFormat.format("SELECT {0} FROM {1} WHERE {2} = ?", configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
+        this.removeExpiredSqlQuery = configuration.getExpiresAtName()
+                .map(expiresAtName -> MessageFormat.format("DELETE FROM {0} WHERE {1} IN (SELECT {1} FROM {0} WHERE {2} < ? LIMIT ? FOR UPDATE SKIP LOCKED)",
+                        configuration.getTableName(), configuration.getIdName(), expiresAtName))
+                .orElse(null);
+        String expiresAtAssignment = configuration.getExpiresAtName().map(expiresAtName -> ", " + expiresAtName + "=?").orElse("");
+        this.updateSqlQuery = MessageFormat.format("UPDATE {0} SET {1}=?{3} WHERE {2}=?", configuration.getTableName(), configuration.getStateName(), configuration.getIdName(), expiresAtAssignment);
+        this.insertSqlQuery = MessageFormat.format("INSERT INTO {0}({1}, {2}{3}) VALUES(?, ?{4}) ON CONFLICT({1}) DO UPDATE SET {2} = EXCLUDED.{2}{5}",
+                configuration.getTableName(), configuration.getIdName(), configuration.getStateName(),
+                configuration.getExpiresAtName().map(expiresAtName -> ", " + expiresAtName).orElse(""),
+                configuration.getExpiresAtName().map(expiresAtName -> ", ?").orElse(""),
+                configuration.getExpiresAtName().map(expiresAtName -> ", " + expiresAtName + " = EXCLUDED." + expiresAtName).orElse(""));
+        // two statements instead of single "SELECT pg_advisory_xact_lock(?), (SELECT ...)",
+        // because in READ COMMITTED the single statement could read the snapshot taken before the lock was acquired
+        this.lockAndSelectSqlQuery = MessageFormat.format("SELECT pg_advisory_xact_lock(?); SELECT {0} FROM {1} WHERE {2} = ?",
+                configuration.getStateName(), configuration.getTableName(), configuration.getIdName());
     }
 
     @Override
@@ -94,21 +115,18 @@ public class PostgreSQLadvisoryLockBasedProxyManager extends AbstractLockBasedPr
 
             @Override
             public byte[] lockAndGet() {
-                try {
-                    String lockSQL = "SELECT pg_advisory_xact_lock(?)";
-                    try (PreparedStatement lockStatement = connection.prepareStatement(lockSQL)) {
-                        lockStatement.setLong(1, key);
-                        lockStatement.executeQuery();
+                try (PreparedStatement lockAndSelectStatement = prepareStatement(connection, lockAndSelectSqlQuery)) {
+                    lockAndSelectStatement.setLong(1, key);
+                    lockAndSelectStatement.setLong(2, key);
+                    lockAndSelectStatement.execute();
+                    if (!lockAndSelectStatement.getMoreResults()) {
+                        throw new IllegalStateException("Result of select is missing");
                     }
-
-                    try (PreparedStatement selectStatement = connection.prepareStatement(selectSqlQuery)) {
-                        selectStatement.setLong(1, key);
-                        try (ResultSet rs = selectStatement.executeQuery()) {
-                            if (rs.next()) {
-                                return rs.getBytes(configuration.getStateName());
-                            } else {
-                                return null;
-                            }
+                    try (ResultSet rs = lockAndSelectStatement.getResultSet()) {
+                        if (rs.next()) {
+                            return rs.getBytes(configuration.getStateName());
+                        } else {
+                            return null;
                         }
                     }
                 } catch (SQLException e) {
@@ -119,9 +137,13 @@ public class PostgreSQLadvisoryLockBasedProxyManager extends AbstractLockBasedPr
             @Override
             public void update(byte[] data, RemoteBucketState newState) {
                 try {
-                    try (PreparedStatement updateStatement = connection.prepareStatement(updateSqlQuery)) {
-                        updateStatement.setBytes(1, data);
-                        updateStatement.setLong(2, key);
+                    try (PreparedStatement updateStatement = prepareStatement(connection, updateSqlQuery)) {
+                        int parameterIndex = 1;
+                        updateStatement.setBytes(parameterIndex++, data);
+                        if (configuration.getExpiresAtName().isPresent()) {
+                            updateStatement.setObject(parameterIndex++, configuration.calculateExpiresAtMillis(newState), Types.BIGINT);
+                        }
+                        updateStatement.setLong(parameterIndex, key);
                         updateStatement.executeUpdate();
                     }
                 } catch (SQLException e) {
@@ -141,9 +163,12 @@ public class PostgreSQLadvisoryLockBasedProxyManager extends AbstractLockBasedPr
             @Override
             public void create(byte[] data, RemoteBucketState newState) {
                 try {
-                    try (PreparedStatement insertStatement = connection.prepareStatement(insertSqlQuery)) {
+                    try (PreparedStatement insertStatement = prepareStatement(connection, insertSqlQuery)) {
                         insertStatement.setLong(1, key);
                         insertStatement.setBytes(2, data);
+                        if (configuration.getExpiresAtName().isPresent()) {
+                            insertStatement.setObject(3, configuration.calculateExpiresAtMillis(newState), Types.BIGINT);
+                        }
                         insertStatement.executeUpdate();
                     }
                 } catch (SQLException e) {
@@ -176,6 +201,37 @@ public class PostgreSQLadvisoryLockBasedProxyManager extends AbstractLockBasedPr
         };
     }
 
+    private static PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            // queries are constant, so let the driver to use named server-side statement from the first execution
+            // instead of parsing and planning them again on each command until default prepareThreshold is reached
+            if (statement.isWrapperFor(PGStatement.class)) {
+                statement.unwrap(PGStatement.class).setPrepareThreshold(1);
+            }
+            return statement;
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int removeExpired(int batchSize) {
+        if (removeExpiredSqlQuery == null) {
+            throw BucketExceptions.expiresAtColumnIsNotConfigured();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement removeExpiredStatement = connection.prepareStatement(removeExpiredSqlQuery)) {
+                removeExpiredStatement.setLong(1, configuration.getCurrentTimeMillis());
+                removeExpiredStatement.setInt(2, batchSize);
+                return removeExpiredStatement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
     @Override
     public void removeProxy(Long key) {
         try (Connection connection = dataSource.getConnection()) {
@@ -0,0 +1,91 @@
+package io.github.bucket4j.postgresql;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfigurationBuilder;
+import io.github.bucket4j.distributed.proxy.ExpiredEntriesCleaner;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+public class PostgreSQLExpirationTest {
+
+    private static PostgreSQLContainer container;
+    private static DataSource dataSource;
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofSeconds(10)))
+            .build();
+
+    @BeforeClass
+    public static void initializeInstance() throws SQLException {
+        container = new PostgreSQLContainer();
+        container.start();
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(container.getJdbcUrl());
+        hikariConfig.setUsername(container.getUsername());
+        hikariConfig.setPassword(container.getPassword());
+        hikariConfig.setDriverClassName(container.getDriverClassName());
+        dataSource = new HikariDataSource(hikariConfig);
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS expirable_buckets(id BIGINT PRIMARY KEY, state BYTEA, expires_at BIGINT)");
+                statement.execute("CREATE INDEX IF NOT EXISTS expirable_buckets_expires_at ON expirable_buckets(expires_at)");
+            }
+        }
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Test
+    public void shouldRemoveExpiredBuckets() throws InterruptedException {
+        List<Function<SQLProxyConfiguration, ProxyManager<Long>>> factories = Arrays.asList(
+                PostgreSQLSelectForUpdateBasedProxyManager::new,
+                PostgreSQLadvisoryLockBasedProxyManager::new,
+                PostgreSQLCompareAndSwapBasedProxyManager::new
+        );
+        for (Function<SQLProxyConfiguration, ProxyManager<Long>> factory : factories) {
+            SQLProxyConfiguration configuration = SQLProxyConfigurationBuilder.builder()
+                    .withTableSettings(BucketTableSettings.customSettings("expirable_buckets", "id", "state").withExpiresAtColumn("expires_at"))
+                    .withExpirationStrategy(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(Duration.ZERO))
+                    .build(dataSource);
+            ProxyManager<Long> proxyManager = factory.apply(configuration);
+            ExpiredEntriesCleaner cleaner = (ExpiredEntriesCleaner) proxyManager;
+
+            for (long key = 1; key <= 5; key++) {
+                proxyManager.builder().build(key, CONFIGURATION).tryConsume(1);
+            }
+            assertEquals(0, cleaner.removeExpired(10));
+
+            // expiration time is persisted by wall clock, consumed token is refilled after one second
+            Thread.sleep(2000);
+            assertEquals(3, cleaner.removeExpired(3));
+            assertEquals(2, cleaner.removeExpired(3));
+            assertEquals(0, cleaner.removeExpired(3));
+        }
+    }
+
+}
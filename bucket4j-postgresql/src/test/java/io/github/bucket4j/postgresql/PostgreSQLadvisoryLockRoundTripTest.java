@@ -0,0 +1,162 @@
+package io.github.bucket4j.postgresql;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import org.junit.Test;
+import org.postgresql.PGStatement;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts network round trips that {@link PostgreSQLadvisoryLockBasedProxyManager} performs per command
+ * against in-memory fake of JDBC driver that emulates PostgreSQL wire protocol costs:
+ * each execution and each commit/rollback is one round trip, begin of transaction is sent lazily together with first statement.
+ */
+public class PostgreSQLadvisoryLockRoundTripTest {
+
+    private final Map<Long, byte[]> table = new HashMap<>();
+    private int roundTrips;
+    private int preparedStatements;
+    private int serverSidePreparedStatements;
+
+    @Test
+    public void testRoundTripsPerCommand() {
+        PostgreSQLadvisoryLockBasedProxyManager proxyManager = new PostgreSQLadvisoryLockBasedProxyManager(new SQLProxyConfiguration(fakeDataSource()));
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(1_000_000, Duration.ofMinutes(1)))
+                .build();
+        BucketProxy bucket = proxyManager.builder().build(42L, configuration);
+
+        // lock+select and rollback because bucket is not found, then lock+select, upsert and commit
+        assertTrue(bucket.tryConsume(1));
+        assertEquals(5, roundTrips);
+
+        int commands = 1000;
+        roundTrips = 0;
+        preparedStatements = 0;
+        serverSidePreparedStatements = 0;
+        for (int i = 0; i < commands; i++) {
+            assertTrue(bucket.tryConsume(1));
+        }
+        assertEquals("round trips per command", 3 * commands, roundTrips);
+        assertEquals(2 * commands, preparedStatements);
+        // statements are prepared on server side since first execution
+        assertEquals(preparedStatements, serverSidePreparedStatements);
+    }
+
+    private DataSource fakeDataSource() {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            if (method.getName().equals("getConnection")) {
+                return fakeConnection();
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private Connection fakeConnection() {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setAutoCommit":
+                case "close":
+                    return null;
+                case "commit":
+                case "rollback":
+                    roundTrips++;
+                    return null;
+                case "prepareStatement":
+                    preparedStatements++;
+                    return fakeStatement((String) args[0]);
+                default: throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private PreparedStatement fakeStatement(String sql) {
+        Object[] params = new Object[3];
+        byte[][] selected = new byte[1][];
+        return proxy(PreparedStatement.class, new Class[] {PreparedStatement.class, PGStatement.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setLong":
+                case "setBytes":
+                    params[(Integer) args[0]] = args[1];
+                    return null;
+                case "isWrapperFor":
+                    return args[0] == PGStatement.class;
+                case "unwrap":
+                    if (args[0] != PGStatement.class) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return proxy;
+                case "setPrepareThreshold":
+                    assertEquals(1, args[0]);
+                    serverSidePreparedStatements++;
+                    return null;
+                case "close":
+                    return null;
+                case "execute":
+                    roundTrips++;
+                    if (!sql.startsWith("SELECT pg_advisory_xact_lock(?); SELECT")) {
+                        throw new UnsupportedOperationException(sql);
+                    }
+                    selected[0] = table.get((Long) params[2]);
+                    return true;
+                case "getMoreResults":
+                    return true;
+                case "getResultSet":
+                    return fakeResultSet(selected[0], table.containsKey((Long) params[2]));
+                case "executeUpdate":
+                    roundTrips++;
+                    if (sql.startsWith("INSERT")) {
+                        table.put((Long) params[1], (byte[]) params[2]);
+                    } else if (sql.startsWith("UPDATE")) {
+                        table.put((Long) params[2], (byte[]) params[1]);
+                    } else {
+                        throw new UnsupportedOperationException(sql);
+                    }
+                    return 1;
+                default: throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private ResultSet fakeResultSet(byte[] state, boolean exists) {
+        boolean[] consumed = new boolean[1];
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    boolean hasNext = exists && !consumed[0];
+                    consumed[0] = true;
+                    return hasNext;
+                case "getBytes":
+                    return state;
+                case "close":
+                    return null;
+                default: throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return proxy(type, new Class[] {type}, handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Class<?>[] interfaces, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(PostgreSQLadvisoryLockRoundTripTest.class.getClassLoader(), interfaces, handler);
+    }
+
+}
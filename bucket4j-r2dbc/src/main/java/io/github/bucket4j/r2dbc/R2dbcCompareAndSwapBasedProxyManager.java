@@ -0,0 +1,268 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.r2dbc;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ExpiredEntriesCleaner;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.MessageFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * The extension of Bucket4j library addressed to support relational databases via non-blocking <a href="https://r2dbc.io/">R2DBC</a> drivers.
+ * To start work with this extension you must create a table, which will include the possibility to work with buckets
+ * In order to do this, your table should include the next columns: id as a PRIMARY KEY (BIGINT) and state (BYTEA for PostgreSQL, BLOB for MySQL, VARBINARY for H2).
+ * To define column names use {@link BucketTableSettings}, the same way as for JDBC based integrations.
+ *
+ * <p>This implementation solves transaction related problems via optimistic compare-and-swap.
+ * Each statement is executed in auto-commit mode on the connection borrowed from {@link ConnectionFactory} for single statement:
+ * <ul>
+ *     <li>state is read by plain {@code SELECT}</li>
+ *     <li>existed state is replaced by {@code UPDATE ... WHERE id = ? AND state = ?}, that is successful only if nobody changed the state concurrently</li>
+ *     <li>first state is created by {@code INSERT}, that is successful only if nobody created the state concurrently,
+ *     violation of primary key is treated as concurrent modification</li>
+ * </ul>
+ * In case of concurrent modification the command is re-executed against fresh state,
+ * see {@link io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapRetryPolicy} to control this behavior.
+ *
+ * <p>Asynchronous API is supported natively, no thread is blocked while waiting for database.
+ * Synchronous API is supported too, but it blocks the caller thread until statement completes,
+ * so it must not be used from the threads of event-loop.
+ * Pass pooled {@link ConnectionFactory}(for example r2dbc-pool) in order to avoid establishing the new connection per each statement.
+ *
+ * <p>When expiration column is configured via {@link BucketTableSettings#withExpiresAtColumn(String)},
+ * it is written together with state according to {@link R2dbcProxyConfiguration#getExpirationStrategy()},
+ * and expired buckets can be removed via {@link #removeExpired(int)}.
+ *
+ * @see R2dbcProxyConfigurationBuilder
+ */
+public class R2dbcCompareAndSwapBasedProxyManager extends AbstractCompareAndSwapBasedProxyManager<Long> implements ExpiredEntriesCleaner {
+
+    private final ConnectionFactory connectionFactory;
+    private final R2dbcProxyConfiguration configuration;
+    private final boolean expiresAtConfigured;
+    private final String removeSqlQuery;
+    private final String removeExpiredSqlQuery;
+    private final String selectSqlQuery;
+    private final String compareAndSwapSqlQuery;
+    private final String insertSqlQuery;
+    private final String initializeEmptySqlQuery;
+
+    /**
+     * Creates proxy manager that works with table described by {@link BucketTableSettings#getDefault()}
+     *
+     * @param connectionFactory factory of R2DBC connections
+     * @param dialect dialect of database
+     */
+    public R2dbcCompareAndSwapBasedProxyManager(ConnectionFactory connectionFactory, R2dbcDialect dialect) {
+        this(new R2dbcProxyConfiguration(connectionFactory, dialect));
+    }
+
+    /**
+     *
+     * @param connectionFactory factory of R2DBC connections
+     * @param dialect dialect of database
+     * @param tableSettings {@link BucketTableSettings} define a configuration of the table to use as a Buckets store.
+     * @param clientSideConfig {@link ClientSideConfig} client-side configuration for proxy-manager.
+     */
+    public R2dbcCompareAndSwapBasedProxyManager(ConnectionFactory connectionFactory, R2dbcDialect dialect, BucketTableSettings tableSettings, ClientSideConfig clientSideConfig) {
+        this(new R2dbcProxyConfiguration(connectionFactory, dialect, clientSideConfig, tableSettings));
+    }
+
+    /**
+     *
+     * @param configuration {@link R2dbcProxyConfiguration} configuration.
+     */
+    public R2dbcCompareAndSwapBasedProxyManager(R2dbcProxyConfiguration configuration) {
+        super(configuration.getClientSideConfig());
+        this.connectionFactory = Objects.requireNonNull(configuration.getConnectionFactory());
+        this.configuration = configuration;
+        this.expiresAtConfigured = configuration.getExpiresAtName().isPresent();
+        R2dbcDialect dialect = configuration.getDialect();
+        String tableName = configuration.getTableName();
+        String idName = configuration.getIdName();
+        String stateName = configuration.getStateName();
+        String p1 = dialect.bindMarker(0);
+        String p2 = dialect.bindMarker(1);
+        String p3 = dialect.bindMarker(2);
+        String p4 = dialect.bindMarker(3);
+        this.removeSqlQuery = MessageFormat.format("DELETE FROM {0} WHERE {1} = {2}", tableName, idName, p1);
+        this.removeExpiredSqlQuery = configuration.getExpiresAtName()
+                .map(expiresAtName -> dialect.removeExpiredSqlQuery(tableName, idName, expiresAtName))
+                .orElse(null);
+        this.selectSqlQuery = MessageFormat.format("SELECT {0} FROM {1} WHERE {2} = {3}", stateName, tableName, idName, p1);
+        if (expiresAtConfigured) {
+            String expiresAtName = configuration.getExpiresAtName().get();
+            this.compareAndSwapSqlQuery = MessageFormat.format("UPDATE {0} SET {1}={4}, {3}={5} WHERE {2}={6} AND {1}={7}", tableName, stateName, idName, expiresAtName, p1, p2, p3, p4);
+            this.insertSqlQuery = MessageFormat.format("INSERT INTO {0}({1}, {2}, {3}) VALUES({4}, {5}, {6})", tableName, idName, stateName, expiresAtName, p1, p2, p3);
+            // rows with null state can be left by select-for-update based proxy manager that works with the same table
+            this.initializeEmptySqlQuery = MessageFormat.format("UPDATE {0} SET {1}={4}, {3}={5} WHERE {2}={6} AND {1} IS NULL", tableName, stateName, idName, expiresAtName, p1, p2, p3);
+        } else {
+            this.compareAndSwapSqlQuery = MessageFormat.format("UPDATE {0} SET {1}={3} WHERE {2}={4} AND {1}={5}", tableName, stateName, idName, p1, p2, p3);
+            this.insertSqlQuery = MessageFormat.format("INSERT INTO {0}({1}, {2}) VALUES({3}, {4})", tableName, idName, stateName, p1, p2);
+            // rows with null state can be left by select-for-update based proxy manager that works with the same table
+            this.initializeEmptySqlQuery = MessageFormat.format("UPDATE {0} SET {1}={3} WHERE {2}={4} AND {1} IS NULL", tableName, stateName, idName, p1, p2);
+        }
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(Long key) {
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData() {
+                return selectState(key).block();
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                return compareAndSwapState(key, originalData, newData, newState).block();
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(Long key) {
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData() {
+                return selectState(key).toFuture();
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                return compareAndSwapState(key, originalData, newData, newState).toFuture();
+            }
+        };
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(Long key) {
+        return removeState(key).toFuture();
+    }
+
+    @Override
+    public void removeProxy(Long key) {
+        removeState(key).block();
+    }
+
+    @Override
+    public int removeExpired(int batchSize) {
+        if (removeExpiredSqlQuery == null) {
+            throw BucketExceptions.expiresAtColumnIsNotConfigured();
+        }
+        return withConnection(connection -> {
+            Statement removeExpiredStatement = connection.createStatement(removeExpiredSqlQuery)
+                    .bind(0, configuration.getCurrentTimeMillis())
+                    .bind(1, batchSize);
+            return Flux.from(removeExpiredStatement.execute())
+                    .flatMap(Result::getRowsUpdated)
+                    .reduce(0L, Long::sum);
+        }).block().intValue();
+    }
+
+    private Mono<Optional<byte[]>> selectState(Long key) {
+        return withConnection(connection -> Flux.from(connection.createStatement(selectSqlQuery).bind(0, key).execute())
+                .flatMap(result -> result.map((row, metadata) -> Optional.ofNullable(row.get(0, byte[].class))))
+                .next()
+                .defaultIfEmpty(Optional.empty())
+        );
+    }
+
+    private Mono<Boolean> compareAndSwapState(Long key, byte[] originalData, byte[] newData, RemoteBucketState newState) {
+        Long expiresAt = expiresAtConfigured ? configuration.calculateExpiresAtMillis(newState) : null;
+        return withConnection(connection -> {
+            if (originalData != null) {
+                Statement casStatement = connection.createStatement(compareAndSwapSqlQuery);
+                int parameterIndex = 0;
+                casStatement.bind(parameterIndex++, newData);
+                parameterIndex = bindExpiresAt(casStatement, parameterIndex, expiresAt);
+                casStatement.bind(parameterIndex++, key);
+                casStatement.bind(parameterIndex, originalData);
+                return executeUpdate(casStatement);
+            }
+            Statement insertStatement = connection.createStatement(insertSqlQuery)
+                    .bind(0, key)
+                    .bind(1, newData);
+            bindExpiresAt(insertStatement, 2, expiresAt);
+            return executeUpdate(insertStatement)
+                    .onErrorResume(R2dbcDataIntegrityViolationException.class, e -> Mono.just(false))
+                    .flatMap(inserted -> {
+                        if (inserted) {
+                            return Mono.just(true);
+                        }
+                        Statement initializeStatement = connection.createStatement(initializeEmptySqlQuery);
+                        int parameterIndex = 0;
+                        initializeStatement.bind(parameterIndex++, newData);
+                        parameterIndex = bindExpiresAt(initializeStatement, parameterIndex, expiresAt);
+                        initializeStatement.bind(parameterIndex, key);
+                        return executeUpdate(initializeStatement);
+                    });
+        });
+    }
+
+    private int bindExpiresAt(Statement statement, int parameterIndex, Long expiresAt) {
+        if (!expiresAtConfigured) {
+            return parameterIndex;
+        }
+        if (expiresAt == null) {
+            statement.bindNull(parameterIndex, Long.class);
+        } else {
+            statement.bind(parameterIndex, expiresAt);
+        }
+        return parameterIndex + 1;
+    }
+
+    private Mono<Void> removeState(Long key) {
+        return withConnection(connection -> executeUpdate(connection.createStatement(removeSqlQuery).bind(0, key))).then();
+    }
+
+    private <T> Mono<T> withConnection(Function<Connection, Mono<T>> action) {
+        return Mono.usingWhen(connectionFactory.create(), action, Connection::close);
+    }
+
+    private static Mono<Boolean> executeUpdate(Statement statement) {
+        return Flux.from(statement.execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum)
+                .map(rowsUpdated -> rowsUpdated > 0);
+    }
+
+}
@@ -0,0 +1,86 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.r2dbc;
+
+import java.text.MessageFormat;
+
+/**
+ * Describes the differences between databases that matter for {@link R2dbcCompareAndSwapBasedProxyManager}.
+ */
+public enum R2dbcDialect {
+
+    /**
+     * <a href="https://github.com/pgjdbc/r2dbc-postgresql">r2dbc-postgresql</a> driver, uses {@code $1, $2, ...} as bind markers.
+     */
+    POSTGRESQL {
+        @Override
+        String bindMarker(int index) {
+            return "$" + (index + 1);
+        }
+
+        @Override
+        String removeExpiredSqlQuery(String tableName, String idName, String expiresAtName) {
+            return MessageFormat.format("DELETE FROM {0} WHERE {1} IN (SELECT {1} FROM {0} WHERE {2} < $1 LIMIT $2 FOR UPDATE SKIP LOCKED)", tableName, idName, expiresAtName);
+        }
+    },
+
+    /**
+     * MySQL drivers, uses {@code ?} as bind markers.
+     */
+    MYSQL {
+        @Override
+        String bindMarker(int index) {
+            return "?";
+        }
+
+        @Override
+        String removeExpiredSqlQuery(String tableName, String idName, String expiresAtName) {
+            return MessageFormat.format("DELETE FROM {0} WHERE {1} < ? LIMIT ?", tableName, expiresAtName);
+        }
+    },
+
+    /**
+     * <a href="https://github.com/r2dbc/r2dbc-h2">r2dbc-h2</a> driver, uses {@code $1, $2, ...} as bind markers.
+     */
+    H2 {
+        @Override
+        String bindMarker(int index) {
+            return "$" + (index + 1);
+        }
+
+        @Override
+        String removeExpiredSqlQuery(String tableName, String idName, String expiresAtName) {
+            return MessageFormat.format("DELETE FROM {0} WHERE {1} IN (SELECT {1} FROM {0} WHERE {2} < $1 LIMIT $2)", tableName, idName, expiresAtName);
+        }
+    };
+
+    /**
+     * @param index zero-based index of parameter
+     *
+     * @return the placeholder that should be used in SQL text for parameter with specified index
+     */
+    abstract String bindMarker(int index);
+
+    /**
+     * @return the query that removes not more than limit (second parameter) rows that expired before the time (first parameter)
+     */
+    abstract String removeExpiredSqlQuery(String tableName, String idName, String expiresAtName);
+
+}
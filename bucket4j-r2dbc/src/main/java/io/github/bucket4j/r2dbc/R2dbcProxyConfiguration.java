@@ -0,0 +1,142 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.r2dbc;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.r2dbc.spi.ConnectionFactory;
+
+import java.util.Optional;
+
+/**
+ * The R2DBC counterpart of {@link io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration}.
+ *
+ * @see R2dbcProxyConfigurationBuilder
+ */
+public class R2dbcProxyConfiguration {
+
+    private final ConnectionFactory connectionFactory;
+    private final R2dbcDialect dialect;
+    private final ClientSideConfig clientSideConfig;
+    private final BucketTableSettings tableSettings;
+    private final ExpirationAfterWriteStrategy expirationStrategy;
+
+    public R2dbcProxyConfiguration(ConnectionFactory connectionFactory, R2dbcDialect dialect) {
+        this(connectionFactory, dialect, ClientSideConfig.getDefault(), BucketTableSettings.getDefault());
+    }
+
+    public R2dbcProxyConfiguration(ConnectionFactory connectionFactory, R2dbcDialect dialect, ClientSideConfig clientSideConfig, BucketTableSettings tableSettings) {
+        this(connectionFactory, dialect, clientSideConfig, tableSettings, ExpirationAfterWriteStrategy.none(), false);
+    }
+
+    /**
+     * @throws BucketExceptions.BucketExecutionException if {@code tableSettings} do not define the expiration column
+     */
+    public R2dbcProxyConfiguration(ConnectionFactory connectionFactory, R2dbcDialect dialect, ClientSideConfig clientSideConfig, BucketTableSettings tableSettings, ExpirationAfterWriteStrategy expirationStrategy) {
+        this(connectionFactory, dialect, clientSideConfig, tableSettings, expirationStrategy, true);
+    }
+
+    private R2dbcProxyConfiguration(ConnectionFactory connectionFactory, R2dbcDialect dialect, ClientSideConfig clientSideConfig, BucketTableSettings tableSettings, ExpirationAfterWriteStrategy expirationStrategy, boolean expirationRequested) {
+        if (connectionFactory == null) {
+            throw new BucketExceptions.BucketExecutionException("ConnectionFactory cannot be null");
+        }
+        if (dialect == null) {
+            throw new BucketExceptions.BucketExecutionException("R2dbcDialect cannot be null");
+        }
+        if (expirationRequested) {
+            if (expirationStrategy == null) {
+                throw new BucketExceptions.BucketExecutionException("ExpirationAfterWriteStrategy cannot be null");
+            }
+            if (!tableSettings.getExpiresAtName().isPresent()) {
+                throw new BucketExceptions.BucketExecutionException("ExpirationAfterWriteStrategy requires the expiration column to be configured in BucketTableSettings");
+            }
+        }
+        this.connectionFactory = connectionFactory;
+        this.dialect = dialect;
+        this.clientSideConfig = clientSideConfig;
+        this.tableSettings = tableSettings;
+        this.expirationStrategy = expirationStrategy;
+    }
+
+    public ConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    public R2dbcDialect getDialect() {
+        return dialect;
+    }
+
+    public ClientSideConfig getClientSideConfig() {
+        return clientSideConfig;
+    }
+
+    public String getIdName() {
+        return tableSettings.getIdName();
+    }
+
+    public String getStateName() {
+        return tableSettings.getStateName();
+    }
+
+    public String getTableName() {
+        return tableSettings.getTableName();
+    }
+
+    public Optional<String> getExpiresAtName() {
+        return tableSettings.getExpiresAtName();
+    }
+
+    public ExpirationAfterWriteStrategy getExpirationStrategy() {
+        return expirationStrategy;
+    }
+
+    /**
+     * Calculates the value of expiration column for bucket that is going to be persisted,
+     * the same way as {@link io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration#calculateExpiresAtMillis(RemoteBucketState)}.
+     *
+     * @param state the state of bucket that is going to be persisted
+     *
+     * @return milliseconds since epoch after which bucket can be removed, or {@code null} if bucket should be stored forever
+     */
+    public Long calculateExpiresAtMillis(RemoteBucketState state) {
+        long ttlMillis = expirationStrategy.calculateTimeToLiveMillis(state, getBucketTimeNanos());
+        if (ttlMillis < 0) {
+            return null;
+        }
+        return getCurrentTimeMillis() + ttlMillis;
+    }
+
+    /**
+     * @return current wall clock time in milliseconds since epoch that should be used to detect expired buckets
+     */
+    public long getCurrentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private long getBucketTimeNanos() {
+        Optional<TimeMeter> clock = clientSideConfig.getClientSideClock();
+        return clock.isPresent() ? clock.get().currentTimeNanos() : System.currentTimeMillis() * 1_000_000;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.r2dbc;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * The class to build {@link R2dbcProxyConfiguration}
+ */
+public final class R2dbcProxyConfigurationBuilder {
+    private ClientSideConfig clientSideConfig;
+    private BucketTableSettings tableSettings;
+    private ExpirationAfterWriteStrategy expirationStrategy;
+
+    private R2dbcProxyConfigurationBuilder() {
+    }
+
+    public static R2dbcProxyConfigurationBuilder builder() {
+        return new R2dbcProxyConfigurationBuilder();
+    }
+
+    /**
+     * @param clientSideConfig {@link ClientSideConfig} client-side configuration for proxy-manager.
+     *                         By default, under the hood uses {@link ClientSideConfig#getDefault}
+     * @return {@link R2dbcProxyConfigurationBuilder}
+     */
+    public R2dbcProxyConfigurationBuilder withClientSideConfig(ClientSideConfig clientSideConfig) {
+        this.clientSideConfig = clientSideConfig;
+        return this;
+    }
+
+    /**
+     * @param tableSettings {@link BucketTableSettings} define a configuration of the table to use as a Buckets store.
+     *                      By default, under the hood uses {@link BucketTableSettings#getDefault}
+     * @return {@link R2dbcProxyConfigurationBuilder}
+     */
+    public R2dbcProxyConfigurationBuilder withTableSettings(BucketTableSettings tableSettings) {
+        this.tableSettings = tableSettings;
+        return this;
+    }
+
+    /**
+     * @param expirationStrategy {@link ExpirationAfterWriteStrategy} defines the value of expiration column that is written together with bucket state.
+     *                           Requires the expiration column to be configured via {@link BucketTableSettings#withExpiresAtColumn}.
+     *                           By default, under the hood uses {@link ExpirationAfterWriteStrategy#none()}
+     * @return {@link R2dbcProxyConfigurationBuilder}
+     */
+    public R2dbcProxyConfigurationBuilder withExpirationStrategy(ExpirationAfterWriteStrategy expirationStrategy) {
+        this.expirationStrategy = expirationStrategy;
+        return this;
+    }
+
+    /**
+     * @param connectionFactory factory of R2DBC connections
+     * @param dialect dialect of database
+     * @return {@link R2dbcProxyConfiguration}
+     */
+    public R2dbcProxyConfiguration build(ConnectionFactory connectionFactory, R2dbcDialect dialect) {
+        if (connectionFactory == null) {
+            throw new BucketExceptions.BucketExecutionException("ConnectionFactory cannot be null");
+        }
+        if (tableSettings == null) {
+            this.tableSettings = BucketTableSettings.getDefault();
+        }
+        if (clientSideConfig == null) {
+            this.clientSideConfig = ClientSideConfig.getDefault();
+        }
+        if (expirationStrategy == null) {
+            return new R2dbcProxyConfiguration(connectionFactory, dialect, clientSideConfig, tableSettings);
+        }
+        return new R2dbcProxyConfiguration(connectionFactory, dialect, clientSideConfig, tableSettings, expirationStrategy);
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.bucket4j.r2dbc;
+
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.tck.AbstractDistributedBucketTest;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.BeforeClass;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.MessageFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class R2dbcCompareAndSwapBasedProxyManagerTest extends AbstractDistributedBucketTest<Long> {
+
+    private static R2dbcCompareAndSwapBasedProxyManager proxyManager;
+
+    @BeforeClass
+    public static void initializeInstance() {
+        ConnectionFactory connectionFactory = H2ConnectionFactory.inMemory("bucket4j");
+        BucketTableSettings tableSettings = BucketTableSettings.getDefault();
+        final String INIT_TABLE_SCRIPT = "CREATE TABLE IF NOT EXISTS {0}({1} BIGINT PRIMARY KEY, {2} VARBINARY)";
+        String query = MessageFormat.format(INIT_TABLE_SCRIPT, tableSettings.getTableName(), tableSettings.getIdName(), tableSettings.getStateName());
+        Mono.usingWhen(connectionFactory.create(),
+                connection -> Flux.from(connection.createStatement(query).execute()).then(),
+                Connection::close
+        ).block();
+        proxyManager = new R2dbcCompareAndSwapBasedProxyManager(connectionFactory, R2dbcDialect.H2, tableSettings, ClientSideConfig.getDefault());
+    }
+
+    @Override
+    protected ProxyManager<Long> getProxyManager() {
+        return proxyManager;
+    }
+
+    @Override
+    protected Long generateRandomKey() {
+        return ThreadLocalRandom.current().nextLong(1_000_000_000);
+    }
+
+}
@@ -0,0 +1,69 @@
+package io.github.bucket4j.r2dbc;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+
+public class R2dbcExpirationTest {
+
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(10, Duration.ofSeconds(10)))
+            .build();
+
+    private static ConnectionFactory connectionFactory;
+
+    @BeforeClass
+    public static void initializeInstance() {
+        connectionFactory = H2ConnectionFactory.inMemory("bucket4j-expiration");
+        Mono.usingWhen(connectionFactory.create(),
+                connection -> Flux.from(connection.createStatement("CREATE TABLE IF NOT EXISTS expirable_buckets(id BIGINT PRIMARY KEY, state VARBINARY, expires_at BIGINT)").execute()).then(),
+                Connection::close
+        ).block();
+    }
+
+    @Test
+    public void shouldRemoveExpiredBuckets() throws InterruptedException {
+        R2dbcProxyConfiguration configuration = R2dbcProxyConfigurationBuilder.builder()
+                .withTableSettings(BucketTableSettings.customSettings("expirable_buckets", "id", "state").withExpiresAtColumn("expires_at"))
+                .withExpirationStrategy(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(Duration.ZERO))
+                .build(connectionFactory, R2dbcDialect.H2);
+        R2dbcCompareAndSwapBasedProxyManager proxyManager = new R2dbcCompareAndSwapBasedProxyManager(configuration);
+
+        for (long key = 1; key <= 5; key++) {
+            proxyManager.builder().build(key, CONFIGURATION).tryConsume(1);
+        }
+        assertEquals(0, proxyManager.removeExpired(10));
+
+        // expiration time is persisted by wall clock, consumed token is refilled after one second
+        Thread.sleep(2000);
+        assertEquals(3, proxyManager.removeExpired(3));
+        assertEquals(2, proxyManager.removeExpired(3));
+        assertEquals(0, proxyManager.removeExpired(3));
+    }
+
+    @Test(expected = BucketExceptions.BucketExecutionException.class)
+    public void shouldRequireExpirationColumnForExpirationStrategy() {
+        new R2dbcProxyConfiguration(connectionFactory, R2dbcDialect.H2, ClientSideConfig.getDefault(),
+                BucketTableSettings.getDefault(), ExpirationAfterWriteStrategy.fixedTimeToLive(Duration.ofSeconds(10)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldRequireExpirationColumnToRemoveExpiredBuckets() {
+        new R2dbcCompareAndSwapBasedProxyManager(connectionFactory, R2dbcDialect.H2).removeExpired(10);
+    }
+
+}
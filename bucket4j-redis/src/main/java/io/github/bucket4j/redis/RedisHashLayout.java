@@ -0,0 +1,149 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Bucket4j
+ * %%
+ * Copyright (C) 2015 - 2022 Vladimir Bukhtoyarov
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package io.github.bucket4j.redis;
+
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.remote.BucketConfigurationRegistry;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout that stores bucket in Redis hash instead of single binary string.
+ *
+ * <p>
+ * The hash consists from two fields:
+ * <ul>
+ *     <li><b>state</b> - the mutable part of bucket: current size and last refill time of each bandwidth, statistics and configuration version,
+ *     the configuration is referenced from this field by fingerprint, see {@link ClientSideConfig#withConfigurationByReference()}.</li>
+ *     <li><b>configuration</b> - the configuration of bucket, it is written only when bucket is created or configuration is replaced.</li>
+ * </ul>
+ * So compare-and-swap scripts transfer and rewrite only the <b>state</b> field which is several times smaller than whole bucket.
+ *
+ * <p>
+ * Keys that were written with default layout are not readable with hash layout and vice versa,
+ * so switching between layouts requires new key space.
+ */
+public final class RedisHashLayout {
+
+    public static final byte[] STATE_FIELD = "state".getBytes(StandardCharsets.UTF_8);
+    public static final byte[] CONFIGURATION_FIELD = "configuration".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] UNCHANGED_CONFIGURATION = new byte[0];
+
+    /**
+     * KEYS[1] - key of bucket, ARGV[1] - new state, ARGV[2] - configuration
+     */
+    public static final String CREATE_SCRIPT =
+            "if redis.call('hsetnx', KEYS[1], 'state', ARGV[1]) == 1 then " +
+                "redis.call('hset', KEYS[1], 'configuration', ARGV[2]); " +
+                "return 1; " +
+            "else " +
+                "return 0; " +
+            "end";
+
+    /**
+     * KEYS[1] - key of bucket, ARGV[1] - new state, ARGV[2] - configuration, ARGV[3] - time to live in milliseconds
+     */
+    public static final String CREATE_SCRIPT_PX =
+            "if redis.call('hsetnx', KEYS[1], 'state', ARGV[1]) == 1 then " +
+                "redis.call('hset', KEYS[1], 'configuration', ARGV[2]); " +
+                "redis.call('pexpire', KEYS[1], ARGV[3]); " +
+                "return 1; " +
+            "else " +
+                "return 0; " +
+            "end";
+
+    /**
+     * KEYS[1] - key of bucket, ARGV[1] - original state, ARGV[2] - new state, ARGV[3] - new configuration or empty string if configuration is unchanged
+     */
+    public static final String COMPARE_AND_SWAP_SCRIPT =
+            "if redis.call('hget', KEYS[1], 'state') == ARGV[1] then " +
+                "redis.call('hset', KEYS[1], 'state', ARGV[2]); " +
+                "if ARGV[3] ~= '' then " +
+                    "redis.call('hset', KEYS[1], 'configuration', ARGV[3]); " +
+                "end; " +
+                "return 1; " +
+            "else " +
+                "return 0; " +
+            "end";
+
+    /**
+     * KEYS[1] - key of bucket, ARGV[1] - original state, ARGV[2] - new state, ARGV[3] - new configuration or empty string if configuration is unchanged,
+     * ARGV[4] - time to live in milliseconds
+     */
+    public static final String COMPARE_AND_SWAP_SCRIPT_PX =
+            "if redis.call('hget', KEYS[1], 'state') == ARGV[1] then " +
+                "redis.call('hset', KEYS[1], 'state', ARGV[2]); " +
+                "if ARGV[3] ~= '' then " +
+                    "redis.call('hset', KEYS[1], 'configuration', ARGV[3]); " +
+                "end; " +
+                "redis.call('pexpire', KEYS[1], ARGV[4]); " +
+                "return 1; " +
+            "else " +
+                "return 0; " +
+            "end";
+
+    private RedisHashLayout() {
+        // private constructor for utility class
+    }
+
+    /**
+     * Enables persisting of configuration by reference which is required by hash layout.
+     *
+     * @param clientSideConfig configuration of proxy manager
+     *
+     * @return configuration of proxy manager which persists configuration by reference
+     */
+    public static ClientSideConfig adaptClientSideConfig(ClientSideConfig clientSideConfig) {
+        return clientSideConfig.isConfigurationByReference() ? clientSideConfig : clientSideConfig.withConfigurationByReference();
+    }
+
+    /**
+     * Makes configuration that was read from <b>configuration</b> field resolvable by the state.
+     *
+     * @param configurationBytes value of <b>configuration</b> field, can be null if bucket does not exist
+     *
+     * @return fingerprint of configuration, or null if bucket does not exist
+     */
+    public static Long registerConfiguration(byte[] configurationBytes) {
+        if (configurationBytes == null) {
+            return null;
+        }
+        return BucketConfigurationRegistry.registerSerialized(configurationBytes);
+    }
+
+    /**
+     * Returns value for <b>configuration</b> field that should be written together with new state.
+     *
+     * @param persistedConfigurationFingerprint fingerprint of configuration that was read together with original state, can be null if bucket does not exist
+     * @param newState the new state
+     *
+     * @return serialized configuration or empty array if configuration should not be rewritten
+     */
+    public static byte[] getConfigurationToWrite(Long persistedConfigurationFingerprint, RemoteBucketState newState) {
+        long newFingerprint = BucketConfigurationRegistry.register(newState.getConfiguration());
+        if (persistedConfigurationFingerprint != null && persistedConfigurationFingerprint == newFingerprint) {
+            return UNCHANGED_CONFIGURATION;
+        }
+        return BucketConfigurationRegistry.serializeConfiguration(newState.getConfiguration());
+    }
+
+}
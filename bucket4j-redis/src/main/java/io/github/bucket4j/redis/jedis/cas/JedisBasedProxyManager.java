@@ -27,10 +27,12 @@ import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompar
 import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
 import io.github.bucket4j.distributed.remote.RemoteBucketState;
 import io.github.bucket4j.redis.AbstractRedisProxyManagerBuilder;
+import io.github.bucket4j.redis.RedisHashLayout;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -40,6 +42,7 @@ public class JedisBasedProxyManager extends AbstractCompareAndSwapBasedProxyMana
 
     private final JedisPool jedisPool;
     private final ExpirationAfterWriteStrategy expirationStrategy;
+    private final boolean hashLayout;
 
     public static JedisBasedProxyManagerBuilder builderFor(JedisPool jedisPool) {
         return new JedisBasedProxyManagerBuilder(jedisPool);
@@ -48,11 +51,23 @@ public class JedisBasedProxyManager extends AbstractCompareAndSwapBasedProxyMana
     public static class JedisBasedProxyManagerBuilder extends AbstractRedisProxyManagerBuilder<JedisBasedProxyManagerBuilder> {
 
         private final JedisPool jedisPool;
+        private boolean hashLayout;
 
         private JedisBasedProxyManagerBuilder(JedisPool jedisPool) {
             this.jedisPool = Objects.requireNonNull(jedisPool);
         }
 
+        /**
+         * Stores buckets in Redis hashes, so compare-and-swap transfers and rewrites only mutable part of bucket,
+         * see {@link RedisHashLayout} for details.
+         *
+         * @return this builder instance
+         */
+        public JedisBasedProxyManagerBuilder withHashLayout() {
+            this.hashLayout = true;
+            return this;
+        }
+
         public JedisBasedProxyManager build() {
             return new JedisBasedProxyManager(this);
         }
@@ -60,13 +75,17 @@ public class JedisBasedProxyManager extends AbstractCompareAndSwapBasedProxyMana
     }
 
     private JedisBasedProxyManager(JedisBasedProxyManagerBuilder builder) {
-        super(builder.getClientSideConfig());
+        super(builder.hashLayout ? RedisHashLayout.adaptClientSideConfig(builder.getClientSideConfig()) : builder.getClientSideConfig());
         this.jedisPool = builder.jedisPool;
         this.expirationStrategy = builder.getNotNullExpirationStrategy();
+        this.hashLayout = builder.hashLayout;
     }
 
     @Override
     protected CompareAndSwapOperation beginCompareAndSwapOperation(byte[] key) {
+        if (hashLayout) {
+            return beginHashLayoutCompareAndSwapOperation(key);
+        }
         return new CompareAndSwapOperation() {
             @Override
             public Optional<byte[]> getStateData() {
@@ -80,6 +99,36 @@ public class JedisBasedProxyManager extends AbstractCompareAndSwapBasedProxyMana
         };
     }
 
+    private CompareAndSwapOperation beginHashLayoutCompareAndSwapOperation(byte[] key) {
+        return new CompareAndSwapOperation() {
+            private Long persistedConfigurationFingerprint;
+
+            @Override
+            public Optional<byte[]> getStateData() {
+                List<byte[]> fields = withResource(jedis -> jedis.hmget(key, RedisHashLayout.STATE_FIELD, RedisHashLayout.CONFIGURATION_FIELD));
+                persistedConfigurationFingerprint = RedisHashLayout.registerConfiguration(fields.get(1));
+                return Optional.ofNullable(fields.get(0));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                byte[] configuration = RedisHashLayout.getConfigurationToWrite(persistedConfigurationFingerprint, newState);
+                long ttlMillis = calculateTtlMillis(newState);
+                Object res;
+                if (originalData == null) {
+                    byte[][] keysAndArgs = ttlMillis > 0 ? new byte[][] {key, newData, configuration, encodeLong(ttlMillis)} : new byte[][] {key, newData, configuration};
+                    byte[] script = ttlMillis > 0 ? hashScriptCreatePx : hashScriptCreate;
+                    res = withResource(jedis -> jedis.eval(script, 1, keysAndArgs));
+                } else {
+                    byte[][] keysAndArgs = ttlMillis > 0 ? new byte[][] {key, originalData, newData, configuration, encodeLong(ttlMillis)} : new byte[][] {key, originalData, newData, configuration};
+                    byte[] script = ttlMillis > 0 ? hashScriptCompareAndSwapPx : hashScriptCompareAndSwap;
+                    res = withResource(jedis -> jedis.eval(script, 1, keysAndArgs));
+                }
+                return res != null && !res.equals(0L);
+            }
+        };
+    }
+
     @Override
     protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(byte[] key) {
         throw new UnsupportedOperationException();
@@ -117,6 +166,11 @@ public class JedisBasedProxyManager extends AbstractCompareAndSwapBasedProxyMana
                     "return 0; " +
             "end").getBytes(StandardCharsets.UTF_8);
 
+    private final byte[] hashScriptCreate = RedisHashLayout.CREATE_SCRIPT.getBytes(StandardCharsets.UTF_8);
+    private final byte[] hashScriptCreatePx = RedisHashLayout.CREATE_SCRIPT_PX.getBytes(StandardCharsets.UTF_8);
+    private final byte[] hashScriptCompareAndSwap = RedisHashLayout.COMPARE_AND_SWAP_SCRIPT.getBytes(StandardCharsets.UTF_8);
+    private final byte[] hashScriptCompareAndSwapPx = RedisHashLayout.COMPARE_AND_SWAP_SCRIPT_PX.getBytes(StandardCharsets.UTF_8);
+
     private Boolean compareAndSwap(byte[] key, byte[] originalData, byte[] newData, RemoteBucketState newState) {
         long ttlMillis = calculateTtlMillis(newState);
         if (ttlMillis > 0) {
@@ -28,6 +28,8 @@ import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompar
 import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
 import io.github.bucket4j.distributed.remote.RemoteBucketState;
 import io.github.bucket4j.redis.AbstractRedisProxyManagerBuilder;
+import io.github.bucket4j.redis.RedisHashLayout;
+import io.lettuce.core.KeyValue;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisException;
 import io.lettuce.core.RedisFuture;
@@ -37,6 +39,7 @@ import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.codec.ByteArrayCodec;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -46,6 +49,7 @@ public class LettuceBasedProxyManager extends AbstractCompareAndSwapBasedProxyMa
 
     private final RedisAsyncCommands<byte[], byte[]> commands;
     private final ExpirationAfterWriteStrategy expirationStrategy;
+    private final boolean hashLayout;
 
     public static LettuceBasedProxyManagerBuilder builderFor(RedisAsyncCommands<byte[], byte[]> redisAsyncCommands) {
         return new LettuceBasedProxyManagerBuilder(redisAsyncCommands);
@@ -62,11 +66,23 @@ public class LettuceBasedProxyManager extends AbstractCompareAndSwapBasedProxyMa
     public static class LettuceBasedProxyManagerBuilder extends AbstractRedisProxyManagerBuilder<LettuceBasedProxyManagerBuilder> {
 
         private final RedisAsyncCommands<byte[], byte[]> commands;
+        private boolean hashLayout;
 
         private LettuceBasedProxyManagerBuilder(RedisAsyncCommands<byte[], byte[]> commands) {
             this.commands = Objects.requireNonNull(commands);
         }
 
+        /**
+         * Stores buckets in Redis hashes, so compare-and-swap transfers and rewrites only mutable part of bucket,
+         * see {@link RedisHashLayout} for details.
+         *
+         * @return this builder instance
+         */
+        public LettuceBasedProxyManagerBuilder withHashLayout() {
+            this.hashLayout = true;
+            return this;
+        }
+
         public LettuceBasedProxyManager build() {
             return new LettuceBasedProxyManager(this);
         }
@@ -74,14 +90,32 @@ public class LettuceBasedProxyManager extends AbstractCompareAndSwapBasedProxyMa
     }
 
     private LettuceBasedProxyManager(LettuceBasedProxyManagerBuilder builder) {
-        super(builder.getClientSideConfig());
+        super(builder.hashLayout ? RedisHashLayout.adaptClientSideConfig(builder.getClientSideConfig()) : builder.getClientSideConfig());
         this.expirationStrategy = builder.getNotNullExpirationStrategy();
         this.commands = builder.commands;
+        this.hashLayout = builder.hashLayout;
     }
 
     @Override
     protected CompareAndSwapOperation beginCompareAndSwapOperation(byte[] key) {
         byte[][] keys = {key};
+        if (hashLayout) {
+            return new CompareAndSwapOperation() {
+                private Long persistedConfigurationFingerprint;
+
+                @Override
+                public Optional<byte[]> getStateData() {
+                    List<KeyValue<byte[], byte[]>> fields = getFutureValue(readHashFuture(key));
+                    persistedConfigurationFingerprint = RedisHashLayout.registerConfiguration(fields.get(1).getValueOrElse(null));
+                    return Optional.ofNullable(fields.get(0).getValueOrElse(null));
+                }
+
+                @Override
+                public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                    return getFutureValue(hashCompareAndSwapFuture(keys, originalData, newData, persistedConfigurationFingerprint, newState));
+                }
+            };
+        }
         return new CompareAndSwapOperation() {
             @Override
             public Optional<byte[]> getStateData() {
@@ -99,6 +133,25 @@ public class LettuceBasedProxyManager extends AbstractCompareAndSwapBasedProxyMa
     @Override
     protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(byte[] key) {
         byte[][] keys = {key};
+        if (hashLayout) {
+            return new AsyncCompareAndSwapOperation() {
+                private Long persistedConfigurationFingerprint;
+
+                @Override
+                public CompletableFuture<Optional<byte[]>> getStateData() {
+                    return convertToCompletableFuture(readHashFuture(key))
+                            .thenApply((List<KeyValue<byte[], byte[]>> fields) -> {
+                                persistedConfigurationFingerprint = RedisHashLayout.registerConfiguration(fields.get(1).getValueOrElse(null));
+                                return Optional.ofNullable(fields.get(0).getValueOrElse(null));
+                            });
+                }
+
+                @Override
+                public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                    return convertToCompletableFuture(hashCompareAndSwapFuture(keys, originalData, newData, persistedConfigurationFingerprint, newState));
+                }
+            };
+        }
         return new AsyncCompareAndSwapOperation() {
             @Override
             public CompletableFuture<Optional<byte[]>> getStateData() {
@@ -170,6 +223,32 @@ public class LettuceBasedProxyManager extends AbstractCompareAndSwapBasedProxyMa
         }
     }
 
+    private RedisFuture<List<KeyValue<byte[], byte[]>>> readHashFuture(byte[] key) {
+        return commands.hmget(key, RedisHashLayout.STATE_FIELD, RedisHashLayout.CONFIGURATION_FIELD);
+    }
+
+    private RedisFuture<Boolean> hashCompareAndSwapFuture(byte[][] keys, byte[] originalData, byte[] newData, Long persistedConfigurationFingerprint, RemoteBucketState newState) {
+        byte[] configuration = RedisHashLayout.getConfigurationToWrite(persistedConfigurationFingerprint, newState);
+        long ttlMillis = calculateTtlMillis(newState);
+        if (originalData == null) {
+            if (ttlMillis > 0) {
+                byte[][] params = {newData, configuration, encodeLong(ttlMillis)};
+                return commands.eval(RedisHashLayout.CREATE_SCRIPT_PX, ScriptOutputType.BOOLEAN, keys, params);
+            } else {
+                byte[][] params = {newData, configuration};
+                return commands.eval(RedisHashLayout.CREATE_SCRIPT, ScriptOutputType.BOOLEAN, keys, params);
+            }
+        } else {
+            if (ttlMillis > 0) {
+                byte[][] params = {originalData, newData, configuration, encodeLong(ttlMillis)};
+                return commands.eval(RedisHashLayout.COMPARE_AND_SWAP_SCRIPT_PX, ScriptOutputType.BOOLEAN, keys, params);
+            } else {
+                byte[][] params = {originalData, newData, configuration};
+                return commands.eval(RedisHashLayout.COMPARE_AND_SWAP_SCRIPT, ScriptOutputType.BOOLEAN, keys, params);
+            }
+        }
+    }
+
     private <T> CompletableFuture<T> convertToCompletableFuture(RedisFuture<T> redissonFuture) {
         CompletableFuture<T> jdkFuture = new CompletableFuture<>();
         redissonFuture.whenComplete((result, error) -> {
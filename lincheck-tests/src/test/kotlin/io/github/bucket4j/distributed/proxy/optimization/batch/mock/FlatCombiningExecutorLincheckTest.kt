@@ -0,0 +1,54 @@
+package io.github.bucket4j.distributed.proxy.optimization.batch.mock
+
+import org.jetbrains.kotlinx.lincheck.LinChecker
+import org.jetbrains.kotlinx.lincheck.LoggingLevel
+import org.jetbrains.kotlinx.lincheck.Options
+import org.jetbrains.kotlinx.lincheck.annotations.Operation
+import org.jetbrains.kotlinx.lincheck.annotations.Param
+import org.jetbrains.kotlinx.lincheck.paramgen.LongGen
+import org.jetbrains.kotlinx.lincheck.strategy.managed.modelchecking.ModelCheckingOptions
+import org.jetbrains.kotlinx.lincheck.strategy.stress.StressCTest
+import org.jetbrains.kotlinx.lincheck.strategy.stress.StressOptions
+import org.jetbrains.kotlinx.lincheck.verifier.VerifierState
+import org.jetbrains.kotlinx.lincheck.verifier.linearizability.LinearizabilityVerifier
+import org.junit.Test
+
+@StressCTest(verifier = LinearizabilityVerifier::class)
+@Param(name = "amount", gen = LongGen::class, conf = "1:20")
+class FlatCombiningExecutorLincheckTest  : VerifierState() {
+
+    private val mockExecutor = MockBatchExecutor()
+
+    @Operation
+    fun testFlatCombining(@Param(name = "amount") amount: Long): Long {
+        val cmd = SingleMockCommand(amount)
+        return mockExecutor.flatCombiningBatchHelper.execute(cmd)
+    }
+
+    @Test
+    fun runTest() {
+        val opts: Options<*, *> = StressOptions()
+                .iterations(10)
+                .threads(3)
+                .minimizeFailedScenario(true)
+                .logLevel(LoggingLevel.INFO)
+        LinChecker.check(FlatCombiningExecutorLincheckTest::class.java, opts)
+    }
+
+    @Test
+    fun runModelCheckingTest() {
+        // two threads never wait for the slot of ring with capacity 2, the model checker reports such spin-wait as livelock,
+        // waiting for the slot is covered by stress test above
+        val opts: Options<*, *> = ModelCheckingOptions()
+                .iterations(10)
+                .threads(2)
+                .minimizeFailedScenario(true)
+                .logLevel(LoggingLevel.INFO)
+        LinChecker.check(FlatCombiningExecutorLincheckTest::class.java, opts)
+    }
+
+    override fun extractState(): Any {
+        return mockExecutor.state.sum
+    }
+
+}
\ No newline at end of file